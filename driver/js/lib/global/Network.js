@@ -20,6 +20,7 @@
 
 /* eslint-disable no-undef */
 /* eslint-disable no-underscore-dangle */
+/* eslint-disable no-bitwise */
 
 global.Headers = class Headers {
   constructor(initValues) {
@@ -89,30 +90,224 @@ global.Headers = class Headers {
   }
 };
 
+const REPLACEMENT_CHARACTER = 0xFFFD;
+
+function utf8Decode(buffer) {
+  if (typeof TextDecoder === 'function') {
+    return new TextDecoder('utf-8').decode(buffer);
+  }
+  // Follows the decoder of the Encoding Standard, so overlong forms, surrogates and values
+  // above 0x10FFFF are replaced by U+FFFD the same way as TextDecoder.
+  const bytes = new Uint8Array(buffer);
+  let result = '';
+  // Leading byte order mark is stripped as TextDecoder does by default.
+  let i = (bytes[0] === 0xEF && bytes[1] === 0xBB && bytes[2] === 0xBF) ? 3 : 0;
+  while (i < bytes.length) {
+    const byte = bytes[i];
+    i += 1;
+    let codePoint = byte;
+    let needed = 0;
+    let lower = 0x80;
+    let upper = 0xBF;
+    if (byte >= 0xC2 && byte <= 0xDF) {
+      needed = 1;
+      codePoint = byte & 0x1F;
+    } else if (byte >= 0xE0 && byte <= 0xEF) {
+      needed = 2;
+      codePoint = byte & 0x0F;
+      if (byte === 0xE0) {
+        lower = 0xA0;
+      } else if (byte === 0xED) {
+        upper = 0x9F;
+      }
+    } else if (byte >= 0xF0 && byte <= 0xF4) {
+      needed = 3;
+      codePoint = byte & 0x07;
+      if (byte === 0xF0) {
+        lower = 0x90;
+      } else if (byte === 0xF4) {
+        upper = 0x8F;
+      }
+    } else if (byte >= 0x80) {
+      codePoint = REPLACEMENT_CHARACTER;
+    }
+    while (needed > 0) {
+      const next = bytes[i];
+      if (next === undefined || next < lower || next > upper) {
+        // Replace the malformed sequence, the unexpected byte starts the next one.
+        codePoint = REPLACEMENT_CHARACTER;
+        break;
+      }
+      codePoint = (codePoint << 6) | (next & 0x3F);
+      lower = 0x80;
+      upper = 0xBF;
+      needed -= 1;
+      i += 1;
+    }
+    result += String.fromCodePoint(codePoint);
+  }
+  return result;
+}
+
+function utf8Encode(text) {
+  if (typeof TextEncoder === 'function') {
+    return new TextEncoder().encode(text).buffer;
+  }
+  const bytes = [];
+  for (let i = 0; i < text.length; i += 1) {
+    let codePoint = text.codePointAt(i);
+    if (codePoint > 0xFFFF) {
+      // Skip the low surrogate of the pair.
+      i += 1;
+    } else if (codePoint >= 0xD800 && codePoint <= 0xDFFF) {
+      // Lone surrogate can not be encoded.
+      codePoint = REPLACEMENT_CHARACTER;
+    }
+    if (codePoint < 0x80) {
+      bytes.push(codePoint);
+    } else if (codePoint < 0x800) {
+      bytes.push(0xC0 | (codePoint >> 6), 0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      bytes.push(0xE0 | (codePoint >> 12), 0x80 | ((codePoint >> 6) & 0x3F),
+        0x80 | (codePoint & 0x3F));
+    } else {
+      bytes.push(0xF0 | (codePoint >> 18), 0x80 | ((codePoint >> 12) & 0x3F),
+        0x80 | ((codePoint >> 6) & 0x3F), 0x80 | (codePoint & 0x3F));
+    }
+  }
+  return new Uint8Array(bytes).buffer;
+}
+
+function toError(reason) {
+  return reason instanceof Error ? reason : new Error(reason);
+}
+
 global.Response = class Response {
   constructor(response) {
     const resp = response || {};
     this.status = resp.statusCode === undefined ? 200 : resp.statusCode;
     this.statusText = resp.statusLine || 'Not Found';
     this.headers = resp.respHeaders || {};
+    // Body is an ArrayBuffer when fetched with responseType 'arraybuffer'.
     this.body = resp.respBody || '';
+    // Set when fetched with responseType 'stream', the body is read by getReader() or onChunk().
+    this.streamId = resp.streamId;
+    this.bodyUsed = false;
     this.ok = this.status >= 200 && this.status <= 299;
   }
 
   json() {
-    return new Promise((resolve, reject) => {
-      let jsonify = null;
+    return this.text().then((text) => {
       try {
-        jsonify = JSON.parse(this.body);
-        resolve(jsonify);
+        return JSON.parse(text);
       } catch (e) {
-        reject(new Error('error parsing object'));
+        throw new Error('error parsing object');
       }
     });
   }
 
   text() {
-    return Promise.resolve(this.body);
+    if (this.streamId !== undefined) {
+      return Promise.reject(this._streamBodyError());
+    }
+    try {
+      return Promise.resolve(this._bodyText());
+    } catch (e) {
+      return Promise.reject(e);
+    }
+  }
+
+  arrayBuffer() {
+    if (this.streamId !== undefined) {
+      return Promise.reject(this._streamBodyError());
+    }
+    if (this.body instanceof ArrayBuffer) {
+      return Promise.resolve(this.body);
+    }
+    try {
+      return Promise.resolve(utf8Encode(String(this.body)));
+    } catch (e) {
+      return Promise.reject(e);
+    }
+  }
+
+  /**
+   * Get the reader of a stream response. Each read() pulls one chunk from native, so the
+   * network is only read as fast as the chunks are consumed.
+   * read() resolves with { done, value, loaded, total }, value is an ArrayBuffer.
+   */
+  getReader() {
+    if (this.streamId === undefined) {
+      throw new TypeError('getReader() is only supported by response of responseType stream');
+    }
+    if (this.bodyUsed) {
+      throw new TypeError('Body of stream response has already been read');
+    }
+    this.bodyUsed = true;
+    const { streamId } = this;
+    let closed = false;
+    return {
+      read() {
+        if (closed) {
+          return Promise.resolve({ done: true, value: undefined });
+        }
+        return Hippy.bridge.callNativeWithPromise('network', 'readStream', streamId).then((result) => {
+          if (result.done) {
+            closed = true;
+            return { done: true, value: undefined };
+          }
+          return {
+            done: false, value: result.chunk, loaded: result.loaded, total: result.total,
+          };
+        }, (reason) => {
+          closed = true;
+          throw toError(reason);
+        });
+      },
+      cancel() {
+        if (!closed) {
+          closed = true;
+          Hippy.bridge.callNative('network', 'cancelStream', streamId);
+        }
+        return Promise.resolve();
+      },
+    };
+  }
+
+  /**
+   * Read a stream response chunk by chunk, callback(chunk, { loaded, total }) may return a
+   * promise to hold the next read until it settles. Resolves when the stream ends, rejects and
+   * cancels the stream if reading or the callback fails.
+   */
+  onChunk(callback) {
+    let reader;
+    try {
+      reader = this.getReader();
+    } catch (e) {
+      return Promise.reject(e);
+    }
+    const pump = () => reader.read().then((result) => {
+      if (result.done) {
+        return undefined;
+      }
+      return Promise.resolve(callback(result.value, { loaded: result.loaded, total: result.total }))
+        .then(pump);
+    });
+    return pump().catch((e) => {
+      reader.cancel();
+      throw e;
+    });
+  }
+
+  _streamBodyError() {
+    return new TypeError('Body of stream response can only be read by getReader() or onChunk()');
+  }
+
+  _bodyText() {
+    if (this.body instanceof ArrayBuffer) {
+      return utf8Decode(this.body);
+    }
+    return this.body;
   }
 };
 
@@ -166,3 +166,17 @@ protected <fields>;
 public <fields>;
 public <methods>;
 }
+
+# prop setter generated by hippy-processor, looked up by the name of host class
+-keep class * implements com.tencent.renderer.utils.PropSetter {
+    public <init>();
+}
+
+# method dispatcher generated by hippy-processor, looked up by the name of module class
+-keep class * implements com.tencent.mtt.hippy.modules.nativemodules.HippyNativeMethodDispatcher {
+    public <init>();
+}
+
+-keepnames class * {
+    @com.tencent.mtt.hippy.annotation.HippyControllerProps <methods>;
+}
@@ -287,10 +287,21 @@ public abstract class HippyEngine {
         public List<Processor> processors;
         //Optional  is use V8 serialization or json
         public boolean enableV8Serialization = true;
+        // Optional, coalesce call natives posted in a row into one deserialization pass and one
+        // module thread message, default is false
+        public boolean enableBatchCallNatives = false;
         // 可选参数 是否打印引擎的完整的log。默认为false
         public boolean enableLog = false;
         // 可选参数 code cache的名字，如果设置为空，则不启用code cache，默认为 ""
         public String codeCacheTag = "";
+        // Optional, max byte size of the disk cache of encoded web images, 0 to disable
+        public long imageDiskCacheSize = 0;
+        // Optional, coalesce concurrent fetches of the same web resource and cache the responses
+        // following http cache headers, default is true
+        public boolean enableResourceCache = true;
+        // Optional, max byte size of the disk cache of web resources, 0 to disable, only used when
+        // enableResourceCache is true
+        public long resourceDiskCacheSize = 0;
 
         public ImageDecoderAdapter imageDecoderAdapter;
         //可选参数 接收RuntimeId
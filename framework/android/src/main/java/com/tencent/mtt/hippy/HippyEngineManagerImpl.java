@@ -36,6 +36,7 @@ import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.openhippy.connector.DomManager;
+import com.openhippy.pool.ImageCacheStatistics;
 import com.openhippy.connector.JsDriver;
 import com.openhippy.connector.NativeRenderConnector;
 import com.openhippy.connector.RenderConnector;
@@ -43,6 +44,8 @@ import com.openhippy.framework.BuildConfig;
 import com.tencent.devtools.DevtoolsManager;
 import com.tencent.mtt.hippy.adapter.device.HippyDeviceAdapter;
 import com.tencent.mtt.hippy.adapter.executor.HippyExecutorSupplierAdapter;
+import com.tencent.mtt.hippy.adapter.monitor.HippyEngineMonitorAdapter;
+import com.tencent.mtt.hippy.adapter.monitor.HippyImageCacheMonitorAdapter;
 import com.tencent.mtt.hippy.adapter.thirdparty.HippyThirdPartyAdapter;
 import com.tencent.mtt.hippy.bridge.HippyBridgeManager;
 import com.tencent.mtt.hippy.bridge.HippyBridgeManagerImpl;
@@ -63,6 +66,8 @@ import com.tencent.mtt.hippy.modules.HippyModulePromise.BridgeTransferType;
 import com.tencent.mtt.hippy.modules.javascriptmodules.Dimensions;
 import com.tencent.mtt.hippy.modules.javascriptmodules.EventDispatcher;
 import com.tencent.mtt.hippy.modules.nativemodules.deviceevent.DeviceEventModule;
+import com.tencent.mtt.hippy.serialization.string.ConcurrentStringTable;
+import com.tencent.mtt.hippy.serialization.string.StringTable;
 import com.tencent.mtt.hippy.uimanager.HippyCustomViewCreator;
 import com.tencent.mtt.hippy.uimanager.RenderManager;
 import com.tencent.mtt.hippy.utils.DimensionsUtil;
@@ -73,14 +78,19 @@ import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import com.tencent.mtt.hippy.views.modal.HippyModalHostManager;
 import com.tencent.mtt.hippy.views.modal.HippyModalHostView;
 import com.tencent.renderer.FrameworkProxy;
+import com.tencent.renderer.ImageCacheProxy;
+import com.tencent.renderer.StringTableProxy;
 import com.tencent.renderer.NativeRenderContext;
 import com.tencent.renderer.component.image.ImageDecoderAdapter;
 import com.tencent.renderer.component.text.FontAdapter;
 import com.tencent.renderer.node.RenderNode;
 import com.tencent.vfs.DefaultProcessor;
+import com.tencent.vfs.HttpCacheProcessor;
 import com.tencent.vfs.Processor;
+import com.tencent.vfs.ResponseCache;
 import com.tencent.vfs.VfsManager;
 import com.openhippy.connector.JsDriver.V8InitParams;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -90,9 +100,11 @@ import java.util.concurrent.Executor;
 
 @SuppressWarnings({"deprecation", "unused"})
 public abstract class HippyEngineManagerImpl extends HippyEngineManager implements
-        DevServerCallBack, FrameworkProxy, ThreadExecutor.UncaughtExceptionHandler {
+        DevServerCallBack, FrameworkProxy, ImageCacheProxy, StringTableProxy,
+        ThreadExecutor.UncaughtExceptionHandler {
 
     static final String TAG = "HippyEngineManagerImpl";
+    private static final String RESOURCE_DISK_CACHE_DIR = "hippy_resource_cache";
     /**
      * global configuration
      */
@@ -129,6 +141,10 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
     private final String mRemoteServerUrl;
     private ViewGroup mRootView;
     final boolean enableV8Serialization;
+    private final boolean mEnableBatchCallNatives;
+    private final long mImageDiskCacheSize;
+    private final boolean mEnableResourceCache;
+    private final long mResourceDiskCacheSize;
     private long mInitStartTime = 0;
     private final TimeMonitor mMonitor;
     private final HippyThirdPartyAdapter mThirdPartyAdapter;
@@ -155,6 +171,10 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
         mDebugMode = params.debugMode;
         mServerBundleName = params.debugMode ? params.debugBundleName : "";
         enableV8Serialization = params.enableV8Serialization;
+        mEnableBatchCallNatives = params.enableBatchCallNatives;
+        mImageDiskCacheSize = params.imageDiskCacheSize;
+        mEnableResourceCache = params.enableResourceCache;
+        mResourceDiskCacheSize = params.resourceDiskCacheSize;
         mServerHost = params.debugServerHost;
         mRemoteServerUrl = params.remoteServerUrl;
         mGroupId = params.groupId;
@@ -318,6 +338,12 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
         return mEngineContext.getVfsManager();
     }
 
+    @Override
+    @Nullable
+    public StringTable getStringTable() {
+        return (mEngineContext != null) ? mEngineContext.getStringTable() : null;
+    }
+
     @Nullable
     public Executor getBackgroundExecutor() {
         HippyExecutorSupplierAdapter adapter = mEngineContext.getGlobalConfigs()
@@ -325,6 +351,20 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
         return (adapter != null) ? adapter.getBackgroundTaskExecutor() : null;
     }
 
+    @Override
+    public long getImageDiskCacheSize() {
+        return mImageDiskCacheSize;
+    }
+
+    @Override
+    public void onImageCacheStatistics(@NonNull ImageCacheStatistics statistics) {
+        HippyEngineMonitorAdapter monitorAdapter = mGlobalConfigs.getEngineMonitorAdapter();
+        if (mEngineContext != null && monitorAdapter instanceof HippyImageCacheMonitorAdapter) {
+            ((HippyImageCacheMonitorAdapter) monitorAdapter)
+                    .onImageCacheStatistics(mEngineContext.getComponentName(), statistics);
+        }
+    }
+
     @Override
     public Object getCustomViewCreator() {
         if (moduleLoadParams != null && moduleLoadParams.nativeParams != null) {
@@ -856,6 +896,8 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
         private final JsDriver mJsDriver;
         @NonNull
         private final VfsManager mVfsManager;
+        @NonNull
+        private final ConcurrentStringTable mStringTable = new ConcurrentStringTable();
         @Nullable
         private DevtoolsManager mDevtoolsManager;
         @Nullable
@@ -867,6 +909,9 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
             DefaultProcessor defaultProcessor = new DefaultProcessor(new HippyResourceLoader(this));
             PerformanceProcessor performanceProcessor = new PerformanceProcessor(this);
             mVfsManager.addProcessorAtFirst(performanceProcessor);
+            if (mEnableResourceCache) {
+                mVfsManager.addProcessorAtLast(createHttpCacheProcessor());
+            }
             mVfsManager.addProcessorAtLast(defaultProcessor);
             if (mDebugMode) {
                 mDevtoolsManager = new DevtoolsManager(true);
@@ -877,7 +922,7 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
                 //mVfsManager.addProcessorAtFirst(new DevtoolsProcessor(mDevtoolsManager.getId()));
             }
             mModuleManager = new HippyModuleManagerImpl(this, mProviders,
-                    enableV8Serialization);
+                    enableV8Serialization, mEnableBatchCallNatives, mStringTable);
             mJsDriver = new JsDriver();
             mBridgeManager = new HippyBridgeManagerImpl(this, mCoreBundleLoader,
                     getBridgeType(), enableV8Serialization, mDebugMode,
@@ -899,6 +944,19 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
             mRenderer.init(controllers, mRootView);
         }
 
+        @NonNull
+        private HttpCacheProcessor createHttpCacheProcessor() {
+            File diskCacheDir = null;
+            if (mResourceDiskCacheSize > 0) {
+                diskCacheDir = new File(getGlobalConfigs().getContext().getCacheDir(),
+                        RESOURCE_DISK_CACHE_DIR);
+            }
+            ResponseCache cache = new ResponseCache(ResponseCache.DEFAULT_MEMORY_CACHE_SIZE,
+                    diskCacheDir, mResourceDiskCacheSize);
+            return new HttpCacheProcessor(cache,
+                    getGlobalConfigs().getExecutorSupplierAdapter().getBackgroundTaskExecutor());
+        }
+
         private RenderConnector createRenderer(String rendererName) {
             RenderConnector renderer = null;
             try {
@@ -985,6 +1043,15 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
             return mVfsManager;
         }
 
+        /**
+         * The string table shared by all deserializers of this engine, including the module
+         * manager and the native renderer.
+         */
+        @NonNull
+        public StringTable getStringTable() {
+            return mStringTable;
+        }
+
         @Override
         public HippyModuleManager getModuleManager() {
             return mModuleManager;
@@ -1172,6 +1239,8 @@ public abstract class HippyEngineManagerImpl extends HippyEngineManager implemen
                 mDomManager.destroy();
             }
             mModuleManager.destroy();
+            mStringTable.release();
+            LogUtils.d(TAG, "destroy: " + mVfsManager.getFetchTimingStats());
             mVfsManager.destroy();
             onDestroyVfs(mVfsManager.getId());
             if (mEngineLifecycleEventListeners != null) {
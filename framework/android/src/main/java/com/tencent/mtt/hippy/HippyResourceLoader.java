@@ -31,9 +31,7 @@ import com.tencent.vfs.ResourceLoader;
 import com.tencent.vfs.UrlUtils;
 import com.tencent.vfs.VfsManager.ProcessorCallback;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 
 public class HippyResourceLoader implements ResourceLoader {
 
@@ -116,30 +114,22 @@ public class HippyResourceLoader implements ResourceLoader {
             holder.resultCode = FetchResultCode.ERR_UNKNOWN_SCHEME.ordinal();
             return;
         }
-        InputStream inputStream = null;
         try {
+            // Large files are memory mapped, avoid copying bundles and fonts into java heap.
             if (isAssetsFile) {
-                inputStream = ContextHolder.getAppContext().getAssets().open(fileName);
+                holder.readResourceDataFromAsset(ContextHolder.getAppContext().getAssets(),
+                        fileName);
             } else {
-                inputStream = new FileInputStream(fileName);
+                holder.readResourceDataFromFile(new File(fileName));
             }
-            holder.readResourceDataFromStream(inputStream);
             holder.resultCode = FetchResultCode.OK.ordinal();
         } catch (IOException | NullPointerException e) {
             onLoadLocalResourceFailed(holder, e);
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
     @Override
-    public boolean fetchResourceSync(@NonNull ResourceDataHolder holder) {
+    public boolean fetchResourceSync(@NonNull final ResourceDataHolder holder) {
         if (UrlUtils.isLocalUrl(holder.uri)) {
             loadLocalFileResource(holder);
         } else if (UrlUtils.isWebUrl(holder.uri)) {
@@ -151,6 +141,13 @@ public class HippyResourceLoader implements ResourceLoader {
 
                 @Override
                 public void onHandleCompleted() {
+                    // Read the streaming body on the http thread, the sync caller may not be
+                    // allowed to do network IO.
+                    try {
+                        holder.materialize();
+                    } catch (IOException e) {
+                        holder.errorMessage = e.getMessage();
+                    }
                     synchronized (mRemoteSyncObject) {
                         mRemoteSyncObject.notify();
                     }
@@ -29,12 +29,13 @@ import com.tencent.mtt.hippy.HippyResourceLoader.FetchResultCode;
 import com.tencent.mtt.hippy.modules.Promise;
 import com.tencent.mtt.hippy.utils.LogUtils;
 import com.tencent.vfs.ResourceDataHolder;
+import com.tencent.vfs.VfsManager.FetchResourceCallback;
 import com.tencent.vfs.VfsManager.ProcessorCallback;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -46,12 +47,25 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.GZIPInputStream;
 
 public class DefaultHttpAdapter implements HippyHttpAdapter {
 
+    /**
+     * A detached response body which is neither read nor closed for this time is closed by the
+     * adapter, to release the connection held by a consumer which never finishes reading it.
+     */
+    public static final long DEFAULT_DETACHED_BODY_IDLE_TIMEOUT_MILLIS = 60 * 1000;
     private static final String TAG = "DefaultHttpAdapter";
+    @Nullable
+    private static ScheduledExecutorService sBodyWatchdog;
     private ExecutorService mExecutorService;
+    private volatile long mDetachedBodyIdleTimeoutMillis =
+            DEFAULT_DETACHED_BODY_IDLE_TIMEOUT_MILLIS;
 
     protected void execute(Runnable runnable) {
         if (mExecutorService == null) {
@@ -69,6 +83,16 @@ public class DefaultHttpAdapter implements HippyHttpAdapter {
         sendRequest(httpRequest, new HttpTaskCallbackImpl(holder, callback));
     }
 
+    /**
+     * Set the idle timeout of detached response bodies.
+     *
+     * @param timeoutMillis the timeout in milliseconds, or a value not greater than 0 to keep
+     *         idle bodies open until closed by the consumer
+     */
+    public void setDetachedBodyIdleTimeout(long timeoutMillis) {
+        mDetachedBodyIdleTimeoutMillis = timeoutMillis;
+    }
+
     @Override
     public void getCookie(String url, Promise promise) {
         CookieManager cookieManager = getCookieManager();
@@ -112,30 +136,116 @@ public class DefaultHttpAdapter implements HippyHttpAdapter {
         execute(new Runnable() {
             @Override
             public void run() {
-                HippyHttpResponse response = null;
-                HttpURLConnection connection = null;
-                try {
-                    connection = createConnection(request);
-                    fillHeader(connection, request);
-                    fillPostBody(connection, request);
-                    if (connection.getResponseCode() == 302) {
-                        handleRedirectRequest(request, callback, connection);
-                    } else {
-                        response = createResponse(connection);
-                        callback.onTaskSuccess(request, response);
-                    }
-                } catch (Throwable e) {
-                    callback.onTaskFailed(request, e);
-                } finally {
-                    if (response != null) {
-                        response.close();
-                    }
-                    if (connection != null) {
-                        connection.disconnect();
+                performRequest(request, callback, null);
+            }
+        });
+    }
+
+    /**
+     * Send request and wait for response on the current thread.
+     *
+     * <p>
+     * If the task callback detached the response body by
+     * {@link HippyHttpResponse#detachInputStream()}, the connection is released when the
+     * detached stream is closed instead of when this method returns, or when the detached stream
+     * is left unread longer than the idle timeout, see {@link #setDetachedBodyIdleTimeout(long)}.
+     * </p>
+     *
+     * @param releaseCallback called once after the connection is released
+     */
+    protected void performRequest(@NonNull final HippyHttpRequest request,
+            @NonNull final HttpTaskCallback callback, @Nullable final Runnable releaseCallback) {
+        HippyHttpResponse response = null;
+        HttpURLConnection connection = null;
+        final AtomicBoolean reusable = new AtomicBoolean(true);
+        try {
+            connection = createConnection(request);
+            fillHeader(connection, request);
+            fillPostBody(connection, request);
+            if (connection.getResponseCode() == 302) {
+                reusable.set(false);
+                handleRedirectRequest(request, callback, connection);
+            } else {
+                response = createResponse(connection);
+                final HttpURLConnection responseConnection = connection;
+                response.setReleaseAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        releaseConnection(responseConnection, reusable.get());
+                        if (releaseCallback != null) {
+                            releaseCallback.run();
+                        }
                     }
+                });
+                callback.onTaskSuccess(request, response);
+            }
+        } catch (Throwable e) {
+            reusable.set(false);
+            callback.onTaskFailed(request, e);
+        } finally {
+            if (response == null) {
+                if (connection != null) {
+                    releaseConnection(connection, false);
+                }
+                if (releaseCallback != null) {
+                    releaseCallback.run();
                 }
+            } else if (!reusable.get() || !response.isBodyDetached()) {
+                response.close();
+            } else {
+                watchDetachedBody(response);
             }
-        });
+        }
+    }
+
+    private void watchDetachedBody(@NonNull final HippyHttpResponse response) {
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(mDetachedBodyIdleTimeoutMillis);
+        if (timeoutNanos <= 0) {
+            return;
+        }
+        getBodyWatchdog().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (response.isClosed()) {
+                    return;
+                }
+                long idleNanos = response.getDetachedIdleNanos();
+                if (idleNanos >= timeoutNanos) {
+                    LogUtils.w(TAG, "close detached response body, idle for "
+                            + TimeUnit.NANOSECONDS.toMillis(idleNanos) + "ms");
+                    response.close();
+                } else {
+                    getBodyWatchdog().schedule(this, timeoutNanos - idleNanos,
+                            TimeUnit.NANOSECONDS);
+                }
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @NonNull
+    private static synchronized ScheduledExecutorService getBodyWatchdog() {
+        if (sBodyWatchdog == null) {
+            sBodyWatchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    Thread thread = new Thread(runnable, "hippy-http-watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sBodyWatchdog;
+    }
+
+    /**
+     * Release connection after the response is closed.
+     *
+     * @param connection the connection to release
+     * @param reusable true if the response has been closed normally, the connection can be kept
+     *         alive for next request to the same host
+     */
+    protected void releaseConnection(@NonNull HttpURLConnection connection, boolean reusable) {
+        connection.disconnect();
     }
 
     protected HippyHttpResponse createResponse(HttpURLConnection urlConnection) throws Exception {
@@ -342,33 +452,42 @@ public class DefaultHttpAdapter implements HippyHttpAdapter {
                     response.getStatusCode().toString());
             mDataHolder.addResponseHeaderProperty(HTTP_RESPONSE_RESPONSE_MESSAGE,
                     response.getResponseMessage());
+            // Headers of non 200 response are also needed, such as validators of 304 which
+            // are merged to the cached entry by cache processor.
+            copyResponseHeaders(request, response);
             InputStream inputStream = response.getInputStream();
             if (response.getStatusCode() != 200 || inputStream == null) {
                 if (response.getErrorStream() != null) {
-                    StringBuilder sb = new StringBuilder();
-                    String readLine;
-                    //noinspection CharsetObjectCanBeUsed
-                    BufferedReader bfReader = new BufferedReader(
-                            new InputStreamReader(response.getErrorStream(), "UTF-8"));
-                    while ((readLine = bfReader.readLine()) != null) {
-                        sb.append(readLine);
-                        sb.append("\r\n");
-                    }
-                    mDataHolder.errorMessage = sb.toString();
+                    mDataHolder.errorMessage = readErrorMessage(response.getErrorStream());
                 }
                 mCallback.onHandleCompleted();
                 return;
             }
             try {
+                long contentLength = -1;
+                inputStream = response.detachInputStream();
                 if (isGzipRequest(request)) {
                     inputStream = new GZIPInputStream(inputStream);
+                } else {
+                    contentLength = parseContentLength(
+                            response.getHeaderField(HttpHeader.RSP.CONTENT_LENGTH));
                 }
-                mDataHolder.readResourceDataFromStream(inputStream);
+                // The body is read by the consumer of holder, the connection is kept open
+                // until the content is consumed or the holder is recycled.
+                mDataHolder.setResourceChannel(
+                        new ProgressInputStream(inputStream, contentLength, mDataHolder),
+                        contentLength);
             } catch (IOException e) {
+                response.close();
                 mDataHolder.errorMessage = e.getMessage();
                 mCallback.onHandleCompleted();
                 return;
             }
+            mCallback.onHandleCompleted();
+        }
+
+        private void copyResponseHeaders(@NonNull HippyHttpRequest request,
+                @NonNull HippyHttpResponse response) {
             Map<String, List<String>> headers = response.getRspHeaderMaps();
             if (headers != null && !headers.isEmpty()) {
                 boolean hasCookie = false;
@@ -396,7 +515,6 @@ public class DefaultHttpAdapter implements HippyHttpAdapter {
                     cookieManager.flush();
                 }
             }
-            mCallback.onHandleCompleted();
         }
 
         @Override
@@ -409,6 +527,72 @@ public class DefaultHttpAdapter implements HippyHttpAdapter {
         }
     }
 
+    @NonNull
+    private static String readErrorMessage(@NonNull InputStream errorStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = errorStream.read(buffer)) > 0) {
+            output.write(buffer, 0, count);
+        }
+        return output.toString("UTF-8");
+    }
+
+    private static long parseContentLength(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Report loading progress to the fetch callback of holder while the body is being read.
+     */
+    private static class ProgressInputStream extends FilterInputStream {
+
+        private final long mTotal;
+        @NonNull
+        private final ResourceDataHolder mHolder;
+        private long mLoaded;
+
+        ProgressInputStream(@NonNull InputStream in, long total,
+                @NonNull ResourceDataHolder holder) {
+            super(in);
+            mTotal = total;
+            mHolder = holder;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                onRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                onRead(count);
+            }
+            return count;
+        }
+
+        private void onRead(int count) {
+            mLoaded += count;
+            FetchResourceCallback callback = mHolder.callback;
+            if (callback != null) {
+                callback.onFetchProgress(mTotal, mLoaded);
+            }
+        }
+    }
+
     private boolean isGzipRequest(@NonNull HippyHttpRequest request) {
         HashMap<String, String> headers = request.getHeaders();
         for (Map.Entry<String, String> header : headers.entrySet()) {
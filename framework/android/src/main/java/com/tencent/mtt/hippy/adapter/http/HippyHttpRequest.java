@@ -35,6 +35,14 @@ public class HippyHttpRequest {
     public static final String HTTP_METHOD = "method";
     public static final String HTTP_REDIRECT = "redirect";
     public static final String HTTP_BODY = "body";
+    /**
+     * Optional init param of request priority, requests with smaller value are sent first by
+     * adapters which support priority, such as {@link PooledHttpAdapter}.
+     */
+    public static final String HTTP_PRIORITY = "priority";
+    public static final int PRIORITY_HIGH = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_LOW = 2;
 
     private static String USER_AGENT = null;
     private int mConnectTimeout = DEFAULT_TIMEOUT_MS;
@@ -133,6 +141,18 @@ public class HippyHttpRequest {
         return "GET";
     }
 
+    public int getPriority() {
+        String priority = (mInitParams != null) ? mInitParams.get(HTTP_PRIORITY) : null;
+        if (!TextUtils.isEmpty(priority)) {
+            try {
+                return Integer.parseInt(priority.trim());
+            } catch (NumberFormatException ignored) {
+                // Fall through to use the normal priority.
+            }
+        }
+        return PRIORITY_NORMAL;
+    }
+
     public boolean isInstanceFollowRedirects() {
         String redirect = (mInitParams != null) ? mInitParams.get(HTTP_REDIRECT) : null;
         return !TextUtils.isEmpty(redirect) && TextUtils.equals("follow", redirect);
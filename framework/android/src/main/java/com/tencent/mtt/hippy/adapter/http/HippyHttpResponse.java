@@ -18,6 +18,8 @@ package com.tencent.mtt.hippy.adapter.http;
 
 import android.text.TextUtils;
 
+import androidx.annotation.Nullable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -39,6 +41,14 @@ public class HippyHttpResponse {
 
   private InputStream mErrorStream;
 
+  private Runnable mReleaseAction;
+
+  private boolean mBodyDetached = false;
+
+  private volatile boolean mClosed = false;
+
+  private volatile long mLastReadNanos;
+
   public Integer getStatusCode() {
     return mStatusCode != null ? mStatusCode : UNKNOWN_STATUS;
   }
@@ -96,7 +106,87 @@ public class HippyHttpResponse {
     return mResponseMessage;
   }
 
+  /**
+   * Set by http adapter, run once when the response is closed, or the detached body is closed.
+   */
+  public void setReleaseAction(@Nullable Runnable action) {
+    mReleaseAction = action;
+  }
+
+  public boolean isBodyDetached() {
+    return mBodyDetached;
+  }
+
+  /**
+   * Take over the body stream, then the response is not closed when the task callback returns,
+   * the connection is kept open until the returned stream is closed.
+   *
+   * @return the body stream, null if there is no body
+   */
+  @Nullable
+  public InputStream detachInputStream() {
+    if (mInputStream == null) {
+      return null;
+    }
+    mBodyDetached = true;
+    mLastReadNanos = System.nanoTime();
+    return new FilterInputStream(mInputStream) {
+      private boolean mStreamClosed = false;
+
+      @Override
+      public int read() throws IOException {
+        ensureOpen();
+        int b = super.read();
+        mLastReadNanos = System.nanoTime();
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        int count = super.read(b, off, len);
+        mLastReadNanos = System.nanoTime();
+        return count;
+      }
+
+      /**
+       * The connection stream may return end of stream after closed, which would be taken as
+       * complete content, so report the response closed by adapter as an error.
+       */
+      private void ensureOpen() throws IOException {
+        if (mClosed) {
+          throw new IOException("Response body is closed");
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (mStreamClosed) {
+          return;
+        }
+        mStreamClosed = true;
+        try {
+          super.close();
+        } finally {
+          HippyHttpResponse.this.close();
+        }
+      }
+    };
+  }
+
+  boolean isClosed() {
+    return mClosed;
+  }
+
+  /**
+   * @return the time since the detached body was last read, or detached if never read
+   */
+  long getDetachedIdleNanos() {
+    return System.nanoTime() - mLastReadNanos;
+  }
+
   public void close() {
+    mClosed = true;
     if (mInputStream != null) {
       try {
         mInputStream.close();
@@ -112,5 +202,14 @@ public class HippyHttpResponse {
         e.printStackTrace();
       }
     }
+
+    Runnable releaseAction;
+    synchronized (this) {
+      releaseAction = mReleaseAction;
+      mReleaseAction = null;
+    }
+    if (releaseAction != null) {
+      releaseAction.run();
+    }
   }
 }
@@ -0,0 +1,303 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.mtt.hippy.adapter.http;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Http adapter which dispatches requests by priority with limited concurrency per host, and
+ * keeps connections alive for reuse.
+ *
+ * <p>
+ * Requests are sent in order of {@link HippyHttpRequest#getPriority()}, and then in order of
+ * arrival. A request occupies the concurrency of its host until its response body is closed,
+ * since a streaming body detached by {@link HippyHttpResponse#detachInputStream()} keeps the
+ * connection open, a detached body left unread is closed after
+ * {@link #setDetachedBodyIdleTimeout(long)}. Closed connections are not disconnected, so the connection pool of
+ * {@link HttpURLConnection} can reuse them for next requests to the same host.
+ * </p>
+ */
+public class PooledHttpAdapter extends DefaultHttpAdapter {
+
+    public static final int DEFAULT_MAX_REQUESTS = 16;
+    /**
+     * Same as the default max idle connections per host of {@link HttpURLConnection} pool.
+     */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final String DESTROYED_MESSAGE = "Http adapter is destroyed!";
+    private final Object mLock = new Object();
+    /**
+     * Pending tasks sorted by priority and sequence.
+     */
+    private final ArrayList<RequestTask> mReadyTasks = new ArrayList<>();
+    private final HashMap<String, Integer> mRunningCountPerHost = new HashMap<>();
+    private final HashMap<String, Integer> mMaxRequestsForHost = new HashMap<>();
+    private int mMaxRequests;
+    private int mMaxRequestsPerHost;
+    private int mRunningCount;
+    private long mSequence;
+    private boolean mDestroyed;
+    @Nullable
+    private ThreadPoolExecutor mExecutor;
+
+    public PooledHttpAdapter() {
+        this(DEFAULT_MAX_REQUESTS, DEFAULT_MAX_REQUESTS_PER_HOST);
+    }
+
+    public PooledHttpAdapter(int maxRequests, int maxRequestsPerHost) {
+        mMaxRequests = Math.max(1, maxRequests);
+        mMaxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+    }
+
+    public void setMaxRequests(int maxRequests) {
+        synchronized (mLock) {
+            mMaxRequests = Math.max(1, maxRequests);
+        }
+        promoteAndExecute();
+    }
+
+    public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+        synchronized (mLock) {
+            mMaxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+        }
+        promoteAndExecute();
+    }
+
+    /**
+     * Override the concurrency limit of the host.
+     *
+     * @param host the host name of request url
+     * @param maxRequests the max concurrent requests, or a value not greater than 0 to use
+     *         the default limit
+     */
+    public void setMaxRequestsForHost(@NonNull String host, int maxRequests) {
+        synchronized (mLock) {
+            if (maxRequests > 0) {
+                mMaxRequestsForHost.put(host, maxRequests);
+            } else {
+                mMaxRequestsForHost.remove(host);
+            }
+        }
+        promoteAndExecute();
+    }
+
+    public int getRunningCount() {
+        synchronized (mLock) {
+            return mRunningCount;
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (mLock) {
+            return mReadyTasks.size();
+        }
+    }
+
+    @Override
+    public void sendRequest(@NonNull final HippyHttpRequest request,
+            @NonNull final HttpTaskCallback callback) {
+        boolean destroyed;
+        synchronized (mLock) {
+            destroyed = mDestroyed;
+            if (!destroyed) {
+                RequestTask task = new RequestTask(request, callback, getHost(request),
+                        request.getPriority(), mSequence++);
+                int index = Collections.binarySearch(mReadyTasks, task);
+                mReadyTasks.add((index < 0) ? (-index - 1) : index, task);
+            }
+        }
+        if (destroyed) {
+            callback.onTaskFailed(request, new IllegalStateException(DESTROYED_MESSAGE));
+            return;
+        }
+        promoteAndExecute();
+    }
+
+    @Override
+    protected void releaseConnection(@NonNull HttpURLConnection connection, boolean reusable) {
+        // Connection closed normally is returned to the pool when its stream is closed,
+        // disconnect would close the socket.
+        if (!reusable) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Fail the pending requests, and the requests sent after destroyed. The running requests are
+     * not interrupted, and release their concurrency when finished.
+     */
+    @Override
+    public void destroyIfNeed() {
+        List<RequestTask> pendingTasks;
+        synchronized (mLock) {
+            mDestroyed = true;
+            pendingTasks = new ArrayList<>(mReadyTasks);
+            mReadyTasks.clear();
+            if (mExecutor != null) {
+                mExecutor.shutdown();
+                mExecutor = null;
+            }
+        }
+        for (RequestTask task : pendingTasks) {
+            task.mCallback.onTaskFailed(task.mRequest,
+                    new IllegalStateException(DESTROYED_MESSAGE));
+        }
+        super.destroyIfNeed();
+    }
+
+    private void promoteAndExecute() {
+        List<RequestTask> executableTasks = null;
+        ThreadPoolExecutor executor;
+        synchronized (mLock) {
+            int i = 0;
+            while (i < mReadyTasks.size() && mRunningCount < mMaxRequests) {
+                RequestTask task = mReadyTasks.get(i);
+                Integer hostCount = mRunningCountPerHost.get(task.mHost);
+                int count = (hostCount != null) ? hostCount : 0;
+                if (count >= getMaxRequestsForHost(task.mHost)) {
+                    i++;
+                    continue;
+                }
+                mReadyTasks.remove(i);
+                mRunningCountPerHost.put(task.mHost, count + 1);
+                mRunningCount++;
+                if (executableTasks == null) {
+                    executableTasks = new ArrayList<>();
+                }
+                executableTasks.add(task);
+            }
+            if (executableTasks == null) {
+                return;
+            }
+            executor = obtainExecutor();
+        }
+        for (RequestTask task : executableTasks) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // The executor is shutdown by destroy concurrently.
+                task.mCallback.onTaskFailed(task.mRequest, e);
+                onTaskFinished(task);
+            }
+        }
+    }
+
+    private int getMaxRequestsForHost(@NonNull String host) {
+        Integer max = mMaxRequestsForHost.get(host);
+        return (max != null) ? max : mMaxRequestsPerHost;
+    }
+
+    private void onTaskFinished(@NonNull RequestTask task) {
+        synchronized (mLock) {
+            mRunningCount--;
+            Integer hostCount = mRunningCountPerHost.get(task.mHost);
+            if (hostCount == null || hostCount <= 1) {
+                mRunningCountPerHost.remove(task.mHost);
+            } else {
+                mRunningCountPerHost.put(task.mHost, hostCount - 1);
+            }
+        }
+        promoteAndExecute();
+    }
+
+    @NonNull
+    private ThreadPoolExecutor obtainExecutor() {
+        if (mExecutor == null) {
+            // The concurrency is limited by dispatcher, so threads are created on demand and
+            // recycled when idle.
+            mExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, THREAD_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger mCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    return new Thread(runnable, "hippy-http-" + mCount.incrementAndGet());
+                }
+            });
+        }
+        return mExecutor;
+    }
+
+    @NonNull
+    private static String getHost(@NonNull HippyHttpRequest request) {
+        String url = request.getUrl();
+        if (url == null) {
+            return "";
+        }
+        try {
+            String host = new URL(url).getHost();
+            return (host != null) ? host : "";
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    private class RequestTask implements Runnable, Comparable<RequestTask> {
+
+        @NonNull
+        final HippyHttpRequest mRequest;
+        @NonNull
+        final HttpTaskCallback mCallback;
+        @NonNull
+        final String mHost;
+        final int mPriority;
+        final long mSequence;
+
+        RequestTask(@NonNull HippyHttpRequest request, @NonNull HttpTaskCallback callback,
+                @NonNull String host, int priority, long sequence) {
+            mRequest = request;
+            mCallback = callback;
+            mHost = host;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            performRequest(mRequest, mCallback, new Runnable() {
+                @Override
+                public void run() {
+                    onTaskFinished(RequestTask.this);
+                }
+            });
+        }
+
+        @Override
+        public int compareTo(@NonNull RequestTask other) {
+            if (mPriority != other.mPriority) {
+                return (mPriority < other.mPriority) ? -1 : 1;
+            }
+            return (mSequence < other.mSequence) ? -1 : ((mSequence == other.mSequence) ? 0 : 1);
+        }
+    }
+}
@@ -19,12 +19,14 @@ package com.tencent.mtt.hippy.adapter.monitor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.openhippy.pool.ImageCacheStatistics;
 import com.tencent.mtt.hippy.HippyEngine.EngineInitStatus;
 import com.tencent.mtt.hippy.HippyEngine.ModuleLoadStatus;
 import com.tencent.mtt.hippy.bridge.HippyCallNativeParams;
 import com.tencent.mtt.hippy.utils.LogUtils;
 
-public class DefaultEngineMonitorAdapter implements HippyEngineMonitorAdapter {
+public class DefaultEngineMonitorAdapter implements HippyEngineMonitorAdapter,
+        HippyImageCacheMonitorAdapter {
 
     private static final String TAG = "DefaultEngineMonitorAdapter";
 
@@ -68,4 +70,10 @@ public class DefaultEngineMonitorAdapter implements HippyEngineMonitorAdapter {
             @Nullable Object callbackResult) {
         return false;
     }
+
+    @Override
+    public void onImageCacheStatistics(@NonNull String componentName,
+            @NonNull ImageCacheStatistics statistics) {
+        LogUtils.d(TAG, componentName + " image cache statistics: " + statistics);
+    }
 }
@@ -29,6 +29,7 @@ import com.tencent.mtt.hippy.devsupport.DevSupportManager;
 import com.tencent.mtt.hippy.utils.UIThreadUtils;
 
 import com.tencent.vfs.ResourceDataHolder;
+import com.tencent.vfs.ResourceDataHolder.TransferType;
 import com.tencent.vfs.VfsManager.FetchResourceCallback;
 import java.io.File;
 import java.lang.ref.WeakReference;
@@ -312,12 +313,12 @@ public class HippyBridgeImpl implements HippyBridge, JSBridgeProxy, DevRemoteDeb
                             @Override
                             public void onFetchCompleted(@NonNull ResourceDataHolder holder) {
                                 DevSupportManager devManager = mContext.getDevSupportManager();
+                                ByteBuffer buffer = null;
                                 if (holder.resultCode
-                                        == ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE
-                                        && holder.bytes != null) {
-                                    final ByteBuffer buffer = ByteBuffer.allocateDirect(
-                                            holder.bytes.length);
-                                    buffer.put(holder.bytes);
+                                        == ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE) {
+                                    buffer = getDirectBuffer(holder);
+                                }
+                                if (buffer != null) {
                                     mJsDriver.onResourceReady(buffer, resId);
                                 } else {
                                     mJsDriver.onResourceReady(null, resId);
@@ -336,6 +337,22 @@ public class HippyBridgeImpl implements HippyBridge, JSBridgeProxy, DevRemoteDeb
         });
     }
 
+    @Nullable
+    private static ByteBuffer getDirectBuffer(@NonNull ResourceDataHolder holder) {
+        // Direct or memory mapped buffer can be passed to native without copy.
+        if (holder.transferType == TransferType.NIO && holder.buffer != null
+                && holder.buffer.isDirect()) {
+            return holder.buffer;
+        }
+        byte[] bytes = holder.getBytes();
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
     public void reportException(String message, String stackTrace) {
         LogUtils.e("reportException", "!!!!!!!!!!!!!!!!!!!");
 
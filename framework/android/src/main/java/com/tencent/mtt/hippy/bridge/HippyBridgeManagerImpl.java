@@ -43,7 +43,7 @@ import com.tencent.mtt.hippy.runtime.builtins.JSObject;
 import com.tencent.mtt.hippy.runtime.builtins.JSValue;
 import com.tencent.mtt.hippy.serialization.PrimitiveValueSerializer;
 import com.tencent.mtt.hippy.serialization.compatible.Serializer;
-import com.tencent.mtt.hippy.serialization.nio.writer.SafeDirectWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.PooledDirectWriter;
 import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
 import com.tencent.mtt.hippy.utils.ArgumentUtils;
 import com.tencent.mtt.hippy.utils.DimensionsUtil;
@@ -102,7 +102,7 @@ public class HippyBridgeManagerImpl implements HippyBridgeManager, HippyBridge.B
     private final HippyThirdPartyAdapter mThirdPartyAdapter;
     private StringBuilder mStringBuilder;
     private SafeHeapWriter safeHeapWriter;
-    private SafeDirectWriter safeDirectWriter;
+    private PooledDirectWriter pooledDirectWriter;
     private Serializer compatibleSerializer;
     private com.tencent.mtt.hippy.serialization.recommend.Serializer recommendSerializer;
     private TurboModuleManager mTurboModuleManager;
@@ -146,16 +146,18 @@ public class HippyBridgeManagerImpl implements HippyBridgeManager, HippyBridge.B
         if (msg.arg1 == BridgeTransferType.BRIDGE_TRANSFER_TYPE_NIO.value()) {
             ByteBuffer buffer;
             if (mEnableV8Serialization) {
-                if (safeDirectWriter == null) {
-                    safeDirectWriter = new SafeDirectWriter(SafeDirectWriter.INITIAL_CAPACITY, 0);
+                // The native side copies the buffer synchronously in callFunction, so the
+                // pooled segment can be handed out directly and reused by the next call.
+                if (pooledDirectWriter == null) {
+                    pooledDirectWriter = new PooledDirectWriter();
                 } else {
-                    safeDirectWriter.reset();
+                    pooledDirectWriter.reset();
                 }
-                serializer.setWriter(safeDirectWriter);
+                serializer.setWriter(pooledDirectWriter);
                 serializer.reset();
                 serializer.writeHeader();
                 serializer.writeValue(msg.obj);
-                buffer = safeDirectWriter.chunked();
+                buffer = pooledDirectWriter.chunked();
             } else {
                 mStringBuilder.setLength(0);
                 byte[] bytes = ArgumentUtils.objectToJsonOpt(msg.obj, mStringBuilder).getBytes(
@@ -224,6 +226,11 @@ public class HippyBridgeManagerImpl implements HippyBridgeManager, HippyBridge.B
         // When the driver is destroyed, the corresponding scope is also cleared, so there can
         // be no more call function calls, destroy needs to be called here.
         destroy();
+        if (pooledDirectWriter != null) {
+            pooledDirectWriter.release();
+            pooledDirectWriter.getPool().trim();
+            pooledDirectWriter = null;
+        }
     }
 
     @Override
@@ -463,13 +470,24 @@ public class HippyBridgeManagerImpl implements HippyBridgeManager, HippyBridge.B
     public void callJavaScriptModule(String moduleName, String methodName, Object param,
             BridgeTransferType transferType) {
         if (mHandler != null) {
-            HippyMap map = new HippyMap();
-            map.pushString("moduleName", moduleName);
-            map.pushString("methodName", methodName);
-            map.pushObject("params", param);
+            Object obj;
+            if (param instanceof JSValue) {
+                // Keep JS values such as array buffer for recommend serializer.
+                JSObject jsObject = new JSObject();
+                jsObject.set("moduleName", moduleName);
+                jsObject.set("methodName", methodName);
+                jsObject.set("params", param);
+                obj = jsObject;
+            } else {
+                HippyMap map = new HippyMap();
+                map.pushString("moduleName", moduleName);
+                map.pushString("methodName", methodName);
+                map.pushObject("params", param);
+                obj = map;
+            }
             Message message = mHandler
                     .obtainMessage(MSG_CODE_CALL_FUNCTION, transferType.value(),
-                            FUNCTION_ACTION_CALL_JS_MODULE, map);
+                            FUNCTION_ACTION_CALL_JS_MODULE, obj);
             mHandler.sendMessage(message);
         }
     }
@@ -607,6 +625,14 @@ public class HippyBridgeManagerImpl implements HippyBridgeManager, HippyBridge.B
         return mThirdPartyAdapter;
     }
 
+    /**
+     * Whether arguments are transferred by V8 serialization, binary values such as array buffer
+     * can not be represented by the JSON transfer used when it is disabled.
+     */
+    public boolean isV8SerializationEnabled() {
+        return mEnableV8Serialization;
+    }
+
     private boolean enableTurbo() {
         return mContext.getGlobalConfigs() != null && mContext.getGlobalConfigs().enableTurbo();
     }
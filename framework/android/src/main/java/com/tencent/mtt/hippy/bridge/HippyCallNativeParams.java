@@ -31,6 +31,11 @@ public class HippyCallNativeParams {
     public String callId;
     public ByteBuffer paramsBuffer;
     public Object paramsValue;
+    /**
+     * {@link System#nanoTime()} when the call is handed over to the module manager, used to
+     * count the queueing latency of batched call natives.
+     */
+    public long enqueueTime;
 
     public static HippyCallNativeParams obtain(String moduleName, String moduleFunc, String callId,
             ByteBuffer params) {
@@ -48,6 +53,7 @@ public class HippyCallNativeParams {
         this.callId = callId;
         paramsBuffer = params;
         paramsValue = null;
+        enqueueTime = 0;
     }
 
     public void onDispose() {
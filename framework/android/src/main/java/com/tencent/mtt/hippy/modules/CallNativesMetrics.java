@@ -0,0 +1,90 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.modules;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Statistics of batched call natives, batch size is counted when the bridge thread drains the
+ * pending calls, queueing latency is counted from {@code callNatives} to the call starts running
+ * on the module thread.
+ */
+public class CallNativesMetrics {
+
+    private long mBatchCount;
+    private long mCallCount;
+    private int mMaxBatchSize;
+    private long mTotalQueueTimeNs;
+    private long mMaxQueueTimeNs;
+    private long mQueueSampleCount;
+
+    synchronized void onBatchDrained(int size) {
+        mBatchCount++;
+        mCallCount += size;
+        if (size > mMaxBatchSize) {
+            mMaxBatchSize = size;
+        }
+    }
+
+    synchronized void onCallStarted(long queueTimeNs) {
+        mQueueSampleCount++;
+        mTotalQueueTimeNs += queueTimeNs;
+        if (queueTimeNs > mMaxQueueTimeNs) {
+            mMaxQueueTimeNs = queueTimeNs;
+        }
+    }
+
+    public synchronized long getBatchCount() {
+        return mBatchCount;
+    }
+
+    public synchronized long getCallCount() {
+        return mCallCount;
+    }
+
+    public synchronized int getMaxBatchSize() {
+        return mMaxBatchSize;
+    }
+
+    public synchronized float getAverageBatchSize() {
+        return (mBatchCount == 0) ? 0 : (float) mCallCount / mBatchCount;
+    }
+
+    public synchronized long getMaxQueueTimeNs() {
+        return mMaxQueueTimeNs;
+    }
+
+    public synchronized long getAverageQueueTimeNs() {
+        return (mQueueSampleCount == 0) ? 0 : mTotalQueueTimeNs / mQueueSampleCount;
+    }
+
+    public synchronized void reset() {
+        mBatchCount = 0;
+        mCallCount = 0;
+        mMaxBatchSize = 0;
+        mTotalQueueTimeNs = 0;
+        mMaxQueueTimeNs = 0;
+        mQueueSampleCount = 0;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "batches=" + mBatchCount + ", calls=" + mCallCount + ", maxBatch=" + mMaxBatchSize
+                + ", avgQueueNs=" + getAverageQueueTimeNs() + ", maxQueueNs=" + mMaxQueueTimeNs;
+    }
+}
@@ -42,12 +42,14 @@ import com.tencent.mtt.hippy.serialization.nio.reader.BinaryReader;
 import com.tencent.mtt.hippy.serialization.nio.reader.SafeDirectReader;
 import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
 import com.tencent.mtt.hippy.serialization.string.InternalizedStringTable;
+import com.tencent.mtt.hippy.serialization.string.StringTable;
 import com.tencent.mtt.hippy.utils.ArgumentUtils;
 import com.tencent.mtt.hippy.utils.LogUtils;
 
 import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import java.lang.reflect.Proxy;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -67,6 +69,8 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
     private static final int MSG_CODE_DESTROY_MODULE = 2;
     private static final int MSG_CODE_ON_DESTROY = 3;
     private static final int MSG_CODE_REMOVE_ROOT_VIEW = 4;
+    private static final int MSG_CODE_DO_DESERIALIZATION_BATCH = 5;
+    private static final int MSG_CODE_DO_CALL_NATIVES_BATCH = 6;
     private final ConcurrentHashMap<String, HippyNativeModuleInfo> mNativeModuleInfo;
     //Only multi-threaded read
     private final HashMap<Class<? extends HippyJavaScriptModule>, HippyJavaScriptModule> mJsModules;
@@ -81,17 +85,47 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
     private Deserializer mCompatibleDeserializer;
     @Nullable
     private com.tencent.mtt.hippy.serialization.recommend.Deserializer mRecommendDeserializer;
+    private final boolean mEnableBatchCallNatives;
+    private final boolean mOwnsStringTable;
+    private final Object mPendingCallsLock = new Object();
+    // Calls posted by JS thread and not yet drained by bridge thread, guarded by mPendingCallsLock
+    private ArrayList<HippyCallNativeParams> mPendingCalls = new ArrayList<>();
+    private boolean mBatchScheduled = false;
+    private final CallNativesMetrics mCallNativesMetrics = new CallNativesMetrics();
 
     public HippyModuleManagerImpl(HippyEngineContext context, List<HippyAPIProvider> packages,
             boolean enableV8Serialization) {
+        this(context, packages, enableV8Serialization, false);
+    }
+
+    /**
+     * @param enableBatchCallNatives if true, call natives posted before the bridge thread gets
+     * a chance to run are drained as one batch, deserialized in one pass and dispatched to the
+     * module thread by a single message, the calls are still executed in the posted order.
+     */
+    public HippyModuleManagerImpl(HippyEngineContext context, List<HippyAPIProvider> packages,
+            boolean enableV8Serialization, boolean enableBatchCallNatives) {
+        this(context, packages, enableV8Serialization, enableBatchCallNatives, null);
+    }
+
+    /**
+     * @param stringTable the string table shared by the whole engine and released by its owner,
+     * if {@code null} the module manager creates its own tables and releases them on destroy.
+     */
+    public HippyModuleManagerImpl(HippyEngineContext context, List<HippyAPIProvider> packages,
+            boolean enableV8Serialization, boolean enableBatchCallNatives,
+            @Nullable StringTable stringTable) {
         mContext = context;
         mEnableV8Serialization = enableV8Serialization;
+        mEnableBatchCallNatives = enableBatchCallNatives;
         mNativeModuleInfo = new ConcurrentHashMap<>();
         mJsModules = new HashMap<>();
+        mOwnsStringTable = (stringTable == null);
         if (enableV8Serialization) {
-            mCompatibleDeserializer = new Deserializer(null, new InternalizedStringTable());
+            mCompatibleDeserializer = new Deserializer(null,
+                    mOwnsStringTable ? new InternalizedStringTable() : stringTable);
             mRecommendDeserializer = new com.tencent.mtt.hippy.serialization.recommend.Deserializer(
-                    null, new InternalizedStringTable());
+                    null, mOwnsStringTable ? new InternalizedStringTable() : stringTable);
         }
         initModules(context, packages);
     }
@@ -188,6 +222,10 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
     }
 
     private void onDestroy() {
+        if (!mOwnsStringTable) {
+            // The shared string table is released by its owner.
+            return;
+        }
         if (mCompatibleDeserializer != null) {
             mCompatibleDeserializer.getStringTable().release();
         }
@@ -201,9 +239,11 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
         isDestroyed = true;
         if (mModuleThreadHandler != null) {
             mModuleThreadHandler.removeMessages(MSG_CODE_DO_CALL_NATIVES);
+            mModuleThreadHandler.removeMessages(MSG_CODE_DO_CALL_NATIVES_BATCH);
         }
         if (mBridgeThreadHandler != null) {
             mBridgeThreadHandler.removeMessages(MSG_CODE_DO_DESERIALIZATION);
+            mBridgeThreadHandler.removeMessages(MSG_CODE_DO_DESERIALIZATION_BATCH);
             Message msg = mBridgeThreadHandler.obtainMessage(MSG_CODE_ON_DESTROY);
             mBridgeThreadHandler.sendMessage(msg);
         }
@@ -227,6 +267,12 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
             }
         }
         mNativeModuleInfo.clear();
+        synchronized (mPendingCallsLock) {
+            for (HippyCallNativeParams params : mPendingCalls) {
+                params.onDispose();
+            }
+            mPendingCalls.clear();
+        }
     }
 
     @Override
@@ -234,9 +280,32 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
         if (isDestroyed) {
             return;
         }
+        params.enqueueTime = System.nanoTime();
         Handler handler = getBridgeThreadHandler();
-        Message msg = handler.obtainMessage(MSG_CODE_DO_DESERIALIZATION, params);
-        handler.sendMessage(msg);
+        if (!mEnableBatchCallNatives) {
+            Message msg = handler.obtainMessage(MSG_CODE_DO_DESERIALIZATION, params);
+            handler.sendMessage(msg);
+            return;
+        }
+        boolean needSchedule;
+        synchronized (mPendingCallsLock) {
+            mPendingCalls.add(params);
+            needSchedule = !mBatchScheduled;
+            mBatchScheduled = true;
+        }
+        // Only the first call of a batch posts message, the following calls are picked up
+        // by the same drain on bridge thread.
+        if (needSchedule) {
+            handler.sendEmptyMessage(MSG_CODE_DO_DESERIALIZATION_BATCH);
+        }
+    }
+
+    /**
+     * Get the batch size and queueing latency statistics of call natives.
+     */
+    @NonNull
+    public CallNativesMetrics getCallNativesMetrics() {
+        return mCallNativesMetrics;
     }
 
     @Override
@@ -332,37 +401,120 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
         promise.doCallback(PromiseImpl.PROMISE_CODE_NORMAN_ERROR, msg);
     }
 
-    private void doDeserialization(@NonNull Message from) {
-        HippyCallNativeParams params = null;
+    private boolean isRemoveRootViewCall(@NonNull HippyCallNativeParams params) {
+        return params.moduleName != null && params.moduleName.equals(REMOVE_ROOT_VIEW_MODULE_NAME)
+                && REMOVE_ROOT_VIEW_FUNC_NAME.equals(params.moduleFunc);
+    }
+
+    /**
+     * Deserialize the arguments of call natives on bridge thread.
+     *
+     * @return true if the call should be executed on module thread, false if it has been
+     * handled or rejected with an error callback.
+     */
+    private boolean prepareCallNatives(@NonNull Handler handler,
+            @NonNull HippyCallNativeParams params) {
         try {
-            Handler handler = getModuleThreadHandler();
-            params = (HippyCallNativeParams) from.obj;
-            if (params.moduleName != null && params.moduleName.equals(REMOVE_ROOT_VIEW_MODULE_NAME)
-                    && params.moduleFunc.equals(REMOVE_ROOT_VIEW_FUNC_NAME)) {
+            if (isRemoveRootViewCall(params)) {
                 params.paramsValue = bytesToArgument(params.paramsBuffer, true);
                 Message to = handler.obtainMessage(MSG_CODE_REMOVE_ROOT_VIEW, params.paramsValue);
                 handler.sendMessage(to);
-                return;
+                return false;
             }
             HippyNativeModuleInfo moduleInfo = mNativeModuleInfo.get(params.moduleName);
             if (moduleInfo == null) {
                 doErrorCallBack(params, "module can not be found");
-                return;
+                return false;
             }
             HippyNativeModuleInfo.HippyNativeMethod method = moduleInfo
                     .findMethod(params.moduleFunc);
             if (method == null || method.isSync()) {
                 doErrorCallBack(params, "module function can not be found");
-                return;
+                return false;
             }
             params.paramsValue = bytesToArgument(params.paramsBuffer, method.useJSValueType());
-            Message to = handler.obtainMessage(MSG_CODE_DO_CALL_NATIVES, params);
-            handler.sendMessage(to);
+            return true;
         } catch (Throwable e) {
             doErrorCallBack(params, e.getMessage());
             mContext.getGlobalConfigs().getExceptionHandler()
                     .handleNativeException(new RuntimeException(e), true);
         }
+        return false;
+    }
+
+    private void doDeserialization(@NonNull Message from) {
+        Handler handler = getModuleThreadHandler();
+        HippyCallNativeParams params = (HippyCallNativeParams) from.obj;
+        if (prepareCallNatives(handler, params)) {
+            Message to = handler.obtainMessage(MSG_CODE_DO_CALL_NATIVES, params);
+            handler.sendMessage(to);
+        }
+    }
+
+    private void doDeserializationBatch() {
+        ArrayList<HippyCallNativeParams> pending;
+        synchronized (mPendingCallsLock) {
+            pending = mPendingCalls;
+            mPendingCalls = new ArrayList<>();
+            mBatchScheduled = false;
+        }
+        final int size = pending.size();
+        if (isDestroyed) {
+            for (int i = 0; i < size; i++) {
+                pending.get(i).onDispose();
+            }
+            return;
+        }
+        if (size == 0) {
+            return;
+        }
+        mCallNativesMetrics.onBatchDrained(size);
+        Handler handler = getModuleThreadHandler();
+        // Reuse the drained list as the batch sent to module thread, the prepared calls are
+        // compacted to the front in order.
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            HippyCallNativeParams params = pending.get(i);
+            if (isRemoveRootViewCall(params) && count > 0) {
+                // Flush the calls before remove root view to keep the execution order.
+                sendCallNativesBatch(handler, new ArrayList<>(pending.subList(0, count)));
+                count = 0;
+            }
+            if (prepareCallNatives(handler, params)) {
+                pending.set(count++, params);
+            }
+        }
+        if (count > 0) {
+            pending.subList(count, size).clear();
+            sendCallNativesBatch(handler, pending);
+        }
+    }
+
+    private void sendCallNativesBatch(@NonNull Handler handler,
+            @NonNull ArrayList<HippyCallNativeParams> batch) {
+        if (batch.size() == 1) {
+            handler.sendMessage(handler.obtainMessage(MSG_CODE_DO_CALL_NATIVES, batch.get(0)));
+        } else {
+            handler.sendMessage(handler.obtainMessage(MSG_CODE_DO_CALL_NATIVES_BATCH, batch));
+        }
+    }
+
+    private void executeCallNatives(@Nullable HippyCallNativeParams params) {
+        try {
+            if (params != null && params.enqueueTime > 0) {
+                mCallNativesMetrics.onCallStarted(System.nanoTime() - params.enqueueTime);
+            }
+            boolean shouldInterceptCallNative = onInterceptCallNative(params);
+            if (!shouldInterceptCallNative && params != null) {
+                doCallNatives(params);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+        } finally {
+            if (params != null) {
+                params.onDispose();
+            }
+        }
     }
 
     private void doCallNatives(@NonNull HippyCallNativeParams params) {
@@ -459,19 +611,18 @@ public class HippyModuleManagerImpl implements HippyModuleManager, Handler.Callb
                 return true;
             }
             case MSG_CODE_DO_CALL_NATIVES: {
-                HippyCallNativeParams params = null;
-                try {
-                    params = (HippyCallNativeParams) msg.obj;
-                    boolean shouldInterceptCallNative = onInterceptCallNative(params);
-                    if (!shouldInterceptCallNative) {
-                        doCallNatives(params);
-                    }
-                } catch (Throwable e) {
-                    e.printStackTrace();
-                } finally {
-                    if (params != null) {
-                        params.onDispose();
-                    }
+                executeCallNatives((HippyCallNativeParams) msg.obj);
+                return true;
+            }
+            case MSG_CODE_DO_DESERIALIZATION_BATCH: {
+                doDeserializationBatch();
+                return true;
+            }
+            case MSG_CODE_DO_CALL_NATIVES_BATCH: {
+                @SuppressWarnings("unchecked")
+                ArrayList<HippyCallNativeParams> batch = (ArrayList<HippyCallNativeParams>) msg.obj;
+                for (int i = 0; i < batch.size(); i++) {
+                    executeCallNatives(batch.get(i));
                 }
                 return true;
             }
@@ -20,6 +20,8 @@ import static com.tencent.mtt.hippy.modules.HippyModulePromise.BridgeTransferTyp
 import com.tencent.mtt.hippy.HippyEngineContext;
 import com.tencent.mtt.hippy.common.HippyArray;
 import com.tencent.mtt.hippy.modules.HippyModulePromise.BridgeTransferType;
+import com.tencent.mtt.hippy.runtime.builtins.JSValue;
+import com.tencent.mtt.hippy.runtime.builtins.array.JSDenseArray;
 import com.tencent.mtt.hippy.utils.ArgumentUtils;
 
 import java.lang.reflect.InvocationHandler;
@@ -55,7 +57,8 @@ public class HippyJavaScriptModuleInvocationHandler implements InvocationHandler
             System.arraycopy(args, 0, newArgs, 0, args.length - 1);
           }
 
-          params = ArgumentUtils.fromJavaArgs(newArgs);
+          params = containsJSValue(newArgs) ? toJSArray(newArgs)
+              : ArgumentUtils.fromJavaArgs(newArgs);
         }
       }
 
@@ -67,4 +70,20 @@ public class HippyJavaScriptModuleInvocationHandler implements InvocationHandler
     return null;
   }
 
+  private static boolean containsJSValue(Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof JSValue) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static JSDenseArray toJSArray(Object[] args) {
+    JSDenseArray array = new JSDenseArray(args.length);
+    for (Object arg : args) {
+      array.push(arg);
+    }
+    return array;
+  }
 }
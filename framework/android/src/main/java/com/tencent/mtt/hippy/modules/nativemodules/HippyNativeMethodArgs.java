@@ -0,0 +1,64 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.modules.nativemodules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.mtt.hippy.common.HippyArray;
+import com.tencent.mtt.hippy.runtime.builtins.array.JSDenseArray;
+
+/**
+ * Argument checks used by the generated {@link HippyNativeMethodDispatcher}, keep the same errors
+ * as the reflection path of {@link HippyNativeModuleInfo.HippyNativeMethod}.
+ */
+public final class HippyNativeMethodArgs {
+
+    private HippyNativeMethodArgs() {
+    }
+
+    @NonNull
+    public static HippyArray toArray(@Nullable Object args, int count)
+            throws IllegalArgumentException {
+        if (args == null) {
+            throw new IllegalArgumentException("The number of parameters does not match");
+        }
+        if (!(args instanceof HippyArray)) {
+            throw new IllegalArgumentException("The data type of parameters mismatch!");
+        }
+        HippyArray array = (HippyArray) args;
+        if (array.size() < count) {
+            throw new IllegalArgumentException("The number of parameters does not match");
+        }
+        return array;
+    }
+
+    @NonNull
+    public static JSDenseArray toDenseArray(@Nullable Object args, int count)
+            throws IllegalArgumentException {
+        if (args == null) {
+            throw new IllegalArgumentException("The number of parameters does not match");
+        }
+        if (!(args instanceof JSDenseArray)) {
+            throw new IllegalArgumentException("The data type of parameters mismatch!");
+        }
+        JSDenseArray array = (JSDenseArray) args;
+        if (array.size() < count) {
+            throw new IllegalArgumentException("The number of parameters does not match");
+        }
+        return array;
+    }
+}
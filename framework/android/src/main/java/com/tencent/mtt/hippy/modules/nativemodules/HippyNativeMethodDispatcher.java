@@ -0,0 +1,53 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.modules.nativemodules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.mtt.hippy.modules.PromiseImpl;
+
+/**
+ * Dispatch the {@link com.tencent.mtt.hippy.annotation.HippyMethod} calls of a native module by
+ * integer method id, implementations are generated at compile time by the hippy processor and
+ * named {@code <module class name>$$MethodDispatcher}.
+ */
+public interface HippyNativeMethodDispatcher {
+
+    /**
+     * @return the names of all methods of the module, the index is the method id
+     */
+    @NonNull
+    String[] getMethodNames();
+
+    boolean isSync(int methodId);
+
+    boolean useJSValueType(int methodId);
+
+    /**
+     * Extract the typed arguments and call the module method directly.
+     *
+     * @param receiver the module instance
+     * @param methodId the method id
+     * @param args the arguments, {@link com.tencent.mtt.hippy.common.HippyArray} or {@link
+     * com.tencent.mtt.hippy.runtime.builtins.array.JSDenseArray} if the method use JS value type
+     * @param promise the promise of this call
+     * @return {@code false} if the method can not be called by generated code, caller should fall
+     * back to reflection
+     */
+    boolean invoke(@NonNull Object receiver, int methodId, @Nullable Object args,
+            @NonNull PromiseImpl promise) throws Exception;
+}
@@ -42,6 +42,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public final class HippyNativeModuleInfo {
 
     private static final String TAG = "HippyNativeModuleInfo";
+    private static final String DISPATCHER_SUFFIX = "$$MethodDispatcher";
     private String mName;
     private String[] mNames;
     private HippyNativeModule.Thread mThread = Thread.BRIDGE;
@@ -109,16 +110,27 @@ public final class HippyNativeModuleInfo {
                 return;
             }
             mMethods = new ConcurrentHashMap<>();
+            HippyNativeMethodDispatcher dispatcher = getMethodDispatcher();
+            if (dispatcher != null) {
+                // The methods are collected at compile time, no need to scan module class.
+                String[] names = dispatcher.getMethodNames();
+                for (int i = 0; i < names.length; i++) {
+                    if (mMethods.containsKey(names[i])) {
+                        LogUtils.e(TAG, "Register the same method twice, moduleName=" + mName
+                                + ", methodName=" + names[i]);
+                        continue;
+                    }
+                    mMethods.put(names[i], new HippyNativeMethod(mClass, names[i], dispatcher, i));
+                }
+                return;
+            }
             Method[] targetMethods = mClass.getMethods();
             for (Method targetMethod : targetMethods) {
                 HippyMethod hippyMethod = targetMethod.getAnnotation(HippyMethod.class);
                 if (hippyMethod == null) {
                     continue;
                 }
-                String methodName = hippyMethod.name();
-                if (TextUtils.isEmpty(methodName)) {
-                    methodName = targetMethod.getName();
-                }
+                String methodName = getMethodName(targetMethod, hippyMethod);
                 if (mMethods.containsKey(methodName)) {
                     LogUtils.e(TAG,
                             "Register the same method twice, moduleName=" + mName + ", methodName="
@@ -131,6 +143,26 @@ public final class HippyNativeModuleInfo {
         }
     }
 
+    @Nullable
+    private HippyNativeMethodDispatcher getMethodDispatcher() {
+        try {
+            Class<?> dispatcherClass = Class.forName(mClass.getName() + DISPATCHER_SUFFIX, true,
+                    mClass.getClassLoader());
+            if (HippyNativeMethodDispatcher.class.isAssignableFrom(dispatcherClass)) {
+                return (HippyNativeMethodDispatcher) dispatcherClass.newInstance();
+            }
+        } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
+            // The module is not compiled with hippy processor, use reflection instead.
+        }
+        return null;
+    }
+
+    @NonNull
+    private static String getMethodName(@NonNull Method method, @NonNull HippyMethod hippyMethod) {
+        String methodName = hippyMethod.name();
+        return TextUtils.isEmpty(methodName) ? method.getName() : methodName;
+    }
+
     public void initialize() {
         if (mInit) {
             return;
@@ -154,18 +186,39 @@ public final class HippyNativeModuleInfo {
 
     public static class HippyNativeMethod {
 
-        @NonNull
-        private final Method mMethod;
         @Nullable
-        private final Type[] mParamTypes;
+        private volatile Method mMethod;
+        @Nullable
+        private volatile Type[] mParamTypes;
         private final boolean mIsSync;
         private final boolean mUseJSValueType;
+        @Nullable
+        private final HippyNativeMethodDispatcher mDispatcher;
+        private final int mMethodId;
+        @Nullable
+        private final Class<?> mModuleClass;
+        @Nullable
+        private final String mName;
 
         public HippyNativeMethod(@NonNull Method method, boolean isSync, boolean useJSValueType) {
             mMethod = method;
             mIsSync = isSync;
             mUseJSValueType = useJSValueType;
             mParamTypes = method.getGenericParameterTypes();
+            mDispatcher = null;
+            mMethodId = -1;
+            mModuleClass = null;
+            mName = null;
+        }
+
+        HippyNativeMethod(@NonNull Class<?> moduleClass, @NonNull String name,
+                @NonNull HippyNativeMethodDispatcher dispatcher, int methodId) {
+            mModuleClass = moduleClass;
+            mName = name;
+            mDispatcher = dispatcher;
+            mMethodId = methodId;
+            mIsSync = dispatcher.isSync(methodId);
+            mUseJSValueType = dispatcher.useJSValueType(methodId);
         }
 
         public boolean isSync() {
@@ -178,16 +231,40 @@ public final class HippyNativeModuleInfo {
 
         public void invoke(Object receiver, @Nullable Object args,
                 PromiseImpl promise) throws Exception {
-            Object[] params = null;
-            if (args != null) {
-                params = prepareArguments(args, promise);
+            if (mDispatcher == null || !mDispatcher.invoke(receiver, mMethodId, args, promise)) {
+                Object[] params = null;
+                if (args != null) {
+                    params = prepareArguments(args, promise);
+                }
+                getMethod().invoke(receiver, params);
             }
-            mMethod.invoke(receiver, params);
             if (promise.needResolveBySelf()) {
                 promise.resolve("");
             }
         }
 
+        /**
+         * Get the reflection method, for the methods dispatched by generated code, it is only
+         * resolved if the dispatcher does not support the method.
+         */
+        @NonNull
+        private Method getMethod() throws NoSuchMethodException {
+            Method method = mMethod;
+            if (method != null) {
+                return method;
+            }
+            assert mModuleClass != null;
+            for (Method targetMethod : mModuleClass.getMethods()) {
+                HippyMethod hippyMethod = targetMethod.getAnnotation(HippyMethod.class);
+                if (hippyMethod != null && getMethodName(targetMethod, hippyMethod).equals(mName)) {
+                    mParamTypes = targetMethod.getGenericParameterTypes();
+                    mMethod = targetMethod;
+                    return targetMethod;
+                }
+            }
+            throw new NoSuchMethodException("module method can not be found, methodName=" + mName);
+        }
+
         private boolean checkArgumentType(@NonNull Object args) {
             if (mUseJSValueType && args instanceof JSDenseArray) {
                 return true;
@@ -197,18 +274,21 @@ public final class HippyNativeModuleInfo {
 
         @Nullable
         private Object[] prepareArguments(@NonNull Object args, PromiseImpl promise)
-                throws IllegalArgumentException {
-            if (mParamTypes == null || mParamTypes.length <= 0) {
+                throws IllegalArgumentException, NoSuchMethodException {
+            // Make sure the method and parameter types are resolved.
+            getMethod();
+            final Type[] paramTypes = mParamTypes;
+            if (paramTypes == null || paramTypes.length <= 0) {
                 return null;
             }
             if (!checkArgumentType(args)) {
                 throw new IllegalArgumentException("The data type of parameters mismatch!");
             }
-            Object[] params = new Object[mParamTypes.length];
+            Object[] params = new Object[paramTypes.length];
             int index = 0;
             int size = mUseJSValueType ? ((JSDenseArray) args).size() : ((HippyArray) args).size();
-            for (int i = 0; i < mParamTypes.length; i++) {
-                Type paramCls = mParamTypes[i];
+            for (int i = 0; i < paramTypes.length; i++) {
+                Type paramCls = paramTypes[i];
                 // It is necessary to be compatible with the HippyModulePromise type here,
                 // as some host custom modules interface promise parameters are directly defined
                 // using the HippyModulePromise type, resulting in parameter mismatches when
@@ -24,29 +24,48 @@ import static com.tencent.mtt.hippy.adapter.http.HippyHttpResponse.HTTP_RESPONSE
 
 import android.text.TextUtils;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.tencent.mtt.hippy.HippyEngineContext;
 import com.tencent.mtt.hippy.adapter.http.HippyHttpAdapter;
 import com.tencent.mtt.hippy.annotation.HippyMethod;
 import com.tencent.mtt.hippy.annotation.HippyNativeModule;
+import com.tencent.mtt.hippy.bridge.HippyBridgeManager;
+import com.tencent.mtt.hippy.bridge.HippyBridgeManagerImpl;
 import com.tencent.mtt.hippy.common.HippyArray;
 import com.tencent.mtt.hippy.common.HippyMap;
 import com.tencent.mtt.hippy.modules.Promise;
 import com.tencent.mtt.hippy.modules.nativemodules.HippyNativeModuleBase;
+import com.tencent.mtt.hippy.runtime.builtins.JSArrayBuffer;
 import com.tencent.mtt.hippy.runtime.builtins.JSObject;
+import com.tencent.mtt.hippy.utils.LogUtils;
 import com.tencent.vfs.ResourceDataHolder;
 import com.tencent.vfs.VfsManager;
 import com.tencent.vfs.VfsManager.FetchResourceCallback;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @HippyNativeModule(name = "network")
 public class NetworkModule extends HippyNativeModuleBase {
 
     private static final String TAG = "NetworkModule";
+    public static final String HTTP_RESPONSE_TYPE = "responseType";
+    public static final String RESPONSE_TYPE_TEXT = "text";
+    public static final String RESPONSE_TYPE_ARRAY_BUFFER = "arraybuffer";
+    public static final String RESPONSE_TYPE_STREAM = "stream";
+    static final int STREAM_CHUNK_SIZE = 64 * 1024;
+    private static final AtomicInteger sStreamIdGenerator = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, ResponseStream> mStreams = new ConcurrentHashMap<>();
 
     public NetworkModule(HippyEngineContext context) {
         super(context);
@@ -105,6 +124,16 @@ public class NetworkModule extends HippyNativeModuleBase {
     @NonNull
     protected JSObject handleFetchResponse(@NonNull ResourceDataHolder dataHolder)
             throws IllegalStateException {
+        return handleFetchResponse(dataHolder, RESPONSE_TYPE_TEXT);
+    }
+
+    /**
+     * Build response object for JS, the body is decoded as text, transferred as array buffer
+     * without decode, or left out for stream type whose body is pulled by readStream.
+     */
+    @NonNull
+    protected JSObject handleFetchResponse(@NonNull ResourceDataHolder dataHolder,
+            @NonNull String responseType) throws IllegalStateException {
         JSObject responseObject = new JSObject();
         int statusCode = -1;
         String responseMessage = null;
@@ -132,23 +161,119 @@ public class NetworkModule extends HippyNativeModuleBase {
         responseObject.set(HTTP_RESPONSE_STATUS_CODE, statusCode);
         responseObject.set("statusLine", responseMessage);
         responseObject.set("respHeaders", headerObject);
-        String body = "";
+        if (RESPONSE_TYPE_STREAM.equals(responseType)) {
+            return responseObject;
+        }
+        byte[] bytes;
         try {
-            byte[] bytes = dataHolder.getBytes();
-            if (bytes != null) {
-                body = new String(bytes, StandardCharsets.UTF_8);
-            }
+            bytes = dataHolder.getBytes();
         } catch (Exception e) {
             throw new IllegalStateException(e.getMessage());
         }
-        responseObject.set("respBody", body);
+        if (RESPONSE_TYPE_ARRAY_BUFFER.equals(responseType)) {
+            ByteBuffer buffer = (bytes != null) ? ByteBuffer.wrap(bytes) : ByteBuffer.allocate(0);
+            responseObject.set("respBody", new JSArrayBuffer(buffer));
+        } else {
+            String body = (bytes != null) ? new String(bytes, StandardCharsets.UTF_8) : "";
+            responseObject.set("respBody", body);
+        }
         return responseObject;
     }
 
+    @NonNull
+    private static String getResponseType(@NonNull ResourceDataHolder dataHolder) {
+        return (dataHolder.requestParams == null) ? RESPONSE_TYPE_TEXT
+                : getResponseType(dataHolder.requestParams.get(HTTP_RESPONSE_TYPE));
+    }
+
+    @NonNull
+    private static String getResponseType(@Nullable String responseType) {
+        if (RESPONSE_TYPE_ARRAY_BUFFER.equalsIgnoreCase(responseType)) {
+            return RESPONSE_TYPE_ARRAY_BUFFER;
+        }
+        if (RESPONSE_TYPE_STREAM.equalsIgnoreCase(responseType)) {
+            return RESPONSE_TYPE_STREAM;
+        }
+        return RESPONSE_TYPE_TEXT;
+    }
+
+    /**
+     * Take the body of a stream response out of holder, the content materialized by processors
+     * such as cache is read from memory.
+     */
+    @NonNull
+    protected ResponseStream openStream(@NonNull ResourceDataHolder dataHolder) {
+        ReadableByteChannel channel = dataHolder.takeChannel();
+        if (channel != null) {
+            return new ResponseStream(channel, dataHolder.contentLength);
+        }
+        byte[] bytes = dataHolder.getBytes();
+        if (bytes == null) {
+            bytes = new byte[0];
+        }
+        return new ResponseStream(Channels.newChannel(new ByteArrayInputStream(bytes)),
+                bytes.length);
+    }
+
+    @Nullable
+    ResponseStream getStream(int streamId) {
+        return mStreams.get(streamId);
+    }
+
+    private void closeStream(int streamId) {
+        ResponseStream stream = mStreams.remove(streamId);
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read next chunk of stream and resolve with {@code done}, and {@code chunk}, {@code loaded},
+     * {@code total} if not done, the stream is closed when it ends or fails.
+     */
+    protected void readStreamChunk(int streamId, @NonNull ResponseStream stream,
+            @NonNull Promise promise) {
+        JSObject result = new JSObject();
+        try {
+            ByteBuffer chunk = stream.read();
+            if (chunk == null) {
+                closeStream(streamId);
+                result.set("done", true);
+            } else {
+                result.set("done", false);
+                result.set("chunk", new JSArrayBuffer(chunk));
+                result.set("loaded", stream.getLoaded());
+                result.set("total", stream.getTotal());
+            }
+            promise.resolve(result);
+        } catch (IOException e) {
+            LogUtils.e(TAG, "readStreamChunk: read stream " + streamId + " failed, " + e
+                    .getMessage());
+            closeStream(streamId);
+            promise.reject("Read stream failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Binary body is transferred as array buffer, which is supported by V8 serialization only.
+     */
+    protected boolean isBinaryTransferSupported() {
+        HippyBridgeManager bridgeManager = mContext.getBridgeManager();
+        return bridgeManager instanceof HippyBridgeManagerImpl
+                && ((HippyBridgeManagerImpl) bridgeManager).isV8SerializationEnabled();
+    }
+
     protected void handleFetchResult(@NonNull ResourceDataHolder dataHolder, final Promise promise) {
         try {
             if (dataHolder.resultCode == ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE) {
-                JSObject responseObject = handleFetchResponse(dataHolder);
+                String responseType = getResponseType(dataHolder);
+                JSObject responseObject = handleFetchResponse(dataHolder, responseType);
+                if (RESPONSE_TYPE_STREAM.equals(responseType)) {
+                    // Body is pulled by JS with readStream, one chunk in flight at a time.
+                    int streamId = sStreamIdGenerator.incrementAndGet();
+                    mStreams.put(streamId, openStream(dataHolder));
+                    responseObject.set("streamId", streamId);
+                }
                 promise.resolve(responseObject);
             } else {
                 String errorMessage =
@@ -177,6 +302,13 @@ public class NetworkModule extends HippyNativeModuleBase {
             promise.reject("Get url parameter failed!");
             return;
         }
+        String responseType = getResponseType(requestParams.get(HTTP_RESPONSE_TYPE));
+        if (!RESPONSE_TYPE_TEXT.equals(responseType) && !isBinaryTransferSupported()) {
+            // Array buffer in response or stream events is lost by JSON transfer.
+            promise.reject("Response type " + responseType
+                    + " requires V8 serialization, which is disabled by engine init params!");
+            return;
+        }
         vfsManager.fetchResourceAsync(uri, requestHeaders, requestParams,
                 new FetchResourceCallback() {
                     @Override
@@ -192,6 +324,39 @@ public class NetworkModule extends HippyNativeModuleBase {
                 });
     }
 
+    /**
+     * Read next chunk of a stream response on background executor, JS reads again only after
+     * the previous chunk is consumed, so the body is never buffered ahead on the Java side.
+     */
+    @HippyMethod(name = "readStream")
+    public void readStream(final int streamId, final Promise promise) {
+        final ResponseStream stream = mStreams.get(streamId);
+        if (stream == null) {
+            promise.reject("Stream " + streamId + " is not found or already closed!");
+            return;
+        }
+        mContext.getGlobalConfigs().getExecutorSupplierAdapter().getBackgroundTaskExecutor()
+                .execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        readStreamChunk(streamId, stream, promise);
+                    }
+                });
+    }
+
+    @HippyMethod(name = "cancelStream")
+    public void cancelStream(int streamId) {
+        closeStream(streamId);
+    }
+
+    @Override
+    public void destroy() {
+        for (Integer streamId : mStreams.keySet()) {
+            closeStream(streamId);
+        }
+        super.destroy();
+    }
+
     @HippyMethod(name = "getCookie")
     public void getCookie(String url, Promise promise) {
         HippyHttpAdapter adapter = mContext.getGlobalConfigs().getHttpAdapter();
@@ -207,4 +372,56 @@ public class NetworkModule extends HippyNativeModuleBase {
             adapter.setCookie(url, keyValue, expires);
         }
     }
+
+    /**
+     * Body of a stream response, reads are serialized and each returns a new buffer since the
+     * chunk is serialized later on bridge thread. The connection is closed by {@link #close()},
+     * or by the idle timeout of http adapter if JS stops reading.
+     */
+    static class ResponseStream {
+
+        @NonNull
+        private final ReadableByteChannel mChannel;
+        private final long mTotal;
+        private volatile long mLoaded;
+
+        ResponseStream(@NonNull ReadableByteChannel channel, long total) {
+            mChannel = channel;
+            mTotal = total;
+        }
+
+        long getTotal() {
+            return mTotal;
+        }
+
+        long getLoaded() {
+            return mLoaded;
+        }
+
+        /**
+         * @return the next chunk flipped for reading, or {@code null} if the stream ends
+         */
+        @Nullable
+        synchronized ByteBuffer read() throws IOException {
+            ByteBuffer chunk = ByteBuffer.allocate(STREAM_CHUNK_SIZE);
+            int read;
+            do {
+                read = mChannel.read(chunk);
+            } while (read == 0);
+            if (read < 0) {
+                return null;
+            }
+            mLoaded += read;
+            chunk.flip();
+            return chunk;
+        }
+
+        void close() {
+            try {
+                mChannel.close();
+            } catch (IOException ignored) {
+                // Nothing to do when close failed.
+            }
+        }
+    }
 }
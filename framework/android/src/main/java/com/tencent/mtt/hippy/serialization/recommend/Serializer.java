@@ -113,6 +113,10 @@ public class Serializer extends PrimitiveValueSerializer {
     boolean adoptSharedValueConveyor(Serializer serializer, SharedValueConveyor conveyor);
   }
 
+  /**
+   * Max size of scratch array used to copy the content of a non heap {@link JSArrayBuffer}.
+   */
+  private static final int ARRAY_BUFFER_COPY_CHUNK_SIZE = 8 * 1024;
   /**
    * Implement for Delegate interface
    */
@@ -275,15 +279,29 @@ public class Serializer extends PrimitiveValueSerializer {
       int byteLength = source.limit();
       writeTag(JSSerializationTag.ARRAY_BUFFER);
       writer.putVarint(byteLength);
-      for (int i = 0; i < byteLength; i++) {
-        writer.putByte(source.get(i));
-      }
+      writeArrayBufferContent(source, byteLength);
     } else {
       writeTag(JSSerializationTag.ARRAY_BUFFER_TRANSFER);
       writer.putVarint(IntegerPolyfill.toUnsignedLong(id));
     }
   }
 
+  private void writeArrayBufferContent(@NonNull ByteBuffer source, int byteLength) {
+    if (source.hasArray()) {
+      writer.putBytes(source.array(), source.arrayOffset(), byteLength);
+      return;
+    }
+    // Direct or read only buffer, copy through a bounded scratch array instead of byte by byte.
+    ByteBuffer duplicate = source.duplicate();
+    duplicate.clear().limit(byteLength);
+    byte[] scratch = new byte[Math.min(byteLength, ARRAY_BUFFER_COPY_CHUNK_SIZE)];
+    while (duplicate.hasRemaining()) {
+      int length = Math.min(duplicate.remaining(), scratch.length);
+      duplicate.get(scratch, 0, length);
+      writer.putBytes(scratch, 0, length);
+    }
+  }
+
   private void writeJSSharedArrayBuffer(@NonNull JSSharedArrayBuffer value) {
     if (delegate == null) {
       throw new DataCloneException(value);
@@ -0,0 +1,177 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.adapter.http;
+
+import static org.junit.Assert.*;
+
+import android.webkit.CookieManager;
+import com.tencent.vfs.HttpCacheProcessor;
+import com.tencent.vfs.ResourceDataHolder;
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import com.tencent.vfs.ResponseCache;
+import com.tencent.vfs.ResponseCache.Entry;
+import com.tencent.vfs.VfsManager.ProcessorCallback;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DefaultHttpAdapterTest {
+
+    private static final String URL = "http://example.com/a.js";
+    private static final byte[] BODY = {1, 2, 3, 4};
+    private static final long STALE_MILLIS = 10 * 60 * 1000;
+
+    private ResponseCache mCache;
+    private HttpCacheProcessor mProcessor;
+    private DefaultHttpAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mCache = new ResponseCache(1024 * 1024, null, 0);
+        mProcessor = new HttpCacheProcessor(mCache, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        mAdapter = new DefaultHttpAdapter() {
+            @Override
+            protected CookieManager getCookieManager() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void notModifiedRefreshesCacheEntry() throws Exception {
+        long staleTime = System.currentTimeMillis() - STALE_MILLIS;
+        HashMap<String, String> cached = new HashMap<>();
+        cached.put("Date", formatDate(staleTime));
+        cached.put("Cache-Control", "max-age=60");
+        cached.put("ETag", "\"v1\"");
+        mCache.putToMemory(new Entry(URL, staleTime, cached, BODY));
+
+        final ResourceDataHolder holder = new ResourceDataHolder(URL, null, null,
+                RequestFrom.LOCAL);
+        RecordingCallback requestCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(holder, requestCallback);
+        assertEquals(1, requestCallback.nextCount);
+        assertEquals("\"v1\"", holder.requestHeaders.get("If-None-Match"));
+
+        final RecordingCallback responseCallback = new RecordingCallback();
+        DefaultHttpAdapter.HttpTaskCallbackImpl taskCallback = mAdapter.new HttpTaskCallbackImpl(
+                holder, new ProcessorCallback() {
+                    @Override
+                    public void goNext() {
+                    }
+
+                    @Override
+                    public void onHandleCompleted() {
+                        mProcessor.handleResponseAsync(holder, responseCallback);
+                    }
+                });
+        HippyHttpResponse response = new HippyHttpResponse();
+        response.setStatusCode(304);
+        response.setResponseMessage("Not Modified");
+        Map<String, List<String>> headers = new HashMap<>();
+        // The status line is returned with null key by HttpURLConnection.
+        headers.put(null, Collections.singletonList("HTTP/1.1 304 Not Modified"));
+        headers.put("Date", Collections.singletonList(formatDate(System.currentTimeMillis())));
+        headers.put("Cache-Control", Collections.singletonList("max-age=60"));
+        headers.put("ETag", Collections.singletonList("\"v1\""));
+        response.setRspHeaderMap(headers);
+        taskCallback.onTaskSuccess(new HippyHttpRequest(null, null, null), response);
+
+        assertEquals(1, responseCallback.completedCount);
+        assertEquals("\"v1\"", holder.responseHeaders.get("ETag"));
+        assertEquals(1, mProcessor.getRevalidatedCount());
+        assertEquals("200", holder.responseHeaders.get(
+                HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE));
+        assertArrayEquals(BODY, holder.getBytes());
+
+        // The refreshed entry takes the new Date, so it is fresh and served without network.
+        Entry entry = mCache.getFromMemory(URL);
+        assertNotNull(entry);
+        assertTrue(entry.isFresh(System.currentTimeMillis()));
+        ResourceDataHolder hit = new ResourceDataHolder(URL, null, null, RequestFrom.LOCAL);
+        RecordingCallback hitCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(hit, hitCallback);
+        assertEquals(0, hitCallback.nextCount);
+        assertEquals(1, hitCallback.completedCount);
+        assertArrayEquals(BODY, hit.getBytes());
+    }
+
+    @Test
+    public void errorResponseKeepsHeaders() throws Exception {
+        ResourceDataHolder holder = new ResourceDataHolder(URL, null, null, RequestFrom.LOCAL);
+        RecordingCallback callback = new RecordingCallback();
+        HippyHttpResponse response = new HippyHttpResponse();
+        response.setStatusCode(404);
+        response.setResponseMessage("Not Found");
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("Content-Type", Collections.singletonList("text/plain"));
+        headers.put("Vary", Arrays.asList("Accept", "Origin"));
+        response.setRspHeaderMap(headers);
+        mAdapter.new HttpTaskCallbackImpl(holder, callback)
+                .onTaskSuccess(new HippyHttpRequest(null, null, null), response);
+
+        assertEquals(1, callback.completedCount);
+        assertEquals("404", holder.responseHeaders.get(
+                HippyHttpResponse.HTTP_RESPONSE_STATUS_CODE));
+        assertEquals("text/plain", holder.responseHeaders.get("Content-Type"));
+        assertEquals("Accept" + HippyHttpRequest.HTTP_HEADERS_SEPARATOR + "Origin",
+                holder.responseHeaders.get("Vary"));
+        assertNull(holder.channel);
+    }
+
+    private static String formatDate(long time) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz",
+                Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time));
+    }
+
+    private static class RecordingCallback implements ProcessorCallback {
+
+        int nextCount;
+        int completedCount;
+
+        @Override
+        public void goNext() {
+            nextCount++;
+        }
+
+        @Override
+        public void onHandleCompleted() {
+            completedCount++;
+        }
+    }
+}
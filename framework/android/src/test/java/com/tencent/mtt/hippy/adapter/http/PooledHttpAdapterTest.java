@@ -0,0 +1,377 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.adapter.http;
+
+import static org.junit.Assert.*;
+
+import com.tencent.mtt.hippy.adapter.http.HippyHttpAdapter.HttpTaskCallback;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PooledHttpAdapterTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final String BLOCK_PATH = "/block";
+
+    private MockServer mServer;
+    private PooledHttpAdapter mAdapter;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockServer();
+    }
+
+    @After
+    public void tearDown() {
+        if (mAdapter != null) {
+            mAdapter.destroyIfNeed();
+        }
+        mServer.shutdown();
+    }
+
+    @Test
+    public void sendByPriority() throws Exception {
+        mAdapter = new PooledHttpAdapter(1, 1);
+        TaskCallback blocker = send(BLOCK_PATH, HippyHttpRequest.PRIORITY_NORMAL, false);
+        mServer.awaitRequests(1);
+        List<TaskCallback> callbacks = Arrays.asList(
+                send("/low", HippyHttpRequest.PRIORITY_LOW, false),
+                send("/normal1", HippyHttpRequest.PRIORITY_NORMAL, false),
+                send("/high", HippyHttpRequest.PRIORITY_HIGH, false),
+                send("/normal2", HippyHttpRequest.PRIORITY_NORMAL, false));
+        assertEquals(1, mAdapter.getRunningCount());
+        assertEquals(4, mAdapter.getPendingCount());
+
+        mServer.releaseBlocked();
+        blocker.assertSucceeded(BLOCK_PATH);
+        for (TaskCallback callback : callbacks) {
+            callback.await();
+        }
+        // Higher priority first, then in order of arrival.
+        assertEquals(Arrays.asList(BLOCK_PATH, "/high", "/normal1", "/normal2", "/low"),
+                mServer.getPaths());
+    }
+
+    @Test
+    public void limitRequestsPerHost() throws Exception {
+        mAdapter = new PooledHttpAdapter(16, 2);
+        List<TaskCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            callbacks.add(send(BLOCK_PATH, HippyHttpRequest.PRIORITY_NORMAL, false));
+        }
+        mServer.awaitRequests(2);
+        Thread.sleep(200);
+        assertEquals(2, mServer.getPaths().size());
+        assertEquals(2, mAdapter.getRunningCount());
+        assertEquals(2, mAdapter.getPendingCount());
+
+        mAdapter.setMaxRequestsForHost("127.0.0.1", 3);
+        mServer.awaitRequests(3);
+        assertEquals(3, mAdapter.getRunningCount());
+        assertEquals(1, mAdapter.getPendingCount());
+
+        mServer.releaseBlocked();
+        for (TaskCallback callback : callbacks) {
+            callback.assertSucceeded(BLOCK_PATH);
+        }
+        assertEquals(4, mServer.getPaths().size());
+        awaitIdle();
+    }
+
+    @Test
+    public void releaseWhenDetachedBodyClosed() throws Exception {
+        mAdapter = new PooledHttpAdapter(16, 1);
+        mAdapter.setDetachedBodyIdleTimeout(0);
+        TaskCallback first = send("/first", HippyHttpRequest.PRIORITY_NORMAL, true);
+        first.await();
+        assertNull(first.error);
+        TaskCallback second = send("/second", HippyHttpRequest.PRIORITY_NORMAL, false);
+        Thread.sleep(200);
+        // The detached body keeps the host concurrency.
+        assertEquals(Collections.singletonList("/first"), mServer.getPaths());
+        assertEquals(1, mAdapter.getRunningCount());
+        assertEquals(1, mAdapter.getPendingCount());
+
+        InputStream body = first.detachedBody;
+        assertNotNull(body);
+        assertEquals("/first", readString(body));
+        body.close();
+        second.assertSucceeded("/second");
+        assertEquals(Arrays.asList("/first", "/second"), mServer.getPaths());
+        awaitIdle();
+    }
+
+    @Test
+    public void closeIdleDetachedBody() throws Exception {
+        mAdapter = new PooledHttpAdapter(16, 1);
+        mAdapter.setDetachedBodyIdleTimeout(300);
+        TaskCallback first = send("/first", HippyHttpRequest.PRIORITY_NORMAL, true);
+        TaskCallback second = send("/second", HippyHttpRequest.PRIORITY_NORMAL, false);
+        first.await();
+        assertNotNull(first.detachedBody);
+
+        // The unread body is closed by adapter, then the next request can be sent.
+        second.assertSucceeded("/second");
+        try {
+            first.detachedBody.read();
+            fail("Reading closed body should fail");
+        } catch (IOException expected) {
+            // The content is incomplete, must not be taken as end of stream.
+        }
+        first.detachedBody.close();
+        awaitIdle();
+    }
+
+    @Test
+    public void destroyFailsPendingRequests() throws Exception {
+        mAdapter = new PooledHttpAdapter(1, 1);
+        TaskCallback running = send(BLOCK_PATH, HippyHttpRequest.PRIORITY_NORMAL, false);
+        mServer.awaitRequests(1);
+        TaskCallback pending = send("/pending", HippyHttpRequest.PRIORITY_NORMAL, false);
+        assertEquals(1, mAdapter.getPendingCount());
+
+        mAdapter.destroyIfNeed();
+        pending.await();
+        assertTrue(pending.error instanceof IllegalStateException);
+        assertEquals(0, mAdapter.getPendingCount());
+
+        // Requests after destroyed fail immediately instead of recreating the executor.
+        TaskCallback rejected = send("/rejected", HippyHttpRequest.PRIORITY_NORMAL, false);
+        assertEquals(0, rejected.latch.getCount());
+        assertTrue(rejected.error instanceof IllegalStateException);
+
+        // The running request is not interrupted.
+        mServer.releaseBlocked();
+        running.assertSucceeded(BLOCK_PATH);
+        awaitIdle();
+        assertEquals(Collections.singletonList(BLOCK_PATH), mServer.getPaths());
+    }
+
+    private TaskCallback send(String path, int priority, boolean detachBody) {
+        HashMap<String, String> params = new HashMap<>();
+        params.put(HippyHttpRequest.HTTP_PRIORITY, String.valueOf(priority));
+        HippyHttpRequest request = new HippyHttpRequest(null, params, null);
+        request.setUrl(mServer.getUrl(path));
+        request.setConnectTimeout((int) TIMEOUT_MILLIS);
+        request.setReadTimeout((int) TIMEOUT_MILLIS);
+        request.setUseCaches(false);
+        TaskCallback callback = new TaskCallback(detachBody);
+        mAdapter.sendRequest(request, callback);
+        return callback;
+    }
+
+    /**
+     * Wait for all connections released, which happens after the task callback returns.
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (mAdapter.getRunningCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, mAdapter.getRunningCount());
+    }
+
+    private static String readString(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = inputStream.read(buffer)) > 0) {
+            output.write(buffer, 0, count);
+        }
+        return output.toString("UTF-8");
+    }
+
+    private static class TaskCallback implements HttpTaskCallback {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final boolean detachBody;
+        volatile String body;
+        volatile InputStream detachedBody;
+        volatile Throwable error;
+
+        TaskCallback(boolean detachBody) {
+            this.detachBody = detachBody;
+        }
+
+        @Override
+        public void onTaskSuccess(HippyHttpRequest request, HippyHttpResponse response)
+                throws Exception {
+            try {
+                if (detachBody) {
+                    detachedBody = response.detachInputStream();
+                } else {
+                    body = readString(response.getInputStream());
+                }
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void onTaskFailed(HippyHttpRequest request, Throwable error) {
+            this.error = error;
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        void assertSucceeded(String expectedBody) throws InterruptedException {
+            await();
+            assertNull(error);
+            assertEquals(expectedBody, body);
+        }
+    }
+
+    /**
+     * Minimal http server, which responds the request path as body, and holds the response of
+     * {@link #BLOCK_PATH} until {@link #releaseBlocked()}.
+     */
+    private static class MockServer implements Runnable {
+
+        private final ServerSocket mServerSocket;
+        private final List<String> mPaths = Collections.synchronizedList(new ArrayList<String>());
+        private final List<Socket> mSockets = Collections.synchronizedList(new ArrayList<Socket>());
+        private final CountDownLatch mBlockLatch = new CountDownLatch(1);
+
+        MockServer() throws IOException {
+            mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this, "mock-http-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String getUrl(String path) {
+            return "http://127.0.0.1:" + mServerSocket.getLocalPort() + path;
+        }
+
+        List<String> getPaths() {
+            synchronized (mPaths) {
+                return new ArrayList<>(mPaths);
+            }
+        }
+
+        void awaitRequests(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (mPaths.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(mPaths.size() >= count);
+        }
+
+        void releaseBlocked() {
+            mBlockLatch.countDown();
+        }
+
+        void shutdown() {
+            mBlockLatch.countDown();
+            try {
+                mServerSocket.close();
+            } catch (IOException ignored) {
+                // Nothing to do when close failed.
+            }
+            synchronized (mSockets) {
+                for (Socket socket : mSockets) {
+                    try {
+                        socket.close();
+                    } catch (IOException ignored) {
+                        // Nothing to do when close failed.
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = mServerSocket.accept();
+                } catch (IOException e) {
+                    // The server socket is closed.
+                    return;
+                }
+                mSockets.add(socket);
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                }, "mock-http-connection");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        private void handle(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                String requestLine = reader.readLine();
+                if (requestLine == null) {
+                    return;
+                }
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && !line.isEmpty());
+                String path = requestLine.split(" ")[1];
+                mPaths.add(path);
+                if (path.equals(BLOCK_PATH)) {
+                    mBlockLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                byte[] body = path.getBytes("UTF-8");
+                OutputStream output = socket.getOutputStream();
+                output.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length
+                        + "\r\nConnection: close\r\n\r\n").getBytes("UTF-8"));
+                output.write(body);
+                output.flush();
+            } catch (IOException | InterruptedException ignored) {
+                // The connection is closed by test.
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Nothing to do when close failed.
+                }
+            }
+        }
+    }
+}
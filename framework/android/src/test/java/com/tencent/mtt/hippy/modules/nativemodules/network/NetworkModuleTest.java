@@ -0,0 +1,201 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.modules.nativemodules.network;
+
+import static com.tencent.mtt.hippy.adapter.http.HippyHttpResponse.HTTP_RESPONSE_RESPONSE_MESSAGE;
+import static com.tencent.mtt.hippy.adapter.http.HippyHttpResponse.HTTP_RESPONSE_STATUS_CODE;
+import static org.junit.Assert.*;
+
+import com.tencent.mtt.hippy.modules.Promise;
+import com.tencent.mtt.hippy.modules.nativemodules.network.NetworkModule.ResponseStream;
+import com.tencent.mtt.hippy.runtime.builtins.JSArrayBuffer;
+import com.tencent.mtt.hippy.runtime.builtins.JSObject;
+import com.tencent.vfs.ResourceDataHolder;
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class NetworkModuleTest {
+
+    private static final String URL = "http://example.com/data";
+    private static final String TEXT = "Hello, 世界";
+
+    private NetworkModule mModule;
+
+    @Before
+    public void setUp() {
+        // Engine context is only used by fetch and the bridge, not by response handling.
+        mModule = new NetworkModule(null);
+    }
+
+    private static ResourceDataHolder createHolder(String responseType, byte[] body) {
+        HashMap<String, String> requestParams = new HashMap<>();
+        requestParams.put(NetworkModule.HTTP_RESPONSE_TYPE, responseType);
+        ResourceDataHolder holder = new ResourceDataHolder(URL, null, requestParams,
+                RequestFrom.LOCAL);
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        holder.addResponseHeaderProperty(HTTP_RESPONSE_STATUS_CODE, "200");
+        holder.addResponseHeaderProperty(HTTP_RESPONSE_RESPONSE_MESSAGE, "OK");
+        holder.addResponseHeaderProperty("Content-Type", "text/plain");
+        holder.setResourceChannel(new ByteArrayInputStream(body), body.length);
+        return holder;
+    }
+
+    private static byte[] content(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+
+    private static void assertResponseLine(JSObject response) {
+        assertEquals(200, response.get(HTTP_RESPONSE_STATUS_CODE));
+        assertEquals("OK", response.get("statusLine"));
+        JSObject headers = (JSObject) response.get("respHeaders");
+        assertEquals("text/plain", headers.get("Content-Type"));
+    }
+
+    @Test
+    public void textResponse() {
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_TEXT,
+                TEXT.getBytes(StandardCharsets.UTF_8));
+        JSObject response = mModule.handleFetchResponse(holder,
+                NetworkModule.RESPONSE_TYPE_TEXT);
+        assertResponseLine(response);
+        assertEquals(TEXT, response.get("respBody"));
+    }
+
+    @Test
+    public void arrayBufferResponse() {
+        byte[] body = content(1000);
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_ARRAY_BUFFER, body);
+        JSObject response = mModule.handleFetchResponse(holder,
+                NetworkModule.RESPONSE_TYPE_ARRAY_BUFFER);
+        assertResponseLine(response);
+        ByteBuffer buffer = ((JSArrayBuffer) response.get("respBody")).getBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(body, bytes);
+    }
+
+    @Test
+    public void streamResponseLeavesBodyInHolder() throws Exception {
+        byte[] body = content(1000);
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_STREAM, body);
+        JSObject response = mModule.handleFetchResponse(holder,
+                NetworkModule.RESPONSE_TYPE_STREAM);
+        assertResponseLine(response);
+        assertFalse(response.has("respBody"));
+        ResponseStream stream = mModule.openStream(holder);
+        assertEquals(body.length, stream.getTotal());
+        ByteBuffer chunk = stream.read();
+        assertNotNull(chunk);
+        assertEquals(body.length, chunk.remaining());
+        assertNull(stream.read());
+    }
+
+    @Test
+    public void streamIsPulledChunkByChunk() {
+        final byte[] body = content(2 * NetworkModule.STREAM_CHUNK_SIZE + 100);
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_STREAM, body);
+        final Object[] result = new Object[1];
+        Promise promise = new Promise() {
+            @Override
+            public void resolve(Object value) {
+                result[0] = value;
+            }
+
+            @Override
+            public void reject(Object error) {
+                fail("Unexpected reject " + error);
+            }
+        };
+        mModule.handleFetchResult(holder, promise);
+        JSObject response = (JSObject) result[0];
+        int streamId = (Integer) response.get("streamId");
+        ResponseStream stream = mModule.getStream(streamId);
+        assertNotNull(stream);
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        int chunks = 0;
+        while (true) {
+            mModule.readStreamChunk(streamId, stream, promise);
+            JSObject read = (JSObject) result[0];
+            if ((Boolean) read.get("done")) {
+                break;
+            }
+            chunks++;
+            ByteBuffer chunk = ((JSArrayBuffer) read.get("chunk")).getBuffer();
+            assertTrue(chunk.remaining() <= NetworkModule.STREAM_CHUNK_SIZE);
+            received.write(chunk.array(), chunk.arrayOffset() + chunk.position(),
+                    chunk.remaining());
+            assertEquals((long) received.size(), read.get("loaded"));
+            assertEquals((long) body.length, read.get("total"));
+        }
+        assertTrue(chunks >= 3);
+        assertArrayEquals(body, received.toByteArray());
+        // Stream is released once it ends.
+        assertNull(mModule.getStream(streamId));
+    }
+
+    @Test
+    public void materializedBodyIsStreamedFromMemory() throws Exception {
+        byte[] body = content(100);
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_STREAM, body);
+        holder.materialize();
+        ResponseStream stream = mModule.openStream(holder);
+        assertEquals(body.length, stream.getTotal());
+        ByteBuffer chunk = stream.read();
+        assertNotNull(chunk);
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        assertArrayEquals(body, bytes);
+        assertNull(stream.read());
+    }
+
+    @Test
+    public void cancelStreamReleasesStream() {
+        ResourceDataHolder holder = createHolder(NetworkModule.RESPONSE_TYPE_STREAM, content(10));
+        final Object[] result = new Object[1];
+        mModule.handleFetchResult(holder, new Promise() {
+            @Override
+            public void resolve(Object value) {
+                result[0] = value;
+            }
+
+            @Override
+            public void reject(Object error) {
+                fail("Unexpected reject " + error);
+            }
+        });
+        int streamId = (Integer) ((JSObject) result[0]).get("streamId");
+        assertNotNull(mModule.getStream(streamId));
+        mModule.cancelStream(streamId);
+        assertNull(mModule.getStream(streamId));
+    }
+}
@@ -0,0 +1,102 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.serialization.recommend;
+
+import static org.junit.Assert.*;
+
+import com.tencent.mtt.hippy.runtime.builtins.JSArrayBuffer;
+import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class SerializerTest {
+
+  private static byte[] content(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (i * 31 + 7);
+    }
+    return bytes;
+  }
+
+  private static byte[] roundTrip(ByteBuffer source) {
+    Serializer serializer = new Serializer();
+    serializer.setWriter(new SafeHeapWriter());
+    serializer.writeHeader();
+    serializer.writeValue(new JSArrayBuffer(source));
+    ByteBuffer serialized = serializer.getWriter().chunked();
+
+    Deserializer deserializer = new Deserializer(new SafeHeapReader(serialized));
+    deserializer.readHeader();
+    Object value = deserializer.readValue();
+    assertTrue(value instanceof JSArrayBuffer);
+    ByteBuffer buffer = ((JSArrayBuffer) value).getBuffer().duplicate();
+    buffer.clear();
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void heapBuffer() {
+    byte[] expected = content(100);
+    assertArrayEquals(expected, roundTrip(ByteBuffer.wrap(expected)));
+  }
+
+  @Test
+  public void heapBufferWithArrayOffset() {
+    byte[] backing = content(64);
+    ByteBuffer source = ByteBuffer.wrap(backing);
+    source.position(10);
+    ByteBuffer slice = source.slice();
+    slice.limit(20);
+    assertEquals(10, slice.arrayOffset());
+    byte[] expected = new byte[20];
+    System.arraycopy(backing, 10, expected, 0, 20);
+    assertArrayEquals(expected, roundTrip(slice));
+  }
+
+  @Test
+  public void directBufferLargerThanCopyChunk() {
+    byte[] expected = content(3 * 8 * 1024 + 123);
+    ByteBuffer source = ByteBuffer.allocateDirect(expected.length);
+    source.put(expected);
+    // Content is taken from zero to limit regardless of position.
+    assertArrayEquals(expected, roundTrip(source));
+  }
+
+  @Test
+  public void readOnlyBuffer() {
+    byte[] expected = content(10 * 1024);
+    ByteBuffer source = ByteBuffer.wrap(expected).asReadOnlyBuffer();
+    assertFalse(source.hasArray());
+    assertArrayEquals(expected, roundTrip(source));
+    assertEquals(0, source.position());
+  }
+
+  @Test
+  public void emptyBuffer() {
+    assertEquals(0, roundTrip(ByteBuffer.allocateDirect(0)).length);
+    assertEquals(0, roundTrip(ByteBuffer.allocate(0)).length);
+  }
+}
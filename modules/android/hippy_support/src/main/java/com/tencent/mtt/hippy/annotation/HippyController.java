@@ -33,5 +33,23 @@ public @interface HippyController {
 
     boolean supportFlatten() default false;
 
+    /**
+     * Whether the view of this component can be created on background thread, only set to true
+     * if the view constructor does not touch any main thread state, such as creating handler.
+     */
+    boolean supportBackgroundCreate() default false;
+
     boolean dispatchWithStandardType() default false;
+
+    /**
+     * Max count of recycled views cached for this component, negative value means use the
+     * default capacity of recycle pool, 0 disables recycling.
+     */
+    int recycleCapacity() default -1;
+
+    /**
+     * Count of views created in advance for each root when the root view is added, these views
+     * are put into recycle pool and reused by the first nodes of this component.
+     */
+    int warmUpCount() default 0;
 }
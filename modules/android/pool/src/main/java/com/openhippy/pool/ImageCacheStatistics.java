@@ -0,0 +1,141 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.openhippy.pool;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snapshot of image cache statistics, sizes are in bytes.
+ */
+public class ImageCacheStatistics {
+
+    private final long mActiveHitCount;
+    private final long mMemoryHitCount;
+    private final long mDiskHitCount;
+    private final long mMissCount;
+    private final long mEvictionCount;
+    private final long mEvictedBytes;
+    private final long mMemorySize;
+    private final long mMaxMemorySize;
+    private final long mDiskSize;
+    private final long mPrefetchCount;
+    private final long mPrefetchHitCount;
+
+    public ImageCacheStatistics(long activeHitCount, long memoryHitCount, long diskHitCount,
+            long missCount, long evictionCount, long evictedBytes, long memorySize,
+            long maxMemorySize, long diskSize, long prefetchCount, long prefetchHitCount) {
+        mActiveHitCount = activeHitCount;
+        mMemoryHitCount = memoryHitCount;
+        mDiskHitCount = diskHitCount;
+        mMissCount = missCount;
+        mEvictionCount = evictionCount;
+        mEvictedBytes = evictedBytes;
+        mMemorySize = memorySize;
+        mMaxMemorySize = maxMemorySize;
+        mDiskSize = diskSize;
+        mPrefetchCount = prefetchCount;
+        mPrefetchHitCount = prefetchHitCount;
+    }
+
+    /**
+     * @return hit count of image data still displayed by other views
+     */
+    public long getActiveHitCount() {
+        return mActiveHitCount;
+    }
+
+    /**
+     * @return hit count of decoded image data in memory tier
+     */
+    public long getMemoryHitCount() {
+        return mMemoryHitCount;
+    }
+
+    /**
+     * @return hit count of encoded image data in disk tier
+     */
+    public long getDiskHitCount() {
+        return mDiskHitCount;
+    }
+
+    /**
+     * @return miss count of the active and memory tiers, include the requests hit by disk tier
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    public long getEvictedBytes() {
+        return mEvictedBytes;
+    }
+
+    public long getMemorySize() {
+        return mMemorySize;
+    }
+
+    public long getMaxMemorySize() {
+        return mMaxMemorySize;
+    }
+
+    public long getDiskSize() {
+        return mDiskSize;
+    }
+
+    /**
+     * @return count of image data decoded by prefetch
+     */
+    public long getPrefetchCount() {
+        return mPrefetchCount;
+    }
+
+    /**
+     * @return count of prefetched image data later requested for display
+     */
+    public long getPrefetchHitCount() {
+        return mPrefetchHitCount;
+    }
+
+    /**
+     * @return ratio of prefetched image data later requested for display
+     */
+    public float getPrefetchHitRatio() {
+        return (mPrefetchCount == 0) ? 0 : (float) mPrefetchHitCount / mPrefetchCount;
+    }
+
+    /**
+     * @return hit ratio of decoded image data in active and memory tiers
+     */
+    public float getHitRatio() {
+        long hit = mActiveHitCount + mMemoryHitCount;
+        long total = hit + mMissCount;
+        return (total == 0) ? 0 : (float) hit / total;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "activeHit=" + mActiveHitCount + ", memoryHit=" + mMemoryHitCount + ", diskHit="
+                + mDiskHitCount + ", miss=" + mMissCount + ", eviction=" + mEvictionCount
+                + ", evictedBytes=" + mEvictedBytes + ", memorySize=" + mMemorySize + "/"
+                + mMaxMemorySize + ", diskSize=" + mDiskSize + ", prefetch=" + mPrefetchCount
+                + ", prefetchHit=" + mPrefetchHitCount;
+    }
+}
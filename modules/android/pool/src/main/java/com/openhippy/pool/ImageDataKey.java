@@ -20,23 +20,53 @@ import androidx.annotation.NonNull;
 
 public class ImageDataKey {
 
-    private static final int MAX_SOURCE_KEY_LEN = 128;
     @NonNull
     private final String mUri;
+    private final int mWidth;
+    private final int mHeight;
     private int mUriKey = 0;
 
     public ImageDataKey(@NonNull String url) {
+        this(url, 0, 0);
+    }
+
+    /**
+     * The same uri decoded to different target size should be cached separately, otherwise a
+     * thumbnail would be up scaled by a large image view, or a large bitmap would be retained by
+     * a small image view.
+     *
+     * @param url the uri of image
+     * @param width the target decode width, 0 means decode with the original size
+     * @param height the target decode height, 0 means decode with the original size
+     */
+    public ImageDataKey(@NonNull String url, int width, int height) {
         mUri = url;
+        if (width <= 0 || height <= 0) {
+            width = 0;
+            height = 0;
+        }
+        mWidth = width;
+        mHeight = height;
     }
 
     public String getUri() {
         return mUri;
     }
 
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof ImageDataKey) {
-            return mUri.equals(((ImageDataKey) obj).getUri());
+            ImageDataKey other = (ImageDataKey) obj;
+            return mWidth == other.mWidth && mHeight == other.mHeight && mUri.equals(
+                    other.getUri());
         }
         return false;
     }
@@ -44,11 +74,8 @@ public class ImageDataKey {
     @Override
     public int hashCode() {
         if (mUriKey == 0) {
-            String keyUrl = mUri;
-            if (mUri.length() > MAX_SOURCE_KEY_LEN) {
-                keyUrl = mUri.substring(mUri.length() - MAX_SOURCE_KEY_LEN);
-            }
-            mUriKey = keyUrl.hashCode();
+            // Hash the whole uri, truncated uri collides for urls differ only in the prefix.
+            mUriKey = 31 * (31 * mUri.hashCode() + mWidth) + mHeight;
         }
         return mUriKey;
     }
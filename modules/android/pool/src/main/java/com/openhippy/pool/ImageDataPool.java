@@ -16,51 +16,152 @@
 
 package com.openhippy.pool;
 
+import android.content.ComponentCallbacks2;
 import android.util.LruCache;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
 
+/**
+ * Image cache with three tiers:
+ *
+ * <p>Active tier, weak references of image data still displayed by views, it does not account for
+ * the memory budget because the data can not be released before views detach it.</p>
+ *
+ * <p>Memory tier, LRU cache of detached image data, limited by the byte count of decoded
+ * bitmaps.</p>
+ *
+ * <p>Disk tier, optional {@link ImageDiskCache} of encoded image data, which avoids fetching the
+ * resource again after the decoded data is evicted.</p>
+ */
 public class ImageDataPool extends BasePool<ImageDataKey, ImageRecycleObject> {
 
-    private static final int DEFAULT_IMAGE_POOL_SIZE = 24;
+    private static final int MIN_MEMORY_CACHE_SIZE = 4 * 1024 * 1024;
+    private static final int MEMORY_CACHE_RATIO = 8;
     private LruCache<ImageDataKey, ImageRecycleObject> mPools;
+    private final HashMap<ImageDataKey, WeakReference<ImageRecycleObject>> mActiveResources =
+            new HashMap<>();
+    @Nullable
+    private ImageDiskCache mDiskCache;
+    private long mActiveHitCount;
+    private long mMemoryHitCount;
+    private long mDiskHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+    private long mEvictedBytes;
+    private long mPrefetchCount;
+    private long mPrefetchHitCount;
+    /**
+     * Keys of prefetched image data not acquired yet, guarded by this pool.
+     */
+    private final HashSet<ImageDataKey> mPrefetchedKeys = new HashSet<>();
 
     public ImageDataPool() {
-        init(DEFAULT_IMAGE_POOL_SIZE);
+        long maxMemory = Runtime.getRuntime().maxMemory() / MEMORY_CACHE_RATIO;
+        init((int) Math.min(maxMemory, Integer.MAX_VALUE));
     }
 
+    /**
+     * @param maxSize the max byte count of decoded image data in memory tier
+     */
     @SuppressWarnings("unused")
-    public ImageDataPool(int size) {
-        init(Math.max(DEFAULT_IMAGE_POOL_SIZE, size));
+    public ImageDataPool(int maxSize) {
+        init(maxSize);
     }
 
-    private void init(int size) {
+    private void init(int maxSize) {
         mPools = new LruCache<ImageDataKey, ImageRecycleObject>(
-                size) {
+                Math.max(MIN_MEMORY_CACHE_SIZE, maxSize)) {
+            @Override
+            protected int sizeOf(@NonNull ImageDataKey key, @NonNull ImageRecycleObject value) {
+                return Math.max(1, value.getByteCount());
+            }
+
             @Override
             protected void entryRemoved(boolean evicted, @NonNull ImageDataKey key,
                     @NonNull ImageRecycleObject oldValue, @Nullable ImageRecycleObject newValue) {
                 if (evicted) {
-                    onEntryEvicted(oldValue);
+                    onEntryEvicted(key, oldValue);
                 }
             }
         };
     }
 
+    /**
+     * Enable the disk tier of encoded image data.
+     */
+    public void setDiskCache(@Nullable ImageDiskCache diskCache) {
+        mDiskCache = diskCache;
+    }
+
     @Override
     @Nullable
     public ImageRecycleObject acquire(@NonNull ImageDataKey key) {
-        ImageRecycleObject data = mPools.get(key);
+        ImageRecycleObject data = getActiveResource(key);
+        if (data != null) {
+            synchronized (this) {
+                mActiveHitCount++;
+                recordPrefetchHitIfNeeded(key);
+            }
+            return data;
+        }
+        data = mPools.get(key);
         if (data != null && data.isScraped()) {
             // Bitmap may have been recycled, must be removed from the cache and not
             // returned to the component.
             mPools.remove(key);
             data.evicted();
-            return null;
+            data = null;
+        }
+        synchronized (this) {
+            if (data != null) {
+                mMemoryHitCount++;
+                recordPrefetchHitIfNeeded(key);
+            } else {
+                mMissCount++;
+            }
         }
         return data;
     }
 
+    private void recordPrefetchHitIfNeeded(@NonNull ImageDataKey key) {
+        if (mPrefetchedKeys.remove(key)) {
+            mPrefetchHitCount++;
+        }
+    }
+
+    /**
+     * Check whether the image data of key is cached in active or memory tier, the statistics
+     * are not affected.
+     */
+    public boolean contains(@NonNull ImageDataKey key) {
+        if (getActiveResource(key) != null) {
+            return true;
+        }
+        ImageRecycleObject data = mPools.get(key);
+        return data != null && !data.isScraped();
+    }
+
+    @Nullable
+    private ImageRecycleObject getActiveResource(@NonNull ImageDataKey key) {
+        synchronized (mActiveResources) {
+            WeakReference<ImageRecycleObject> ref = mActiveResources.get(key);
+            if (ref == null) {
+                return null;
+            }
+            ImageRecycleObject data = ref.get();
+            if (data == null || data.isScraped()) {
+                mActiveResources.remove(key);
+                return null;
+            }
+            return data;
+        }
+    }
+
     @Override
     public void release(@NonNull ImageRecycleObject data) {
         ImageDataKey key = data.getCacheKey();
@@ -71,21 +172,131 @@ public class ImageDataPool extends BasePool<ImageDataKey, ImageRecycleObject> {
 
     @Override
     public void release(@NonNull ImageDataKey key, @NonNull ImageRecycleObject data) {
-        mPools.put(key, data);
+        data.setCachePool(this);
+        if (data.isAttached()) {
+            synchronized (mActiveResources) {
+                mActiveResources.put(key, new WeakReference<>(data));
+            }
+            mPools.remove(key);
+        } else {
+            synchronized (mActiveResources) {
+                mActiveResources.remove(key);
+            }
+            mPools.put(key, data);
+        }
         data.cached();
     }
 
+    /**
+     * Save the image data decoded by prefetch, which is counted as prefetch hit when it's
+     * acquired for the first time.
+     */
+    public void releasePrefetched(@NonNull ImageRecycleObject data) {
+        ImageDataKey key = data.getCacheKey();
+        if (key == null) {
+            return;
+        }
+        release(key, data);
+        synchronized (this) {
+            mPrefetchCount++;
+            mPrefetchedKeys.add(key);
+        }
+    }
+
+    /**
+     * Record the prefetch that is joined by a display request before it completes.
+     */
+    public synchronized void recordPrefetchHit() {
+        mPrefetchCount++;
+        mPrefetchHitCount++;
+    }
+
     @Override
     public void clear() {
         mPools.evictAll();
+        synchronized (mActiveResources) {
+            mActiveResources.clear();
+        }
+        synchronized (this) {
+            mPrefetchedKeys.clear();
+        }
     }
 
     @Override
     public void remove(@NonNull ImageDataKey key) {
         mPools.remove(key);
+        synchronized (mActiveResources) {
+            mActiveResources.remove(key);
+        }
+        synchronized (this) {
+            mPrefetchedKeys.remove(key);
+        }
     }
 
-    private void onEntryEvicted(@NonNull ImageRecycleObject data) {
+    /**
+     * Get encoded image data from disk tier, should not be called on UI thread.
+     */
+    @Nullable
+    public byte[] acquireEncodedData(@NonNull String uri) {
+        ImageDiskCache diskCache = mDiskCache;
+        byte[] data = (diskCache != null) ? diskCache.get(uri) : null;
+        if (data != null) {
+            synchronized (this) {
+                mDiskHitCount++;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Save encoded image data to disk tier, should not be called on UI thread.
+     */
+    public void releaseEncodedData(@NonNull String uri, @NonNull byte[] data) {
+        ImageDiskCache diskCache = mDiskCache;
+        if (diskCache != null) {
+            diskCache.put(uri, data);
+        }
+    }
+
+    /**
+     * Evict the memory tier according to the level of {@link ComponentCallbacks2#onTrimMemory}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            mPools.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mPools.trimToSize(mPools.maxSize() / 2);
+        }
+        purgeActiveResources();
+    }
+
+    private void purgeActiveResources() {
+        synchronized (mActiveResources) {
+            Iterator<Map.Entry<ImageDataKey, WeakReference<ImageRecycleObject>>> iterator =
+                    mActiveResources.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().get() == null) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @NonNull
+    public synchronized ImageCacheStatistics getStatistics() {
+        ImageDiskCache diskCache = mDiskCache;
+        return new ImageCacheStatistics(mActiveHitCount, mMemoryHitCount, mDiskHitCount,
+                mMissCount, mEvictionCount, mEvictedBytes, mPools.size(), mPools.maxSize(),
+                (diskCache != null) ? diskCache.size() : 0, mPrefetchCount, mPrefetchHitCount);
+    }
+
+    private void onEntryEvicted(@NonNull ImageDataKey key, @NonNull ImageRecycleObject data) {
+        synchronized (this) {
+            mEvictionCount++;
+            mEvictedBytes += Math.max(1, data.getByteCount());
+            mPrefetchedKeys.remove(key);
+        }
         data.evicted();
     }
 }
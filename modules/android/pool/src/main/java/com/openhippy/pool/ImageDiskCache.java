@@ -0,0 +1,199 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.openhippy.pool;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * LRU disk cache of encoded image data, the access order is kept by file last modified time.
+ * All methods do file IO, so should not be called on UI thread.
+ */
+public class ImageDiskCache {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    @NonNull
+    private final File mDirectory;
+    private final long mMaxSize;
+    private long mSize = -1;
+
+    public ImageDiskCache(@NonNull File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    @Nullable
+    public synchronized byte[] get(@NonNull String uri) {
+        File file = new File(mDirectory, getFileName(uri));
+        long length = file.length();
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        byte[] data = new byte[(int) length];
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            int offset = 0;
+            while (offset < data.length) {
+                int count = inputStream.read(data, offset, data.length - offset);
+                if (count < 0) {
+                    return null;
+                }
+                offset += count;
+            }
+        } catch (IOException e) {
+            return null;
+        } finally {
+            closeQuietly(inputStream);
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return data;
+    }
+
+    public synchronized void put(@NonNull String uri, @NonNull byte[] data) {
+        if (data.length == 0 || data.length > mMaxSize) {
+            return;
+        }
+        ensureSize();
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            return;
+        }
+        String fileName = getFileName(uri);
+        File file = new File(mDirectory, fileName);
+        File tempFile = new File(mDirectory, fileName + TEMP_FILE_SUFFIX);
+        long oldLength = file.length();
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            outputStream.write(data);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        } finally {
+            closeQuietly(outputStream);
+        }
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+        mSize += data.length - oldLength;
+        if (mSize > mMaxSize) {
+            trimToSize(mMaxSize * 3 / 4);
+        }
+    }
+
+    public synchronized long size() {
+        ensureSize();
+        return mSize;
+    }
+
+    public synchronized void clear() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        mSize = 0;
+    }
+
+    private void ensureSize() {
+        if (mSize >= 0) {
+            return;
+        }
+        long size = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                    // Left by the last process which was killed when writing.
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                } else {
+                    size += file.length();
+                }
+            }
+        }
+        mSize = size;
+    }
+
+    private void trimToSize(long maxSize) {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+                return (m1 < m2) ? -1 : ((m1 == m2) ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (mSize <= maxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mSize -= length;
+            }
+        }
+    }
+
+    @NonNull
+    private static String getFileName(@NonNull String uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] bytes = digest.digest(uri.getBytes("UTF-8"));
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+                chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(uri.hashCode()) + "_" + uri.length();
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+}
@@ -16,8 +16,13 @@
 
 package com.openhippy.pool;
 
+import androidx.annotation.Nullable;
+
 public abstract class ImageRecycleObject extends RecycleObject {
 
+    @Nullable
+    private ImageDataPool mCachePool;
+
     public abstract void evicted();
 
     public abstract void cached();
@@ -25,4 +30,28 @@ public abstract class ImageRecycleObject extends RecycleObject {
     public abstract ImageDataKey getCacheKey();
 
     public abstract boolean isScraped();
+
+    /**
+     * @return {@code true} if the image data is displayed by any view
+     */
+    public abstract boolean isAttached();
+
+    /**
+     * @return the memory size in bytes held by the decoded image data
+     */
+    public abstract int getByteCount();
+
+    void setCachePool(@Nullable ImageDataPool pool) {
+        mCachePool = pool;
+    }
+
+    /**
+     * Subclass should call this method when the image data is detached from the last view, the
+     * data will be moved from the active tier to the memory tier of cache pool.
+     */
+    protected void onReleased() {
+        if (mCachePool != null) {
+            mCachePool.release(this);
+        }
+    }
 }
@@ -20,17 +20,35 @@ import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.util.Pools;
-import androidx.core.util.Pools.SimplePool;
 import com.tencent.mtt.hippy.utils.LogUtils;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
+/**
+ * Recycled views keyed by component class name, shared by all roots of one renderer.
+ *
+ * <p>Every cached view records the owner (root id) it was created for, a view is only handed
+ * back to the same owner, since its context is bound to that root. The capacity of each key is
+ * shared by all owners, when the bucket is full the oldest view is dropped. All methods are
+ * thread safe, so views can be warmed up or released from different threads.</p>
+ */
 public class RecycleViewPool extends BasePool<String, View> {
 
     private static final String TAG = "RecycleViewPool";
-    private final Map<String, SimplePool<View>> mPools = new HashMap<>();
-    private int mPoolSize = 8;
+    private static final int DEFAULT_POOL_SIZE = 8;
+    /**
+     * The owner of views released without owner, these views can be acquired by any owner.
+     */
+    public static final int OWNER_ANY = -1;
+    private final Map<String, ArrayList<Entry>> mPools = new HashMap<>();
+    private final Map<String, Integer> mCapacities = new HashMap<>();
+    private int mPoolSize = DEFAULT_POOL_SIZE;
+    private long mHitCount;
+    private long mMissCount;
+    private long mReleaseCount;
+    private long mDropCount;
 
     public RecycleViewPool() {}
 
@@ -40,14 +58,73 @@ public class RecycleViewPool extends BasePool<String, View> {
         }
     }
 
+    /**
+     * Set the capacity of the specified key, views exceed the new capacity will be dropped.
+     *
+     * @param key the component class name
+     * @param capacity max count of views cached for this key, 0 disables recycling of this key
+     */
+    public synchronized void setCapacity(@NonNull String key, int capacity) {
+        if (capacity < 0) {
+            return;
+        }
+        mCapacities.put(key, capacity);
+        ArrayList<Entry> entries = mPools.get(key);
+        if (entries != null) {
+            trim(entries, capacity);
+        }
+    }
+
+    public synchronized int getCapacity(@NonNull String key) {
+        Integer capacity = mCapacities.get(key);
+        return (capacity != null) ? capacity : mPoolSize;
+    }
+
+    /**
+     * @return count of views cached for the key and can be acquired by the owner
+     */
+    public synchronized int size(@NonNull String key, int owner) {
+        ArrayList<Entry> entries = mPools.get(key);
+        if (entries == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.matches(owner)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Override
     @Nullable
     public View acquire(@NonNull String key) {
-        SimplePool<View> pool = mPools.get(key);
-        if (pool == null) {
-            return null;
+        return acquire(key, OWNER_ANY);
+    }
+
+    /**
+     * Get the latest released view of the key which belongs to the owner.
+     *
+     * @param key the component class name
+     * @param owner the owner id, {@link #OWNER_ANY} matches views of all owners
+     * @return the cache view, or null if no matched view in the pool
+     */
+    @Nullable
+    public synchronized View acquire(@NonNull String key, int owner) {
+        ArrayList<Entry> entries = mPools.get(key);
+        if (entries != null) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                if (owner == OWNER_ANY || entry.matches(owner)) {
+                    entries.remove(i);
+                    mHitCount++;
+                    return entry.view;
+                }
+            }
         }
-        return pool.acquire();
+        mMissCount++;
+        return null;
     }
 
     @Override
@@ -62,26 +139,109 @@ public class RecycleViewPool extends BasePool<String, View> {
 
     @Override
     public void release(@NonNull String key, @NonNull View instance) {
-        SimplePool<View> pool = mPools.get(key);
-        if (pool == null) {
-            pool = new Pools.SimplePool<>(mPoolSize);
-            mPools.put(key, pool);
+        release(key, OWNER_ANY, instance);
+    }
+
+    /**
+     * Release the view created for the owner to the pool.
+     *
+     * @return true if the view is cached, false if the capacity of the key is 0 or the view
+     * has been in the pool already
+     */
+    public synchronized boolean release(@NonNull String key, int owner, @NonNull View instance) {
+        int capacity = getCapacity(key);
+        if (capacity <= 0) {
+            mDropCount++;
+            return false;
+        }
+        ArrayList<Entry> entries = mPools.get(key);
+        if (entries == null) {
+            entries = new ArrayList<>(capacity);
+            mPools.put(key, entries);
+        }
+        for (Entry entry : entries) {
+            if (entry.view == instance) {
+                LogUtils.w(TAG, "Put recycle item to pool failed: key=" + key
+                        + ", msg=Already in the pool!");
+                return false;
+            }
         }
-        try {
-            pool.release(instance);
-        } catch (IllegalStateException e) {
-            LogUtils.w(TAG,
-                    "Put recycle item to pool failed: key=" + key + ", msg=" + e.getMessage());
+        mReleaseCount++;
+        entries.add(new Entry(owner, instance));
+        trim(entries, capacity);
+        return true;
+    }
+
+    /**
+     * Remove all views belong to the owner, should be called when the root destroyed.
+     */
+    public synchronized void removeOwner(int owner) {
+        for (ArrayList<Entry> entries : mPools.values()) {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().owner == owner) {
+                    iterator.remove();
+                }
+            }
         }
     }
 
     @Override
-    public void clear() {
+    public synchronized void clear() {
         mPools.clear();
     }
 
     @Override
-    public void remove(@NonNull String key) {
-        acquire(key);
+    public synchronized void remove(@NonNull String key) {
+        mPools.remove(key);
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized long getReleaseCount() {
+        return mReleaseCount;
+    }
+
+    /**
+     * @return count of views dropped because of exceed the capacity
+     */
+    public synchronized long getDropCount() {
+        return mDropCount;
+    }
+
+    @Override
+    @NonNull
+    public synchronized String toString() {
+        return "RecycleViewPool{hit=" + mHitCount + ", miss=" + mMissCount + ", release="
+                + mReleaseCount + ", drop=" + mDropCount + "}";
+    }
+
+    private void trim(@NonNull ArrayList<Entry> entries, int capacity) {
+        while (entries.size() > capacity) {
+            entries.remove(0);
+            mDropCount++;
+        }
+    }
+
+    private static class Entry {
+
+        final int owner;
+        @NonNull
+        final View view;
+
+        Entry(int owner, @NonNull View view) {
+            this.owner = owner;
+            this.view = view;
+        }
+
+        boolean matches(int requestOwner) {
+            return owner == OWNER_ANY || owner == requestOwner;
+        }
     }
 }
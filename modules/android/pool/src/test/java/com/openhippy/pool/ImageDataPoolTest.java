@@ -0,0 +1,186 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.openhippy.pool;
+
+import static org.junit.Assert.*;
+
+import android.content.ComponentCallbacks2;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ImageDataPoolTest {
+
+    private static final int MAX_SIZE = 4 * 1024 * 1024;
+    private static final int DATA_SIZE = 1536 * 1024;
+
+    private ImageDataPool mPool;
+
+    @Before
+    public void setUp() {
+        mPool = new ImageDataPool(MAX_SIZE);
+    }
+
+    private static class TestImageData extends ImageRecycleObject {
+
+        final ImageDataKey mKey;
+        final int mByteCount;
+        boolean mAttached;
+        boolean mScraped;
+        int mCachedCount;
+        int mEvictedCount;
+
+        TestImageData(String uri, int byteCount) {
+            mKey = new ImageDataKey(uri);
+            mByteCount = byteCount;
+        }
+
+        void detach() {
+            mAttached = false;
+            onReleased();
+        }
+
+        @Override
+        public void evicted() {
+            mEvictedCount++;
+        }
+
+        @Override
+        public void cached() {
+            mCachedCount++;
+        }
+
+        @Override
+        public ImageDataKey getCacheKey() {
+            return mKey;
+        }
+
+        @Override
+        public boolean isScraped() {
+            return mScraped;
+        }
+
+        @Override
+        public boolean isAttached() {
+            return mAttached;
+        }
+
+        @Override
+        public int getByteCount() {
+            return mByteCount;
+        }
+
+        @Override
+        public void recycle() {
+        }
+    }
+
+    @Test
+    public void moveBetweenActiveAndMemoryTier() {
+        TestImageData data = new TestImageData("a", DATA_SIZE);
+        data.mAttached = true;
+        mPool.release(data);
+        // Active tier does not account for the memory budget.
+        assertEquals(0, mPool.getStatistics().getMemorySize());
+        assertSame(data, mPool.acquire(data.getCacheKey()));
+        assertEquals(1, mPool.getStatistics().getActiveHitCount());
+
+        // Detached from the last view, moved to the memory tier.
+        data.detach();
+        assertEquals(DATA_SIZE, mPool.getStatistics().getMemorySize());
+        assertSame(data, mPool.acquire(data.getCacheKey()));
+        assertEquals(1, mPool.getStatistics().getMemoryHitCount());
+
+        // Attached again, moved back to the active tier.
+        data.mAttached = true;
+        mPool.release(data);
+        assertEquals(0, mPool.getStatistics().getMemorySize());
+        assertTrue(mPool.contains(data.getCacheKey()));
+        assertEquals(3, data.mCachedCount);
+        assertEquals(0, data.mEvictedCount);
+    }
+
+    @Test
+    public void evictMemoryTierByByteCount() {
+        TestImageData first = new TestImageData("a", DATA_SIZE);
+        TestImageData second = new TestImageData("b", DATA_SIZE);
+        TestImageData third = new TestImageData("c", DATA_SIZE);
+        mPool.release(first);
+        mPool.release(second);
+        // Access makes the first data most recently used.
+        assertSame(first, mPool.acquire(first.getCacheKey()));
+        mPool.release(third);
+        assertEquals(1, second.mEvictedCount);
+        assertNull(mPool.acquire(second.getCacheKey()));
+        assertTrue(mPool.contains(first.getCacheKey()));
+        assertTrue(mPool.contains(third.getCacheKey()));
+        ImageCacheStatistics statistics = mPool.getStatistics();
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals(DATA_SIZE, statistics.getEvictedBytes());
+        assertEquals(DATA_SIZE * 2, statistics.getMemorySize());
+        assertEquals(1, statistics.getMissCount());
+    }
+
+    @Test
+    public void dropScrapedData() {
+        TestImageData data = new TestImageData("a", DATA_SIZE);
+        mPool.release(data);
+        data.mScraped = true;
+        assertFalse(mPool.contains(data.getCacheKey()));
+        assertNull(mPool.acquire(data.getCacheKey()));
+        assertEquals(1, data.mEvictedCount);
+        assertEquals(0, mPool.getStatistics().getMemorySize());
+    }
+
+    @Test
+    public void keyWithDecodeSize() {
+        TestImageData data = new TestImageData("a", DATA_SIZE);
+        mPool.release(data);
+        assertNull(mPool.acquire(new ImageDataKey("a", 100, 100)));
+        assertSame(data, mPool.acquire(new ImageDataKey("a", 0, 100)));
+    }
+
+    @Test
+    public void trimMemory() {
+        TestImageData first = new TestImageData("a", DATA_SIZE);
+        TestImageData second = new TestImageData("b", DATA_SIZE);
+        mPool.release(first);
+        mPool.release(second);
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertTrue(mPool.getStatistics().getMemorySize() <= MAX_SIZE / 2);
+        assertFalse(mPool.contains(first.getCacheKey()));
+        assertTrue(mPool.contains(second.getCacheKey()));
+        mPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertEquals(0, mPool.getStatistics().getMemorySize());
+        assertEquals(1, second.mEvictedCount);
+    }
+
+    @Test
+    public void prefetchHit() {
+        TestImageData data = new TestImageData("a", DATA_SIZE);
+        mPool.releasePrefetched(data);
+        assertSame(data, mPool.acquire(data.getCacheKey()));
+        assertSame(data, mPool.acquire(data.getCacheKey()));
+        ImageCacheStatistics statistics = mPool.getStatistics();
+        assertEquals(1, statistics.getPrefetchCount());
+        assertEquals(1, statistics.getPrefetchHitCount());
+    }
+}
@@ -0,0 +1,122 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.openhippy.pool;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageDiskCacheTest {
+
+    private static final int ENTRY_SIZE = 100;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+    private File mDirectory;
+    private ImageDiskCache mCache;
+
+    @Before
+    public void setUp() throws Exception {
+        mDirectory = new File(mFolder.getRoot(), "images");
+        mCache = new ImageDiskCache(mDirectory, ENTRY_SIZE * 3 + ENTRY_SIZE / 2);
+    }
+
+    private static byte[] newData(int value) {
+        byte[] data = new byte[ENTRY_SIZE];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+
+    /**
+     * Cache file name is hashed from uri, so find the file by its content.
+     */
+    private File findFile(byte value) throws IOException {
+        File[] files = mDirectory.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                if (inputStream.read() == value) {
+                    return file;
+                }
+            } finally {
+                inputStream.close();
+            }
+        }
+        throw new AssertionError("cache file not found for " + value);
+    }
+
+    @Test
+    public void putAndGet() {
+        assertNull(mCache.get("a"));
+        mCache.put("a", newData(1));
+        assertArrayEquals(newData(1), mCache.get("a"));
+        assertEquals(ENTRY_SIZE, mCache.size());
+        // Replace the same uri should not count the size twice.
+        mCache.put("a", newData(2));
+        assertArrayEquals(newData(2), mCache.get("a"));
+        assertEquals(ENTRY_SIZE, mCache.size());
+    }
+
+    @Test
+    public void ignoreEmptyAndOversizedData() {
+        mCache.put("empty", new byte[0]);
+        mCache.put("large", new byte[ENTRY_SIZE * 4]);
+        assertNull(mCache.get("empty"));
+        assertNull(mCache.get("large"));
+        assertEquals(0, mCache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedByLastModified() throws Exception {
+        mCache.put("a", newData(1));
+        mCache.put("b", newData(2));
+        mCache.put("c", newData(3));
+        assertTrue(findFile((byte) 1).setLastModified(1000000L));
+        assertTrue(findFile((byte) 2).setLastModified(2000000L));
+        assertTrue(findFile((byte) 3).setLastModified(3000000L));
+        // Access refreshes the last modified time, so "a" becomes the most recently used.
+        assertNotNull(mCache.get("a"));
+        // Exceeds the max size, trimmed to 3/4 of max size from the oldest file.
+        mCache.put("d", newData(4));
+        assertNull(mCache.get("b"));
+        assertNull(mCache.get("c"));
+        assertNotNull(mCache.get("a"));
+        assertNotNull(mCache.get("d"));
+        assertEquals(ENTRY_SIZE * 2, mCache.size());
+    }
+
+    @Test
+    public void recoverSizeAndDropTempFiles() throws Exception {
+        mCache.put("a", newData(1));
+        assertTrue(new File(mDirectory, "left.tmp").createNewFile());
+        ImageDiskCache cache = new ImageDiskCache(mDirectory, ENTRY_SIZE * 4);
+        assertEquals(ENTRY_SIZE, cache.size());
+        assertFalse(new File(mDirectory, "left.tmp").exists());
+        assertArrayEquals(newData(1), cache.get("a"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+}
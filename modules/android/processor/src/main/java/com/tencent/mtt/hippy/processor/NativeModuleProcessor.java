@@ -0,0 +1,305 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.processor;
+
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getAnnotation;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getGeneratedSimpleName;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getPackageName;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getSuperclass;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getValue;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.isAccessible;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.writeSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generate a {@code HippyNativeMethodDispatcher} for every class annotated with {@code
+ * HippyNativeModule}. The generated class is named {@code <module binary name>$$MethodDispatcher},
+ * it holds the method table collected at compile time, and calls the {@code HippyMethod} methods by
+ * integer method id with typed argument extraction, so {@code HippyNativeModuleInfo} needs neither
+ * to scan the module class nor to use {@link java.lang.reflect.Method#invoke}.
+ *
+ * <p>Methods with parameter types the generated code does not support are still listed in the
+ * method table, but are invoked by reflection.</p>
+ */
+public class NativeModuleProcessor extends AbstractProcessor {
+
+    static final String SUFFIX = "$$MethodDispatcher";
+    private static final String NATIVE_MODULE = "com.tencent.mtt.hippy.annotation.HippyNativeModule";
+    private static final String METHOD = "com.tencent.mtt.hippy.annotation.HippyMethod";
+    private static final String DISPATCHER = "com.tencent.mtt.hippy.modules.nativemodules.HippyNativeMethodDispatcher";
+    private static final String ARGS = "com.tencent.mtt.hippy.modules.nativemodules.HippyNativeMethodArgs";
+    private static final String PROMISE_IMPL = "com.tencent.mtt.hippy.modules.PromiseImpl";
+    private static final String PROMISE = "com.tencent.mtt.hippy.modules.Promise";
+    private static final String MODULE_PROMISE = "com.tencent.mtt.hippy.modules.HippyModulePromise";
+    private static final String HIPPY_ARRAY = "com.tencent.mtt.hippy.common.HippyArray";
+    private static final String HIPPY_MAP = "com.tencent.mtt.hippy.common.HippyMap";
+    private static final String JS_DENSE_ARRAY = "com.tencent.mtt.hippy.runtime.builtins.array.JSDenseArray";
+
+    private final Set<String> mGenerated = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(NATIVE_MODULE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Elements elements = processingEnv.getElementUtils();
+        final TypeElement moduleType = elements.getTypeElement(NATIVE_MODULE);
+        final TypeElement methodType = elements.getTypeElement(METHOD);
+        if (moduleType == null || methodType == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(moduleType)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            final TypeElement module = (TypeElement) element;
+            if (mGenerated.add(module.getQualifiedName().toString()) && isAccessible(
+                    processingEnv, module, getPackageName(processingEnv, module))) {
+                generate(module, methodType);
+            }
+        }
+        return false;
+    }
+
+    private static final class MethodInfo {
+
+        final String name;
+        final ExecutableElement method;
+        final boolean isSync;
+        final boolean useJSValueType;
+
+        MethodInfo(String name, ExecutableElement method, boolean isSync,
+                boolean useJSValueType) {
+            this.name = name;
+            this.method = method;
+            this.isSync = isSync;
+            this.useJSValueType = useJSValueType;
+        }
+    }
+
+    /**
+     * Collect the public methods of the module and its super classes, the method of sub class
+     * takes precedence, the same name registered twice is ignored as the reflection path does.
+     */
+    private List<MethodInfo> collectMethods(TypeElement module, TypeElement methodType) {
+        final List<MethodInfo> methods = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        for (TypeElement type = module; type != null; type = getSuperclass(type)) {
+            for (Element element : type.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.METHOD
+                        || !element.getModifiers().contains(Modifier.PUBLIC)
+                        || element.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                final AnnotationMirror mirror = getAnnotation(processingEnv, element, methodType);
+                if (mirror == null) {
+                    continue;
+                }
+                String name = (String) getValue(processingEnv, mirror, "name");
+                if (name == null || name.isEmpty()) {
+                    name = element.getSimpleName().toString();
+                }
+                if (!names.add(name)) {
+                    if (type == module) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                "Register the same method twice, methodName=" + name, element);
+                    }
+                    continue;
+                }
+                methods.add(new MethodInfo(name, (ExecutableElement) element,
+                        (Boolean) getValue(processingEnv, mirror, "isSync"),
+                        (Boolean) getValue(processingEnv, mirror, "useJSValueType")));
+            }
+        }
+        return methods;
+    }
+
+    private void generate(TypeElement module, TypeElement methodType) {
+        final String packageName = getPackageName(processingEnv, module);
+        final String className = getGeneratedSimpleName(processingEnv, module, SUFFIX);
+        final List<MethodInfo> methods = collectMethods(module, methodType);
+        final StringBuilder names = new StringBuilder();
+        final StringBuilder sync = new StringBuilder();
+        final StringBuilder jsValueType = new StringBuilder();
+        final StringBuilder cases = new StringBuilder();
+        for (int i = 0; i < methods.size(); i++) {
+            final MethodInfo info = methods.get(i);
+            final String separator = (i == 0) ? "" : ", ";
+            names.append(separator)
+                    .append(processingEnv.getElementUtils().getConstantExpression(info.name));
+            sync.append(separator).append(info.isSync);
+            jsValueType.append(separator).append(info.useJSValueType);
+            appendCase(cases, i, info, packageName);
+        }
+        final StringBuilder builder = new StringBuilder();
+        builder.append("// Generated by NativeModuleProcessor, do not modify.\n");
+        if (!packageName.isEmpty()) {
+            builder.append("package ").append(packageName).append(";\n\n");
+        }
+        builder.append("public final class ").append(className).append(" implements ")
+                .append(DISPATCHER).append(" {\n\n")
+                .append("    private static final String[] NAMES = {").append(names).append("};\n")
+                .append("    private static final boolean[] SYNC = {").append(sync).append("};\n")
+                .append("    private static final boolean[] JS_VALUE_TYPE = {").append(jsValueType)
+                .append("};\n\n")
+                .append("    @Override\n")
+                .append("    public String[] getMethodNames() {\n")
+                .append("        return NAMES.clone();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public boolean isSync(int methodId) {\n")
+                .append("        return SYNC[methodId];\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public boolean useJSValueType(int methodId) {\n")
+                .append("        return JS_VALUE_TYPE[methodId];\n")
+                .append("    }\n\n")
+                .append("    @SuppressWarnings({\"unchecked\", \"rawtypes\", \"deprecation\"})\n")
+                .append("    @Override\n")
+                .append("    public boolean invoke(Object receiver, int methodId, Object args,\n")
+                .append("            ").append(PROMISE_IMPL).append(" promise) throws Exception {\n")
+                .append("        switch (methodId) {\n")
+                .append(cases)
+                .append("            default:\n")
+                .append("                return false;\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        writeSource(processingEnv, module, packageName, className, builder.toString());
+    }
+
+    private void appendCase(StringBuilder builder, int methodId, MethodInfo info,
+            String packageName) {
+        final TypeElement declaring = (TypeElement) info.method.getEnclosingElement();
+        if (!isAccessible(processingEnv, declaring, packageName)) {
+            return;
+        }
+        final Types types = processingEnv.getTypeUtils();
+        final List<String> arguments = new ArrayList<>();
+        boolean hasPromise = false;
+        int index = 0;
+        for (VariableElement param : info.method.getParameters()) {
+            final TypeMirror erasure = types.erasure(param.asType());
+            final String typeName = erasure.toString();
+            if (typeName.equals(PROMISE) || typeName.equals(MODULE_PROMISE)) {
+                arguments.add("promise");
+                hasPromise = true;
+                continue;
+            }
+            final String argument = info.useJSValueType ? getJSValueArgument(erasure, index)
+                    : getArgument(typeName, index);
+            if (argument == null || !isAccessible(processingEnv, erasure, packageName)) {
+                // Not supported by generated code, fall back to reflection.
+                return;
+            }
+            arguments.add(argument);
+            index++;
+        }
+        builder.append("            case ").append(methodId).append(": {\n");
+        if (!arguments.isEmpty()) {
+            builder.append("                ");
+            if (index > 0) {
+                builder.append("final ")
+                        .append(info.useJSValueType ? JS_DENSE_ARRAY : HIPPY_ARRAY)
+                        .append(" array = ");
+            }
+            builder.append(ARGS).append(info.useJSValueType ? ".toDenseArray" : ".toArray")
+                    .append("(args, ").append(index).append(");\n");
+        }
+        if (hasPromise) {
+            builder.append("                promise.setNeedResolveBySelf(false);\n");
+        }
+        builder.append("                ((").append(declaring.getQualifiedName())
+                .append(") receiver).").append(info.method.getSimpleName()).append("(")
+                .append(String.join(", ", arguments)).append(");\n")
+                .append("                return true;\n")
+                .append("            }\n");
+    }
+
+    /**
+     * The same as {@code ArgumentUtils.parseArgument(Type, HippyArray, int)}, except for the types
+     * which can not be passed to the method, such as {@link java.util.List}.
+     */
+    private static String getArgument(String typeName, int index) {
+        switch (typeName) {
+            case "java.lang.String":
+                return "array.getString(" + index + ")";
+            case "int":
+            case "java.lang.Integer":
+                return "array.getInt(" + index + ")";
+            case "long":
+            case "java.lang.Long":
+                return "array.getLong(" + index + ")";
+            case "double":
+            case "java.lang.Double":
+                return "array.getDouble(" + index + ")";
+            case "boolean":
+            case "java.lang.Boolean":
+                return "array.getBoolean(" + index + ")";
+            case "float":
+            case "java.lang.Float":
+                return "(float) array.getDouble(" + index + ")";
+            case HIPPY_ARRAY:
+                return "array.getArray(" + index + ")";
+            case HIPPY_MAP:
+                return "array.getMap(" + index + ")";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * JS value is passed to the method as is, primitive parameters are unboxed.
+     */
+    private String getJSValueArgument(TypeMirror erasure, int index) {
+        if (erasure.toString().equals("java.lang.Object")) {
+            // No cast for Object parameter, avoid redundant cast warning in generated code.
+            return "array.get(" + index + ")";
+        }
+        final String castType = erasure.getKind().isPrimitive() ? processingEnv.getTypeUtils()
+                .boxedClass((PrimitiveType) erasure).getQualifiedName().toString()
+                : erasure.toString();
+        return "(" + castType + ") array.get(" + index + ")";
+    }
+}
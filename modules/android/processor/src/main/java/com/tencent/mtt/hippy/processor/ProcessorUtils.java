@@ -0,0 +1,134 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+final class ProcessorUtils {
+
+    private ProcessorUtils() {
+    }
+
+    static AnnotationMirror getAnnotation(ProcessingEnvironment env, Element element,
+            TypeElement annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (env.getTypeUtils().isSameType(mirror.getAnnotationType(),
+                    annotationType.asType())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    static Object getValue(ProcessingEnvironment env, AnnotationMirror mirror, String key) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : env.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(key)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    static String getPackageName(ProcessingEnvironment env, Element element) {
+        final PackageElement pkg = env.getElementUtils().getPackageOf(element);
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    /**
+     * Get the simple name of generated class for the host, nested classes are flattened with the
+     * binary name, such as {@code Outer$Inner<suffix>}.
+     */
+    static String getGeneratedSimpleName(ProcessingEnvironment env, TypeElement host,
+            String suffix) {
+        final String packageName = getPackageName(env, host);
+        final String binaryName = env.getElementUtils().getBinaryName(host).toString();
+        return (packageName.isEmpty() ? binaryName
+                : binaryName.substring(packageName.length() + 1)) + suffix;
+    }
+
+    /**
+     * Check the type can be referenced from generated class of the given package.
+     */
+    static boolean isAccessible(ProcessingEnvironment env, TypeElement type, String packageName) {
+        final boolean samePackage = getPackageName(env, type).equals(packageName);
+        Element element = type;
+        while (element instanceof TypeElement) {
+            final Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !samePackage) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * Check the erased type can be referenced from generated class of the given package.
+     */
+    static boolean isAccessible(ProcessingEnvironment env, TypeMirror erasure,
+            String packageName) {
+        if (erasure.getKind().isPrimitive()) {
+            return true;
+        }
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return false;
+        }
+        return erasure.getKind() == TypeKind.DECLARED && isAccessible(env,
+                (TypeElement) ((DeclaredType) erasure).asElement(), packageName);
+    }
+
+    static TypeElement getSuperclass(TypeElement type) {
+        final TypeMirror superclass = type.getSuperclass();
+        return (superclass.getKind() == TypeKind.DECLARED)
+                ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    static void writeSource(ProcessingEnvironment env, TypeElement host, String packageName,
+            String className, String source) {
+        final String qualifiedName = packageName.isEmpty() ? className
+                : packageName + "." + className;
+        try {
+            JavaFileObject file = env.getFiler().createSourceFile(qualifiedName, host);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+        } catch (IOException e) {
+            env.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate " + qualifiedName + ": " + e.getMessage(), host);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.processor;
+
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getAnnotation;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getGeneratedSimpleName;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getPackageName;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getSuperclass;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.getValue;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.isAccessible;
+import static com.tencent.mtt.hippy.processor.ProcessorUtils.writeSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Generate a {@code PropSetter} for every class which declares {@code HippyControllerProps}
+ * methods or is annotated with {@code HippyController}. The generated class is named
+ * {@code <host binary name>$$PropSetter} and dispatches props with a {@code switch} on the prop
+ * name to typed setter calls, so {@code ControllerUpdateManger} and {@code VirtualNodeManager} no
+ * longer need {@link java.lang.reflect.Method#invoke} for these props.
+ *
+ * <p>Props which can not be called from generated code, such as private methods or unsupported
+ * parameter types, are not generated, the setter returns {@code false} for them and the caller
+ * falls back to reflection.</p>
+ */
+public class PropSetterProcessor extends AbstractProcessor {
+
+    static final String SUFFIX = "$$PropSetter";
+    private static final String CONTROLLER_PROPS = "com.tencent.mtt.hippy.annotation.HippyControllerProps";
+    private static final String CONTROLLER = "com.tencent.mtt.hippy.annotation.HippyController";
+    private static final String PROP_SETTER = "com.tencent.renderer.utils.PropSetter";
+    private static final String PROPERTY_UTILS = "com.tencent.renderer.utils.PropertyUtils";
+    private static final String HIPPY_MAP_CLASS = "com.tencent.mtt.hippy.common.HippyMap";
+    private static final String HIPPY_ARRAY_CLASS = "com.tencent.mtt.hippy.common.HippyArray";
+    private static final String JAVA_LANG_OBJECT = "java.lang.Object";
+    private static final String TYPE_NUMBER = "number";
+    private static final String TYPE_BOOLEAN = "boolean";
+    private static final String TYPE_STRING = "string";
+
+    private final Set<String> mGenerated = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        types.add(CONTROLLER_PROPS);
+        types.add(CONTROLLER);
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Elements elements = processingEnv.getElementUtils();
+        final TypeElement propsType = elements.getTypeElement(CONTROLLER_PROPS);
+        final TypeElement controllerType = elements.getTypeElement(CONTROLLER);
+        if (propsType == null) {
+            return false;
+        }
+        final Set<TypeElement> hosts = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(propsType)) {
+            final Element enclosing = element.getEnclosingElement();
+            if (element.getKind() == ElementKind.METHOD && enclosing instanceof TypeElement) {
+                hosts.add((TypeElement) enclosing);
+            }
+        }
+        if (controllerType != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(controllerType)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    hosts.add((TypeElement) element);
+                }
+            }
+        }
+        for (TypeElement host : hosts) {
+            final String name = host.getQualifiedName().toString();
+            if (mGenerated.add(name) && isAccessible(processingEnv, host, getPackageName(processingEnv, host))) {
+                generate(host, propsType);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement host, TypeElement propsType) {
+        final String packageName = getPackageName(processingEnv, host);
+        final String className = getGeneratedSimpleName(processingEnv, host, SUFFIX);
+        final Map<String, ExecutableElement> props = collectProps(host, propsType);
+        final StringBuilder builder = new StringBuilder();
+        builder.append("// Generated by PropSetterProcessor, do not modify.\n");
+        if (!packageName.isEmpty()) {
+            builder.append("package ").append(packageName).append(";\n\n");
+        }
+        builder.append("public final class ").append(className).append(" implements ")
+                .append(PROP_SETTER).append(" {\n\n")
+                .append("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("    @Override\n")
+                .append("    public boolean setProperty(Object host, Object target, String name,\n")
+                .append("            Object value) {\n")
+                .append("        switch (name) {\n");
+        for (Map.Entry<String, ExecutableElement> entry : props.entrySet()) {
+            appendCase(builder, entry.getKey(), entry.getValue(), propsType, packageName);
+        }
+        builder.append("            default:\n")
+                .append("                return false;\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        writeSource(processingEnv, host, packageName, className, builder.toString());
+    }
+
+    /**
+     * Collect props from the top most super class to the host, so the props declared by sub class
+     * override the ones of super class, the same as the reflection lookup does.
+     */
+    private Map<String, ExecutableElement> collectProps(TypeElement host, TypeElement propsType) {
+        final List<TypeElement> chain = new ArrayList<>();
+        for (TypeElement type = host; type != null; type = getSuperclass(type)) {
+            chain.add(type);
+        }
+        Collections.reverse(chain);
+        final Map<String, ExecutableElement> props = new LinkedHashMap<>();
+        for (TypeElement cls : chain) {
+            for (Element element : cls.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.METHOD) {
+                    continue;
+                }
+                final AnnotationMirror mirror = getAnnotation(processingEnv, element, propsType);
+                if (mirror != null) {
+                    final String name = (String) getValue(processingEnv, mirror, "name");
+                    // Remove first to keep the declaration order of the overriding class.
+                    props.remove(name);
+                    props.put(name, (ExecutableElement) element);
+                }
+            }
+        }
+        return props;
+    }
+
+    private void appendCase(StringBuilder builder, String name, ExecutableElement method,
+            TypeElement propsType, String packageName) {
+        final TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        final List<? extends Element> params = method.getParameters();
+        if (method.getModifiers().contains(Modifier.PRIVATE)
+                || method.getModifiers().contains(Modifier.STATIC)
+                || params.isEmpty() || params.size() > 2
+                || !isAccessible(processingEnv, declaring, packageName)
+                || (!method.getModifiers().contains(Modifier.PUBLIC)
+                && !getPackageName(processingEnv, declaring).equals(packageName))) {
+            return;
+        }
+        final Types types = processingEnv.getTypeUtils();
+        String targetType = null;
+        if (params.size() == 2) {
+            final TypeMirror erasure = types.erasure(params.get(0).asType());
+            if (erasure.getKind() != TypeKind.DECLARED
+                    || !isAccessible(processingEnv, erasure, packageName)) {
+                return;
+            }
+            targetType = erasure.toString();
+        }
+        final TypeMirror valueType = types.erasure(params.get(params.size() - 1).asType());
+        final ValueKind kind = ValueKind.of(valueType);
+        if (kind == null || !isAccessible(processingEnv, valueType, packageName)) {
+            return;
+        }
+        final AnnotationMirror mirror = getAnnotation(processingEnv, method, propsType);
+        final String defaultValue = getDefaultExpression(kind, valueType.getKind().isPrimitive(),
+                mirror);
+        builder.append("            case ")
+                .append(processingEnv.getElementUtils().getConstantExpression(name))
+                .append(":\n");
+        if (defaultValue == null) {
+            builder.append("                if (value == null) {\n")
+                    .append("                    return false;\n")
+                    .append("                }\n");
+        }
+        builder.append("                ((").append(declaring.getQualifiedName()).append(") host).")
+                .append(method.getSimpleName()).append("(");
+        if (targetType != null) {
+            // Object typed target needs no cast, avoid redundant cast warning in generated code.
+            if (!targetType.equals(JAVA_LANG_OBJECT)) {
+                builder.append("(").append(targetType).append(") ");
+            }
+            builder.append("target, ");
+        }
+        if (defaultValue != null) {
+            builder.append("value == null ? ").append(defaultValue).append(" : ");
+        }
+        builder.append(kind.convert(valueType.toString())).append(");\n")
+                .append("                return true;\n");
+    }
+
+    /**
+     * Build the value passed to the setter when the prop value is null, the same as {@code
+     * invokePropMethod} does by reflection.
+     *
+     * @return the default value expression, or null if reflection would fail for the null value,
+     * in which case the generated code falls back to reflection to report the same error
+     */
+    private String getDefaultExpression(ValueKind kind, boolean primitive,
+            AnnotationMirror mirror) {
+        final String defaultType = (String) getValue(processingEnv, mirror, "defaultType");
+        switch (defaultType) {
+            case TYPE_BOOLEAN:
+                return (kind == ValueKind.BOOLEAN) ? String.valueOf(getValue(processingEnv, mirror,
+                        "defaultBoolean")) : null;
+            case TYPE_NUMBER:
+                if (kind.isNumber()) {
+                    return "(" + kind.primitiveName + ") " + toDoubleLiteral(
+                            (Double) getValue(processingEnv, mirror, "defaultNumber"));
+                }
+                return primitive ? null : "null";
+            case TYPE_STRING:
+                return (kind == ValueKind.STRING) ? processingEnv.getElementUtils()
+                        .getConstantExpression(getValue(processingEnv, mirror, "defaultString")) : null;
+            default:
+                return primitive ? null : "null";
+        }
+    }
+
+    private static String toDoubleLiteral(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return Double.toString(value) + "d";
+    }
+
+    private enum ValueKind {
+        INT("int", "java.lang.Integer", PROPERTY_UTILS + ".toInt(value)"),
+        LONG("long", "java.lang.Long", PROPERTY_UTILS + ".toLong(value)"),
+        FLOAT("float", "java.lang.Float", PROPERTY_UTILS + ".toFloat(value)"),
+        DOUBLE("double", "java.lang.Double", PROPERTY_UTILS + ".toDouble(value)"),
+        BOOLEAN("boolean", "java.lang.Boolean", "(java.lang.Boolean) value"),
+        STRING(null, "java.lang.String", "java.lang.String.valueOf(value)"),
+        HIPPY_MAP(null, HIPPY_MAP_CLASS, PROPERTY_UTILS + ".toHippyMap(value)"),
+        HIPPY_ARRAY(null, HIPPY_ARRAY_CLASS, PROPERTY_UTILS + ".toHippyArray(value)"),
+        COLLECTION(null, null, null);
+
+        final String primitiveName;
+        final String boxedName;
+        final String conversion;
+
+        ValueKind(String primitiveName, String boxedName, String conversion) {
+            this.primitiveName = primitiveName;
+            this.boxedName = boxedName;
+            this.conversion = conversion;
+        }
+
+        boolean isNumber() {
+            return this == INT || this == LONG || this == FLOAT || this == DOUBLE;
+        }
+
+        String convert(String typeName) {
+            // Map, HashMap, List and ArrayList values are passed through without conversion.
+            return (this == COLLECTION) ? "(" + typeName + ") value" : conversion;
+        }
+
+        static ValueKind of(TypeMirror type) {
+            final String name = type.toString();
+            for (ValueKind kind : values()) {
+                if (name.equals(kind.primitiveName) || name.equals(kind.boxedName)) {
+                    return kind;
+                }
+            }
+            switch (name) {
+                case "java.util.Map":
+                case "java.util.HashMap":
+                case "java.util.List":
+                case "java.util.ArrayList":
+                    return COLLECTION;
+                default:
+                    return null;
+            }
+        }
+    }
+}
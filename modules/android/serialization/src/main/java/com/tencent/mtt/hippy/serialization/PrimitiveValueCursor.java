@@ -0,0 +1,393 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.tencent.mtt.hippy.exception.UnexpectedException;
+import com.tencent.mtt.hippy.serialization.exception.DataCloneOutOfRangeException;
+import com.tencent.mtt.hippy.serialization.nio.reader.BinaryReader;
+
+import java.util.Locale;
+
+/**
+ * <p>Pull style reader over the {@code v8::(internal::)ValueSerializer} wire format.</p>
+ *
+ * <p>Instead of materializing the whole value tree, the caller walks the containers with {@link
+ * #beginArray()} / {@link #beginObject()}, reads the leaves it needs as primitives, and either
+ * skips the other values with {@link #skipValue()} or materializes a single sub tree with {@link
+ * #readValue(Object)} through the wrapped {@link PrimitiveValueDeserializer}, which shares the
+ * reader with this cursor.</p>
+ *
+ * <p>Skipped values are not assigned an object id, so this cursor must not be used on data which
+ * contains object references ({@link PrimitiveSerializationTag#OBJECT_REFERENCE}). The native (C++)
+ * DOM serializer never writes object references, so its data can be walked safely.</p>
+ */
+@SuppressWarnings({"unused"})
+public class PrimitiveValueCursor {
+
+  // region container tags, same as v8::internal::SerializationTag
+  private static final byte BEGIN_OBJECT = (byte) 'o';
+  private static final byte END_OBJECT = (byte) '{';
+  private static final byte BEGIN_MAP = (byte) ';';
+  private static final byte END_MAP = (byte) ':';
+  private static final byte BEGIN_DENSE_ARRAY = (byte) 'A';
+  private static final byte END_DENSE_ARRAY = (byte) '$';
+  private static final byte BEGIN_SPARSE_ARRAY = (byte) 'a';
+  private static final byte END_SPARSE_ARRAY = (byte) '@';
+  private static final byte TRUE_OBJECT = (byte) 'y';
+  private static final byte FALSE_OBJECT = (byte) 'x';
+  private static final byte NUMBER_OBJECT = (byte) 'n';
+  private static final byte BIG_INT_OBJECT = (byte) 'z';
+  private static final byte STRING_OBJECT = (byte) 's';
+  // endregion
+
+  private static final int MAX_DEPTH = 64;
+
+  private final PrimitiveValueDeserializer deserializer;
+  private final int[] propertyCounts = new int[MAX_DEPTH];
+  private int depth;
+
+  public PrimitiveValueCursor(@NonNull PrimitiveValueDeserializer deserializer) {
+    this.deserializer = deserializer;
+  }
+
+  private BinaryReader reader() {
+    return deserializer.reader;
+  }
+
+  /**
+   * Reset cursor state and read the header, the reader must be set to the deserializer before.
+   */
+  public void readHeader() {
+    depth = 0;
+    deserializer.reset();
+    deserializer.readHeader();
+  }
+
+  /**
+   * @return The tag of the next value, without consuming it
+   */
+  public byte peekTag() {
+    final BinaryReader reader = reader();
+    byte tag;
+    do {
+      if (reader.position() >= reader.length()) {
+        return PrimitiveSerializationTag.VOID;
+      }
+      tag = reader.getByte();
+    } while (tag == PrimitiveSerializationTag.PADDING);
+    reader.position(-1);
+    return tag;
+  }
+
+  /**
+   * @return The current position of the underlying reader, can be used with {@link #seek(int)}
+   */
+  public int position() {
+    return reader().position();
+  }
+
+  /**
+   * Move the underlying reader to the given absolute position.
+   *
+   * @param position position returned by {@link #position()}
+   */
+  public void seek(int position) {
+    reader().position(position);
+  }
+
+  // region containers
+
+  /**
+   * Begin reading a dense array.
+   *
+   * @return The number of elements
+   */
+  public int beginArray() {
+    expectTag(BEGIN_DENSE_ARRAY);
+    final int length = (int) reader().getVarint();
+    if (length < 0) {
+      throw new DataCloneOutOfRangeException(length);
+    }
+    return length;
+  }
+
+  /**
+   * Finish reading a dense array, after all of its elements have been consumed.
+   */
+  public void endArray() {
+    byte tag;
+    int count = 0;
+    while ((tag = deserializer.readTag()) != END_DENSE_ARRAY) {
+      count++;
+      skipValue(tag);
+      skipValue();
+    }
+    final BinaryReader reader = reader();
+    if (reader.getVarint() != count) {
+      throw new UnexpectedException("unexpected number of array properties");
+    }
+    reader.getVarint(); // length
+  }
+
+  /**
+   * Begin reading an object, use {@link #hasNextProperty()} and {@link #nextKey()} to iterate its
+   * properties.
+   */
+  public void beginObject() {
+    expectTag(BEGIN_OBJECT);
+    if (depth == MAX_DEPTH) {
+      throw new UnexpectedException("object nesting too deep");
+    }
+    propertyCounts[depth++] = 0;
+  }
+
+  /**
+   * @return {@code true} if current object has more properties
+   */
+  public boolean hasNextProperty() {
+    return peekTag() != END_OBJECT;
+  }
+
+  /**
+   * Reads the next property key of current object, the key string is looked up in the string
+   * table of the deserializer.
+   *
+   * @return The key
+   */
+  @NonNull
+  public String nextKey() {
+    if (depth == 0) {
+      throw new UnexpectedException("nextKey called outside of an object");
+    }
+    propertyCounts[depth - 1]++;
+    Object key = deserializer.readValue(StringLocation.OBJECT_KEY, null);
+    if (key instanceof String) {
+      return (String) key;
+    }
+    if (key instanceof Number) {
+      return key.toString();
+    }
+    throw new UnexpectedException("object key is not of String nor Number type");
+  }
+
+  /**
+   * Finish reading current object, after all of its properties have been consumed.
+   */
+  public void endObject() {
+    expectTag(END_OBJECT);
+    final int expected = (int) reader().getVarint();
+    if (propertyCounts[--depth] != expected) {
+      throw new UnexpectedException("unexpected number of object properties");
+    }
+  }
+  // endregion
+
+  // region primitives
+
+  /**
+   * Reads next value as {@code int}.
+   *
+   * @param defaultValue returned if the value is not a number
+   * @return The value
+   */
+  public int nextInt(int defaultValue) {
+    final byte tag = deserializer.readTag();
+    switch (tag) {
+      case PrimitiveSerializationTag.INT32:
+        return deserializer.readZigZag();
+      case PrimitiveSerializationTag.UINT32:
+        return (int) reader().getVarint();
+      case PrimitiveSerializationTag.DOUBLE:
+        return (int) reader().getDouble();
+      default:
+        skipValue(tag);
+        return defaultValue;
+    }
+  }
+
+  /**
+   * Reads next value as {@code double}.
+   *
+   * @param defaultValue returned if the value is not a number
+   * @return The value
+   */
+  public double nextDouble(double defaultValue) {
+    final byte tag = deserializer.readTag();
+    switch (tag) {
+      case PrimitiveSerializationTag.INT32:
+        return deserializer.readZigZag();
+      case PrimitiveSerializationTag.UINT32:
+        return reader().getVarint();
+      case PrimitiveSerializationTag.DOUBLE:
+        return reader().getDouble();
+      default:
+        skipValue(tag);
+        return defaultValue;
+    }
+  }
+
+  /**
+   * Reads next value as {@code boolean}.
+   *
+   * @param defaultValue returned if the value is not a boolean
+   * @return The value
+   */
+  public boolean nextBoolean(boolean defaultValue) {
+    final byte tag = deserializer.readTag();
+    switch (tag) {
+      case PrimitiveSerializationTag.TRUE:
+        return true;
+      case PrimitiveSerializationTag.FALSE:
+        return false;
+      default:
+        skipValue(tag);
+        return defaultValue;
+    }
+  }
+
+  /**
+   * Reads next value as {@link String}.
+   *
+   * @param relatedKey The related key of the value, used by the string table
+   * @return The value, or {@code null} if the value is not a string
+   */
+  @Nullable
+  public String nextString(@Nullable Object relatedKey) {
+    final byte tag = deserializer.readTag();
+    switch (tag) {
+      case PrimitiveSerializationTag.ONE_BYTE_STRING:
+        return deserializer.readOneByteString(StringLocation.OBJECT_VALUE, relatedKey);
+      case PrimitiveSerializationTag.TWO_BYTE_STRING:
+        return deserializer.readTwoByteString(StringLocation.OBJECT_VALUE, relatedKey);
+      case PrimitiveSerializationTag.UTF8_STRING:
+        return deserializer.readUTF8String(StringLocation.OBJECT_VALUE, relatedKey);
+      default:
+        skipValue(tag);
+        return null;
+    }
+  }
+
+  /**
+   * Materialize the next value with the wrapped deserializer.
+   *
+   * @param relatedKey The related key of the value, used by the string table
+   * @return The value
+   */
+  public Object readValue(@Nullable Object relatedKey) {
+    return deserializer.readValue(StringLocation.OBJECT_VALUE, relatedKey);
+  }
+  // endregion
+
+  // region skip
+
+  /**
+   * Skip the next value without materializing it.
+   */
+  public void skipValue() {
+    skipValue(deserializer.readTag());
+  }
+
+  private void skipBytes(int length) {
+    if (length < 0) {
+      throw new DataCloneOutOfRangeException(length);
+    }
+    final BinaryReader reader = reader();
+    reader.position(reader.position() + length);
+  }
+
+  private void skipValue(byte tag) {
+    final BinaryReader reader = reader();
+    switch (tag) {
+      case PrimitiveSerializationTag.TRUE:
+      case PrimitiveSerializationTag.FALSE:
+      case PrimitiveSerializationTag.THE_HOLE:
+      case PrimitiveSerializationTag.UNDEFINED:
+      case PrimitiveSerializationTag.NULL:
+      case TRUE_OBJECT:
+      case FALSE_OBJECT:
+        return;
+      case PrimitiveSerializationTag.INT32:
+      case PrimitiveSerializationTag.UINT32:
+      case PrimitiveSerializationTag.OBJECT_REFERENCE:
+        reader.getVarint();
+        return;
+      case PrimitiveSerializationTag.DOUBLE:
+      case PrimitiveSerializationTag.DATE:
+      case NUMBER_OBJECT:
+        skipBytes(8);
+        return;
+      case PrimitiveSerializationTag.BIG_INT:
+      case BIG_INT_OBJECT:
+        skipBytes((int) (reader.getVarint() >> 1));
+        return;
+      case PrimitiveSerializationTag.ONE_BYTE_STRING:
+      case PrimitiveSerializationTag.TWO_BYTE_STRING:
+      case PrimitiveSerializationTag.UTF8_STRING:
+        skipBytes((int) reader.getVarint());
+        return;
+      case STRING_OBJECT:
+        skipValue();
+        return;
+      case BEGIN_OBJECT:
+        skipProperties(END_OBJECT);
+        reader.getVarint();
+        return;
+      case BEGIN_MAP:
+        skipProperties(END_MAP);
+        reader.getVarint();
+        return;
+      case BEGIN_DENSE_ARRAY: {
+        final int length = (int) reader.getVarint();
+        for (int i = 0; i < length; i++) {
+          skipValue();
+        }
+        skipProperties(END_DENSE_ARRAY);
+        reader.getVarint();
+        reader.getVarint();
+        return;
+      }
+      case BEGIN_SPARSE_ARRAY:
+        reader.getVarint();
+        skipProperties(END_SPARSE_ARRAY);
+        reader.getVarint();
+        reader.getVarint();
+        return;
+      default:
+        throw new UnexpectedException(
+            String.format(Locale.US, "unsupported tag %d for skipping", tag));
+    }
+  }
+
+  private void skipProperties(byte endTag) {
+    byte tag;
+    while ((tag = deserializer.readTag()) != endTag) {
+      skipValue(tag);
+      skipValue();
+    }
+  }
+  // endregion
+
+  private void expectTag(byte expected) {
+    final byte tag = deserializer.readTag();
+    if (tag != expected) {
+      throw new UnexpectedException(
+          String.format(Locale.US, "expected tag %d, but received %d", expected, tag));
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.tencent.mtt.hippy.serialization.nio.reader;
 import androidx.annotation.NonNull;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 @SuppressWarnings({"unused"})
 public final class SafeDirectReader implements BinaryReader {
@@ -96,7 +97,8 @@ public final class SafeDirectReader implements BinaryReader {
 
   @Override
   public SafeDirectReader reset(@NonNull ByteBuffer byteBuffer) {
-    buffer = byteBuffer;
+    // Android is always little-endian, buffers created by JNI default to big-endian
+    buffer = byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
     base = byteBuffer.position();
     count = byteBuffer.limit() - byteBuffer.position();
     return this;
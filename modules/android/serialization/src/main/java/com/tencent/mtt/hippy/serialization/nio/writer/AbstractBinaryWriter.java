@@ -46,6 +46,12 @@ public abstract class AbstractBinaryWriter implements BinaryWriter {
     this.maxCapacity = maxCapacity;
   }
 
+  static void checkRange(String s, int from, int to) {
+    if (from < 0 || from > to || to > s.length()) {
+      throw new StringIndexOutOfBoundsException();
+    }
+  }
+
   @Override
   abstract public void putByte(byte b);
 
@@ -64,6 +70,39 @@ public abstract class AbstractBinaryWriter implements BinaryWriter {
   @Override
   abstract public void putChar(char c);
 
+  /**
+   * Bulk writes the chars of {@code s} in range [{@code from}, {@code to}) as one byte each, in
+   * ISO-8859-1(Latin1) encoding. Callers must make sure every char in range is not larger than
+   * {@code 0xff}. Subclasses should override this with a bulk copy, the default implementation
+   * writes char by char.
+   *
+   * @param s    The string from which chars are to be read
+   * @param from The index of the first char to be written
+   * @param to   The index after the last char to be written
+   */
+  public void putLatin1(String s, int from, int to) {
+    checkRange(s, from, to);
+    for (int i = from; i < to; i++) {
+      putByte((byte) s.charAt(i));
+    }
+  }
+
+  /**
+   * Bulk writes the chars of {@code s} in range [{@code from}, {@code to}) as two bytes each, in
+   * little-endian order. Subclasses should override this with a bulk copy, the default
+   * implementation writes char by char.
+   *
+   * @param s    The string from which chars are to be read
+   * @param from The index of the first char to be written
+   * @param to   The index after the last char to be written
+   */
+  public void putUtf16(String s, int from, int to) {
+    checkRange(s, from, to);
+    for (int i = from; i < to; i++) {
+      putChar(s.charAt(i));
+    }
+  }
+
   @Override
   abstract public int length();
 
@@ -0,0 +1,160 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.nio.writer;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * <p>A pool of reusable direct {@link ByteBuffer} segments.</p>
+ *
+ * <p>Segments are grouped in power-of-two size classes, from {@link #MIN_SEGMENT_SIZE} to
+ * {@link #MAX_SEGMENT_SIZE}, each class keeps its own free list. A request larger than the
+ * biggest class is served by a dedicated allocation and never pooled. The total bytes kept in the
+ * free lists is bounded by {@code maxPooledBytes}, extra segments are left to the GC.</p>
+ */
+@SuppressWarnings({"unused"})
+public final class DirectBufferPool {
+
+  public static final int MIN_SEGMENT_SIZE = 1024; // 1k
+  public static final int MAX_SEGMENT_SIZE = 1024 * 1024; // 1M
+  public static final int DEFAULT_MAX_POOLED_BYTES = 1024 * 256; // 256k
+
+  private static final int MIN_SEGMENT_SHIFT = 10;
+  private static final int SIZE_CLASS_COUNT = 11;
+
+  private final ArrayDeque<ByteBuffer>[] freeLists;
+  private final int maxPooledBytes;
+  private int pooledBytes;
+  private long reusedCount;
+  private long allocatedCount;
+
+  public DirectBufferPool() {
+    this(DEFAULT_MAX_POOLED_BYTES);
+  }
+
+  @SuppressWarnings("unchecked")
+  public DirectBufferPool(int maxPooledBytes) {
+    if (maxPooledBytes < 0) {
+      throw new IllegalArgumentException("maxPooledBytes < 0");
+    }
+    this.maxPooledBytes = maxPooledBytes;
+    freeLists = new ArrayDeque[SIZE_CLASS_COUNT];
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      freeLists[i] = new ArrayDeque<>();
+    }
+  }
+
+  /**
+   * Returns the segment size which will be used to serve a request of {@code min} bytes. A
+   * request larger than {@link #MAX_SEGMENT_SIZE} gets exactly {@code min} bytes, so a caller
+   * growing a buffer should ask for a geometrically increased size.
+   *
+   * @param min The minimal capacity required
+   * @return The segment capacity
+   */
+  public static int segmentSize(int min) {
+    if (min <= MIN_SEGMENT_SIZE) {
+      return MIN_SEGMENT_SIZE;
+    }
+    if (min > MAX_SEGMENT_SIZE) {
+      return min;
+    }
+    return Integer.highestOneBit(min - 1) << 1;
+  }
+
+  private static int sizeClass(int capacity) {
+    return Integer.numberOfTrailingZeros(capacity) - MIN_SEGMENT_SHIFT;
+  }
+
+  private static boolean isPoolable(int capacity) {
+    return capacity >= MIN_SEGMENT_SIZE && capacity <= MAX_SEGMENT_SIZE
+        && Integer.bitCount(capacity) == 1;
+  }
+
+  /**
+   * Take a cleared, little-endian segment with at least {@code min} bytes capacity.
+   *
+   * @param min The minimal capacity required
+   * @return The segment
+   */
+  @NonNull
+  public synchronized ByteBuffer acquire(int min) {
+    if (min < 0) {
+      throw new NegativeArraySizeException();
+    }
+    final int capacity = segmentSize(min);
+    if (isPoolable(capacity)) {
+      ByteBuffer segment = freeLists[sizeClass(capacity)].pollFirst();
+      if (segment != null) {
+        pooledBytes -= capacity;
+        reusedCount++;
+        segment.clear();
+        return segment;
+      }
+    }
+    allocatedCount++;
+    return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Give back a segment obtained by {@link #acquire(int)}, the caller must not touch it anymore.
+   *
+   * @param segment The segment to be released
+   */
+  public synchronized void release(@NonNull ByteBuffer segment) {
+    final int capacity = segment.capacity();
+    if (!segment.isDirect() || !isPoolable(capacity) || pooledBytes + capacity > maxPooledBytes) {
+      return;
+    }
+    freeLists[sizeClass(capacity)].offerFirst(segment);
+    pooledBytes += capacity;
+  }
+
+  /**
+   * Drop all pooled segments.
+   */
+  public synchronized void trim() {
+    for (ArrayDeque<ByteBuffer> freeList : freeLists) {
+      freeList.clear();
+    }
+    pooledBytes = 0;
+  }
+
+  /**
+   * @return Total bytes currently kept in the free lists
+   */
+  public synchronized int getPooledBytes() {
+    return pooledBytes;
+  }
+
+  /**
+   * @return Number of requests served from a free list
+   */
+  public synchronized long getReusedCount() {
+    return reusedCount;
+  }
+
+  /**
+   * @return Number of requests served by a new direct allocation
+   */
+  public synchronized long getAllocatedCount() {
+    return allocatedCount;
+  }
+}
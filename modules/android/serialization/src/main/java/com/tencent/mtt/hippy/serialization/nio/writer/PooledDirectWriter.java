@@ -0,0 +1,257 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.nio.writer;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Reusable direct binary writer backed by segments of a {@link DirectBufferPool}.</p>
+ *
+ * <p>Unlike {@link SafeDirectWriter}, a grow takes the next size class segment from the pool and
+ * returns the old one, so steady state writing does not allocate direct memory at all.
+ * {@link #chunked()} hands out a view of the current segment without copying, the view is only
+ * valid until the next write operation on this writer, which fits the bridge usage where the
+ * native side copies the bytes synchronously.</p>
+ *
+ * <p>Past {@link DirectBufferPool#MAX_SEGMENT_SIZE} the capacity is at least doubled on every
+ * enlargement like {@link SafeDirectWriter}, and an over-size buffer is dropped for a pooled
+ * segment on {@link #reset()} when the high-water mark of the last
+ * {@link #SHRINK_CHECK_INTERVAL} resets used less than a quarter of it.</p>
+ */
+@SuppressWarnings({"unused"})
+public final class PooledDirectWriter extends AbstractBinaryWriter {
+
+  public static final int SHRINK_CHECK_INTERVAL = 16;
+
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  private final DirectBufferPool pool;
+  private ByteBuffer value;
+  private int highWaterMark;
+  private int resetCount;
+  private long bytesSerialized;
+  private long growCount;
+  private byte[] byteScratch;
+  private char[] charScratch;
+
+  public PooledDirectWriter() {
+    this(new DirectBufferPool());
+  }
+
+  public PooledDirectWriter(@NonNull DirectBufferPool pool) {
+    this(pool, DirectBufferPool.MIN_SEGMENT_SIZE);
+  }
+
+  public PooledDirectWriter(@NonNull DirectBufferPool pool, int initialCapacity) {
+    super(initialCapacity, 0);
+    this.pool = pool;
+    value = pool.acquire(initialCapacity);
+  }
+
+  private void ensureCapacity(int extra) {
+    final int min = value.position() + extra;
+    if (min > value.capacity()) {
+      enlargeBuffer(min);
+    }
+  }
+
+  private void enlargeBuffer(int min) {
+    if (min < 0 || min > MAX_ARRAY_SIZE) {
+      throw new OutOfMemoryError("Required writer capacity too large: " + min);
+    }
+    final int capacity = value.capacity();
+    // The pool serves an over-size request with exactly the bytes asked, so grow geometrically
+    // here, otherwise every put past the biggest size class would copy the whole buffer.
+    int twice = capacity > (MAX_ARRAY_SIZE >> 1) ? MAX_ARRAY_SIZE : capacity << 1;
+    @SuppressWarnings("ManualMinMaxCalculation") ByteBuffer newData = pool.acquire(
+        min > twice ? min : twice);
+    value.flip();
+    newData.put(value);
+    pool.release(value);
+    value = newData;
+    growCount++;
+  }
+
+  @Override
+  public void putByte(byte b) {
+    ensureCapacity(1);
+    value.put(b);
+  }
+
+  @Override
+  public void putBytes(byte[] bytes, int start, int length) {
+    ensureCapacity(length);
+    value.put(bytes, start, length);
+  }
+
+  @Override
+  public void putDouble(double d) {
+    ensureCapacity(8);
+    value.putDouble(d);
+  }
+
+  @SuppressWarnings("SpellCheckingInspection")
+  @Override
+  public int putVarint(long l) {
+    ensureCapacity(10);
+
+    long rest = l;
+    int bytes = 0;
+    byte b;
+    do {
+      b = (byte) rest;
+      b |= 0x80;
+      value.put(b);
+      rest >>>= 7;
+      bytes++;
+    } while (rest != 0);
+    final int last = value.position() - 1;
+    value.put(last, (byte) (b & 0x7f));
+    return bytes;
+  }
+
+  @Override
+  public void putInt64(long l) {
+    ensureCapacity(8);
+    value.putLong(l);
+  }
+
+  @Override
+  public void putChar(char c) {
+    ensureCapacity(2);
+    value.putChar(c);
+  }
+
+  @SuppressWarnings("deprecation")
+  @Override
+  public void putLatin1(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int length = to - from;
+    ensureCapacity(length);
+    if (byteScratch == null || byteScratch.length < length) {
+      byteScratch = new byte[Math.max(length, 64)];
+    }
+    // String#getBytes(int, int, byte[], int) copies the low byte of each char in one call
+    s.getBytes(from, to, byteScratch, 0);
+    value.put(byteScratch, 0, length);
+  }
+
+  @Override
+  public void putUtf16(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int length = to - from;
+    if (length > (Integer.MAX_VALUE >> 1) - value.position()) {
+      throw new OutOfMemoryError("Required writer capacity too large");
+    }
+    ensureCapacity(length << 1);
+    if (charScratch == null || charScratch.length < length) {
+      charScratch = new char[Math.max(length, 64)];
+    }
+    s.getChars(from, to, charScratch, 0);
+    final int position = value.position();
+    // the char view inherits the little-endian order of the pooled segment
+    value.asCharBuffer().put(charScratch, 0, length);
+    value.position(position + (length << 1));
+  }
+
+  @Override
+  public int length() {
+    return value.position();
+  }
+
+  @Override
+  public int length(int length) {
+    if (length < 0) {
+      length += value.position();
+      if (length < 0) {
+        throw new IndexOutOfBoundsException();
+      }
+    }
+    if (length > value.capacity()) {
+      enlargeBuffer(length);
+    }
+    value.position(length);
+    return length;
+  }
+
+  /**
+   * Returns a view of the written bytes, the underlying segment is kept by this writer and will be
+   * overwritten by the next write operation.
+   *
+   * @return wrapped byte buffer
+   */
+  @Override
+  public ByteBuffer chunked() {
+    ByteBuffer chunked = value.duplicate();
+    chunked.flip();
+    bytesSerialized += chunked.limit();
+    reset();
+    return chunked;
+  }
+
+  @Override
+  public BinaryWriter reset() {
+    final int position = value.position();
+    if (position > highWaterMark) {
+      highWaterMark = position;
+    }
+    value.clear();
+    if (++resetCount >= SHRINK_CHECK_INTERVAL) {
+      final int capacity = value.capacity();
+      if (capacity > DirectBufferPool.MAX_SEGMENT_SIZE && highWaterMark < (capacity >> 2)) {
+        // Over-size buffer is never pooled, so the last chunked view may still reference it.
+        value = pool.acquire(Math.max(highWaterMark << 1, initialCapacity));
+      }
+      highWaterMark = 0;
+      resetCount = 0;
+    }
+    return this;
+  }
+
+  /**
+   * Give the current segment back to the pool, the writer must not be used afterwards.
+   */
+  public void release() {
+    pool.release(value);
+  }
+
+  public DirectBufferPool getPool() {
+    return pool;
+  }
+
+  /**
+   * @return Total bytes handed out by {@link #chunked()}
+   */
+  public long getBytesSerialized() {
+    return bytesSerialized;
+  }
+
+  /**
+   * @return Number of segments reused from the pool
+   */
+  public long getSegmentsReused() {
+    return pool.getReusedCount();
+  }
+
+  /**
+   * @return Number of times the writer had to move to a larger segment
+   */
+  public long getGrowCount() {
+    return growCount;
+  }
+}
@@ -16,14 +16,36 @@
 package com.tencent.mtt.hippy.serialization.nio.writer;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+/**
+ * <p>Direct binary writer, always writes in little-endian order.</p>
+ *
+ * <h2>Growth policy</h2>
+ * <p>The capacity is at least doubled on every enlargement, so writing {@code n} bytes costs at most
+ * {@code log2(n / initialCapacity)} reallocations and {@code O(n)} copied bytes in total.</p>
+ *
+ * <h2>Shrink policy</h2>
+ * <p>A reusable writer ({@code maxCapacity > 0}) records the high-water mark of the written length
+ * between resets. Every {@link #SHRINK_CHECK_INTERVAL} resets, if the buffer is larger than
+ * {@code maxCapacity} and the high-water mark of that window used less than a quarter of it, the
+ * buffer is shrunk to twice the high-water mark. Occasional large payloads therefore don't pin a
+ * big buffer forever, and repeated large payloads don't reallocate on every reset.</p>
+ */
 @SuppressWarnings({"unused"})
 public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   public static final int INITIAL_CAPACITY = 1024;
   public static final int MAX_CAPACITY = 1024 * 16; // 16k
+  public static final int SHRINK_CHECK_INTERVAL = 16;
+
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
   public ByteBuffer value;
+  private int highWaterMark;
+  private int resetCount;
+  private byte[] byteScratch;
+  private char[] charScratch;
 
   public SafeDirectWriter() {
     this(INITIAL_CAPACITY, MAX_CAPACITY);
@@ -31,13 +53,27 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   public SafeDirectWriter(int initialCapacity, int maxCapacity) {
     super(initialCapacity, maxCapacity);
-    value = ByteBuffer.allocateDirect(initialCapacity);
+    value = allocate(initialCapacity);
+  }
+
+  private static ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private void ensureCapacity(int extra) {
+    if (extra > value.remaining()) {
+      enlargeBuffer(value.position() + extra);
+    }
   }
 
   private void enlargeBuffer(int min) {
-    int twice = (value.position() << 1) + 2;
-    @SuppressWarnings("ManualMinMaxCalculation") ByteBuffer newData = ByteBuffer
-        .allocateDirect(min > twice ? min : twice);
+    if (min < 0 || min > MAX_ARRAY_SIZE) {
+      throw new OutOfMemoryError("Required writer capacity too large: " + min);
+    }
+    final int capacity = value.capacity();
+    int twice = capacity > (MAX_ARRAY_SIZE >> 1) ? MAX_ARRAY_SIZE : (capacity << 1) + 2;
+    @SuppressWarnings("ManualMinMaxCalculation") ByteBuffer newData = allocate(
+        min > twice ? min : twice);
     value.flip();
     newData.put(value);
     value = newData;
@@ -45,7 +81,7 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   @Override
   public void putByte(byte b) {
-    if (value.position() == value.capacity()) {
+    if (!value.hasRemaining()) {
       enlargeBuffer(value.position() + 1);
     }
     value.put(b);
@@ -53,24 +89,65 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   @Override
   public void putBytes(byte[] bytes, int start, int length) {
-    if (value.position() + bytes.length > value.capacity()) {
-      enlargeBuffer(value.position() + bytes.length);
+    // start + length could overflow, start/length maybe MaxInt
+    if (start < 0 || length < 0 || length > bytes.length - start) {
+      throw new ArrayIndexOutOfBoundsException();
     }
-
+    ensureCapacity(length);
     value.put(bytes, start, length);
   }
 
+  /**
+   * Bulk writes chars as two bytes each, in little-endian order.
+   *
+   * @param chars  The array from which chars are to be read
+   * @param start  The offset within the array of the first char to be read
+   * @param length The number of chars to be read from the given array
+   */
+  public void putChars(char[] chars, int start, int length) {
+    if (start < 0 || length < 0 || length > chars.length - start) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    if (length > (MAX_ARRAY_SIZE >> 1)) {
+      throw new OutOfMemoryError("Required writer capacity too large");
+    }
+    ensureCapacity(length << 1);
+    final int position = value.position();
+    // the char view inherits the little-endian order of value
+    value.asCharBuffer().put(chars, start, length);
+    value.position(position + (length << 1));
+  }
+
+  /**
+   * Bulk writes the low byte of each char, callers must make sure every char is in the ASCII /
+   * ISO-8859-1 range.
+   *
+   * @param chars  The array from which chars are to be read
+   * @param start  The offset within the array of the first char to be read
+   * @param length The number of chars to be read from the given array
+   */
+  public void putAsciiBytes(char[] chars, int start, int length) {
+    if (start < 0 || length < 0 || length > chars.length - start) {
+      throw new ArrayIndexOutOfBoundsException();
+    }
+    ensureCapacity(length);
+    final byte[] bytes = obtainByteScratch(length);
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) chars[start + i];
+    }
+    value.put(bytes, 0, length);
+  }
+
   @Override
   public void putDouble(double d) {
+    ensureCapacity(8);
     value.putDouble(d);
   }
 
   @SuppressWarnings("SpellCheckingInspection")
   @Override
   public int putVarint(long l) {
-    if (value.position() + 10 > value.capacity()) {
-      enlargeBuffer(value.position() + 10);
-    }
+    ensureCapacity(10);
 
     long rest = l;
     int bytes = 0;
@@ -89,20 +166,49 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   @Override
   public void putInt64(long l) {
-    if (value.position() + 8 > value.capacity()) {
-      enlargeBuffer(value.position() + 8);
-    }
-
+    ensureCapacity(8);
     value.putLong(l);
   }
 
   @Override
   public void putChar(char c) {
-    if (value.position() + 2 > value.capacity()) {
-      enlargeBuffer(value.position() + 2);
+    ensureCapacity(2);
+    value.putChar(c);
+  }
+
+  private byte[] obtainByteScratch(int length) {
+    if (byteScratch == null || byteScratch.length < length) {
+      byteScratch = new byte[Math.max(length, 64)];
     }
+    return byteScratch;
+  }
 
-    value.putChar(c);
+  private char[] obtainCharScratch(int length) {
+    if (charScratch == null || charScratch.length < length) {
+      charScratch = new char[Math.max(length, 64)];
+    }
+    return charScratch;
+  }
+
+  @SuppressWarnings("deprecation")
+  @Override
+  public void putLatin1(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int length = to - from;
+    ensureCapacity(length);
+    final byte[] bytes = obtainByteScratch(length);
+    // String#getBytes(int, int, byte[], int) copies the low byte of each char in one call
+    s.getBytes(from, to, bytes, 0);
+    value.put(bytes, 0, length);
+  }
+
+  @Override
+  public void putUtf16(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int length = to - from;
+    final char[] chars = obtainCharScratch(length);
+    s.getChars(from, to, chars, 0);
+    putChars(chars, 0, length);
   }
 
   @Override
@@ -114,6 +220,12 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
   public int length(int length) {
     if (length < 0) {
       length += value.position();
+      if (length < 0) {
+        throw new IndexOutOfBoundsException();
+      }
+    }
+    if (length > value.capacity()) {
+      enlargeBuffer(length);
     }
     value.position(length);
     return length;
@@ -121,16 +233,33 @@ public final class SafeDirectWriter extends AbstractBinaryWriter {
 
   @Override
   public ByteBuffer chunked() {
-    value.flip();
     ByteBuffer chunked = value.duplicate();
+    chunked.flip();
     reset();
     return chunked;
   }
 
   @Override
   public BinaryWriter reset() {
-    if (value.capacity() >= maxCapacity) {
-      value = ByteBuffer.allocateDirect(initialCapacity);
+    if (maxCapacity == 0) {
+      // non-reusable writer, the last chunked buffer still references the old memory
+      value = allocate(initialCapacity);
+      return this;
+    }
+
+    final int position = value.position();
+    if (position > highWaterMark) {
+      highWaterMark = position;
+    }
+    value.clear();
+    if (++resetCount >= SHRINK_CHECK_INTERVAL) {
+      final int capacity = value.capacity();
+      if (capacity > maxCapacity && highWaterMark < (capacity >> 2)) {
+        int shrunk = highWaterMark << 1;
+        value = allocate(shrunk > initialCapacity ? shrunk : initialCapacity);
+      }
+      highWaterMark = 0;
+      resetCount = 0;
     }
     return this;
   }
@@ -119,6 +119,40 @@ public final class SafeHeapWriter extends AbstractBinaryWriter {
     value[count++] = ((byte) (c >> 8));
   }
 
+  @SuppressWarnings("deprecation")
+  @Override
+  public void putLatin1(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int newSize = count + (to - from);
+    if (newSize > value.length) {
+      enlargeBuffer(newSize);
+    }
+    // String#getBytes(int, int, byte[], int) copies the low byte of each char in one call
+    s.getBytes(from, to, value, count);
+    count = newSize;
+  }
+
+  @Override
+  public void putUtf16(String s, int from, int to) {
+    checkRange(s, from, to);
+    final int length = to - from;
+    if (length > (Integer.MAX_VALUE >> 1) - count) {
+      throw new OutOfMemoryError("Required writer capacity too large");
+    }
+    final int newSize = count + (length << 1);
+    if (newSize > value.length) {
+      enlargeBuffer(newSize);
+    }
+    final byte[] value = this.value;
+    int p = count;
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      value[p++] = (byte) c;
+      value[p++] = (byte) (c >> 8);
+    }
+    count = newSize;
+  }
+
   @Override
   public int length() {
     return count;
@@ -0,0 +1,309 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.string;
+
+import androidx.annotation.NonNull;
+
+import com.tencent.mtt.hippy.exception.UnreachableCodeException;
+import com.tencent.mtt.hippy.serialization.StringLocation;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Internalized string pool implement which can be shared by several deserializers running on
+ * different threads, e.g. the module manager deserializers and the native renderer deserializer
+ * of one engine.</p>
+ *
+ * <h2>Structure</h2>
+ * <p>Strings are kept in a set-associative table of {@link #WAYS} ways per set. An entry is
+ * immutable and stores a copy of its source bytes, lookups compare the full byte sequence and the
+ * encoding, so a hash collision can never return a wrong string. A miss inserts the new entry at
+ * the head of its set and evicts the tail, a hit moves the entry one way closer to the head.</p>
+ *
+ * <h2>Thread safety</h2>
+ * <p>The table is lock-free, slots are updated with {@link AtomicReferenceArray}. A racing update
+ * may at worst lose or duplicate an entry inside a set, which only costs a future miss.</p>
+ *
+ * <h2>Policy</h2>
+ * <p>Property keys of any encoding (one byte, two byte and UTF-8) shorter than
+ * {@code maxKeyLength} bytes are internalized. Property values are only internalized when their
+ * related key is a cacheable property and the value starts with the registered prefix, the same
+ * policy as {@link InternalizedStringTable}.</p>
+ */
+@SuppressWarnings({"unused"})
+public class ConcurrentStringTable extends DirectStringTable {
+
+  public static final int DEFAULT_KEY_CAPACITY = 2 * 1024;
+  public static final int DEFAULT_VALUE_CAPACITY = 64;
+  public static final int DEFAULT_MAX_KEY_LENGTH = 128;
+  public static final int WAYS = 4;
+
+  /**
+   * byte of "data:image/" URI string
+   */
+  private final static char[] DATA_IMAGE_URI = new char[]{'d', 'a', 't', 'a', ':', 'i', 'm', 'a',
+      'g', 'e', '/'};
+
+  private final Table keyTable;
+  private final Table valueTable;
+  private final int maxKeyLength;
+  private final Map<String, char[]> cacheablesProperty = new HashMap<>();
+
+  public ConcurrentStringTable() {
+    this(DEFAULT_KEY_CAPACITY, DEFAULT_VALUE_CAPACITY, DEFAULT_MAX_KEY_LENGTH);
+  }
+
+  /**
+   * @param keyCapacity   The max number of internalized keys, rounded up to a power of two
+   * @param valueCapacity The max number of internalized values, rounded up to a power of two
+   * @param maxKeyLength  Keys with this many bytes or more are not internalized
+   */
+  public ConcurrentStringTable(int keyCapacity, int valueCapacity, int maxKeyLength) {
+    keyTable = new Table(keyCapacity);
+    valueTable = new Table(valueCapacity);
+    this.maxKeyLength = maxKeyLength;
+    cacheablesProperty.put("uri", DATA_IMAGE_URI);
+    cacheablesProperty.put("src", DATA_IMAGE_URI);
+    cacheablesProperty.put("source", DATA_IMAGE_URI);
+  }
+
+  /**
+   * Register a property whose values should be internalized, must be called before the table is
+   * shared with other threads.
+   *
+   * @param key    The property key
+   * @param prefix Only values starting with this prefix are internalized, empty for all values
+   */
+  public void addCacheableProperty(@NonNull String key, @NonNull String prefix) {
+    cacheablesProperty.put(key, prefix.toCharArray());
+  }
+
+  // region algorithm
+  private static int hash(byte[] value, int offset, int length) {
+    int hash = 0x811c9dc5;
+    int end = offset + length;
+
+    for (int i = offset; i < end; i++) {
+      hash = (hash ^ (value[i] & 0xff)) * 0x01000193;
+    }
+
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int tableSizeFor(int capacity) {
+    if (capacity <= WAYS) {
+      return WAYS;
+    }
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+    return size > 0 ? size : Integer.highestOneBit(Integer.MAX_VALUE);
+  }
+  // endregion
+
+  private static final class Entry {
+
+    final int hash;
+    final byte[] bytes;
+    final String encoding;
+    final String value;
+
+    Entry(int hash, byte[] bytes, String encoding, String value) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.encoding = encoding;
+      this.value = value;
+    }
+
+    boolean matches(int hash, byte[] sequence, int offset, int length, String encoding) {
+      if (this.hash != hash || bytes.length != length
+          || (this.encoding != encoding && !this.encoding.equals(encoding))) {
+        return false;
+      }
+      final byte[] bytes = this.bytes;
+      for (int i = 0; i < length; i++) {
+        if (bytes[i] != sequence[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Table {
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int setMask;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    Table(int capacity) {
+      final int size = tableSizeFor(capacity);
+      entries = new AtomicReferenceArray<>(size);
+      setMask = size / WAYS - 1;
+    }
+
+    String lookup(byte[] sequence, int offset, int length, @NonNull String encoding)
+        throws UnsupportedEncodingException {
+      final int hash = hash(sequence, offset, length);
+      final int base = (hash & setMask) * WAYS;
+      for (int way = 0; way < WAYS; way++) {
+        final Entry entry = entries.get(base + way);
+        if (entry == null) {
+          break;
+        }
+        if (entry.matches(hash, sequence, offset, length, encoding)) {
+          hits.incrementAndGet();
+          if (way > 0) {
+            // promote one way closer to the head
+            Entry previous = entries.get(base + way - 1);
+            if (entries.compareAndSet(base + way - 1, previous, entry)) {
+              entries.compareAndSet(base + way, entry, previous);
+            }
+          }
+          return entry.value;
+        }
+      }
+
+      misses.incrementAndGet();
+      final String value = new String(sequence, offset, length, encoding);
+      final byte[] bytes = new byte[length];
+      System.arraycopy(sequence, offset, bytes, 0, length);
+      if (entries.get(base + WAYS - 1) != null) {
+        evictions.incrementAndGet();
+      }
+      for (int way = WAYS - 1; way > 0; way--) {
+        entries.lazySet(base + way, entries.get(base + way - 1));
+      }
+      entries.lazySet(base, new Entry(hash, bytes, encoding, value));
+      return value;
+    }
+
+    void clear() {
+      for (int i = 0; i < entries.length(); i++) {
+        entries.lazySet(i, null);
+      }
+    }
+  }
+
+  // region lookup
+  private boolean isCacheableValue(byte[] sequence, int offset, int length, Object relatedKey) {
+    if (!(relatedKey instanceof String)) {
+      return false;
+    }
+    char[] valuePrefix = cacheablesProperty.get(relatedKey);
+    if (valuePrefix == null || length < valuePrefix.length) {
+      return false;
+    }
+    for (int i = 0; i < valuePrefix.length; i++) {
+      if (((byte) valuePrefix[i]) != sequence[i + offset]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String lookup(@NonNull ByteBuffer byteBuffer, @NonNull String encoding,
+      StringLocation location, Object relatedKey) throws UnsupportedEncodingException {
+    final byte[] sequence;
+    final int offset;
+    final int length = byteBuffer.remaining();
+    if (byteBuffer.hasArray()) {
+      sequence = byteBuffer.array();
+      offset = byteBuffer.arrayOffset() + byteBuffer.position();
+    } else {
+      sequence = new byte[length];
+      byteBuffer.duplicate().get(sequence);
+      offset = 0;
+    }
+
+    switch (location) {
+      case OBJECT_KEY: // [[fallthrough]]
+      case DENSE_ARRAY_KEY: // [[fallthrough]]
+      case SPARSE_ARRAY_KEY: // [[fallthrough]]
+      case MAP_KEY: {
+        if (length >= maxKeyLength) {
+          return new String(sequence, offset, length, encoding);
+        }
+        return keyTable.lookup(sequence, offset, length, encoding);
+      }
+      case OBJECT_VALUE: // [[fallthrough]]
+      case DENSE_ARRAY_ITEM: // [[fallthrough]]
+      case SPARSE_ARRAY_ITEM: // [[fallthrough]]
+      case MAP_VALUE: {
+        if (isCacheableValue(sequence, offset, length, relatedKey)) {
+          return valueTable.lookup(sequence, offset, length, encoding);
+        }
+        return new String(sequence, offset, length, encoding);
+      }
+      case ERROR_MESSAGE: // [[fallthrough]]
+      case ERROR_STACK: // [[fallthrough]]
+      case REGEXP: // [[fallthrough]]
+      case SET_ITEM: // [[fallthrough]]
+      case TOP_LEVEL: {
+        return new String(sequence, offset, length, encoding);
+      }
+      case VOID: {
+        return "";
+      }
+      default: {
+        throw new UnreachableCodeException();
+      }
+    }
+  }
+  // endregion
+
+  // region statistics
+  public long getKeyHitCount() {
+    return keyTable.hits.get();
+  }
+
+  public long getKeyMissCount() {
+    return keyTable.misses.get();
+  }
+
+  public long getKeyEvictionCount() {
+    return keyTable.evictions.get();
+  }
+
+  public long getValueHitCount() {
+    return valueTable.hits.get();
+  }
+
+  public long getValueMissCount() {
+    return valueTable.misses.get();
+  }
+
+  public long getValueEvictionCount() {
+    return valueTable.evictions.get();
+  }
+  // endregion
+
+  /**
+   * Drop all internalized strings, statistics are kept.
+   */
+  @Override
+  public void release() {
+    keyTable.clear();
+    valueTable.clear();
+    super.release();
+  }
+}
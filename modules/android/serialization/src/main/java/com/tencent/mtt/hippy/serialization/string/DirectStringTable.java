@@ -36,7 +36,7 @@ public class DirectStringTable implements StringTable {
     }
 
     final int offset = byteBuffer.arrayOffset() + byteBuffer.position();
-    final int length = byteBuffer.arrayOffset() + byteBuffer.limit();
+    final int length = byteBuffer.limit() - byteBuffer.position();
 
     return new String(byteBuffer.array(), offset, length, encoding);
   }
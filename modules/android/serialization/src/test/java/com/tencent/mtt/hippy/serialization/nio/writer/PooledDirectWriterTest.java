@@ -0,0 +1,98 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.serialization.nio.writer;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class PooledDirectWriterTest {
+
+    private static final int LARGE_SIZE = 4 * 1024 * 1024;
+
+    @Test
+    public void growGeometricallyPastPooledRange() {
+        PooledDirectWriter writer = new PooledDirectWriter(new DirectBufferPool());
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            writer.putByte((byte) i);
+        }
+        // From 1k to 4M takes 12 doublings, an exact-size grow would take millions.
+        assertTrue("growCount " + writer.getGrowCount(), writer.getGrowCount() <= 12);
+        assertEquals(LARGE_SIZE, writer.length());
+        ByteBuffer chunked = writer.chunked();
+        assertEquals(LARGE_SIZE, chunked.remaining());
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            assertEquals((byte) i, chunked.get(i));
+        }
+    }
+
+    @Test
+    public void keepOverSizeBufferForRepeatedLargePayloads() {
+        PooledDirectWriter writer = new PooledDirectWriter(new DirectBufferPool());
+        byte[] payload = new byte[LARGE_SIZE];
+        for (int i = 0; i < PooledDirectWriter.SHRINK_CHECK_INTERVAL * 2; i++) {
+            writer.putBytes(payload, 0, payload.length);
+            assertEquals(LARGE_SIZE, writer.chunked().remaining());
+        }
+        assertEquals(1, writer.getGrowCount());
+    }
+
+    @Test
+    public void shrinkToPooledSegmentAfterSmallPayloads() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledDirectWriter writer = new PooledDirectWriter(pool);
+        byte[] payload = new byte[LARGE_SIZE];
+        writer.putBytes(payload, 0, payload.length);
+        ByteBuffer large = writer.chunked();
+        assertTrue(large.capacity() > DirectBufferPool.MAX_SEGMENT_SIZE);
+
+        // The large payload counts in the first window, so it is kept.
+        for (int i = 1; i < PooledDirectWriter.SHRINK_CHECK_INTERVAL; i++) {
+            writer.putBytes(payload, 0, 100);
+            assertEquals(large.capacity(), writer.chunked().capacity());
+        }
+        for (int i = 0; i < PooledDirectWriter.SHRINK_CHECK_INTERVAL; i++) {
+            writer.putBytes(payload, 0, 100);
+            writer.chunked();
+        }
+        writer.putBytes(payload, 0, 100);
+        ByteBuffer small = writer.chunked();
+        assertEquals(DirectBufferPool.MIN_SEGMENT_SIZE, small.capacity());
+        // The view handed out before shrink still references the over-size buffer.
+        assertEquals(LARGE_SIZE, large.remaining());
+    }
+
+    @Test
+    public void growWithinPooledRangeReusesSegments() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledDirectWriter writer = new PooledDirectWriter(pool);
+        for (int i = 0; i < 64 * 1024; i++) {
+            writer.putByte((byte) 1);
+        }
+        writer.release();
+        long allocated = pool.getAllocatedCount();
+
+        writer = new PooledDirectWriter(pool);
+        for (int i = 0; i < 64 * 1024; i++) {
+            writer.putByte((byte) 1);
+        }
+        assertEquals(6, writer.getGrowCount());
+        assertTrue(pool.getReusedCount() > 0);
+        assertTrue(pool.getAllocatedCount() - allocated < 7);
+    }
+}
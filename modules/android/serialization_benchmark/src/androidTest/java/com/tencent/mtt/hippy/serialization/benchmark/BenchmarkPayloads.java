@@ -0,0 +1,137 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representative bridge payloads, built as plain {@link Map} / {@link List} trees.
+ * Each benchmark converts them to the container types its serializer expects.
+ */
+final class BenchmarkPayloads {
+
+  enum Kind {
+    CREATE_NODE_1K,
+    CREATE_NODE_10K,
+    EVENT_PARAMS,
+    FETCH_RESPONSE
+  }
+
+  private static final String[] NODE_NAMES = new String[]{"View", "Text", "Image", "ListView",
+      "ListViewItem"};
+  private static final String[] FLEX_DIRECTIONS = new String[]{"row", "column"};
+
+  private BenchmarkPayloads() {
+  }
+
+  static Object create(Kind kind) {
+    switch (kind) {
+      case CREATE_NODE_1K:
+        return createNodeBatch(1000);
+      case CREATE_NODE_10K:
+        return createNodeBatch(10000);
+      case EVENT_PARAMS:
+        return eventParams();
+      case FETCH_RESPONSE:
+        return fetchResponse();
+      default:
+        throw new IllegalArgumentException("unknown payload kind " + kind);
+    }
+  }
+
+  /**
+   * Mirrors the node records dispatched to {@code NativeRenderer.createNode}.
+   */
+  static List<Object> createNodeBatch(int count) {
+    List<Object> nodes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String name = NODE_NAMES[i % NODE_NAMES.length];
+      Map<String, Object> style = new HashMap<>();
+      style.put("width", 100 + (i % 50));
+      style.put("height", 44.5);
+      style.put("flexDirection", FLEX_DIRECTIONS[i & 1]);
+      style.put("backgroundColor", 0xff00ff00 + i);
+      style.put("marginLeft", 8);
+      style.put("fontFamily", "PingFang SC");
+      Map<String, Object> props = new HashMap<>();
+      props.put("style", style);
+      props.put("class", "list-item item-" + (i % 10));
+      props.put("onClick", true);
+      if ("Text".equals(name)) {
+        props.put("text", "商品价格 ¥" + i + ".00");
+      } else if ("Image".equals(name)) {
+        props.put("src", "https://static.res.qq.com/nav/images/item_" + (i % 100) + ".png");
+      }
+      Map<String, Object> node = new HashMap<>();
+      node.put("id", i + 1);
+      node.put("pId", i == 0 ? 0 : (i - 1) / 8 + 1);
+      node.put("index", i % 8);
+      node.put("name", name);
+      node.put("props", props);
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  /**
+   * Mirrors a scroll event dispatched to JS.
+   */
+  static Map<String, Object> eventParams() {
+    Map<String, Object> offset = new HashMap<>();
+    offset.put("x", 0.0);
+    offset.put("y", 1280.5);
+    Map<String, Object> params = new HashMap<>();
+    params.put("contentOffset", offset);
+    params.put("contentInset", 0);
+    params.put("velocity", -3.25);
+    Map<String, Object> event = new HashMap<>();
+    event.put("id", 120);
+    event.put("eventName", "onScroll");
+    event.put("params", params);
+    return event;
+  }
+
+  /**
+   * Mirrors the response object built by {@code NetworkModule.handleFetchResponse}.
+   */
+  static Map<String, Object> fetchResponse() {
+    Map<String, Object> headers = new HashMap<>();
+    headers.put("Content-Type", "application/json; charset=utf-8");
+    headers.put("Cache-Control", "max-age=600");
+    headers.put("Server", "nginx");
+    StringBuilder body = new StringBuilder(32 * 1024);
+    body.append("{\"list\":[");
+    for (int i = 0; i < 200; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+      body.append("{\"id\":").append(i)
+          .append(",\"title\":\"Feed item title ").append(i)
+          .append("\",\"cover\":\"https://static.res.qq.com/feeds/cover_").append(i)
+          .append(".jpg\",\"desc\":\"这是一段描述文本\"}");
+    }
+    body.append("]}");
+    Map<String, Object> response = new HashMap<>();
+    response.put("statusCode", 200);
+    response.put("statusLine", "OK");
+    response.put("respHeaders", headers);
+    response.put("respBody", body.toString());
+    return response;
+  }
+}
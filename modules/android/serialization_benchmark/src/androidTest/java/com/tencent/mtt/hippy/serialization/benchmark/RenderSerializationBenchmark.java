@@ -0,0 +1,48 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.benchmark;
+
+import com.tencent.mtt.hippy.serialization.PrimitiveValueDeserializer;
+import com.tencent.mtt.hippy.serialization.PrimitiveValueSerializer;
+import com.tencent.mtt.hippy.serialization.string.InternalizedStringTable;
+import com.tencent.renderer.serialization.Deserializer;
+import com.tencent.renderer.serialization.Serializer;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * The native renderer works on plain {@link java.util.Map} / {@link java.util.List}, which is the
+ * same shape {@link BenchmarkPayloads} produces.
+ */
+@RunWith(Parameterized.class)
+public class RenderSerializationBenchmark extends SerializationBenchmark {
+
+  @Override
+  protected PrimitiveValueSerializer createSerializer() {
+    return new Serializer();
+  }
+
+  @Override
+  protected PrimitiveValueDeserializer createDeserializer() {
+    return new Deserializer(null, new InternalizedStringTable());
+  }
+
+  @Override
+  protected Object convert(Object value) {
+    return value;
+  }
+}
@@ -0,0 +1,158 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.tencent.mtt.hippy.serialization.PrimitiveValueDeserializer;
+import com.tencent.mtt.hippy.serialization.PrimitiveValueSerializer;
+import com.tencent.mtt.hippy.serialization.nio.reader.BinaryReader;
+import com.tencent.mtt.hippy.serialization.nio.reader.SafeDirectReader;
+import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
+import com.tencent.mtt.hippy.serialization.nio.writer.BinaryWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeDirectWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * <p>Round trip benchmark of a {@link PrimitiveValueSerializer} / {@link
+ * PrimitiveValueDeserializer} pair.</p>
+ *
+ * <p>Every concrete pair is measured with the same payloads over both the heap and the direct
+ * writer/reader, the writers are configured the same way as the bridge does in production.
+ * Run with {@code ./gradlew :serialization-benchmark:connectedReleaseAndroidTest}, the runner
+ * reports time and allocation count per {@code writeValue} / {@code readValue} call.</p>
+ */
+public abstract class SerializationBenchmark {
+
+  enum Buffer {
+    HEAP,
+    DIRECT
+  }
+
+  @Rule
+  public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Parameter(0)
+  public BenchmarkPayloads.Kind kind;
+
+  @Parameter(1)
+  public Buffer buffer;
+
+  private BinaryWriter writer;
+  private BinaryReader reader;
+  private PrimitiveValueSerializer serializer;
+  private PrimitiveValueDeserializer deserializer;
+  private Object payload;
+  private ByteBuffer encoded;
+
+  @Parameters(name = "{0}_{1}")
+  public static Collection<Object[]> parameters() {
+    List<Object[]> parameters = new ArrayList<>();
+    for (BenchmarkPayloads.Kind kind : BenchmarkPayloads.Kind.values()) {
+      for (Buffer buffer : Buffer.values()) {
+        parameters.add(new Object[]{kind, buffer});
+      }
+    }
+    return parameters;
+  }
+
+  protected abstract PrimitiveValueSerializer createSerializer();
+
+  protected abstract PrimitiveValueDeserializer createDeserializer();
+
+  /**
+   * Convert the plain {@link java.util.Map} / {@link java.util.List} payload to the container
+   * types of this serializer.
+   *
+   * @param value payload built by {@link BenchmarkPayloads}
+   * @return converted payload
+   */
+  protected abstract Object convert(Object value);
+
+  @Before
+  public void setUp() {
+    serializer = createSerializer();
+    deserializer = createDeserializer();
+    payload = convert(BenchmarkPayloads.create(kind));
+    if (buffer == Buffer.DIRECT) {
+      // same configuration as HippyBridgeManagerImpl#handleCallFunction
+      writer = new SafeDirectWriter(SafeDirectWriter.INITIAL_CAPACITY, 0);
+      reader = new SafeDirectReader();
+    } else {
+      writer = new SafeHeapWriter();
+      reader = new SafeHeapReader();
+    }
+    // a dedicated writer, so the encoded bytes are never overwritten by writeValue benchmark
+    BinaryWriter encodeWriter = buffer == Buffer.DIRECT ? new SafeDirectWriter(
+        SafeDirectWriter.INITIAL_CAPACITY, 0) : new SafeHeapWriter(SafeHeapWriter.INITIAL_CAPACITY, 0);
+    encoded = serialize(encodeWriter);
+  }
+
+  private ByteBuffer serialize(BinaryWriter binaryWriter) {
+    binaryWriter.reset();
+    serializer.setWriter(binaryWriter);
+    serializer.reset();
+    serializer.writeHeader();
+    serializer.writeValue(payload);
+    return binaryWriter.chunked();
+  }
+
+  private Object deserialize() {
+    encoded.rewind();
+    reader.reset(encoded);
+    deserializer.setReader(reader);
+    deserializer.reset();
+    deserializer.readHeader();
+    return deserializer.readValue();
+  }
+
+  @Test
+  public void writeValue() {
+    final BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      serialize(writer);
+    }
+  }
+
+  @Test
+  public void readValue() {
+    final BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      deserialize();
+    }
+  }
+
+  @Test
+  public void roundTrip() {
+    final BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      encoded = serialize(writer);
+      deserialize();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.serialization.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.tencent.mtt.hippy.serialization.nio.writer.BinaryWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.PooledDirectWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeDirectWriter;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
+import com.tencent.renderer.serialization.Serializer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Measures {@code PrimitiveValueSerializer#writeString} alone, on the kinds of strings which
+ * dominate prop-heavy payloads. Each iteration writes {@link #STRINGS_PER_ITERATION} strings, so
+ * the reported time divided by that count is the per-string cost, one bulk writer call per
+ * string instead of one {@code putByte} / {@code putChar} call per char.
+ */
+@RunWith(Parameterized.class)
+public class StringWriteBenchmark {
+
+  private static final int STRINGS_PER_ITERATION = 100;
+
+  enum Text {
+    CLASS_NAME("list-item item-highlight"),
+    STYLE_VALUE("row"),
+    IMAGE_URI("https://static.res.qq.com/nav/images/item_cover_640x360_highlight.png"),
+    LATIN1_TEXT("Café crème brûlée, prix: 12,50 €".replace('€', 'E')),
+    CJK_TEXT("商品价格 ¥128.00，限时优惠中"),
+    LONG_ASCII_TEXT(repeat("The quick brown fox jumps over the lazy dog. ", 40));
+
+    final String value;
+
+    Text(String value) {
+      this.value = value;
+    }
+  }
+
+  enum Writer {
+    HEAP,
+    DIRECT,
+    POOLED_DIRECT
+  }
+
+  @Rule
+  public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Parameter(0)
+  public Text text;
+
+  @Parameter(1)
+  public Writer writerType;
+
+  private final Serializer serializer = new Serializer();
+  private BinaryWriter writer;
+
+  @Parameters(name = "{0}_{1}")
+  public static Collection<Object[]> parameters() {
+    List<Object[]> parameters = new ArrayList<>();
+    for (Text text : Text.values()) {
+      for (Writer writer : Writer.values()) {
+        parameters.add(new Object[]{text, writer});
+      }
+    }
+    return parameters;
+  }
+
+  private static String repeat(String s, int count) {
+    StringBuilder builder = new StringBuilder(s.length() * count);
+    for (int i = 0; i < count; i++) {
+      builder.append(s);
+    }
+    return builder.toString();
+  }
+
+  @Before
+  public void setUp() {
+    switch (writerType) {
+      case DIRECT:
+        writer = new SafeDirectWriter();
+        break;
+      case POOLED_DIRECT:
+        writer = new PooledDirectWriter();
+        break;
+      default:
+        writer = new SafeHeapWriter();
+        break;
+    }
+    serializer.setWriter(writer);
+  }
+
+  @Test
+  public void writeString() {
+    final String value = text.value;
+    final BenchmarkState state = benchmarkRule.getState();
+    while (state.keepRunning()) {
+      writer.reset();
+      serializer.reset();
+      for (int i = 0; i < STRINGS_PER_ITERATION; i++) {
+        serializer.writeValue(value);
+      }
+    }
+  }
+}
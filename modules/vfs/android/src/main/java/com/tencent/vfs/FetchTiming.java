@@ -0,0 +1,162 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.vfs;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Latency breakdown of one fetch, per processor of the chain.
+ *
+ * <p>
+ * For each processor, the request and response time is measured from the handle method being
+ * called to the processor callback being invoked (or the sync method returning). The queue time
+ * is the part of request and response time after the handle method returned, which is spent
+ * waiting for the asynchronous work of processor, such as executors or network.
+ * </p>
+ *
+ * <p>
+ * The instance is owned by {@link ResourceDataHolder} and reused after the holder is recycled,
+ * so it must not be kept after {@link VfsManager.FetchTimingListener#onFetchTiming} returns.
+ * </p>
+ */
+public class FetchTiming {
+
+    public enum Phase {
+        QUEUE,
+        REQUEST,
+        RESPONSE,
+    }
+
+    private static final int INITIAL_CAPACITY = 4;
+    private long mStartNanos;
+    private long mEndNanos;
+    private long mNativeNanos;
+    private int mCount;
+    @NonNull
+    private String[] mNames = new String[INITIAL_CAPACITY];
+    @NonNull
+    private long[] mQueueNanos = new long[INITIAL_CAPACITY];
+    @NonNull
+    private long[] mRequestNanos = new long[INITIAL_CAPACITY];
+    @NonNull
+    private long[] mResponseNanos = new long[INITIAL_CAPACITY];
+
+    void reset(int processorCount) {
+        if (processorCount > mNames.length) {
+            int capacity = Math.max(processorCount, mNames.length * 2);
+            mNames = new String[capacity];
+            mQueueNanos = new long[capacity];
+            mRequestNanos = new long[capacity];
+            mResponseNanos = new long[capacity];
+        } else {
+            Arrays.fill(mNames, null);
+            Arrays.fill(mQueueNanos, 0);
+            Arrays.fill(mRequestNanos, 0);
+            Arrays.fill(mResponseNanos, 0);
+        }
+        mCount = processorCount;
+        mNativeNanos = 0;
+        mEndNanos = 0;
+        mStartNanos = System.nanoTime();
+    }
+
+    void record(int index, @NonNull Processor processor, boolean isRequest, long elapsedNanos,
+            long queueNanos) {
+        if (index < 0 || index >= mCount) {
+            return;
+        }
+        mNames[index] = processor.getClass().getName();
+        if (isRequest) {
+            mRequestNanos[index] += elapsedNanos;
+        } else {
+            mResponseNanos[index] += elapsedNanos;
+        }
+        mQueueNanos[index] += queueNanos;
+    }
+
+    void recordNative(long elapsedNanos) {
+        mNativeNanos += elapsedNanos;
+    }
+
+    void finish() {
+        mEndNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the processor count of the chain when the fetch started
+     */
+    public int getProcessorCount() {
+        return mCount;
+    }
+
+    /**
+     * @return class name of the processor at index, null if the fetch did not reach it
+     */
+    @Nullable
+    public String getProcessorName(int index) {
+        return (index >= 0 && index < mCount) ? mNames[index] : null;
+    }
+
+    public long getNanos(int index, @NonNull Phase phase) {
+        if (index < 0 || index >= mCount) {
+            return 0;
+        }
+        switch (phase) {
+            case QUEUE:
+                return mQueueNanos[index];
+            case REQUEST:
+                return mRequestNanos[index];
+            default:
+                return mResponseNanos[index];
+        }
+    }
+
+    /**
+     * @return the time spent in native (C++) chain
+     */
+    public long getNativeNanos() {
+        return mNativeNanos;
+    }
+
+    public long getTotalNanos() {
+        return (mEndNanos > 0) ? (mEndNanos - mStartNanos) : (System.nanoTime() - mStartNanos);
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        StringBuilder builder = new StringBuilder("FetchTiming{total=");
+        builder.append(getTotalNanos() / 1000).append("us");
+        for (int i = 0; i < mCount; i++) {
+            if (mNames[i] == null) {
+                continue;
+            }
+            builder.append(", ").append(mNames[i]).append("[queue=")
+                    .append(mQueueNanos[i] / 1000).append("us, request=")
+                    .append(mRequestNanos[i] / 1000).append("us, response=")
+                    .append(mResponseNanos[i] / 1000).append("us]");
+        }
+        if (mNativeNanos > 0) {
+            builder.append(", native=").append(mNativeNanos / 1000).append("us");
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,132 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.vfs;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.tencent.vfs.FetchTiming.Phase;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Aggregate {@link FetchTiming} of all fetches into latency histograms per processor and phase.
+ *
+ * <p>
+ * Bucket 0 counts latency less than 1ms, bucket n (n > 0) counts latency in [2^(n-1), 2^n) ms, and
+ * the last bucket counts all latency not less than 2^(BUCKET_COUNT - 2) ms.
+ * </p>
+ */
+public class FetchTimingStats {
+
+    public static final int BUCKET_COUNT = 12;
+    /**
+     * Name used for the time spent in native (C++) chain.
+     */
+    public static final String NATIVE_CHAIN_NAME = "native";
+    private static final int PHASE_COUNT = Phase.values().length;
+    private final HashMap<String, int[][]> mHistograms = new HashMap<>();
+    private int mFetchCount;
+
+    public synchronized void record(@NonNull FetchTiming timing) {
+        mFetchCount++;
+        int count = timing.getProcessorCount();
+        for (int i = 0; i < count; i++) {
+            String name = timing.getProcessorName(i);
+            if (name == null) {
+                continue;
+            }
+            int[][] histogram = obtainHistogram(name);
+            increase(histogram[Phase.QUEUE.ordinal()], timing.getNanos(i, Phase.QUEUE));
+            increase(histogram[Phase.REQUEST.ordinal()], timing.getNanos(i, Phase.REQUEST));
+            increase(histogram[Phase.RESPONSE.ordinal()], timing.getNanos(i, Phase.RESPONSE));
+        }
+        if (timing.getNativeNanos() > 0) {
+            increase(obtainHistogram(NATIVE_CHAIN_NAME)[Phase.REQUEST.ordinal()],
+                    timing.getNativeNanos());
+        }
+    }
+
+    /**
+     * @param name the processor class name, or {@link #NATIVE_CHAIN_NAME}
+     * @param phase the phase of histogram
+     * @return a copy of histogram buckets, null if there is no record of the processor
+     */
+    @Nullable
+    public synchronized int[] getHistogram(@NonNull String name, @NonNull Phase phase) {
+        int[][] histogram = mHistograms.get(name);
+        return (histogram != null) ? histogram[phase.ordinal()].clone() : null;
+    }
+
+    public synchronized int getFetchCount() {
+        return mFetchCount;
+    }
+
+    public synchronized void clear() {
+        mHistograms.clear();
+        mFetchCount = 0;
+    }
+
+    @NonNull
+    private int[][] obtainHistogram(@NonNull String name) {
+        int[][] histogram = mHistograms.get(name);
+        if (histogram == null) {
+            histogram = new int[PHASE_COUNT][BUCKET_COUNT];
+            mHistograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    private static void increase(@NonNull int[] buckets, long nanos) {
+        long millis = nanos / 1000000;
+        int index = (millis <= 0) ? 0 : (64 - Long.numberOfLeadingZeros(millis));
+        buckets[Math.min(index, BUCKET_COUNT - 1)]++;
+    }
+
+    @Override
+    @NonNull
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("FetchTimingStats{fetches=");
+        builder.append(mFetchCount);
+        for (Map.Entry<String, int[][]> entry : mHistograms.entrySet()) {
+            builder.append(", ").append(entry.getKey()).append('{');
+            Phase[] phases = Phase.values();
+            for (int i = 0; i < phases.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(phases[i].name().toLowerCase(Locale.US)).append('=');
+                appendBuckets(builder, entry.getValue()[i]);
+            }
+            builder.append('}');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static void appendBuckets(@NonNull StringBuilder builder, @NonNull int[] buckets) {
+        builder.append('[');
+        for (int i = 0; i < buckets.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(buckets[i]);
+        }
+        builder.append(']');
+    }
+}
@@ -0,0 +1,543 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.vfs;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.tencent.vfs.ResourceDataHolder.TransferType;
+import com.tencent.vfs.ResponseCache.Entry;
+import com.tencent.vfs.VfsManager.ProcessorCallback;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Processor for web resources, which should be placed before the processor that actually sends
+ * the request.
+ *
+ * <p>
+ * Concurrent asynchronous fetches of the same uri and request headers are coalesced, only the
+ * first one goes down the chain and the result is fanned out to all of them. Responses are cached
+ * by {@link ResponseCache} following http caching semantics, a fresh entry is returned without
+ * request, and a stale entry with ETag or Last-Modified is revalidated by conditional request.
+ * </p>
+ */
+public class HttpCacheProcessor extends Processor {
+
+    /**
+     * Same as the response header keys set by http adapter.
+     */
+    public static final String HTTP_RESPONSE_STATUS_CODE = "statusCode";
+    public static final String HTTP_RESPONSE_RESPONSE_MESSAGE = "responseMessage";
+    private static final String HTTP_METHOD = "method";
+    private static final String HTTP_BODY = "body";
+    private static final String HTTP_RESPONSE_TYPE = "responseType";
+    private static final String RESPONSE_TYPE_STREAM = "stream";
+    private static final String STATUS_OK = "200";
+    private static final String STATUS_NOT_MODIFIED = "304";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+    private static final String HEADER_SET_COOKIE = "Set-Cookie";
+    /**
+     * Requests with these headers are handled by the caller itself, they are neither coalesced
+     * nor cached.
+     */
+    private static final String[] BYPASS_REQUEST_HEADERS = {
+            HEADER_IF_NONE_MATCH, HEADER_IF_MODIFIED_SINCE, "If-Match", "If-Unmodified-Since",
+            "If-Range", "Range"
+    };
+    @NonNull
+    private final ResponseCache mCache;
+    @NonNull
+    private final Executor mDiskExecutor;
+    private final Object mLock = new Object();
+    /**
+     * Asynchronous requests on the way, keyed by cache key, used for coalescing.
+     */
+    private final HashMap<String, PendingRequest> mInFlightRequests = new HashMap<>();
+    /**
+     * All requests handed over to next processors, keyed by holder, used to find the request
+     * when the response comes back.
+     */
+    private final HashMap<ResourceDataHolder, PendingRequest> mPendingHolders = new HashMap<>();
+    private int mHitCount;
+    private int mRevalidatedCount;
+    private int mMissCount;
+    private int mCoalescedCount;
+
+    /**
+     * @param cache the response cache
+     * @param diskExecutor executor for disk cache reading and writing
+     */
+    public HttpCacheProcessor(@NonNull ResponseCache cache, @NonNull Executor diskExecutor) {
+        mCache = cache;
+        mDiskExecutor = diskExecutor;
+    }
+
+    @NonNull
+    public ResponseCache getCache() {
+        return mCache;
+    }
+
+    @Override
+    public void handleRequestAsync(@NonNull ResourceDataHolder holder,
+            @NonNull ProcessorCallback callback) {
+        final String key = getCacheKey(holder);
+        if (key == null) {
+            callback.goNext();
+            return;
+        }
+        final PendingRequest request;
+        synchronized (mLock) {
+            PendingRequest inFlight = mInFlightRequests.get(key);
+            if (inFlight != null) {
+                inFlight.addWaiter(holder, callback);
+                mCoalescedCount++;
+                return;
+            }
+            request = new PendingRequest(key, holder, callback);
+            mInFlightRequests.put(key, request);
+        }
+        Entry entry = mCache.getFromMemory(key);
+        if (entry != null || !mCache.hasDiskCache()) {
+            dispatchRequest(request, entry);
+        } else {
+            mDiskExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchRequest(request, mCache.get(key));
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean handleRequestSync(@NonNull ResourceDataHolder holder) {
+        String key = getCacheKey(holder);
+        if (key == null) {
+            return false;
+        }
+        PendingRequest request = new PendingRequest(key, holder, null);
+        Entry entry = mCache.get(key);
+        if (entry != null && !request.forceRevalidate && entry.isFresh(
+                System.currentTimeMillis())) {
+            fillFromEntry(holder, entry);
+            synchronized (mLock) {
+                mHitCount++;
+            }
+            return true;
+        }
+        prepareNetworkRequest(request, entry);
+        return false;
+    }
+
+    @Override
+    public void handleResponseAsync(@NonNull ResourceDataHolder holder,
+            @NonNull ProcessorCallback callback) {
+        PendingRequest request;
+        synchronized (mLock) {
+            request = mPendingHolders.remove(holder);
+        }
+        if (request != null) {
+            onResponse(request);
+            completeRequest(request, callback);
+        } else {
+            callback.onHandleCompleted();
+        }
+    }
+
+    @Override
+    public void handleResponseSync(@NonNull ResourceDataHolder holder) {
+        PendingRequest request;
+        synchronized (mLock) {
+            request = mPendingHolders.remove(holder);
+        }
+        if (request != null) {
+            onResponse(request);
+        }
+    }
+
+    private void dispatchRequest(@NonNull PendingRequest request, @Nullable Entry entry) {
+        if (entry != null && !request.forceRevalidate && entry.isFresh(
+                System.currentTimeMillis())) {
+            fillFromEntry(request.holder, entry);
+            synchronized (mLock) {
+                mHitCount++;
+            }
+            //noinspection ConstantConditions
+            completeRequest(request, request.callback);
+            return;
+        }
+        prepareNetworkRequest(request, entry);
+        //noinspection ConstantConditions
+        request.callback.goNext();
+    }
+
+    private void prepareNetworkRequest(@NonNull PendingRequest request, @Nullable Entry entry) {
+        if (entry != null && entry.hasValidator()) {
+            request.entry = entry;
+            // Copy the headers, the map passed by caller may be reused by itself.
+            ResourceDataHolder holder = request.holder;
+            HashMap<String, String> headers = (holder.requestHeaders != null)
+                    ? new HashMap<>(holder.requestHeaders) : new HashMap<String, String>();
+            String eTag = entry.getETag();
+            if (eTag != null) {
+                headers.put(HEADER_IF_NONE_MATCH, eTag);
+            }
+            String lastModified = entry.getLastModified();
+            if (lastModified != null) {
+                headers.put(HEADER_IF_MODIFIED_SINCE, lastModified);
+            }
+            holder.requestHeaders = headers;
+        }
+        synchronized (mLock) {
+            mMissCount++;
+            mPendingHolders.put(request.holder, request);
+        }
+    }
+
+    private void onResponse(@NonNull PendingRequest request) {
+        ResourceDataHolder holder = request.holder;
+        if (holder.resultCode != ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE) {
+            return;
+        }
+        String statusCode = ResponseCache.getHeader(holder.responseHeaders,
+                HTTP_RESPONSE_STATUS_CODE);
+        long now = System.currentTimeMillis();
+        if (STATUS_NOT_MODIFIED.equals(statusCode) && request.entry != null) {
+            final Entry entry = request.entry.revalidate(filterHeaders(holder.responseHeaders),
+                    now);
+            fillFromEntry(holder, entry);
+            synchronized (mLock) {
+                mRevalidatedCount++;
+            }
+            storeEntry(entry);
+        } else if (STATUS_OK.equals(statusCode) && isStorable(request, holder)) {
+            try {
+                holder.materialize();
+            } catch (IOException e) {
+                holder.errorMessage = e.getMessage();
+                return;
+            }
+            byte[] body = holder.getBytes();
+            if (body != null) {
+                storeEntry(new Entry(request.key, now, filterHeaders(holder.responseHeaders),
+                        body));
+            }
+        }
+    }
+
+    private void storeEntry(@NonNull final Entry entry) {
+        mCache.putToMemory(entry);
+        if (mCache.hasDiskCache()) {
+            mDiskExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mCache.putToDisk(entry);
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove the request from in flight requests, fan out the result to all the coalesced
+     * requests, and then complete the request itself.
+     */
+    private void completeRequest(@NonNull PendingRequest request,
+            @NonNull ProcessorCallback callback) {
+        List<ResourceDataHolder> waiters;
+        List<ProcessorCallback> callbacks;
+        synchronized (mLock) {
+            if (mInFlightRequests.get(request.key) == request) {
+                mInFlightRequests.remove(request.key);
+            }
+            waiters = request.waiters;
+            callbacks = request.waiterCallbacks;
+            request.waiters = Collections.emptyList();
+            request.waiterCallbacks = Collections.emptyList();
+        }
+        if (!waiters.isEmpty()) {
+            // Streaming content can only be consumed once, read it out to share with waiters.
+            try {
+                request.holder.materialize();
+            } catch (IOException e) {
+                request.holder.errorMessage = e.getMessage();
+            }
+        }
+        for (int i = 0; i < waiters.size(); i++) {
+            copyResult(request.holder, waiters.get(i));
+            callbacks.get(i).onHandleCompleted();
+        }
+        callback.onHandleCompleted();
+    }
+
+    private boolean isStorable(@NonNull PendingRequest request,
+            @NonNull ResourceDataHolder holder) {
+        Map<String, String> responseHeaders = holder.responseHeaders;
+        if (ResponseCache.hasCacheDirective(responseHeaders, "no-store")
+                || ResponseCache.getHeader(responseHeaders, HEADER_SET_COOKIE) != null) {
+            return false;
+        }
+        String vary = ResponseCache.getHeader(responseHeaders, ResponseCache.HEADER_VARY);
+        if (vary != null && vary.trim().equals("*")) {
+            return false;
+        }
+        if (request.hasAuthorization && !ResponseCache.hasCacheDirective(responseHeaders,
+                "public")) {
+            return false;
+        }
+        // The response without freshness and validator can never be used again.
+        return ResponseCache.getHeader(responseHeaders, ResponseCache.HEADER_ETAG) != null
+                || ResponseCache.getHeader(responseHeaders, ResponseCache.HEADER_LAST_MODIFIED)
+                != null
+                || ResponseCache.getDirectiveValue(ResponseCache.getHeader(responseHeaders,
+                ResponseCache.HEADER_CACHE_CONTROL), "max-age") != null
+                || ResponseCache.getHeader(responseHeaders, ResponseCache.HEADER_EXPIRES) != null;
+    }
+
+    private void fillFromEntry(@NonNull ResourceDataHolder holder, @NonNull Entry entry) {
+        holder.responseHeaders = new HashMap<>(entry.headers);
+        holder.responseHeaders.put(HTTP_RESPONSE_STATUS_CODE, STATUS_OK);
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        holder.errorMessage = null;
+        holder.processorTag = HttpCacheProcessor.class.getName();
+        // Discard the body of 304 response, if any.
+        ReadableByteChannel channel = holder.takeChannel();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing to do when close failed.
+            }
+        }
+        if (holder.transferType == TransferType.NIO) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(entry.body.length);
+            buffer.put(entry.body);
+            buffer.flip();
+            holder.buffer = buffer;
+            holder.bytes = null;
+        } else {
+            holder.bytes = entry.body;
+            holder.buffer = null;
+        }
+    }
+
+    /**
+     * Copy the result of the coalesced request, content is shared when the transfer type is the
+     * same, so it must not be modified by any request.
+     */
+    private static void copyResult(@NonNull ResourceDataHolder from,
+            @NonNull ResourceDataHolder to) {
+        to.resultCode = from.resultCode;
+        to.errorMessage = from.errorMessage;
+        to.processorTag = from.processorTag;
+        to.responseHeaders = (from.responseHeaders != null)
+                ? new HashMap<>(from.responseHeaders) : null;
+        if (to.transferType == from.transferType) {
+            to.bytes = from.bytes;
+            to.buffer = from.buffer;
+        } else if (to.transferType == TransferType.NIO) {
+            byte[] bytes = from.getBytes();
+            if (bytes != null) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+                buffer.put(bytes);
+                buffer.flip();
+                to.buffer = buffer;
+            }
+        } else {
+            to.bytes = from.getBytes();
+        }
+    }
+
+    @NonNull
+    private static HashMap<String, String> filterHeaders(@Nullable Map<String, String> headers) {
+        HashMap<String, String> result = new HashMap<>();
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                String name = header.getKey();
+                // The status line is returned with null key by HttpURLConnection.
+                if (name != null && header.getValue() != null && !name.equals(
+                        HTTP_RESPONSE_STATUS_CODE) && !name.equals(
+                        HTTP_RESPONSE_RESPONSE_MESSAGE) && !name.equalsIgnoreCase(
+                        HEADER_SET_COOKIE)) {
+                    result.put(name, header.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Normalize the uri and request headers as cache key.
+     *
+     * @return the cache key, null if the request should not be coalesced or cached
+     */
+    @Nullable
+    static String getCacheKey(@NonNull ResourceDataHolder holder) {
+        if (!UrlUtils.isWebUrl(holder.uri)) {
+            return null;
+        }
+        if (holder.requestParams != null) {
+            String method = holder.requestParams.get(HTTP_METHOD);
+            String body = holder.requestParams.get(HTTP_BODY);
+            if ((method != null && !method.equalsIgnoreCase("GET"))
+                    || (body != null && !body.isEmpty())) {
+                return null;
+            }
+            // Stream response is consumed as it arrives and may never end, never buffer it.
+            if (RESPONSE_TYPE_STREAM.equalsIgnoreCase(
+                    holder.requestParams.get(HTTP_RESPONSE_TYPE))) {
+                return null;
+            }
+        }
+        HashMap<String, String> headers = holder.requestHeaders;
+        if (headers == null || headers.isEmpty()) {
+            return normalizeUri(holder.uri);
+        }
+        for (String name : BYPASS_REQUEST_HEADERS) {
+            if (ResponseCache.getHeader(headers, name) != null) {
+                return null;
+            }
+        }
+        if (ResponseCache.hasCacheDirective(headers, "no-store")) {
+            return null;
+        }
+        ArrayList<String> items = new ArrayList<>(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey() != null) {
+                items.add(header.getKey().toLowerCase(Locale.US) + ":" + ((header.getValue()
+                        != null) ? header.getValue().trim() : ""));
+            }
+        }
+        Collections.sort(items);
+        StringBuilder builder = new StringBuilder(normalizeUri(holder.uri));
+        for (String item : items) {
+            builder.append('\n').append(item);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Lower case the scheme and host, and remove the fragment, which are not sent to server.
+     */
+    @NonNull
+    static String normalizeUri(@NonNull String uri) {
+        String result = uri.trim();
+        int fragment = result.indexOf('#');
+        if (fragment >= 0) {
+            result = result.substring(0, fragment);
+        }
+        int schemeEnd = result.indexOf("://");
+        if (schemeEnd < 0) {
+            return result;
+        }
+        int hostEnd = schemeEnd + 3;
+        while (hostEnd < result.length()) {
+            char c = result.charAt(hostEnd);
+            if (c == '/' || c == '?') {
+                break;
+            }
+            hostEnd++;
+        }
+        return result.substring(0, hostEnd).toLowerCase(Locale.US) + result.substring(hostEnd);
+    }
+
+    public int getHitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    public int getRevalidatedCount() {
+        synchronized (mLock) {
+            return mRevalidatedCount;
+        }
+    }
+
+    public int getMissCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    public int getCoalescedCount() {
+        synchronized (mLock) {
+            return mCoalescedCount;
+        }
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        synchronized (mLock) {
+            return "HttpCacheProcessor{hit=" + mHitCount + ", revalidated=" + mRevalidatedCount
+                    + ", miss=" + mMissCount + ", coalesced=" + mCoalescedCount + ", "
+                    + mCache + "}";
+        }
+    }
+
+    private static class PendingRequest {
+
+        @NonNull
+        final String key;
+        @NonNull
+        final ResourceDataHolder holder;
+        /**
+         * The request callback of async request, null for sync request.
+         */
+        @Nullable
+        final ProcessorCallback callback;
+        final boolean forceRevalidate;
+        final boolean hasAuthorization;
+        /**
+         * The stale entry being revalidated by conditional request.
+         */
+        @Nullable
+        Entry entry;
+        @NonNull
+        List<ResourceDataHolder> waiters = new ArrayList<>();
+        @NonNull
+        List<ProcessorCallback> waiterCallbacks = new ArrayList<>();
+
+        PendingRequest(@NonNull String key, @NonNull ResourceDataHolder holder,
+                @Nullable ProcessorCallback callback) {
+            this.key = key;
+            this.holder = holder;
+            this.callback = callback;
+            forceRevalidate = ResponseCache.hasCacheDirective(holder.requestHeaders, "no-cache")
+                    || "0".equals(ResponseCache.getDirectiveValue(ResponseCache.getHeader(
+                    holder.requestHeaders, ResponseCache.HEADER_CACHE_CONTROL), "max-age"));
+            hasAuthorization = ResponseCache.getHeader(holder.requestHeaders,
+                    HEADER_AUTHORIZATION) != null;
+        }
+
+        void addWaiter(@NonNull ResourceDataHolder waiter, @NonNull ProcessorCallback callback) {
+            waiters.add(waiter);
+            waiterCallbacks.add(callback);
+        }
+    }
+}
@@ -49,6 +49,12 @@ public class Processor {
     /**
      * Handle response asynchronous
      *
+     * <p>
+     * The content may be bytes, direct or memory mapped buffer, or a streaming channel, use
+     * {@link ResourceDataHolder#getBuffer()} to read it without copy, or
+     * {@link ResourceDataHolder#takeChannel()} to consume the stream directly.
+     * </p>
+     *
      * @param holder {@link ResourceDataHolder}
      * @param callback {@link ProcessorCallback}
      */
@@ -16,15 +16,23 @@
 
 package com.tencent.vfs;
 
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.openhippy.pool.RecycleObject;
 import com.tencent.vfs.VfsManager.FetchResourceCallback;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.HashMap;
 
 public class ResourceDataHolder extends RecycleObject {
@@ -40,6 +48,17 @@ public class ResourceDataHolder extends RecycleObject {
     }
 
     public final static int RESOURCE_LOAD_SUCCESS_CODE = 0;
+    /**
+     * Set when reading the streaming content failed, the processor that provided the stream may
+     * have reported success, same as the failed code of native (C++) vfs.
+     */
+    public final static int RESOURCE_READ_FAILED_CODE = 1;
+    /**
+     * Files smaller than this size are read into heap directly, since memory map a small file
+     * costs more than copy it.
+     */
+    private static final long MAP_FILE_SIZE_THRESHOLD = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 8192;
 
     @NonNull
     public String uri;
@@ -47,6 +66,17 @@ public class ResourceDataHolder extends RecycleObject {
     public ByteBuffer buffer;
     @Nullable
     public byte[] bytes;
+    /**
+     * The streaming content which has not been read yet, such as network response body, can be
+     * consumed by processors directly, or materialized by {@link #getBytes()} and
+     * {@link #getBuffer()}.
+     */
+    @Nullable
+    public ReadableByteChannel channel;
+    /**
+     * The length of streaming content, -1 if unknown.
+     */
+    public long contentLength = -1;
     @Nullable
     public HashMap<String, String> requestHeaders;
     @Nullable
@@ -68,6 +98,16 @@ public class ResourceDataHolder extends RecycleObject {
     public String errorMessage;
     @Nullable
     public String processorTag;
+    /**
+     * Latency of each processor for this fetch, reused after recycled.
+     */
+    @NonNull
+    final FetchTiming timing = new FetchTiming();
+    /**
+     * Processor callback reused by every hop of the chain, created when the first fetch starts.
+     */
+    @Nullable
+    TraversalCallback traversalCallback;
 
     public ResourceDataHolder(@NonNull String uri, @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams, RequestFrom from) {
@@ -100,10 +140,20 @@ public class ResourceDataHolder extends RecycleObject {
                 : null;
     }
 
+    @NonNull
+    public FetchTiming getTiming() {
+        return timing;
+    }
+
     @Override
     public void recycle() {
+        closeChannel();
+        if (traversalCallback != null) {
+            traversalCallback.unbind();
+        }
         buffer = null;
         bytes = null;
+        contentLength = -1;
         callback = null;
         errorMessage = null;
         processorTag = null;
@@ -122,31 +172,217 @@ public class ResourceDataHolder extends RecycleObject {
     }
 
     public void readResourceDataFromStream(@NonNull InputStream inputStream) throws IOException {
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        byte[] b = new byte[8192];
+        readResourceDataFromStream(inputStream, -1);
+    }
+
+    /**
+     * Read whole stream into heap bytes, or direct buffer if transfer type is
+     * {@link TransferType#NIO}.
+     *
+     * @param inputStream the stream to read
+     * @param expectedLength the expected length of stream used to size the buffer, -1 if unknown
+     */
+    public void readResourceDataFromStream(@NonNull InputStream inputStream, long expectedLength)
+            throws IOException {
+        int initialSize = (expectedLength > 0 && expectedLength < Integer.MAX_VALUE)
+                ? (int) expectedLength : READ_BUFFER_SIZE;
+        ExposedByteArrayOutputStream output = new ExposedByteArrayOutputStream(initialSize);
+        byte[] b = new byte[READ_BUFFER_SIZE];
         int size;
         while ((size = inputStream.read(b)) > 0) {
             output.write(b, 0, size);
         }
-        byte[] resBytes = output.toByteArray();
         if (transferType == TransferType.NIO) {
-            buffer = ByteBuffer.allocateDirect(resBytes.length);
-            buffer.put(resBytes);
+            buffer = ByteBuffer.allocateDirect(output.size());
+            buffer.put(output.getBuffer(), 0, output.size());
+            buffer.flip();
         } else {
-            bytes = resBytes;
+            bytes = output.toByteArrayNoCopy();
+        }
+    }
+
+    /**
+     * Read local file, large file is memory mapped without copying into heap, and the transfer
+     * type is changed to {@link TransferType#NIO}.
+     */
+    public void readResourceDataFromFile(@NonNull File file) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel fileChannel = inputStream.getChannel();
+            long length = fileChannel.size();
+            if (length >= MAP_FILE_SIZE_THRESHOLD) {
+                buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                transferType = TransferType.NIO;
+            } else {
+                readResourceDataFromStream(inputStream, length);
+            }
+        } finally {
+            inputStream.close();
         }
     }
 
+    /**
+     * Read asset file, uncompressed large asset is memory mapped as same as
+     * {@link #readResourceDataFromFile(File)}, compressed asset can only be read by stream.
+     */
+    public void readResourceDataFromAsset(@NonNull AssetManager assetManager,
+            @NonNull String fileName) throws IOException {
+        AssetFileDescriptor fd = null;
+        try {
+            fd = assetManager.openFd(fileName);
+        } catch (FileNotFoundException e) {
+            // The asset is compressed, fall through to read by stream.
+        }
+        if (fd != null) {
+            try {
+                long length = fd.getLength();
+                if (length >= MAP_FILE_SIZE_THRESHOLD) {
+                    FileInputStream inputStream = fd.createInputStream();
+                    try {
+                        buffer = inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                                fd.getStartOffset(), length);
+                        transferType = TransferType.NIO;
+                        return;
+                    } finally {
+                        inputStream.close();
+                    }
+                }
+            } finally {
+                fd.close();
+            }
+        }
+        InputStream inputStream = assetManager.open(fileName);
+        try {
+            readResourceDataFromStream(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Set streaming content, the channel is owned by this holder and closed when consumed or
+     * recycled.
+     *
+     * @param channel the readable channel of content
+     * @param length the content length, -1 if unknown
+     */
+    public void setResourceChannel(@NonNull ReadableByteChannel channel, long length) {
+        closeChannel();
+        this.channel = channel;
+        contentLength = length;
+    }
+
+    public void setResourceChannel(@NonNull InputStream inputStream, long length) {
+        setResourceChannel(Channels.newChannel(inputStream), length);
+    }
+
+    /**
+     * Take over the streaming content, the caller is responsible for closing the channel.
+     *
+     * @return the channel, null if the content is not streaming or has been materialized
+     */
+    @Nullable
+    public ReadableByteChannel takeChannel() {
+        ReadableByteChannel ch = channel;
+        channel = null;
+        return ch;
+    }
+
+    /**
+     * Read all remaining streaming content into bytes or direct buffer according to transfer
+     * type, must be called before the holder is passed to native.
+     *
+     * <p>
+     * If reading failed, the partial content is discarded, and the result code is set to
+     * {@link #RESOURCE_READ_FAILED_CODE}, so the holder is never delivered as a successful
+     * fetch with truncated content.
+     * </p>
+     */
+    public void materialize() throws IOException {
+        ReadableByteChannel ch = takeChannel();
+        if (ch == null) {
+            return;
+        }
+        try {
+            readResourceDataFromStream(Channels.newInputStream(ch), contentLength);
+        } catch (IOException e) {
+            buffer = null;
+            bytes = null;
+            resultCode = RESOURCE_READ_FAILED_CODE;
+            errorMessage = e.getMessage();
+            throw e;
+        } finally {
+            ch.close();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing to do when close failed.
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Get the content as read only buffer without copy, streaming content will be materialized.
+     */
+    @Nullable
+    public ByteBuffer getBuffer() {
+        materializeQuietly();
+        if (transferType == TransferType.NIO) {
+            if (buffer == null) {
+                return null;
+            }
+            ByteBuffer duplicate = buffer.duplicate();
+            // Native reads direct buffer by capacity, keep the same view here.
+            duplicate.clear();
+            return duplicate.asReadOnlyBuffer();
+        }
+        return (bytes != null) ? ByteBuffer.wrap(bytes).asReadOnlyBuffer() : null;
+    }
+
     @Nullable
     public byte[] getBytes() {
+        materializeQuietly();
         if (transferType == TransferType.NORMAL) {
             return bytes;
         } else if (buffer != null) {
-            buffer.flip();
-            byte[] bytes = new byte[buffer.remaining()];
-            buffer.get(bytes);
+            ByteBuffer duplicate = buffer.duplicate();
+            duplicate.clear();
+            byte[] bytes = new byte[duplicate.remaining()];
+            duplicate.get(bytes);
             return bytes;
         }
         return null;
     }
+
+    private void materializeQuietly() {
+        try {
+            materialize();
+        } catch (IOException ignored) {
+            // The failure has been recorded by materialize.
+        }
+    }
+
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+
+        /**
+         * Return the internal buffer directly if it is exactly filled.
+         */
+        byte[] toByteArrayNoCopy() {
+            return (count == buf.length) ? buf : toByteArray();
+        }
+    }
 }
@@ -0,0 +1,511 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.vfs;
+
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Memory and optional disk cache of web responses, the freshness of entry follows the http
+ * Cache-Control, Expires and Age response headers.
+ *
+ * <p>
+ * Disk entries are evicted by file last modified time, all disk methods do file IO, so should not
+ * be called on UI thread.
+ * </p>
+ */
+public class ResponseCache {
+
+    public static final long DEFAULT_MEMORY_CACHE_SIZE = 4 * 1024 * 1024;
+    public static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    public static final String HEADER_PRAGMA = "Pragma";
+    public static final String HEADER_EXPIRES = "Expires";
+    public static final String HEADER_DATE = "Date";
+    public static final String HEADER_AGE = "Age";
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_VARY = "Vary";
+    private static final int DISK_ENTRY_VERSION = 1;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    @NonNull
+    private final LruCache<String, Entry> mMemoryCache;
+    private final long mMemoryMaxSize;
+    @Nullable
+    private final File mDirectory;
+    private final long mDiskMaxSize;
+    private final Object mDiskLock = new Object();
+    private long mDiskSize = -1;
+
+    public ResponseCache(long memoryMaxSize, @Nullable File directory, long diskMaxSize) {
+        mMemoryMaxSize = Math.max(memoryMaxSize, 1);
+        mMemoryCache = new LruCache<String, Entry>((int) Math.min(mMemoryMaxSize,
+                Integer.MAX_VALUE)) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.size();
+            }
+        };
+        mDirectory = (diskMaxSize > 0) ? directory : null;
+        mDiskMaxSize = diskMaxSize;
+    }
+
+    public boolean hasDiskCache() {
+        return mDirectory != null;
+    }
+
+    @Nullable
+    public Entry getFromMemory(@NonNull String key) {
+        return mMemoryCache.get(key);
+    }
+
+    /**
+     * Get entry from memory, or from disk if disk cache is enabled, the entry read from disk is
+     * promoted into memory.
+     */
+    @Nullable
+    public Entry get(@NonNull String key) {
+        Entry entry = mMemoryCache.get(key);
+        if (entry == null && mDirectory != null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                putToMemory(entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Put entry into memory only, call {@link #putToDisk(Entry)} on background thread to persist
+     * it.
+     */
+    public void putToMemory(@NonNull Entry entry) {
+        // Large entry would flush the whole memory cache, keep it on disk only.
+        if (entry.size() <= mMemoryMaxSize / 8) {
+            mMemoryCache.put(entry.key, entry);
+        }
+    }
+
+    public void putToDisk(@NonNull Entry entry) {
+        if (mDirectory == null || entry.size() > mDiskMaxSize / 4) {
+            return;
+        }
+        synchronized (mDiskLock) {
+            writeToDisk(mDirectory, entry);
+        }
+    }
+
+    public void remove(@NonNull String key) {
+        mMemoryCache.remove(key);
+        if (mDirectory != null) {
+            synchronized (mDiskLock) {
+                File file = new File(mDirectory, getFileName(key));
+                long length = file.length();
+                if (file.delete() && mDiskSize >= 0) {
+                    mDiskSize -= length;
+                }
+            }
+        }
+    }
+
+    public void clearMemory() {
+        mMemoryCache.evictAll();
+    }
+
+    @Nullable
+    private Entry readFromDisk(@NonNull String key) {
+        synchronized (mDiskLock) {
+            File file = new File(mDirectory, getFileName(key));
+            if (!file.exists()) {
+                return null;
+            }
+            DataInputStream inputStream = null;
+            try {
+                inputStream = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file)));
+                if (inputStream.readInt() != DISK_ENTRY_VERSION) {
+                    return null;
+                }
+                // Different keys may have the same file name.
+                if (!key.equals(inputStream.readUTF())) {
+                    return null;
+                }
+                long responseTime = inputStream.readLong();
+                int headerCount = inputStream.readInt();
+                HashMap<String, String> headers = new HashMap<>(headerCount * 2);
+                for (int i = 0; i < headerCount; i++) {
+                    headers.put(inputStream.readUTF(), inputStream.readUTF());
+                }
+                byte[] body = new byte[inputStream.readInt()];
+                inputStream.readFully(body);
+                //noinspection ResultOfMethodCallIgnored
+                file.setLastModified(System.currentTimeMillis());
+                return new Entry(key, responseTime, headers, body);
+            } catch (IOException | RuntimeException e) {
+                return null;
+            } finally {
+                closeQuietly(inputStream);
+            }
+        }
+    }
+
+    private void writeToDisk(@NonNull File directory, @NonNull Entry entry) {
+        ensureDiskSize(directory);
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        String fileName = getFileName(entry.key);
+        File file = new File(directory, fileName);
+        File tempFile = new File(directory, fileName + TEMP_FILE_SUFFIX);
+        long oldLength = file.length();
+        DataOutputStream outputStream = null;
+        try {
+            outputStream = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)));
+            outputStream.writeInt(DISK_ENTRY_VERSION);
+            outputStream.writeUTF(entry.key);
+            outputStream.writeLong(entry.responseTime);
+            outputStream.writeInt(entry.headers.size());
+            for (Map.Entry<String, String> header : entry.headers.entrySet()) {
+                outputStream.writeUTF(header.getKey());
+                outputStream.writeUTF(header.getValue());
+            }
+            outputStream.writeInt(entry.body.length);
+            outputStream.write(entry.body);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        } finally {
+            closeQuietly(outputStream);
+        }
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+        mDiskSize += file.length() - oldLength;
+        if (mDiskSize > mDiskMaxSize) {
+            trimDiskToSize(directory, mDiskMaxSize * 3 / 4);
+        }
+    }
+
+    private void ensureDiskSize(@NonNull File directory) {
+        if (mDiskSize >= 0) {
+            return;
+        }
+        long size = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                    // Left by the last process which was killed when writing.
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                } else {
+                    size += file.length();
+                }
+            }
+        }
+        mDiskSize = size;
+    }
+
+    private void trimDiskToSize(@NonNull File directory, long maxSize) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+                return (m1 < m2) ? -1 : ((m1 == m2) ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (mDiskSize <= maxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mDiskSize -= length;
+            }
+        }
+    }
+
+    @NonNull
+    private static String getFileName(@NonNull String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] bytes = digest.digest(key.getBytes("UTF-8"));
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+                chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(key.hashCode()) + "_" + key.length();
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Get header value with case insensitive name, since header names from different http stacks
+     * have different cases.
+     */
+    @Nullable
+    public static String getHeader(@Nullable Map<String, String> headers, @NonNull String name) {
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the Cache-Control (or Pragma) header contains the directive.
+     */
+    public static boolean hasCacheDirective(@Nullable Map<String, String> headers,
+            @NonNull String directive) {
+        if (getDirectiveValue(getHeader(headers, HEADER_CACHE_CONTROL), directive) != null) {
+            return true;
+        }
+        String pragma = getHeader(headers, HEADER_PRAGMA);
+        return pragma != null && directive.equals("no-cache") && pragma.toLowerCase(Locale.US)
+                .contains(directive);
+    }
+
+    /**
+     * @return the value of directive, empty string if the directive has no value, or null if not
+     *         present.
+     */
+    @Nullable
+    static String getDirectiveValue(@Nullable String cacheControl, @NonNull String directive) {
+        if (cacheControl == null) {
+            return null;
+        }
+        String[] items = cacheControl.split(",");
+        for (String item : items) {
+            String trimmed = item.trim();
+            int index = trimmed.indexOf('=');
+            String name = (index < 0) ? trimmed : trimmed.substring(0, index).trim();
+            if (name.equalsIgnoreCase(directive)) {
+                if (index < 0) {
+                    return "";
+                }
+                String value = trimmed.substring(index + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    static long parseSeconds(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the time of http date in milliseconds, -1 if the value is absent or invalid.
+     */
+    static long parseHttpDate(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        // SimpleDateFormat is not thread safe, create it every time, this only happens when the
+        // response is stored or revalidated.
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz",
+                Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            Date date = format.parse(value.trim());
+            return (date != null) ? date.getTime() : -1;
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "ResponseCache{memory=" + mMemoryCache.size() + "/" + mMemoryMaxSize
+                + ", disk=" + mDiskSize + "/" + mDiskMaxSize + "}";
+    }
+
+    /**
+     * Immutable cached response, the body is shared by all requests served from this entry, so it
+     * must not be modified.
+     */
+    public static final class Entry {
+
+        @NonNull
+        public final String key;
+        public final long responseTime;
+        @NonNull
+        public final HashMap<String, String> headers;
+        @NonNull
+        public final byte[] body;
+        private final long mFreshnessLifetime;
+        private final long mInitialAge;
+
+        public Entry(@NonNull String key, long responseTime,
+                @NonNull HashMap<String, String> headers, @NonNull byte[] body) {
+            this.key = key;
+            this.responseTime = responseTime;
+            this.headers = headers;
+            this.body = body;
+            mFreshnessLifetime = computeFreshnessLifetime();
+            mInitialAge = computeInitialAge();
+        }
+
+        int size() {
+            return body.length + 512;
+        }
+
+        /**
+         * @return a new entry with the body of this entry and headers updated by a 304 (Not
+         *         Modified) response.
+         */
+        @NonNull
+        public Entry revalidate(@Nullable Map<String, String> notModifiedHeaders,
+                long newResponseTime) {
+            HashMap<String, String> merged = new HashMap<>(headers);
+            if (notModifiedHeaders != null) {
+                for (Map.Entry<String, String> header : notModifiedHeaders.entrySet()) {
+                    String name = header.getKey();
+                    if (name == null || header.getValue() == null) {
+                        continue;
+                    }
+                    // Remove the same header with different case before update.
+                    String existing = findHeaderName(merged, name);
+                    if (existing != null) {
+                        merged.remove(existing);
+                    }
+                    merged.put(name, header.getValue());
+                }
+            }
+            return new Entry(key, newResponseTime, merged, body);
+        }
+
+        public boolean isFresh(long now) {
+            if (mFreshnessLifetime <= 0) {
+                return false;
+            }
+            long currentAge = mInitialAge + Math.max(0, now - responseTime);
+            return mFreshnessLifetime > currentAge;
+        }
+
+        public boolean hasValidator() {
+            return getETag() != null || getLastModified() != null;
+        }
+
+        @Nullable
+        public String getETag() {
+            return getHeader(headers, HEADER_ETAG);
+        }
+
+        @Nullable
+        public String getLastModified() {
+            return getHeader(headers, HEADER_LAST_MODIFIED);
+        }
+
+        private long computeFreshnessLifetime() {
+            if (hasCacheDirective(headers, "no-cache")) {
+                return 0;
+            }
+            long maxAge = parseSeconds(getDirectiveValue(getHeader(headers,
+                    HEADER_CACHE_CONTROL), "max-age"));
+            if (maxAge >= 0) {
+                return maxAge * 1000;
+            }
+            long expires = parseHttpDate(getHeader(headers, HEADER_EXPIRES));
+            if (expires >= 0) {
+                long date = parseHttpDate(getHeader(headers, HEADER_DATE));
+                return expires - ((date >= 0) ? date : responseTime);
+            }
+            return 0;
+        }
+
+        private long computeInitialAge() {
+            long date = parseHttpDate(getHeader(headers, HEADER_DATE));
+            long apparentAge = (date >= 0) ? Math.max(0, responseTime - date) : 0;
+            long age = parseSeconds(getHeader(headers, HEADER_AGE));
+            return Math.max(apparentAge, (age > 0) ? age * 1000 : 0);
+        }
+
+        @Nullable
+        private static String findHeaderName(@NonNull Map<String, String> headers,
+                @NonNull String name) {
+            for (String key : headers.keySet()) {
+                if (name.equalsIgnoreCase(key)) {
+                    return key;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.tencent.vfs;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.tencent.vfs.VfsManager.FetchResourceCallback;
+import com.tencent.vfs.VfsManager.ProcessorCallback;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The processor callback of one holder, created once and reused by every hop of the chain and
+ * every fetch after the holder is recycled.
+ *
+ * <p>
+ * If the processor calls back before its handle method returns, the action is only recorded, and
+ * the traversal loop of {@link VfsManager} continues with it after the method returns, so the
+ * chain is traversed without recursion. Otherwise the callback resumes the traversal on the
+ * calling thread.
+ * </p>
+ */
+final class TraversalCallback implements ProcessorCallback, FetchResourceCallback {
+
+    static final int ACTION_NONE = 0;
+    static final int ACTION_GO_NEXT = 1;
+    static final int ACTION_COMPLETED = 2;
+    private static final int STATE_WAITING = 0;
+    private static final int STATE_DISPATCHING = 1;
+    private static final int STATE_GO_NEXT_PENDING = 2;
+    private static final int STATE_COMPLETED_PENDING = 3;
+    private final AtomicInteger mState = new AtomicInteger(STATE_WAITING);
+    @NonNull
+    private final ResourceDataHolder mHolder;
+    @Nullable
+    private VfsManager mManager;
+    @Nullable
+    private Processor mProcessor;
+    private volatile boolean mIsRequest;
+    private volatile long mDispatchNanos;
+    private volatile long mReturnNanos;
+    private long mNativeStartNanos;
+
+    TraversalCallback(@NonNull ResourceDataHolder holder) {
+        mHolder = holder;
+    }
+
+    void bind(@NonNull VfsManager manager) {
+        mManager = manager;
+        mState.set(STATE_WAITING);
+    }
+
+    void unbind() {
+        mManager = null;
+        mProcessor = null;
+    }
+
+    /**
+     * Must be called before the handle method of processor.
+     */
+    void beginDispatch(@NonNull Processor processor, boolean isRequest) {
+        mProcessor = processor;
+        mIsRequest = isRequest;
+        mReturnNanos = 0;
+        mDispatchNanos = System.nanoTime();
+        mState.set(STATE_DISPATCHING);
+    }
+
+    /**
+     * Must be called after the handle method of processor returned.
+     *
+     * @return the action if the processor has called back, or {@link #ACTION_NONE} if the
+     *         processor will call back asynchronously
+     */
+    int endDispatch() {
+        mReturnNanos = System.nanoTime();
+        if (mState.compareAndSet(STATE_DISPATCHING, STATE_WAITING)) {
+            return ACTION_NONE;
+        }
+        return (mState.getAndSet(STATE_WAITING) == STATE_GO_NEXT_PENDING) ? ACTION_GO_NEXT
+                : ACTION_COMPLETED;
+    }
+
+    boolean isRequest() {
+        return mIsRequest;
+    }
+
+    void beginNativeTraversals() {
+        mNativeStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void goNext() {
+        onAction(ACTION_GO_NEXT);
+    }
+
+    @Override
+    public void onHandleCompleted() {
+        onAction(ACTION_COMPLETED);
+    }
+
+    private void onAction(int action) {
+        long now = System.nanoTime();
+        long returnNanos = mReturnNanos;
+        Processor processor = mProcessor;
+        if (processor != null) {
+            mHolder.timing.record(mHolder.index, processor, mIsRequest, now - mDispatchNanos,
+                    (returnNanos > 0) ? (now - returnNanos) : 0);
+        }
+        int pendingState = (action == ACTION_GO_NEXT) ? STATE_GO_NEXT_PENDING
+                : STATE_COMPLETED_PENDING;
+        if (mState.compareAndSet(STATE_DISPATCHING, pendingState)) {
+            return;
+        }
+        VfsManager manager = mManager;
+        if (manager != null) {
+            manager.resumeTraversal(mHolder, mIsRequest, action);
+        }
+    }
+
+    @Override
+    public void onFetchCompleted(@NonNull ResourceDataHolder dataHolder) {
+        mHolder.timing.recordNative(System.nanoTime() - mNativeStartNanos);
+        VfsManager manager = mManager;
+        if (manager != null) {
+            manager.resumeTraversal(mHolder, true, ACTION_COMPLETED);
+        }
+    }
+
+    @Override
+    public void onFetchProgress(long total, long loaded) {
+        if (mHolder.callback != null) {
+            mHolder.callback.onFetchProgress(total, loaded);
+        }
+    }
+}
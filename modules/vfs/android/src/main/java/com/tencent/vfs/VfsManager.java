@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -28,6 +29,11 @@ public class VfsManager {
 
     @NonNull
     private final CopyOnWriteArrayList<Processor> mProcessorChain;
+    @NonNull
+    private final CopyOnWriteArrayList<FetchTimingListener> mTimingListeners =
+            new CopyOnWriteArrayList<>();
+    @NonNull
+    private final FetchTimingStats mTimingStats = new FetchTimingStats();
     private int mId;
 
     public VfsManager(@NonNull List<Processor> processors) {
@@ -66,13 +72,13 @@ public class VfsManager {
 
     public void destroy() {
         mProcessorChain.clear();
+        mTimingListeners.clear();
     }
 
     public void fetchResourceAsync(@NonNull String uri,
             @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams,
             @Nullable FetchResourceCallback callback) {
-        onFetchResourceStart();
         fetchResourceAsyncImpl(uri, requestHeaders, requestParams, callback,
                 RequestFrom.LOCAL, -1);
     }
@@ -80,13 +86,28 @@ public class VfsManager {
     public ResourceDataHolder fetchResourceSync(@NonNull String uri,
             @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams) {
-        onFetchResourceStart();
         ResourceDataHolder holder = fetchResourceSyncImpl(uri, requestHeaders, requestParams,
                 RequestFrom.LOCAL);
         onFetchResourceEnd(holder);
         return holder;
     }
 
+    public void addFetchTimingListener(@NonNull FetchTimingListener listener) {
+        mTimingListeners.add(listener);
+    }
+
+    public void removeFetchTimingListener(@NonNull FetchTimingListener listener) {
+        mTimingListeners.remove(listener);
+    }
+
+    /**
+     * @return latency histograms of all processors for the fetches of this manager
+     */
+    @NonNull
+    public FetchTimingStats getFetchTimingStats() {
+        return mTimingStats;
+    }
+
     private ResourceDataHolder fetchResourceSyncImpl(@NonNull String uri,
             @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams,
@@ -97,7 +118,8 @@ public class VfsManager {
         } else {
             holder.init(uri, requestHeaders, requestParams, null, from, -1);
         }
-        traverseForward(holder, true);
+        onFetchResourceStart(holder);
+        traverseSync(holder);
         return holder;
     }
 
@@ -111,102 +133,107 @@ public class VfsManager {
         } else {
             holder.init(uri, requestHeaders, requestParams, callback, from, nativeRequestId);
         }
-        traverseForward(holder, false);
+        onFetchResourceStart(holder);
+        traverseAsync(holder, true);
     }
 
-    private void traverseForward(@NonNull final ResourceDataHolder holder, final boolean isSync) {
-        int index = holder.index + 1;
-        if (index < mProcessorChain.size()) {
+    private void traverseSync(@NonNull ResourceDataHolder holder) {
+        boolean forward = true;
+        while (true) {
+            int index = forward ? (holder.index + 1) : (holder.index - 1);
+            if (index < 0 || index >= mProcessorChain.size()) {
+                if (forward && holder.requestFrom == RequestFrom.LOCAL) {
+                    long startNanos = System.nanoTime();
+                    doNativeTraversalsSync(mId, holder);
+                    holder.timing.recordNative(System.nanoTime() - startNanos);
+                } else if (forward && holder.requestFrom == RequestFrom.NATIVE) {
+                    forward = false;
+                    continue;
+                }
+                return;
+            }
             holder.index = index;
             Processor processor = mProcessorChain.get(index);
-            if (isSync) {
+            long startNanos = System.nanoTime();
+            if (forward) {
                 boolean goBack = processor.handleRequestSync(holder);
-                if (goBack) {
-                    traverseGoBack(holder, true);
-                } else {
-                    traverseForward(holder, true);
-                }
+                holder.timing.record(index, processor, true, System.nanoTime() - startNanos, 0);
+                forward = !goBack;
             } else {
-                processor.handleRequestAsync(holder, new ProcessorCallback() {
-                    @Override
-                    public void goNext() {
-                        traverseForward(holder, false);
-                    }
-
-                    @Override
-                    public void onHandleCompleted() {
-                        traverseGoBack(holder, false);
-                    }
-                });
-            }
-        } else if (isSync) {
-            if (holder.requestFrom == RequestFrom.LOCAL) {
-                doNativeTraversalsSync(mId, holder);
-            } else if (holder.requestFrom == RequestFrom.NATIVE) {
-                traverseGoBack(holder, true);
-            }
-        } else {
-            if (holder.requestFrom == RequestFrom.LOCAL) {
-                performNativeTraversals(holder);
-            } else if (holder.requestFrom == RequestFrom.NATIVE) {
-                traverseGoBack(holder, false);
+                processor.handleResponseSync(holder);
+                holder.timing.record(index, processor, false, System.nanoTime() - startNanos, 0);
             }
         }
     }
 
-    private void traverseGoBack(@NonNull final ResourceDataHolder holder, final boolean isSync) {
-        int index = holder.index - 1;
-        if (index >= 0 && index < mProcessorChain.size()) {
+    /**
+     * Traverse the chain in a loop until a processor calls back asynchronously, then
+     * {@link TraversalCallback} resumes the loop by {@link #resumeTraversal}.
+     */
+    private void traverseAsync(@NonNull ResourceDataHolder holder, boolean forward) {
+        TraversalCallback callback = holder.traversalCallback;
+        if (callback == null) {
+            callback = new TraversalCallback(holder);
+            holder.traversalCallback = callback;
+        }
+        callback.bind(this);
+        while (true) {
+            int index = forward ? (holder.index + 1) : (holder.index - 1);
+            if (index < 0 || index >= mProcessorChain.size()) {
+                if (forward && holder.requestFrom == RequestFrom.LOCAL) {
+                    callback.beginNativeTraversals();
+                    doNativeTraversalsAsync(mId, holder, callback);
+                } else if (forward && holder.requestFrom == RequestFrom.NATIVE) {
+                    forward = false;
+                    continue;
+                } else if (holder.requestFrom == RequestFrom.LOCAL) {
+                    onFetchResourceEnd(holder);
+                    if (holder.callback != null) {
+                        holder.callback.onFetchCompleted(holder);
+                    }
+                } else if (holder.requestFrom == RequestFrom.NATIVE) {
+                    onFetchResourceEnd(holder);
+                    materializeForNative(holder);
+                    onTraversalsEndAsync(holder);
+                }
+                return;
+            }
             holder.index = index;
             Processor processor = mProcessorChain.get(index);
-            if (isSync) {
-                processor.handleResponseSync(holder);
-                traverseGoBack(holder, true);
+            callback.beginDispatch(processor, forward);
+            if (forward) {
+                processor.handleRequestAsync(holder, callback);
             } else {
-                processor.handleResponseAsync(holder, new ProcessorCallback() {
-                    @Override
-                    public void goNext() {
-                        // It only needs to be processed when traversing forward
-                    }
-
-                    @Override
-                    public void onHandleCompleted() {
-                        traverseGoBack(holder, false);
-                    }
-                });
+                processor.handleResponseAsync(holder, callback);
             }
-        } else if (!isSync) {
-            if (holder.requestFrom == RequestFrom.LOCAL) {
-                onFetchResourceEnd(holder);
-            } else if (holder.requestFrom == RequestFrom.NATIVE) {
-                onTraversalsEndAsync(holder);
+            int action = callback.endDispatch();
+            if (action == TraversalCallback.ACTION_NONE || (!forward
+                    && action == TraversalCallback.ACTION_GO_NEXT)) {
+                // Wait for asynchronous callback, or go next when processing response, which
+                // is meaningless and ignored.
+                return;
             }
+            forward = forward && action == TraversalCallback.ACTION_GO_NEXT;
         }
     }
 
-    private void performNativeTraversals(@NonNull final ResourceDataHolder holder) {
-        doNativeTraversalsAsync(mId, holder, new FetchResourceCallback() {
-            @Override
-            public void onFetchCompleted(@NonNull ResourceDataHolder dataHolder) {
-                traverseGoBack(holder, false);
-            }
-
-            @Override
-            public void onFetchProgress(long total, long loaded) {
-                if (holder.callback != null) {
-                    holder.callback.onFetchProgress(total, loaded);
-                }
-            }
-        });
+    void resumeTraversal(@NonNull ResourceDataHolder holder, boolean isRequest, int action) {
+        if (isRequest) {
+            traverseAsync(holder, action == TraversalCallback.ACTION_GO_NEXT);
+        } else if (action == TraversalCallback.ACTION_COMPLETED) {
+            traverseAsync(holder, false);
+        }
     }
 
-    private void onFetchResourceStart() {
-
+    private void onFetchResourceStart(@NonNull ResourceDataHolder holder) {
+        holder.timing.reset(mProcessorChain.size());
     }
 
     private void onFetchResourceEnd(@NonNull final ResourceDataHolder holder) {
-        if (holder.callback != null) {
-            holder.callback.onFetchCompleted(holder);
+        holder.timing.finish();
+        mTimingStats.record(holder.timing);
+        for (FetchTimingListener listener : mTimingListeners) {
+            listener.onFetchTiming(holder, holder.timing);
         }
     }
 
@@ -234,6 +261,16 @@ public class VfsManager {
          * After the process chain traversal is completed, we need to call this method to
          * return the processing results to the original request initiator.
          *
+         * <p>
+         * The content may still be streaming, see {@link ResourceDataHolder#channel}, such as a
+         * network response body, whose connection and concurrency slot of http adapter are held
+         * until the stream is consumed or closed. The receiver must either read the content, by
+         * {@link ResourceDataHolder#getBytes()}, {@link ResourceDataHolder#getBuffer()} or
+         * {@link ResourceDataHolder#takeChannel()} and closing it, or recycle the holder, which
+         * closes the unread stream. As a safety net, the http adapter closes a streaming body
+         * which is left unread for a while, then reading it fails.
+         * </p>
+         *
          * @param dataHolder holder of resources fetch result
          */
         void onFetchCompleted(@NonNull ResourceDataHolder dataHolder);
@@ -247,6 +284,18 @@ public class VfsManager {
         void onFetchProgress(long total, long loaded);
     }
 
+    public interface FetchTimingListener {
+
+        /**
+         * Called when the traversal of a fetch is completed, before the result is returned to
+         * the request initiator.
+         *
+         * @param holder holder of resources fetch result
+         * @param timing latency of each processor, only valid in this method
+         */
+        void onFetchTiming(@NonNull ResourceDataHolder holder, @NonNull FetchTiming timing);
+    }
+
     public void doLocalTraversalsAsync(@NonNull String uri,
             @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams,
@@ -271,7 +320,23 @@ public class VfsManager {
     public ResourceDataHolder doLocalTraversalsSync(@NonNull String uri,
             @Nullable HashMap<String, String> requestHeaders,
             @Nullable HashMap<String, String> requestParams) {
-        return fetchResourceSyncImpl(uri, requestHeaders, requestParams, RequestFrom.NATIVE);
+        ResourceDataHolder holder = fetchResourceSyncImpl(uri, requestHeaders, requestParams,
+                RequestFrom.NATIVE);
+        onFetchResourceEnd(holder);
+        materializeForNative(holder);
+        return holder;
+    }
+
+    /**
+     * Native (C++) can only read content from bytes or direct buffer, streaming content must be
+     * read out before return to native.
+     */
+    private void materializeForNative(@NonNull ResourceDataHolder holder) {
+        try {
+            holder.materialize();
+        } catch (IOException e) {
+            holder.errorMessage = e.getMessage();
+        }
     }
 
     /**
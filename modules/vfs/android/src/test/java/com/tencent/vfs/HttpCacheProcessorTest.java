@@ -0,0 +1,359 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.vfs;
+
+import static org.junit.Assert.*;
+
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import com.tencent.vfs.ResourceDataHolder.TransferType;
+import com.tencent.vfs.ResponseCache.Entry;
+import com.tencent.vfs.VfsManager.ProcessorCallback;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class HttpCacheProcessorTest {
+
+    private static final String URL = "http://example.com/a.js";
+    private static final byte[] BODY = {1, 2, 3, 4};
+
+    private ResponseCache mCache;
+    private HttpCacheProcessor mProcessor;
+
+    @Before
+    public void setUp() {
+        mCache = new ResponseCache(1024 * 1024, null, 0);
+        mProcessor = new HttpCacheProcessor(mCache, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    @Test
+    public void normalizeUri() {
+        assertEquals("http://example.com/Path?Q=A",
+                HttpCacheProcessor.normalizeUri(" HTTP://Example.COM/Path?Q=A#Frag "));
+        assertEquals("https://example.com:8080?A=B",
+                HttpCacheProcessor.normalizeUri("https://EXAMPLE.com:8080?A=B"));
+        assertEquals("http://example.com", HttpCacheProcessor.normalizeUri("HTTP://EXAMPLE.COM"));
+        assertEquals("Relative/Path", HttpCacheProcessor.normalizeUri("Relative/Path#a"));
+    }
+
+    @Test
+    public void cacheKeyBypass() {
+        assertNull(HttpCacheProcessor.getCacheKey(newHolder("file:///sdcard/a.js")));
+        assertNull(HttpCacheProcessor.getCacheKey(newHolder("assets://a.js")));
+
+        ResourceDataHolder holder = newHolder(URL);
+        holder.requestParams = params("method", "POST");
+        assertNull(HttpCacheProcessor.getCacheKey(holder));
+        holder.requestParams = params("method", "get", "body", "a=b");
+        assertNull(HttpCacheProcessor.getCacheKey(holder));
+        holder.requestParams = params("method", "GET", "responseType", "stream");
+        assertNull(HttpCacheProcessor.getCacheKey(holder));
+        holder.requestParams = params("method", "GET", "body", "", "responseType",
+                "arraybuffer");
+        assertNotNull(HttpCacheProcessor.getCacheKey(holder));
+
+        holder.requestParams = null;
+        String[] bypassHeaders = {"If-None-Match", "if-modified-since", "If-Match",
+                "If-Unmodified-Since", "If-Range", "range"};
+        for (String name : bypassHeaders) {
+            holder.requestHeaders = params(name, "x");
+            assertNull(name, HttpCacheProcessor.getCacheKey(holder));
+        }
+        holder.requestHeaders = params("Cache-Control", "no-store");
+        assertNull(HttpCacheProcessor.getCacheKey(holder));
+        holder.requestHeaders = params("Cache-Control", "no-cache");
+        assertNotNull(HttpCacheProcessor.getCacheKey(holder));
+    }
+
+    @Test
+    public void cacheKeyNormalized() {
+        ResourceDataHolder holder = newHolder("HTTP://EXAMPLE.COM/a.js#top");
+        assertEquals(URL, HttpCacheProcessor.getCacheKey(holder));
+        holder.requestHeaders = new HashMap<>();
+        assertEquals(URL, HttpCacheProcessor.getCacheKey(holder));
+
+        ResourceDataHolder first = newHolder(URL);
+        first.requestHeaders = params("Accept", "text/plain", "X-Token", " a ");
+        ResourceDataHolder second = newHolder(URL);
+        second.requestHeaders = params("x-token", "a", "ACCEPT", "text/plain");
+        String key = HttpCacheProcessor.getCacheKey(first);
+        assertEquals(URL + "\naccept:text/plain\nx-token:a", key);
+        assertEquals(key, HttpCacheProcessor.getCacheKey(second));
+        second.requestHeaders = params("x-token", "b", "ACCEPT", "text/plain");
+        assertNotEquals(key, HttpCacheProcessor.getCacheKey(second));
+    }
+
+    @Test
+    public void hitAfterMiss() {
+        ResourceDataHolder holder = newHolder(URL);
+        RecordingCallback callback = new RecordingCallback();
+        mProcessor.handleRequestAsync(holder, callback);
+        assertEquals(1, callback.nextCount);
+        assertEquals(0, callback.completedCount);
+
+        setResponse(holder, "Cache-Control", "max-age=60");
+        RecordingCallback responseCallback = new RecordingCallback();
+        mProcessor.handleResponseAsync(holder, responseCallback);
+        assertEquals(1, responseCallback.completedCount);
+        assertNotNull(mCache.getFromMemory(URL));
+
+        ResourceDataHolder hit = newHolder(URL);
+        hit.transferType = TransferType.NIO;
+        callback = new RecordingCallback();
+        mProcessor.handleRequestAsync(hit, callback);
+        assertEquals(0, callback.nextCount);
+        assertEquals(1, callback.completedCount);
+        assertEquals(ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE, hit.resultCode);
+        assertEquals(HttpCacheProcessor.class.getName(), hit.processorTag);
+        assertEquals("200", hit.responseHeaders.get(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE));
+        assertNotNull(hit.buffer);
+        assertTrue(hit.buffer.isDirect());
+        assertArrayEquals(BODY, hit.getBytes());
+        assertEquals(1, mProcessor.getHitCount());
+        assertEquals(1, mProcessor.getMissCount());
+
+        // Forced revalidation by request goes to network even if the entry is fresh.
+        ResourceDataHolder reload = newHolder(URL);
+        reload.requestHeaders = params("Cache-Control", "max-age=0");
+        callback = new RecordingCallback();
+        assertTrue(mProcessor.handleRequestSync(newHolder(URL)));
+        mProcessor.handleRequestAsync(reload, callback);
+        assertEquals(1, callback.nextCount);
+        assertEquals(2, mProcessor.getHitCount());
+    }
+
+    @Test
+    public void storable() {
+        assertStorable(true, null, "Cache-Control", "max-age=60");
+        assertStorable(true, null, "ETag", "\"v1\"");
+        assertStorable(true, null, "Last-Modified", "Sun, 06 Nov 1994 08:49:37 GMT");
+        assertStorable(true, null, "Expires", "Sun, 06 Nov 1994 08:49:37 GMT");
+        // Without freshness and validator.
+        assertStorable(false, null, "Content-Type", "text/plain");
+        assertStorable(false, null, "Cache-Control", "max-age=60, no-store");
+        assertStorable(false, null, "Cache-Control", "max-age=60", "set-cookie", "a=b");
+        assertStorable(false, null, "Cache-Control", "max-age=60", "Vary", " * ");
+        assertStorable(true, null, "Cache-Control", "max-age=60", "Vary", "Accept");
+        HashMap<String, String> authorization = params("Authorization", "Bearer x");
+        assertStorable(false, authorization, "Cache-Control", "max-age=60");
+        assertStorable(true, authorization, "Cache-Control", "public, max-age=60");
+    }
+
+    @Test
+    public void failedResponseNotStored() {
+        ResourceDataHolder holder = newHolder(URL);
+        mProcessor.handleRequestAsync(holder, new RecordingCallback());
+        setResponse(holder, "Cache-Control", "max-age=60");
+        holder.resultCode = -1;
+        mProcessor.handleResponseAsync(holder, new RecordingCallback());
+        assertNull(mCache.getFromMemory(URL));
+
+        holder = newHolder(URL);
+        mProcessor.handleRequestAsync(holder, new RecordingCallback());
+        setResponse(holder, "Cache-Control", "max-age=60");
+        holder.responseHeaders.put(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE, "404");
+        mProcessor.handleResponseAsync(holder, new RecordingCallback());
+        assertNull(mCache.getFromMemory(URL));
+    }
+
+    @Test
+    public void revalidateNotModified() {
+        HashMap<String, String> cached = params("ETag", "\"v1\"", "Cache-Control", "max-age=0",
+                "Content-Type", "text/plain");
+        mCache.putToMemory(new Entry(URL, System.currentTimeMillis() - 1000, cached, BODY));
+
+        ResourceDataHolder holder = newHolder(URL);
+        RecordingCallback callback = new RecordingCallback();
+        mProcessor.handleRequestAsync(holder, callback);
+        assertEquals(1, callback.nextCount);
+        assertEquals("\"v1\"", holder.requestHeaders.get("If-None-Match"));
+
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        holder.responseHeaders = params(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE, "304",
+                HttpCacheProcessor.HTTP_RESPONSE_RESPONSE_MESSAGE, "Not Modified",
+                "cache-control", "max-age=60", "Set-Cookie", "a=b");
+        holder.setResourceChannel(new ByteArrayInputStream(new byte[0]), 0);
+        mProcessor.handleResponseAsync(holder, new RecordingCallback());
+
+        assertNull(holder.channel);
+        assertArrayEquals(BODY, holder.bytes);
+        assertEquals("200", holder.responseHeaders.get(
+                HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE));
+        assertEquals("max-age=60", holder.responseHeaders.get("cache-control"));
+        assertEquals("text/plain", holder.responseHeaders.get("Content-Type"));
+        assertEquals(1, mProcessor.getRevalidatedCount());
+
+        Entry entry = mCache.getFromMemory(URL);
+        assertNotNull(entry);
+        assertTrue(entry.isFresh(System.currentTimeMillis()));
+        assertEquals("\"v1\"", entry.getETag());
+        assertFalse(entry.headers.containsKey("Cache-Control"));
+        assertFalse(entry.headers.containsKey("Set-Cookie"));
+        assertFalse(entry.headers.containsKey(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE));
+        assertFalse(entry.headers.containsKey(HttpCacheProcessor.HTTP_RESPONSE_RESPONSE_MESSAGE));
+    }
+
+    @Test
+    public void coalesceWaiters() {
+        ResourceDataHolder holder = newHolder(URL);
+        RecordingCallback callback = new RecordingCallback();
+        mProcessor.handleRequestAsync(holder, callback);
+        ResourceDataHolder normalWaiter = newHolder(URL);
+        RecordingCallback normalCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(normalWaiter, normalCallback);
+        ResourceDataHolder nioWaiter = newHolder(URL + "#fragment");
+        nioWaiter.transferType = TransferType.NIO;
+        RecordingCallback nioCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(nioWaiter, nioCallback);
+        // Different request headers are not coalesced.
+        ResourceDataHolder other = newHolder(URL);
+        other.requestHeaders = params("Accept", "text/plain");
+        RecordingCallback otherCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(other, otherCallback);
+
+        assertEquals(1, callback.nextCount);
+        assertEquals(1, otherCallback.nextCount);
+        assertEquals(0, normalCallback.nextCount + normalCallback.completedCount);
+        assertEquals(0, nioCallback.nextCount + nioCallback.completedCount);
+        assertEquals(2, mProcessor.getCoalescedCount());
+
+        // Streaming response without cache headers, shared with waiters but not stored.
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        holder.responseHeaders = params(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE, "200");
+        holder.setResourceChannel(new ByteArrayInputStream(BODY), BODY.length);
+        RecordingCallback responseCallback = new RecordingCallback();
+        mProcessor.handleResponseAsync(holder, responseCallback);
+
+        assertEquals(1, responseCallback.completedCount);
+        assertEquals(1, normalCallback.completedCount);
+        assertEquals(1, nioCallback.completedCount);
+        assertNull(mCache.getFromMemory(URL));
+        assertArrayEquals(BODY, holder.bytes);
+        assertSame(holder.bytes, normalWaiter.bytes);
+        assertEquals(ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE, normalWaiter.resultCode);
+        assertEquals("200", normalWaiter.responseHeaders.get(
+                HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE));
+        assertNotSame(holder.responseHeaders, normalWaiter.responseHeaders);
+        ByteBuffer buffer = nioWaiter.buffer;
+        assertNotNull(buffer);
+        assertTrue(buffer.isDirect());
+        assertArrayEquals(BODY, nioWaiter.getBytes());
+
+        // The completed request is no longer in flight.
+        ResourceDataHolder next = newHolder(URL);
+        callback = new RecordingCallback();
+        mProcessor.handleRequestAsync(next, callback);
+        assertEquals(1, callback.nextCount);
+        assertEquals(2, mProcessor.getCoalescedCount());
+    }
+
+    @Test
+    public void coalesceFailure() {
+        ResourceDataHolder holder = newHolder(URL);
+        mProcessor.handleRequestAsync(holder, new RecordingCallback());
+        ResourceDataHolder waiter = newHolder(URL);
+        RecordingCallback waiterCallback = new RecordingCallback();
+        mProcessor.handleRequestAsync(waiter, waiterCallback);
+
+        holder.resultCode = -1;
+        holder.errorMessage = "timeout";
+        mProcessor.handleResponseAsync(holder, new RecordingCallback());
+
+        assertEquals(1, waiterCallback.completedCount);
+        assertEquals(-1, waiter.resultCode);
+        assertEquals("timeout", waiter.errorMessage);
+        assertNull(waiter.bytes);
+    }
+
+    @Test
+    public void unknownResponse() {
+        RecordingCallback callback = new RecordingCallback();
+        mProcessor.handleResponseAsync(newHolder(URL), callback);
+        assertEquals(1, callback.completedCount);
+
+        callback = new RecordingCallback();
+        ResourceDataHolder holder = newHolder("file:///sdcard/a.js");
+        mProcessor.handleRequestAsync(holder, callback);
+        assertEquals(1, callback.nextCount);
+        assertFalse(mProcessor.handleRequestSync(holder));
+    }
+
+    private void assertStorable(boolean storable, HashMap<String, String> requestHeaders,
+            String... responseHeaders) {
+        mCache.clearMemory();
+        ResourceDataHolder holder = newHolder(URL);
+        holder.requestHeaders = requestHeaders;
+        mProcessor.handleRequestAsync(holder, new RecordingCallback());
+        setResponse(holder, responseHeaders);
+        mProcessor.handleResponseAsync(holder, new RecordingCallback());
+        String key = HttpCacheProcessor.getCacheKey(newHolderWithHeaders(requestHeaders));
+        assertNotNull(key);
+        assertEquals(storable, mCache.getFromMemory(key) != null);
+    }
+
+    private static void setResponse(ResourceDataHolder holder, String... headers) {
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        holder.responseHeaders = params(headers);
+        holder.responseHeaders.put(HttpCacheProcessor.HTTP_RESPONSE_STATUS_CODE, "200");
+        holder.bytes = BODY;
+    }
+
+    private static ResourceDataHolder newHolder(String uri) {
+        return new ResourceDataHolder(uri, null, null, RequestFrom.LOCAL);
+    }
+
+    private static ResourceDataHolder newHolderWithHeaders(HashMap<String, String> headers) {
+        return new ResourceDataHolder(URL, headers, null, RequestFrom.LOCAL);
+    }
+
+    private static HashMap<String, String> params(String... keyValues) {
+        HashMap<String, String> map = new HashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            map.put(keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static class RecordingCallback implements ProcessorCallback {
+
+        int nextCount;
+        int completedCount;
+
+        @Override
+        public void goNext() {
+            nextCount++;
+        }
+
+        @Override
+        public void onHandleCompleted() {
+            completedCount++;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.vfs;
+
+import static org.junit.Assert.*;
+
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import com.tencent.vfs.ResourceDataHolder.TransferType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+public class ResourceDataHolderTest {
+
+    private static final byte[] CONTENT = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    @Test
+    public void materializeStream() throws IOException {
+        ResourceDataHolder holder = newHolder(TransferType.NORMAL);
+        holder.setResourceChannel(new ByteArrayInputStream(CONTENT), CONTENT.length);
+        holder.materialize();
+        assertNull(holder.channel);
+        assertArrayEquals(CONTENT, holder.bytes);
+        assertEquals(ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE, holder.resultCode);
+
+        holder = newHolder(TransferType.NIO);
+        holder.setResourceChannel(new ByteArrayInputStream(CONTENT), -1);
+        assertNotNull(holder.getBuffer());
+        assertTrue(holder.buffer.isDirect());
+        assertArrayEquals(CONTENT, holder.getBytes());
+    }
+
+    @Test
+    public void materializeFailed() {
+        ResourceDataHolder holder = newHolder(TransferType.NORMAL);
+        holder.setResourceChannel(new FailingInputStream(), -1);
+        try {
+            holder.materialize();
+            fail("Read error should be thrown");
+        } catch (IOException expected) {
+            // Reported by the failing stream.
+        }
+        assertFailed(holder);
+        // The failure is not hidden by the following reads.
+        assertNull(holder.getBytes());
+        assertFailed(holder);
+    }
+
+    @Test
+    public void readFailedQuietly() {
+        ResourceDataHolder holder = newHolder(TransferType.NORMAL);
+        holder.setResourceChannel(new FailingInputStream(), CONTENT.length * 2);
+        assertNull(holder.getBytes());
+        assertFailed(holder);
+
+        holder = newHolder(TransferType.NIO);
+        holder.setResourceChannel(new FailingInputStream(), -1);
+        assertNull(holder.getBuffer());
+        assertFailed(holder);
+    }
+
+    private static void assertFailed(ResourceDataHolder holder) {
+        assertNull(holder.channel);
+        assertNull(holder.bytes);
+        assertNull(holder.buffer);
+        assertEquals(ResourceDataHolder.RESOURCE_READ_FAILED_CODE, holder.resultCode);
+        assertEquals("connection reset", holder.errorMessage);
+    }
+
+    private static ResourceDataHolder newHolder(TransferType transferType) {
+        ResourceDataHolder holder = new ResourceDataHolder("http://example.com/a.js", null, null,
+                RequestFrom.LOCAL);
+        holder.transferType = transferType;
+        // Set by http adapter when the response headers arrived.
+        holder.resultCode = ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE;
+        return holder;
+    }
+
+    /**
+     * Return part of content, then fail as the connection is broken.
+     */
+    private static class FailingInputStream extends InputStream {
+
+        private int mPosition;
+
+        @Override
+        public int read() throws IOException {
+            if (mPosition >= CONTENT.length) {
+                throw new IOException("connection reset");
+            }
+            return CONTENT[mPosition++];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (mPosition >= CONTENT.length) {
+                throw new IOException("connection reset");
+            }
+            int count = Math.min(len, CONTENT.length - mPosition);
+            System.arraycopy(CONTENT, mPosition, b, off, count);
+            mPosition += count;
+            return count;
+        }
+    }
+}
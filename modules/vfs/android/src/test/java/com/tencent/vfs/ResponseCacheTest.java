@@ -0,0 +1,240 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.vfs;
+
+import static org.junit.Assert.*;
+
+import com.tencent.vfs.ResponseCache.Entry;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ResponseCacheTest {
+
+    private static final long RESPONSE_TIME = 784111777000L;
+    private static final String RESPONSE_DATE = "Sun, 06 Nov 1994 08:49:37 GMT";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void getDirectiveValue() {
+        String cacheControl = "public, MAX-AGE = 60, no-cache, private=\"Set-Cookie\"";
+        assertEquals("60", ResponseCache.getDirectiveValue(cacheControl, "max-age"));
+        assertEquals("", ResponseCache.getDirectiveValue(cacheControl, "public"));
+        assertEquals("", ResponseCache.getDirectiveValue(cacheControl, "no-cache"));
+        assertEquals("Set-Cookie", ResponseCache.getDirectiveValue(cacheControl, "private"));
+        assertNull(ResponseCache.getDirectiveValue(cacheControl, "no-store"));
+        assertNull(ResponseCache.getDirectiveValue(cacheControl, "age"));
+        assertNull(ResponseCache.getDirectiveValue(null, "max-age"));
+    }
+
+    @Test
+    public void hasCacheDirective() {
+        HashMap<String, String> headers = new HashMap<>();
+        assertFalse(ResponseCache.hasCacheDirective(headers, "no-cache"));
+        assertFalse(ResponseCache.hasCacheDirective(null, "no-cache"));
+        headers.put("cache-control", "no-store");
+        assertTrue(ResponseCache.hasCacheDirective(headers, "no-store"));
+        assertFalse(ResponseCache.hasCacheDirective(headers, "no-cache"));
+        headers.put("Pragma", "No-Cache");
+        assertTrue(ResponseCache.hasCacheDirective(headers, "no-cache"));
+        assertFalse(ResponseCache.hasCacheDirective(headers, "public"));
+    }
+
+    @Test
+    public void parseHttpDate() {
+        assertEquals(RESPONSE_TIME, ResponseCache.parseHttpDate(RESPONSE_DATE));
+        assertEquals(RESPONSE_TIME, ResponseCache.parseHttpDate(" " + RESPONSE_DATE + " "));
+        assertEquals(-1, ResponseCache.parseHttpDate("0"));
+        assertEquals(-1, ResponseCache.parseHttpDate(null));
+    }
+
+    @Test
+    public void freshByMaxAge() {
+        Entry entry = newEntry("Cache-Control", "max-age=60");
+        assertTrue(entry.isFresh(RESPONSE_TIME));
+        assertTrue(entry.isFresh(RESPONSE_TIME + 59999));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 60000));
+        // Clock goes back should not extend the lifetime.
+        assertTrue(entry.isFresh(RESPONSE_TIME - 100000));
+    }
+
+    @Test
+    public void freshWithAge() {
+        Entry entry = newEntry("Cache-Control", "max-age=60", "Age", "50");
+        assertTrue(entry.isFresh(RESPONSE_TIME + 9999));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 10000));
+
+        // The apparent age computed from Date is used when it is larger than Age.
+        entry = newEntry("Cache-Control", "max-age=60", "Age", "10",
+                "Date", formatDate(RESPONSE_TIME - 30000));
+        assertTrue(entry.isFresh(RESPONSE_TIME + 29999));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 30000));
+    }
+
+    @Test
+    public void freshByExpires() {
+        Entry entry = newEntry("Date", formatDate(RESPONSE_TIME - 20000),
+                "Expires", formatDate(RESPONSE_TIME + 100000));
+        // Lifetime is 120s from Date, and the entry is 20s old when received.
+        assertTrue(entry.isFresh(RESPONSE_TIME + 99999));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 100000));
+
+        // Expires is relative to the response time without Date.
+        entry = newEntry("Expires", formatDate(RESPONSE_TIME + 60000));
+        assertTrue(entry.isFresh(RESPONSE_TIME + 59999));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 60000));
+
+        // max-age takes precedence over Expires.
+        entry = newEntry("Cache-Control", "max-age=10",
+                "Expires", formatDate(RESPONSE_TIME + 60000));
+        assertFalse(entry.isFresh(RESPONSE_TIME + 10000));
+
+        // Invalid Expires means already expired.
+        entry = newEntry("Expires", "0");
+        assertFalse(entry.isFresh(RESPONSE_TIME));
+    }
+
+    @Test
+    public void neverFresh() {
+        assertFalse(newEntry().isFresh(RESPONSE_TIME));
+        assertFalse(newEntry("Cache-Control", "max-age=60, no-cache").isFresh(RESPONSE_TIME));
+        assertFalse(newEntry("Cache-Control", "max-age=60", "Pragma", "no-cache")
+                .isFresh(RESPONSE_TIME));
+        assertFalse(newEntry("Cache-Control", "max-age=0").isFresh(RESPONSE_TIME));
+    }
+
+    @Test
+    public void validator() {
+        assertFalse(newEntry("Cache-Control", "max-age=60").hasValidator());
+        Entry entry = newEntry("etag", "\"v1\"");
+        assertTrue(entry.hasValidator());
+        assertEquals("\"v1\"", entry.getETag());
+        entry = newEntry("Last-Modified", RESPONSE_DATE);
+        assertTrue(entry.hasValidator());
+        assertEquals(RESPONSE_DATE, entry.getLastModified());
+    }
+
+    @Test
+    public void revalidate() {
+        Entry entry = newEntry("ETag", "\"v1\"", "Cache-Control", "max-age=0",
+                "Content-Type", "text/plain");
+        HashMap<String, String> notModified = new HashMap<>();
+        notModified.put("cache-control", "max-age=60");
+        notModified.put("ETag", "\"v2\"");
+        notModified.put("X-Null", null);
+        notModified.put(null, "HTTP/1.1 304 Not Modified");
+        long now = RESPONSE_TIME + 1000000;
+        Entry revalidated = entry.revalidate(notModified, now);
+
+        assertEquals(entry.key, revalidated.key);
+        assertSame(entry.body, revalidated.body);
+        assertEquals(now, revalidated.responseTime);
+        // The header with different case is replaced rather than duplicated.
+        assertEquals(3, revalidated.headers.size());
+        assertEquals("max-age=60", revalidated.headers.get("cache-control"));
+        assertFalse(revalidated.headers.containsKey("Cache-Control"));
+        assertEquals("\"v2\"", revalidated.getETag());
+        assertEquals("text/plain", revalidated.headers.get("Content-Type"));
+        assertTrue(revalidated.isFresh(now + 59999));
+        // The original entry is not changed.
+        assertEquals("\"v1\"", entry.getETag());
+        assertFalse(entry.isFresh(now));
+
+        assertEquals(entry.headers, entry.revalidate(null, now).headers);
+    }
+
+    @Test
+    public void memoryCache() {
+        ResponseCache cache = new ResponseCache(64 * 1024, null, 0);
+        assertFalse(cache.hasDiskCache());
+        Entry entry = newEntry("Cache-Control", "max-age=60");
+        cache.putToMemory(entry);
+        assertSame(entry, cache.get(entry.key));
+        assertSame(entry, cache.getFromMemory(entry.key));
+
+        // Entry larger than 1/8 of memory cache is not kept in memory.
+        Entry large = new Entry("large", RESPONSE_TIME, new HashMap<String, String>(),
+                new byte[8 * 1024]);
+        cache.putToMemory(large);
+        assertNull(cache.get("large"));
+
+        cache.remove(entry.key);
+        assertNull(cache.get(entry.key));
+    }
+
+    @Test
+    public void diskCache() throws Exception {
+        File directory = mFolder.newFolder("http");
+        ResponseCache cache = new ResponseCache(64 * 1024, directory, 1024 * 1024);
+        assertTrue(cache.hasDiskCache());
+        Entry entry = newEntry("Cache-Control", "max-age=60", "ETag", "\"v1\"");
+        cache.putToDisk(entry);
+        assertNull(cache.getFromMemory(entry.key));
+
+        // Read by a new cache, as if the process was restarted.
+        ResponseCache other = new ResponseCache(64 * 1024, directory, 1024 * 1024);
+        Entry read = other.get(entry.key);
+        assertNotNull(read);
+        assertEquals(entry.key, read.key);
+        assertEquals(entry.responseTime, read.responseTime);
+        assertEquals(entry.headers, read.headers);
+        assertArrayEquals(entry.body, read.body);
+        // Promoted into memory.
+        assertSame(read, other.getFromMemory(entry.key));
+
+        other.remove(entry.key);
+        assertNull(other.get(entry.key));
+        assertNull(cache.get(entry.key));
+    }
+
+    @Test
+    public void getHeader() {
+        HashMap<String, String> headers = new HashMap<>();
+        headers.put("content-type", "text/plain");
+        assertEquals("text/plain", ResponseCache.getHeader(headers, "Content-Type"));
+        assertNull(ResponseCache.getHeader(headers, "ETag"));
+        assertNull(ResponseCache.getHeader(null, "ETag"));
+    }
+
+    private static Entry newEntry(String... headers) {
+        HashMap<String, String> map = new HashMap<>();
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            map.put(headers[i], headers[i + 1]);
+        }
+        return new Entry("http://example.com/a", RESPONSE_TIME, map, new byte[]{1, 2, 3});
+    }
+
+    private static String formatDate(long time) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz",
+                Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time));
+    }
+}
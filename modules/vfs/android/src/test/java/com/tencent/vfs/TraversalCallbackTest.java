@@ -0,0 +1,133 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.vfs;
+
+import static org.junit.Assert.*;
+
+import androidx.annotation.NonNull;
+import com.tencent.vfs.FetchTiming.Phase;
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import com.tencent.vfs.VfsManager.FetchResourceCallback;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TraversalCallbackTest {
+
+    private Processor mProcessor;
+    private ResourceDataHolder mHolder;
+    private TraversalCallback mCallback;
+    private int mCompletedCount;
+    private long mProgressLoaded;
+
+    @Before
+    public void setUp() {
+        mProcessor = new Processor();
+        mHolder = new ResourceDataHolder("http://example.com/a.js", null, null,
+                new FetchResourceCallback() {
+                    @Override
+                    public void onFetchCompleted(@NonNull ResourceDataHolder dataHolder) {
+                        mCompletedCount++;
+                    }
+
+                    @Override
+                    public void onFetchProgress(long total, long loaded) {
+                        mProgressLoaded = loaded;
+                    }
+                }, RequestFrom.LOCAL, -1);
+        mHolder.getTiming().reset(1);
+        mHolder.index = 0;
+        mCallback = new TraversalCallback(mHolder);
+        mCallback.bind(new VfsManager(Collections.singletonList(mProcessor)));
+    }
+
+    @Test
+    public void noCallbackBeforeReturn() {
+        mCallback.beginDispatch(mProcessor, true);
+        assertTrue(mCallback.isRequest());
+        assertEquals(TraversalCallback.ACTION_NONE, mCallback.endDispatch());
+        assertEquals(0, mCompletedCount);
+    }
+
+    @Test
+    public void callbackBeforeReturn() {
+        mCallback.beginDispatch(mProcessor, true);
+        mCallback.goNext();
+        assertEquals(TraversalCallback.ACTION_GO_NEXT, mCallback.endDispatch());
+
+        mCallback.beginDispatch(mProcessor, false);
+        assertFalse(mCallback.isRequest());
+        mCallback.onHandleCompleted();
+        assertEquals(TraversalCallback.ACTION_COMPLETED, mCallback.endDispatch());
+        // Recorded only, the traversal is continued by the loop of manager.
+        assertEquals(0, mCompletedCount);
+        assertEquals(0, mHolder.getTiming().getNanos(0, Phase.QUEUE));
+        assertEquals(mProcessor.getClass().getName(), mHolder.getTiming().getProcessorName(0));
+    }
+
+    @Test
+    public void callbackAfterReturn() throws InterruptedException {
+        mCallback.beginDispatch(mProcessor, true);
+        assertEquals(TraversalCallback.ACTION_NONE, mCallback.endDispatch());
+        Thread.sleep(5);
+        // Resume traversal on the calling thread, go back from the processor and complete.
+        mCallback.onHandleCompleted();
+        assertEquals(1, mCompletedCount);
+        FetchTiming timing = mHolder.getTiming();
+        assertTrue(timing.getNanos(0, Phase.QUEUE) >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(timing.getNanos(0, Phase.REQUEST) >= timing.getNanos(0, Phase.QUEUE));
+        assertEquals(0, timing.getNanos(0, Phase.RESPONSE));
+    }
+
+    @Test
+    public void goNextAfterResponseReturnIgnored() {
+        mCallback.beginDispatch(mProcessor, false);
+        assertEquals(TraversalCallback.ACTION_NONE, mCallback.endDispatch());
+        mCallback.goNext();
+        assertEquals(0, mCompletedCount);
+        mCallback.onHandleCompleted();
+        assertEquals(1, mCompletedCount);
+    }
+
+    @Test
+    public void lateCallbackAfterUnbind() {
+        mCallback.beginDispatch(mProcessor, true);
+        assertEquals(TraversalCallback.ACTION_NONE, mCallback.endDispatch());
+        mCallback.unbind();
+        mCallback.onHandleCompleted();
+        mCallback.goNext();
+        mCallback.onFetchCompleted(mHolder);
+        assertEquals(0, mCompletedCount);
+        assertNull(mHolder.getTiming().getProcessorName(0));
+    }
+
+    @Test
+    public void nativeCallback() throws InterruptedException {
+        mHolder.index = 1;
+        mCallback.beginNativeTraversals();
+        mCallback.onFetchProgress(100, 50);
+        assertEquals(50, mProgressLoaded);
+        Thread.sleep(5);
+        mCallback.onFetchCompleted(mHolder);
+        // Go back through the only processor.
+        assertEquals(1, mCompletedCount);
+        assertEquals(0, mHolder.index);
+        assertNotNull(mHolder.getTiming().getProcessorName(0));
+        assertTrue(mHolder.getTiming().getNativeNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
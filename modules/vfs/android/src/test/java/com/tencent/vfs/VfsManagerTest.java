@@ -0,0 +1,493 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.vfs;
+
+import static org.junit.Assert.*;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.vfs.FetchTiming.Phase;
+import com.tencent.vfs.ResourceDataHolder.RequestFrom;
+import com.tencent.vfs.VfsManager.FetchResourceCallback;
+import com.tencent.vfs.VfsManager.FetchTimingListener;
+import com.tencent.vfs.VfsManager.ProcessorCallback;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VfsManagerTest {
+
+    private static final String URI = "http://example.com/a.js";
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ExecutorService mExecutor;
+    private Recorder mRecorder;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newFixedThreadPool(4);
+        mRecorder = new Recorder();
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void syncCallbacksWithoutRecursion() {
+        int count = 1000;
+        List<Processor> processors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            processors.add(new TestProcessor(i, Mode.SYNC, Mode.SYNC, i == count - 1, 0));
+        }
+        VfsManager manager = new VfsManager(processors);
+        FetchCallback callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+
+        // All processors call back before return, the fetch is completed on this thread.
+        assertEquals(1, callback.completedCount.get());
+        assertEquals(1, mRecorder.maxDepth);
+        assertEquals(count * 2 - 1, mRecorder.events.size());
+        assertEquals("req0", mRecorder.events.get(0));
+        assertEquals("req" + (count - 1), mRecorder.events.get(count - 1));
+        // The processor which completes the request does not handle its own response.
+        assertEquals("res" + (count - 2), mRecorder.events.get(count));
+        assertEquals("res0", mRecorder.events.get(count * 2 - 2));
+    }
+
+    @Test
+    public void asyncCallbacksAfterReturn() throws InterruptedException {
+        VfsManager manager = new VfsManager(Arrays.<Processor>asList(
+                new TestProcessor(0, Mode.ASYNC, Mode.ASYNC, false, 0),
+                new TestProcessor(1, Mode.SYNC, Mode.ASYNC, false, 0),
+                new TestProcessor(2, Mode.ASYNC, Mode.SYNC, true, 0)));
+        FetchCallback callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+
+        assertTrue(callback.await());
+        assertEquals(1, callback.completedCount.get());
+        assertEquals(Arrays.asList("req0", "req1", "req2", "res1", "res0"), mRecorder.events);
+        assertEquals(1, manager.getFetchTimingStats().getFetchCount());
+    }
+
+    @Test
+    public void concurrentCallbacks() throws InterruptedException {
+        VfsManager manager = new VfsManager(Arrays.<Processor>asList(
+                new TestProcessor(0, Mode.ASYNC, Mode.ASYNC, false, 0),
+                new TestProcessor(1, Mode.SYNC, Mode.ASYNC, false, 0),
+                new TestProcessor(2, Mode.ASYNC, Mode.SYNC, true, 0)));
+        // Callbacks from other threads race with the return of handle method.
+        int count = 500;
+        List<FetchCallback> callbacks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FetchCallback callback = new FetchCallback();
+            callbacks.add(callback);
+            manager.fetchResourceAsync(URI, null, null, callback);
+        }
+        for (FetchCallback callback : callbacks) {
+            assertTrue(callback.await());
+        }
+        for (FetchCallback callback : callbacks) {
+            assertEquals(1, callback.completedCount.get());
+        }
+        assertEquals(count * 5, mRecorder.events.size());
+        assertEquals(count, manager.getFetchTimingStats().getFetchCount());
+    }
+
+    @Test
+    public void goNextDuringResponse() {
+        final ProcessorCallback[] pending = new ProcessorCallback[1];
+        Processor first = new Processor() {
+            @Override
+            public void handleResponseAsync(@NonNull ResourceDataHolder holder,
+                    @NonNull ProcessorCallback callback) {
+                mRecorder.enter("res0");
+                // Meaningless when processing response, should be ignored.
+                callback.goNext();
+                pending[0] = callback;
+                mRecorder.exit();
+            }
+        };
+        TestProcessor second = new TestProcessor(1, Mode.SYNC, Mode.SYNC, true, 0);
+        VfsManager manager = new VfsManager(Arrays.asList(first, second));
+        FetchCallback callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+
+        assertEquals(Arrays.asList("req1", "res0"), mRecorder.events);
+        assertEquals(0, callback.completedCount.get());
+        pending[0].goNext();
+        assertEquals(0, callback.completedCount.get());
+        assertEquals(2, mRecorder.events.size());
+
+        pending[0].onHandleCompleted();
+        assertEquals(1, callback.completedCount.get());
+        assertEquals(2, mRecorder.events.size());
+    }
+
+    @Test
+    public void lateCallbackAfterRecycle() {
+        TestProcessor processor = new TestProcessor(0, Mode.MANUAL, Mode.SYNC, true, 0);
+        VfsManager manager = new VfsManager(Collections.<Processor>singletonList(processor));
+        FetchCallback callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+        ProcessorCallback pending = processor.pendingCallback;
+        assertNotNull(pending);
+        assertEquals(0, callback.completedCount.get());
+
+        pending.onHandleCompleted();
+        assertEquals(1, callback.completedCount.get());
+        ResourceDataHolder holder = callback.holder;
+        assertNotNull(holder);
+        holder.recycle();
+
+        // Calling back again after the holder is recycled does nothing.
+        pending.onHandleCompleted();
+        pending.goNext();
+        assertEquals(1, callback.completedCount.get());
+        assertEquals(Collections.singletonList("req0"), mRecorder.events);
+
+        // The recycled holder and its callback can be reused by the next fetch.
+        FetchCallback next = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, next);
+        assertNotNull(processor.pendingCallback);
+        processor.pendingCallback.onHandleCompleted();
+        assertEquals(1, next.completedCount.get());
+        assertEquals(1, callback.completedCount.get());
+        assertEquals(Arrays.asList("req0", "req0"), mRecorder.events);
+    }
+
+    @Test
+    public void resumeAfterNativeChain() throws InterruptedException {
+        final VfsManager manager = new VfsManager(Arrays.<Processor>asList(
+                new TestProcessor(0, Mode.SYNC, Mode.SYNC, false, 0),
+                new TestProcessor(1, Mode.SYNC, Mode.ASYNC, false, 0)));
+        FetchCallback callback = new FetchCallback();
+        final ResourceDataHolder holder = new ResourceDataHolder(URI, null, null, callback,
+                RequestFrom.LOCAL, -1);
+        // The state when the request has passed all java processors and goes to native chain.
+        holder.getTiming().reset(2);
+        holder.index = 1;
+        final TraversalCallback traversalCallback = new TraversalCallback(holder);
+        holder.traversalCallback = traversalCallback;
+        traversalCallback.bind(manager);
+        traversalCallback.beginNativeTraversals();
+
+        traversalCallback.onFetchProgress(100, 50);
+        assertEquals(50, callback.progressLoaded);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                traversalCallback.onFetchCompleted(holder);
+            }
+        });
+
+        assertTrue(callback.await());
+        assertEquals(1, callback.completedCount.get());
+        // The last processor passed the request to native, so only the first one handles the
+        // response.
+        assertEquals(Collections.singletonList("res0"), mRecorder.events);
+        FetchTimingStats stats = manager.getFetchTimingStats();
+        assertEquals(1, stats.getFetchCount());
+        assertNotNull(stats.getHistogram(FetchTimingStats.NATIVE_CHAIN_NAME, Phase.REQUEST));
+    }
+
+    @Test
+    public void asyncFetchTiming() throws InterruptedException {
+        long delayMillis = 20;
+        VfsManager manager = new VfsManager(Arrays.<Processor>asList(
+                new TestProcessor(0, Mode.SYNC, Mode.SYNC, false, 0),
+                new SlowProcessor(1, Mode.ASYNC, delayMillis)));
+        TimingRecorder timingRecorder = new TimingRecorder();
+        manager.addFetchTimingListener(timingRecorder);
+        FetchCallback callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+        assertTrue(callback.await());
+
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        assertEquals(2, timingRecorder.processorCount);
+        assertEquals(TestProcessor.class.getName(), timingRecorder.names[0]);
+        assertEquals(SlowProcessor.class.getName(), timingRecorder.names[1]);
+        // Called back before return, no queue time.
+        assertEquals(0, timingRecorder.queueNanos[0]);
+        assertTrue(timingRecorder.requestNanos[0] < delayNanos);
+        // Called back from executor after return.
+        assertTrue(timingRecorder.queueNanos[1] >= delayNanos);
+        assertTrue(timingRecorder.requestNanos[1] >= timingRecorder.queueNanos[1]);
+        // The processor completes the request does not handle response.
+        assertEquals(0, timingRecorder.responseNanos[1]);
+        assertEquals(0, timingRecorder.nativeNanos);
+        assertTrue(timingRecorder.totalNanos >= timingRecorder.requestNanos[1]);
+
+        FetchTimingStats stats = manager.getFetchTimingStats();
+        assertEquals(1, stats.getFetchCount());
+        int[] queue = stats.getHistogram(SlowProcessor.class.getName(), Phase.QUEUE);
+        assertNotNull(queue);
+        // 20ms falls into bucket [16, 32) or later if the executor is late.
+        assertEquals(0, queue[0]);
+        assertEquals(1, sum(queue));
+        queue = stats.getHistogram(TestProcessor.class.getName(), Phase.QUEUE);
+        assertNotNull(queue);
+        assertEquals(1, queue[0]);
+        assertNull(stats.getHistogram(FetchTimingStats.NATIVE_CHAIN_NAME, Phase.REQUEST));
+
+        manager.removeFetchTimingListener(timingRecorder);
+        callback = new FetchCallback();
+        manager.fetchResourceAsync(URI, null, null, callback);
+        assertTrue(callback.await());
+        assertEquals(1, timingRecorder.fetchCount);
+        assertEquals(2, stats.getFetchCount());
+    }
+
+    @Test
+    public void syncFetchTiming() {
+        long delayMillis = 10;
+        VfsManager manager = new VfsManager(Arrays.<Processor>asList(
+                new TestProcessor(0, Mode.SYNC, Mode.SYNC, false, 0),
+                new SlowProcessor(1, Mode.SYNC, delayMillis)));
+        TimingRecorder timingRecorder = new TimingRecorder();
+        manager.addFetchTimingListener(timingRecorder);
+        ResourceDataHolder holder = manager.fetchResourceSync(URI, null, null);
+
+        assertNotNull(holder);
+        assertEquals(Arrays.asList("req0", "req1", "res0"), mRecorder.events);
+        assertEquals(1, timingRecorder.fetchCount);
+        assertEquals(0, timingRecorder.queueNanos[0]);
+        assertEquals(0, timingRecorder.queueNanos[1]);
+        assertTrue(timingRecorder.requestNanos[1] >= TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        assertEquals(0, timingRecorder.responseNanos[1]);
+        assertEquals(1, manager.getFetchTimingStats().getFetchCount());
+    }
+
+    private static int sum(@NonNull int[] buckets) {
+        int sum = 0;
+        for (int count : buckets) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private enum Mode {
+        /**
+         * Call back before the handle method returns.
+         */
+        SYNC,
+        /**
+         * Call back on another thread.
+         */
+        ASYNC,
+        /**
+         * Keep the callback, and call back by test.
+         */
+        MANUAL,
+    }
+
+    /**
+     * Record the handle method calls of all processors in order, and the max nested depth of
+     * them on test thread.
+     */
+    private static class Recorder {
+
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger depth = new AtomicInteger();
+        volatile int maxDepth;
+
+        void enter(@NonNull String event) {
+            events.add(event);
+            maxDepth = Math.max(maxDepth, depth.incrementAndGet());
+        }
+
+        void exit() {
+            depth.decrementAndGet();
+        }
+    }
+
+    private class TestProcessor extends Processor {
+
+        final int mIndex;
+        final Mode mRequestMode;
+        final Mode mResponseMode;
+        final boolean mCompleteRequest;
+        final long mDelayMillis;
+        @Nullable
+        volatile ProcessorCallback pendingCallback;
+
+        TestProcessor(int index, Mode requestMode, Mode responseMode, boolean completeRequest,
+                long delayMillis) {
+            mIndex = index;
+            mRequestMode = requestMode;
+            mResponseMode = responseMode;
+            mCompleteRequest = completeRequest;
+            mDelayMillis = delayMillis;
+        }
+
+        @Override
+        public void handleRequestAsync(@NonNull ResourceDataHolder holder,
+                @NonNull ProcessorCallback callback) {
+            mRecorder.enter("req" + mIndex);
+            try {
+                dispatch(mRequestMode, callback, mCompleteRequest);
+            } finally {
+                mRecorder.exit();
+            }
+        }
+
+        @Override
+        public void handleResponseAsync(@NonNull ResourceDataHolder holder,
+                @NonNull ProcessorCallback callback) {
+            mRecorder.enter("res" + mIndex);
+            try {
+                dispatch(mResponseMode, callback, true);
+            } finally {
+                mRecorder.exit();
+            }
+        }
+
+        @Override
+        public boolean handleRequestSync(@NonNull ResourceDataHolder holder) {
+            mRecorder.enter("req" + mIndex);
+            sleep(mDelayMillis);
+            mRecorder.exit();
+            return mCompleteRequest;
+        }
+
+        @Override
+        public void handleResponseSync(@NonNull ResourceDataHolder holder) {
+            mRecorder.enter("res" + mIndex);
+            mRecorder.exit();
+        }
+
+        private void dispatch(Mode mode, @NonNull final ProcessorCallback callback,
+                final boolean complete) {
+            switch (mode) {
+                case SYNC:
+                    sleep(mDelayMillis);
+                    callBack(callback, complete);
+                    break;
+                case ASYNC:
+                    mExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sleep(mDelayMillis);
+                            callBack(callback, complete);
+                        }
+                    });
+                    break;
+                default:
+                    pendingCallback = callback;
+                    break;
+            }
+        }
+
+        private void callBack(@NonNull ProcessorCallback callback, boolean complete) {
+            if (complete) {
+                callback.onHandleCompleted();
+            } else {
+                callback.goNext();
+            }
+        }
+
+        private void sleep(long millis) {
+            if (millis <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Processor with different class name, which completes the request after a delay.
+     */
+    private class SlowProcessor extends TestProcessor {
+
+        SlowProcessor(int index, Mode requestMode, long delayMillis) {
+            super(index, requestMode, Mode.SYNC, true, delayMillis);
+        }
+    }
+
+    private static class FetchCallback implements FetchResourceCallback {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger completedCount = new AtomicInteger();
+        @Nullable
+        volatile ResourceDataHolder holder;
+        volatile long progressLoaded;
+
+        boolean await() throws InterruptedException {
+            return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onFetchCompleted(@NonNull ResourceDataHolder dataHolder) {
+            holder = dataHolder;
+            completedCount.incrementAndGet();
+            latch.countDown();
+        }
+
+        @Override
+        public void onFetchProgress(long total, long loaded) {
+            progressLoaded = loaded;
+        }
+    }
+
+    /**
+     * Copy the timing in listener, since it is only valid in the listener.
+     */
+    private static class TimingRecorder implements FetchTimingListener {
+
+        int fetchCount;
+        int processorCount;
+        String[] names;
+        long[] queueNanos;
+        long[] requestNanos;
+        long[] responseNanos;
+        long nativeNanos;
+        long totalNanos;
+
+        @Override
+        public synchronized void onFetchTiming(@NonNull ResourceDataHolder holder,
+                @NonNull FetchTiming timing) {
+            fetchCount++;
+            processorCount = timing.getProcessorCount();
+            names = new String[processorCount];
+            queueNanos = new long[processorCount];
+            requestNanos = new long[processorCount];
+            responseNanos = new long[processorCount];
+            for (int i = 0; i < processorCount; i++) {
+                names[i] = timing.getProcessorName(i);
+                queueNanos[i] = timing.getNanos(i, Phase.QUEUE);
+                requestNanos[i] = timing.getNanos(i, Phase.REQUEST);
+                responseNanos[i] = timing.getNanos(i, Phase.RESPONSE);
+            }
+            nativeNanos = timing.getNativeNanos();
+            totalNanos = timing.getTotalNanos();
+        }
+    }
+}
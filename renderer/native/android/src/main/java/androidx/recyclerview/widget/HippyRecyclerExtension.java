@@ -18,7 +18,9 @@ package androidx.recyclerview.widget;
 
 import androidx.recyclerview.widget.RecyclerView.Recycler;
 import androidx.recyclerview.widget.RecyclerView.ViewHolder;
+import android.util.SparseArray;
 import android.view.View;
+import android.view.ViewGroup;
 import com.tencent.renderer.node.ListItemRenderNode;
 import com.tencent.mtt.hippy.uimanager.RenderManager;
 import com.tencent.renderer.node.RenderNode;
@@ -41,6 +43,10 @@ public class HippyRecyclerExtension extends RecyclerView.ViewCacheExtension {
     private final NodePositionHelper nodePositionHelper;
     private HippyRecyclerViewBase recyclerView;
     private int currentPosition;
+    /**
+     * 空闲时预先创建并挂载好View树的Holder，key是ListItemRenderNode的id
+     */
+    private final SparseArray<HippyRecyclerViewHolder> preMountedHolders = new SparseArray<>();
 
     public HippyRecyclerExtension(HippyRecyclerViewBase recyclerView, NodePositionHelper nodePositionHelper) {
         this.nodePositionHelper = nodePositionHelper;
@@ -58,9 +64,81 @@ public class HippyRecyclerExtension extends RecyclerView.ViewCacheExtension {
         if (bestView == null) {
             bestView = findInCachedScrap(recycler, position, type);
         }
+        if (bestView == null) {
+            bestView = findInPreMounted(position, type);
+        }
         return bestView;
     }
 
+    /**
+     * 保存预挂载的Holder，由于Holder没有经过RecyclerView创建，需要补上LayoutParams中的ViewHolder，
+     * 否则RecyclerView无法从ViewCacheExtension返回的View中拿到Holder
+     */
+    public void addPreMountedHolder(HippyRecyclerViewHolder holder) {
+        ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
+        RecyclerView.LayoutParams rvLayoutParams;
+        if (lp == null) {
+            rvLayoutParams = (RecyclerView.LayoutParams) recyclerView.generateDefaultLayoutParams();
+        } else if (!recyclerView.checkLayoutParams(lp)) {
+            rvLayoutParams = (RecyclerView.LayoutParams) recyclerView.generateLayoutParams(lp);
+        } else {
+            rvLayoutParams = (RecyclerView.LayoutParams) lp;
+        }
+        rvLayoutParams.mViewHolder = holder;
+        holder.itemView.setLayoutParams(rvLayoutParams);
+        preMountedHolders.put(holder.bindNode.getId(), holder);
+    }
+
+    public boolean hasPreMountedHolder(ListItemRenderNode node) {
+        return preMountedHolders.get(node.getId()) != null;
+    }
+
+    public int getPreMountedHolderCount() {
+        return preMountedHolders.size();
+    }
+
+    /**
+     * 丢弃预挂载的Holder，未被删除的节点需要回收已经创建的View
+     *
+     * @param keepNodes 需要保留的节点，为null时全部丢弃
+     */
+    public void discardPreMountedHolders(SparseArray<ListItemRenderNode> keepNodes) {
+        for (int i = preMountedHolders.size() - 1; i >= 0; i--) {
+            HippyRecyclerViewHolder holder = preMountedHolders.valueAt(i);
+            if (keepNodes != null && keepNodes.get(preMountedHolders.keyAt(i)) == holder.bindNode
+                    && !holder.isRenderDeleted()) {
+                continue;
+            }
+            preMountedHolders.removeAt(i);
+            if (!holder.isRenderDeleted()) {
+                holder.bindNode.onViewHolderAbandoned();
+            }
+        }
+    }
+
+    private View findInPreMounted(int position, int type) {
+        RenderNode parentNode = RenderManager.getRenderNode(recyclerView);
+        if (parentNode == null || preMountedHolders.size() == 0) {
+            return null;
+        }
+        RenderNode nodeOfPosition = parentNode.getChildAt(nodePositionHelper.getRenderNodePosition(position));
+        if (nodeOfPosition == null) {
+            return null;
+        }
+        HippyRecyclerViewHolder holder = preMountedHolders.get(nodeOfPosition.getId());
+        if (holder == null) {
+            return null;
+        }
+        preMountedHolders.remove(nodeOfPosition.getId());
+        if (holder.getItemViewType() != type || holder.bindNode != nodeOfPosition || holder.isRenderDeleted()) {
+            if (!holder.isRenderDeleted()) {
+                holder.bindNode.onViewHolderAbandoned();
+            }
+            return null;
+        }
+        return holder.itemView;
+    }
+
     private View findInCachedScrap(Recycler recycler, int position, int type) {
         ViewHolder bestHolder = findBestHolder(recycler.mCachedViews, position, type);
         if (bestHolder != null) {
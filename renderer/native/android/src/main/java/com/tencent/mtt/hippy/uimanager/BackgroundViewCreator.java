@@ -0,0 +1,138 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.mtt.hippy.uimanager;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.SparseArray;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.renderer.NativeRenderContext;
+
+/**
+ * Create views of components that support background creation on a small pool of background
+ * loopers, each looper holds its own {@link NativeRenderContext} for every root.
+ *
+ * <p>Tasks are dispatched to loopers in chunks of consecutive nodes, so that parent and
+ * children of one subtree are mostly created in order on the same looper.</p>
+ */
+public class BackgroundViewCreator {
+
+    private static final String THREAD_NAME_PREFIX = "hippy-view-creator-";
+    private static final int MAX_THREAD_COUNT = 2;
+    private static final int DISPATCH_CHUNK_SIZE = 32;
+    @NonNull
+    private final Worker[] mWorkers;
+    private int mDispatchCount;
+    private boolean mDestroyed;
+
+    public BackgroundViewCreator() {
+        int count = Math.min(MAX_THREAD_COUNT,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        mWorkers = new Worker[count];
+    }
+
+    /**
+     * Post the task to one of the background loopers.
+     *
+     * @return false if this creator has been destroyed
+     */
+    public synchronized boolean execute(@NonNull Runnable task) {
+        if (mDestroyed) {
+            return false;
+        }
+        int index = (mDispatchCount++ / DISPATCH_CHUNK_SIZE) % mWorkers.length;
+        Worker worker = mWorkers[index];
+        if (worker == null) {
+            worker = new Worker(THREAD_NAME_PREFIX + index);
+            worker.start();
+            mWorkers[index] = worker;
+        }
+        return worker.post(task);
+    }
+
+    /**
+     * Get the render context of the root for current looper, should only be called in the tasks
+     * executed by this creator.
+     */
+    @Nullable
+    public static NativeRenderContext getContext(@NonNull Context rootContext, int rootId) {
+        Thread thread = Thread.currentThread();
+        if (!(thread instanceof Worker) || !(rootContext instanceof NativeRenderContext)) {
+            return null;
+        }
+        SparseArray<NativeRenderContext> contexts = ((Worker) thread).mContexts;
+        NativeRenderContext context = contexts.get(rootId);
+        if (context == null) {
+            NativeRenderContext renderContext = (NativeRenderContext) rootContext;
+            context = new NativeRenderContext(((ContextWrapper) rootContext).getBaseContext(),
+                    renderContext.getInstanceId(), rootId);
+            contexts.put(rootId, context);
+        }
+        return context;
+    }
+
+    /**
+     * Release the contexts of the root held by background loopers.
+     */
+    public synchronized void removeRoot(final int rootId) {
+        for (final Worker worker : mWorkers) {
+            if (worker != null) {
+                worker.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        worker.mContexts.remove(rootId);
+                    }
+                });
+            }
+        }
+    }
+
+    public synchronized void destroy() {
+        mDestroyed = true;
+        for (int i = 0; i < mWorkers.length; i++) {
+            if (mWorkers[i] != null) {
+                mWorkers[i].quit();
+                mWorkers[i] = null;
+            }
+        }
+    }
+
+    private static class Worker extends HandlerThread {
+
+        /**
+         * Only accessed on this thread.
+         */
+        private final SparseArray<NativeRenderContext> mContexts = new SparseArray<>();
+        @Nullable
+        private Handler mHandler;
+
+        Worker(@NonNull String name) {
+            super(name, Process.THREAD_PRIORITY_DEFAULT);
+        }
+
+        synchronized boolean post(@NonNull Runnable task) {
+            if (mHandler == null) {
+                mHandler = new Handler(getLooper());
+            }
+            return mHandler.post(task);
+        }
+    }
+}
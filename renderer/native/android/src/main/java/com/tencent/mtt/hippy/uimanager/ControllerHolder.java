@@ -24,12 +24,19 @@ public class ControllerHolder {
     private final HippyViewController<?> mHippyViewController;
     private final boolean mIsLazy;
     private final boolean mSupportFlatten;
+    private final boolean mSupportBackgroundCreate;
 
     public ControllerHolder(@NonNull HippyViewController<?> viewController, boolean isLazy,
             boolean supportFlatten) {
+        this(viewController, isLazy, supportFlatten, false);
+    }
+
+    public ControllerHolder(@NonNull HippyViewController<?> viewController, boolean isLazy,
+            boolean supportFlatten, boolean supportBackgroundCreate) {
         mHippyViewController = viewController;
         mIsLazy = isLazy;
         mSupportFlatten = supportFlatten;
+        mSupportBackgroundCreate = supportBackgroundCreate;
     }
 
     @NonNull
@@ -44,4 +51,8 @@ public class ControllerHolder {
     public boolean supportFlatten() {
         return mSupportFlatten;
     }
+
+    public boolean supportBackgroundCreate() {
+        return mSupportBackgroundCreate;
+    }
 }
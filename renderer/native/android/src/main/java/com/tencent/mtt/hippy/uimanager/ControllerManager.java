@@ -21,6 +21,9 @@ import static com.tencent.renderer.NativeRenderException.ExceptionCode.REMOVE_CH
 import static com.tencent.renderer.node.RenderNode.FLAG_ALREADY_UPDATED;
 import static com.tencent.renderer.node.RenderNode.FLAG_UPDATE_LAYOUT;
 
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
@@ -33,6 +36,8 @@ import com.tencent.mtt.hippy.annotation.HippyController;
 import com.tencent.mtt.hippy.common.HippyArray;
 import com.tencent.mtt.hippy.dom.node.NodeProps;
 import com.tencent.mtt.hippy.modules.Promise;
+import com.tencent.mtt.hippy.utils.LogUtils;
+import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import com.tencent.mtt.hippy.views.custom.HippyCustomPropsController;
 import com.tencent.mtt.hippy.views.hippylist.HippyRecyclerViewController;
 import com.tencent.mtt.hippy.views.hippylist.HippyRecyclerViewWrapper;
@@ -60,19 +65,31 @@ import com.tencent.renderer.node.RenderNode;
 import com.tencent.renderer.node.VirtualNode;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
 public class ControllerManager {
 
+    private static final String TAG = "ControllerManager";
     @NonNull
     private final ControllerRegistry mControllerRegistry;
     @NonNull
     private final ControllerUpdateManger<HippyViewController<?>> mControllerUpdateManger;
     @NonNull
     private final Map<Integer, Pool<Integer, View>> mPreCreateViewPools = new HashMap<>();
+    /**
+     * Ids of nodes whose views are creating on background looper, guarded by
+     * {@link #mPreCreateViewPools}.
+     */
     @NonNull
-    private final Map<Integer, Pool<String, View>> mRecycleViewPools = new HashMap<>();
+    private final Map<Integer, HashSet<Integer>> mPendingPreViews = new HashMap<>();
+    @Nullable
+    private BackgroundViewCreator mBackgroundViewCreator;
+    @NonNull
+    private final RecycleViewPool mRecycleViewPool = new RecycleViewPool();
+    @NonNull
+    private final Map<String, Integer> mWarmUpCounts = new HashMap<>();
     @Nullable
     private Renderer mRenderer;
     @Nullable
@@ -140,9 +157,13 @@ public class ControllerManager {
                 ControllerHolder holder = new ControllerHolder(
                         (HippyViewController) cls.newInstance(), lazy, supportFlatten);
                 mControllerRegistry.addControllerHolder(name, holder);
+                setRecycleViewCapacity(name, controllerAnnotation.recycleCapacity());
+                setWarmUpViewCount(name, controllerAnnotation.warmUpCount());
                 if (names.length > 0) {
                     for (String s : names) {
                         mControllerRegistry.addControllerHolder(s, holder);
+                        setRecycleViewCapacity(s, controllerAnnotation.recycleCapacity());
+                        setWarmUpViewCount(s, controllerAnnotation.warmUpCount());
                     }
                 }
             } catch (Exception e) {
@@ -178,14 +199,21 @@ public class ControllerManager {
     public void destroy() {
         mControllerRegistry.clear();
         mControllerUpdateManger.clear();
-        for (Pool<Integer, View> pool : mPreCreateViewPools.values()) {
-            pool.clear();
+        synchronized (mPreCreateViewPools) {
+            for (Pool<Integer, View> pool : mPreCreateViewPools.values()) {
+                pool.clear();
+            }
+            mPreCreateViewPools.clear();
+            mPendingPreViews.clear();
         }
-        mPreCreateViewPools.clear();
-        for (Pool<String, View> pool : mRecycleViewPools.values()) {
-            pool.clear();
+        synchronized (this) {
+            if (mBackgroundViewCreator != null) {
+                mBackgroundViewCreator.destroy();
+                mBackgroundViewCreator = null;
+            }
         }
-        mRecycleViewPools.clear();
+        LogUtils.d(TAG, "destroy: " + mRecycleViewPool);
+        mRecycleViewPool.clear();
         int count = mControllerRegistry.getRootViewCount();
         if (count > 0) {
             for (int i = 0; i < count; i++) {
@@ -211,18 +239,105 @@ public class ControllerManager {
     }
 
     private void addPreView(@NonNull View view, int rootId) {
-        Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
-        if (pool == null) {
-            pool = new PreCreateViewPool();
-            mPreCreateViewPools.put(rootId, pool);
+        synchronized (mPreCreateViewPools) {
+            Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
+            if (pool == null) {
+                pool = new PreCreateViewPool();
+                mPreCreateViewPools.put(rootId, pool);
+            }
+            pool.release(view);
         }
-        pool.release(view);
     }
 
     @Nullable
     public View getPreView(int rootId, Integer id) {
-        Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
-        return (pool == null) ? null : pool.acquire(id);
+        synchronized (mPreCreateViewPools) {
+            Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
+            return (pool == null) ? null : pool.acquire(id);
+        }
+    }
+
+    public boolean checkBackgroundCreate(@NonNull String className) {
+        ControllerHolder holder = mControllerRegistry.getControllerHolder(className);
+        // Custom view creator provided by host may not be thread safe.
+        return holder != null && holder.supportBackgroundCreate() && mRenderer != null
+                && mRenderer.getCustomViewCreator() == null;
+    }
+
+    @Nullable
+    private synchronized BackgroundViewCreator getBackgroundViewCreator() {
+        if (mBackgroundViewCreator == null && mRenderer != null) {
+            mBackgroundViewCreator = new BackgroundViewCreator();
+        }
+        return mBackgroundViewCreator;
+    }
+
+    /**
+     * Post pre create view task to background looper, the created view is put into pre create
+     * pool, unless the node has taken the pool before the view is ready.
+     *
+     * @return true if the task is posted, false if the component does not support background
+     * creation
+     */
+    public boolean preCreateViewInBackground(final int rootId, final int id, final int pid,
+            @NonNull final String className, @Nullable final Map<String, Object> props) {
+        final HippyViewController<?> controller = mControllerRegistry.getViewController(
+                className);
+        if (controller == null || !checkBackgroundCreate(className)) {
+            return false;
+        }
+        BackgroundViewCreator creator = getBackgroundViewCreator();
+        if (creator == null) {
+            return false;
+        }
+        synchronized (mPreCreateViewPools) {
+            HashSet<Integer> pendingIds = mPendingPreViews.get(rootId);
+            if (pendingIds == null) {
+                pendingIds = new HashSet<>();
+                mPendingPreViews.put(rootId, pendingIds);
+            }
+            pendingIds.add(id);
+        }
+        boolean posted = creator.execute(new Runnable() {
+            @Override
+            public void run() {
+                View rootView = mControllerRegistry.getRootView(rootId);
+                // Same as pre create on ui thread, skip the children of lazy nodes, whose parent
+                // has not been pre created.
+                boolean parentReady = pid == rootId || getPreView(rootId, pid) != null
+                        || isPreViewPending(rootId, pid);
+                Context context = (rootView != null) ? BackgroundViewCreator.getContext(
+                        rootView.getContext(), rootId) : null;
+                View view = null;
+                if (context != null && parentReady && isPreViewPending(rootId, id)) {
+                    view = controller.createView(context, rootId, id, mRenderer, className,
+                            props);
+                }
+                synchronized (mPreCreateViewPools) {
+                    if (removePendingPreView(rootId, id) && view != null) {
+                        addPreView(view, rootId);
+                    }
+                }
+            }
+        });
+        if (!posted) {
+            synchronized (mPreCreateViewPools) {
+                removePendingPreView(rootId, id);
+            }
+        }
+        return posted;
+    }
+
+    private boolean isPreViewPending(int rootId, int id) {
+        synchronized (mPreCreateViewPools) {
+            HashSet<Integer> pendingIds = mPendingPreViews.get(rootId);
+            return pendingIds != null && pendingIds.contains(id);
+        }
+    }
+
+    private boolean removePendingPreView(int rootId, int id) {
+        HashSet<Integer> pendingIds = mPendingPreViews.get(rootId);
+        return pendingIds != null && pendingIds.remove(id);
     }
 
     public void preCreateView(int rootId, int id, @NonNull String className,
@@ -240,14 +355,83 @@ public class ControllerManager {
         }
     }
 
+    /**
+     * Set the max count of recycled views cached for the component, the capacity is shared by
+     * all roots of this renderer.
+     *
+     * @param className the component class name
+     * @param capacity max count of cached views, negative value is ignored, 0 disables recycling
+     */
+    public void setRecycleViewCapacity(@NonNull String className, int capacity) {
+        mRecycleViewPool.setCapacity(className, capacity);
+    }
+
+    /**
+     * Set the count of views created in idle time for each root view added after this call.
+     *
+     * @param className the component class name
+     * @param count the count of views to create, 0 disables warming up
+     */
+    public void setWarmUpViewCount(@NonNull String className, int count) {
+        synchronized (mWarmUpCounts) {
+            if (count > 0) {
+                mWarmUpCounts.put(className, count);
+            } else {
+                mWarmUpCounts.remove(className);
+            }
+        }
+    }
+
+    @NonNull
+    public RecycleViewPool getRecycleViewPool() {
+        return mRecycleViewPool;
+    }
+
+    private void warmUpRecycleViews(final int rootId) {
+        final ArrayList<String> classNames = new ArrayList<>();
+        synchronized (mWarmUpCounts) {
+            if (mWarmUpCounts.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Integer> entry : mWarmUpCounts.entrySet()) {
+                for (int i = 0; i < entry.getValue(); i++) {
+                    classNames.add(entry.getKey());
+                }
+            }
+        }
+        UIThreadUtils.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                    @Override
+                    public boolean queueIdle() {
+                        // Create one view per idle callback, avoid blocking the ui thread for
+                        // a long time.
+                        View rootView = mControllerRegistry.getRootView(rootId);
+                        if (rootView == null || mRenderer == null || classNames.isEmpty()) {
+                            return false;
+                        }
+                        String className = classNames.remove(classNames.size() - 1);
+                        HippyViewController<?> controller = mControllerRegistry.getViewController(
+                                className);
+                        if (controller != null && mRecycleViewPool.size(className, rootId)
+                                < mRecycleViewPool.getCapacity(className)) {
+                            // Warmed up view has no id, the node reuses it will apply all props.
+                            View view = controller.createView(rootView, View.NO_ID, mRenderer,
+                                    className, null);
+                            mRecycleViewPool.release(className, rootId, view);
+                        }
+                        return !classNames.isEmpty();
+                    }
+                });
+            }
+        });
+    }
+
     @Nullable
     private View findViewFromRecyclePool(int rootId, String className) {
-        Pool<String, View> pool = mRecycleViewPools.get(rootId);
-        if (pool == null) {
-            return null;
-        }
-        View view = pool.acquire(className);
-        if (view != null) {
+        View view = mRecycleViewPool.acquire(className, rootId);
+        if (view != null && view.getId() != View.NO_ID) {
             RenderNode node = RenderManager.getRenderNode(view);
             // If the corresponding node non-existent or is deleted, cached views cannot be reused,
             // since the previously node props is lost, we have no way to reset the attributes that don't
@@ -259,14 +443,37 @@ public class ControllerManager {
         return view;
     }
 
+    /**
+     * Take the view pre created for the node out of pool, the view is added to the registry by
+     * caller, so the pool should not hold it any more.
+     */
+    @Nullable
+    private View takePreView(int rootId, int id) {
+        synchronized (mPreCreateViewPools) {
+            // The view creating on background looper is abandoned, since the node does not
+            // wait for it.
+            removePendingPreView(rootId, id);
+            Pool<Integer, View> preCreatePool = mPreCreateViewPools.get(rootId);
+            if (preCreatePool == null) {
+                return null;
+            }
+            View view = preCreatePool.acquire(id);
+            if (view != null) {
+                preCreatePool.remove(id);
+            }
+            return view;
+        }
+    }
+
     @Nullable
     private View findViewFromPool(int rootId, int id, String className, PoolType poolType) {
         switch (poolType) {
             case RECYCLE_VIEW:
-                return findViewFromRecyclePool(rootId, className);
+                // List items may pre create their views in idle time before bind.
+                View view = takePreView(rootId, id);
+                return (view != null) ? view : findViewFromRecyclePool(rootId, className);
             case PRE_CREATE_VIEW:
-                Pool<Integer, View> preCreatePool = mPreCreateViewPools.get(rootId);
-                return (preCreatePool == null) ? null : preCreatePool.acquire(id);
+                return takePreView(rootId, id);
             default:
                 return null;
         }
@@ -351,6 +558,7 @@ public class ControllerManager {
 
     public void addRootView(View rootView) {
         mControllerRegistry.addRootView(rootView);
+        warmUpRecycleViews(rootView.getId());
     }
 
     @Nullable
@@ -488,9 +696,11 @@ public class ControllerManager {
     }
 
     public void onBatchEnd(int rootId) {
-        Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
-        if (pool != null) {
-            pool.clear();
+        synchronized (mPreCreateViewPools) {
+            Pool<Integer, View> pool = mPreCreateViewPools.get(rootId);
+            if (pool != null) {
+                pool.clear();
+            }
         }
     }
 
@@ -554,12 +764,10 @@ public class ControllerManager {
         }
         mControllerRegistry.removeView(rootId, child.getId());
         if (checkRecyclable(childController, recyclable) && childTag != null) {
-            Pool<String, View> pool = mRecycleViewPools.get(rootId);
-            if (pool == null) {
-                pool = new RecycleViewPool();
-                mRecycleViewPools.put(rootId, pool);
+            if (childController != null) {
+                childController.onViewRecycled(child);
             }
-            pool.release(childTag, child);
+            mRecycleViewPool.release(childTag, rootId, child);
         }
     }
 
@@ -600,6 +808,16 @@ public class ControllerManager {
             }
         }
         mControllerRegistry.removeRootView(rootId);
+        mRecycleViewPool.removeOwner(rootId);
+        synchronized (mPreCreateViewPools) {
+            mPreCreateViewPools.remove(rootId);
+            mPendingPreViews.remove(rootId);
+        }
+        synchronized (this) {
+            if (mBackgroundViewCreator != null) {
+                mBackgroundViewCreator.removeRoot(rootId);
+            }
+        }
     }
 
     private String getViewOperationExceptionMessage(int pid, View parent, int id, View child,
@@ -96,8 +96,15 @@ public class ControllerRegistry {
         return mRootViews.keyAt(index);
     }
 
+    /**
+     * Root views are added and removed on the UI thread, but may be looked up by the background
+     * view creator, so the accesses that can happen off the UI thread are guarded by the root view
+     * array lock.
+     */
     public View getRootView(int id) {
-        return mRootViews.get(id);
+        synchronized (mRootViews) {
+            return mRootViews.get(id);
+        }
     }
 
     public void addView(@NonNull View view, int rootId, int id) {
@@ -141,11 +148,15 @@ public class ControllerRegistry {
     }
 
     public void addRootView(@NonNull View rootView) {
-        mRootViews.put(rootView.getId(), rootView);
+        synchronized (mRootViews) {
+            mRootViews.put(rootView.getId(), rootView);
+        }
     }
 
     public void removeRootView(int id) {
-        mRootViews.remove(id);
+        synchronized (mRootViews) {
+            mRootViews.remove(id);
+        }
     }
 
 }
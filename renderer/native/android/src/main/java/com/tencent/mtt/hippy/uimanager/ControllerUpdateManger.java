@@ -35,6 +35,7 @@ import com.tencent.renderer.component.text.TextComponentController;
 import com.tencent.renderer.node.TextRenderNode;
 import com.tencent.renderer.node.TextVirtualNode;
 import com.tencent.renderer.utils.MapUtils;
+import com.tencent.renderer.utils.PropSetter;
 import com.tencent.renderer.utils.PropertyUtils;
 import com.tencent.renderer.utils.PropertyUtils.PropertyMethodHolder;
 import com.tencent.renderer.node.RenderNode;
@@ -169,6 +170,12 @@ public class ControllerUpdateManger<T> {
             Map<String, Object> props, String key, @NonNull PropertyMethodHolder methodHolder) {
         try {
             Object value = props.get(key);
+            // Use the setter generated by hippy processor if exists, fall back to reflection
+            // for classes not compiled with the processor.
+            PropSetter setter = PropertyUtils.getPropSetter(obj.getClass());
+            if (setter != null && setter.setProperty(obj, arg1, key, value)) {
+                return;
+            }
             if (value == null) {
                 switch (methodHolder.defaultType) {
                     case HippyControllerProps.BOOLEAN:
@@ -23,6 +23,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.tencent.mtt.hippy.annotation.HippyController;
 import com.tencent.mtt.hippy.annotation.HippyControllerProps;
 import com.tencent.mtt.hippy.common.HippyArray;
 import com.tencent.mtt.hippy.common.HippyMap;
@@ -67,8 +68,18 @@ public abstract class HippyViewController<T extends View & HippyViewBase> implem
 
     public View createView(@NonNull View rootView, int id, @Nullable Renderer renderer,
             @NonNull String className, @Nullable Map<String, Object> props) {
+        return createView(rootView.getContext(), rootView.getId(), id, renderer, className,
+                props);
+    }
+
+    /**
+     * Create view with the specified context, which may be called on background thread if the
+     * component declared {@link HippyController#supportBackgroundCreate()}.
+     */
+    public View createView(@NonNull Context context, int rootId, int id,
+            @Nullable Renderer renderer, @NonNull String className,
+            @Nullable Map<String, Object> props) {
         View view = null;
-        Context context = rootView.getContext();
         Object object = renderer != null ? renderer.getCustomViewCreator() : null;
         if (object instanceof HippyCustomViewCreator) {
             view = ((HippyCustomViewCreator) object)
@@ -81,7 +92,7 @@ public abstract class HippyViewController<T extends View & HippyViewBase> implem
             }
         }
         view.setId(id);
-        Map<String, Object> tagMap = NativeViewTag.createViewTag(className, rootView.getId());
+        Map<String, Object> tagMap = NativeViewTag.createViewTag(className, rootId);
         view.setTag(tagMap);
         return view;
     }
@@ -525,6 +536,15 @@ public abstract class HippyViewController<T extends View & HippyViewBase> implem
         return true;
     }
 
+    /**
+     * Called before the view is put into recycle pool, controller should reset the transient
+     * state which can not be restored by props diff, such as running animations or listeners
+     * attached by the view itself.
+     */
+    public void onViewRecycled(@NonNull T view) {
+        // Stub method.
+    }
+
     protected void deleteChild(ViewGroup parentView, View childView) {
         parentView.removeView(childView);
     }
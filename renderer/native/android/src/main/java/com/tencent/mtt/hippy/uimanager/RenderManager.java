@@ -103,8 +103,10 @@ public class RenderManager {
             return;
         }
         if (pid != rootId) {
+            // Pre created view is taken out of pool after the parent node is created, so also
+            // check the created views.
             View view = mControllerManager.getPreView(rootId, pid);
-            if (view == null) {
+            if (view == null && !mControllerManager.hasView(rootId, pid)) {
                 isLazy = true;
             }
         }
@@ -113,6 +115,20 @@ public class RenderManager {
         }
     }
 
+    /**
+     * Pre create view on background looper if the component supports, should be called on dom
+     * thread.
+     *
+     * @return true if the pre create task is posted to background looper
+     */
+    public boolean preCreateViewInBackground(int rootId, int id, int pid,
+            @NonNull String className, @Nullable Map<String, Object> props) {
+        if (id == rootId || mControllerManager.checkLazy(className)) {
+            return false;
+        }
+        return mControllerManager.preCreateViewInBackground(rootId, id, pid, className, props);
+    }
+
     public void onCreateVirtualNode(int rootId, int id, int pid, int index,
             @NonNull Map<String, Object> childInfo) {
         RenderNode parentNode = getRenderNode(rootId, pid);
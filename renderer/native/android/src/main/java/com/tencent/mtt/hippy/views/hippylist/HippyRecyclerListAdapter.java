@@ -32,6 +32,7 @@ import com.tencent.mtt.hippy.views.list.IRecycleItemTypeChange;
 import com.tencent.mtt.hippy.views.refresh.HippyPullFooterView;
 import com.tencent.mtt.hippy.views.refresh.HippyPullHeaderView;
 import com.tencent.renderer.node.ListItemRenderNode;
+import com.tencent.renderer.node.ListViewRenderNode;
 import com.tencent.renderer.node.PullFooterRenderNode;
 import com.tencent.renderer.node.PullHeaderRenderNode;
 import com.tencent.renderer.node.RenderNode;
@@ -121,6 +122,7 @@ public class HippyRecyclerListAdapter<HRCV extends HippyRecyclerView> extends Ad
         }
         toNode.setRecycleItemTypeChangeListener(this);
         hippyRecyclerViewHolder.bindNode = toNode;
+        hippyRecyclerView.getRecyclerViewEventHelper().getImagePrefetchHelper().onItemBound(toNode);
     }
 
     @Override
@@ -313,12 +315,83 @@ public class HippyRecyclerListAdapter<HRCV extends HippyRecyclerView> extends Ad
      * @return
      */
     public int getRenderNodeTotalHeight() {
+        return getRenderNodeSizeBefore(getRenderNodeCount(), true);
+    }
+
+    /**
+     * 获取renderNodePosition前面的内容大小，不包含renderNodePosition自身，由ListViewRenderNode的前缀和索引计算
+     *
+     * @param renderNodePosition 前端的子节点的位置
+     * @param vertical true取RenderNodeHeight求和，false取RenderNodeWidth求和
+     */
+    public int getRenderNodeSizeBefore(int renderNodePosition, boolean vertical) {
+        RenderNode parentNode = getParentNode();
+        if (!(parentNode instanceof ListViewRenderNode)) {
+            int size = 0;
+            for (int i = 0; i < renderNodePosition; i++) {
+                size += vertical ? getRenderNodeHeight(i) : getRenderNodeWidth(i);
+            }
+            return size;
+        }
+        int size = ((ListViewRenderNode) parentNode).getItemSizeBefore(renderNodePosition, vertical);
+        if (renderNodePosition > 0) {
+            size += getPullHeaderSize(vertical);
+        }
+        if (renderNodePosition >= getRenderNodeCount()) {
+            size += getPullFooterSize(vertical);
+        }
+        return size;
+    }
+
+    /**
+     * 根据内容偏移查找第一个底部超过offset的子节点位置，找不到返回0
+     *
+     * @param offset 内容偏移
+     * @param vertical true按RenderNodeHeight计算，false按RenderNodeWidth计算
+     */
+    public int getRenderNodePositionByOffset(int offset, boolean vertical) {
+        RenderNode parentNode = getParentNode();
         int renderCount = getRenderNodeCount();
-        int renderNodeTotalHeight = 0;
-        for (int i = 0; i < renderCount; i++) {
-            renderNodeTotalHeight += getRenderNodeHeight(i);
+        if (!(parentNode instanceof ListViewRenderNode)) {
+            int distanceToPosition = 0;
+            for (int i = 0; i < renderCount; i++) {
+                distanceToPosition += vertical ? getRenderNodeHeight(i) : getRenderNodeWidth(i);
+                if (distanceToPosition > offset) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+        int headerSize = getPullHeaderSize(vertical);
+        if (renderCount <= 0 || headerSize > offset) {
+            return 0;
+        }
+        int position = ((ListViewRenderNode) parentNode).findItemPositionByOffset(offset - headerSize,
+                vertical);
+        if (position >= 0) {
+            return position;
+        }
+        int totalSize = getRenderNodeSizeBefore(renderCount, vertical);
+        return (totalSize > offset) ? renderCount - 1 : 0;
+    }
+
+    /**
+     * pullHeader和pullFooter的可见大小随下拉变化，没有放到前缀和索引里面
+     */
+    private int getPullHeaderSize(boolean vertical) {
+        ListItemRenderNode node = getChildNode(0);
+        if (node == null || !node.isPullHeader()) {
+            return 0;
+        }
+        return vertical ? getRenderNodeHeight(node) : getRenderNodeWidth(node);
+    }
+
+    private int getPullFooterSize(boolean vertical) {
+        ListItemRenderNode node = getChildNode(getRenderNodeCount() - 1);
+        if (node == null || !node.isPullFooter()) {
+            return 0;
         }
-        return renderNodeTotalHeight;
+        return vertical ? getRenderNodeHeight(node) : getRenderNodeWidth(node);
     }
 
     public int getItemHeight(int position) {
@@ -60,6 +60,7 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
     protected int renderNodeCount = 0;
     private NodePositionHelper nodePositionHelper;
     private ViewStickEventHelper viewStickEventHelper;
+    private ItemPreMountHelper itemPreMountHelper;
     private boolean stickEventEnable;
     private int mInitialContentOffset;
     private ArrayList<View> mFocusableViews;
@@ -99,6 +100,20 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
         if (stickyHeaderHelper != null) {
             stickyHeaderHelper.detachSticky();
         }
+        if (recyclerViewEventHelper != null) {
+            recyclerViewEventHelper.getImagePrefetchHelper().onDestroy();
+        }
+        if (itemPreMountHelper != null) {
+            itemPreMountHelper.onDestroy();
+        }
+    }
+
+    public void setItemPreMountHelper(ItemPreMountHelper helper) {
+        itemPreMountHelper = helper;
+    }
+
+    public ItemPreMountHelper getItemPreMountHelper() {
+        return itemPreMountHelper;
     }
 
     protected void deleteChild(View childView) {
@@ -227,18 +242,7 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
     }
 
     private int getFirstVisiblePositionByOffset(int offset) {
-        int position = 0;
-        int distanceToPosition = 0;
-        int itemCount = getAdapter().getItemCount();
-        boolean vertical = HippyListUtils.isVerticalLayout(this);
-        for (int i = 0; i < itemCount; i++) {
-            distanceToPosition += vertical ? listAdapter.getItemHeight(i) : listAdapter.getItemWidth(i);
-            if (distanceToPosition > offset) {
-                position = i;
-                break;
-            }
-        }
-        return position;
+        return listAdapter.getRenderNodePositionByOffset(offset, HippyListUtils.isVerticalLayout(this));
     }
 
     private void scrollToInitContentOffset() {
@@ -267,6 +271,9 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
         if (renderNodeCount > 0 && mInitialContentOffset > 0) {
             scrollToInitContentOffset();
         }
+        if (itemPreMountHelper != null) {
+            itemPreMountHelper.onDataChanged();
+        }
         //notifyDataSetChanged 本身是可以触发requestLayout的，但是Hippy框架下 HippyRootView 已经把
         //onLayout方法重载写成空方法，requestLayout不会回调孩子节点的onLayout，这里需要自己发起dispatchLayout
         dispatchLayout();
@@ -332,12 +339,7 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
      * 对于竖向排版，取ItemHeight求和，对于横向排版，取ItemWidth求和
      */
     public int getTotalHeightBefore(int position) {
-        int totalHeightBefore = 0;
-        boolean vertical = HippyListUtils.isVerticalLayout(this);
-        for (int i = 0; i < position; i++) {
-            totalHeightBefore += vertical ? listAdapter.getItemHeight(i) : listAdapter.getItemWidth(i);
-        }
-        return totalHeightBefore;
+        return listAdapter.getRenderNodeSizeBefore(position, HippyListUtils.isVerticalLayout(this));
     }
 
     /**
@@ -345,12 +347,7 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
      * 对于竖向排版，取RenderNodeHeight求和，对于横向排版，取RenderNodeWidth求和
      */
     public int getRenderNodeHeightBefore(int renderNodePosition) {
-        int renderNodeTotalHeight = 0;
-        boolean vertical = HippyListUtils.isVerticalLayout(this);
-        for (int i = 0; i < renderNodePosition; i++) {
-            renderNodeTotalHeight += vertical ? listAdapter.getRenderNodeHeight(i) : listAdapter.getRenderNodeWidth(i);
-        }
-        return renderNodeTotalHeight;
+        return listAdapter.getRenderNodeSizeBefore(renderNodePosition, HippyListUtils.isVerticalLayout(this));
     }
 
 
@@ -358,11 +355,7 @@ public class HippyRecyclerView<ADP extends HippyRecyclerListAdapter> extends Hip
      * 获取position 前面的内容高度，不包含position自身的高度
      */
     public int getTotalWithBefore(int position) {
-        int totalWidthBefore = 0;
-        for (int i = 0; i < position; i++) {
-            totalWidthBefore += listAdapter.getItemWidth(i);
-        }
-        return totalWidthBefore;
+        return listAdapter.getRenderNodeSizeBefore(position, false);
     }
 
     public RecyclerViewEventHelper getRecyclerViewEventHelper() {
@@ -233,6 +233,19 @@ public class HippyRecyclerViewController<HRW extends HippyRecyclerViewWrapper> e
         view.getRecyclerViewEventHelper().setPreloadItemNumber(preloadItemNumber);
     }
 
+    @HippyControllerProps(name = "imagePrefetchItemNumber", defaultType = HippyControllerProps.NUMBER, defaultNumber = 3)
+    public void setImagePrefetchItemNumber(HRW view, int number) {
+        view.getRecyclerViewEventHelper().getImagePrefetchHelper().setPrefetchItemNumber(number);
+    }
+
+    @HippyControllerProps(name = "preMountItemNumber", defaultType = HippyControllerProps.NUMBER, defaultNumber = 2)
+    public void setPreMountItemNumber(HRW view, int number) {
+        ItemPreMountHelper helper = view.getRecyclerView().getItemPreMountHelper();
+        if (helper != null) {
+            helper.setPreMountItemNumber(number);
+        }
+    }
+
     @HippyControllerProps(name = "suspendViewListener", defaultType = HippyControllerProps.NUMBER, defaultNumber = 0)
     public void setSuspendViewListener(final HRW viewWrapper, int open) {
         viewWrapper.getRecyclerView().enableStickEvent(open == 1);
@@ -55,6 +55,7 @@ public class HippyRecyclerViewWrapper<HRCV extends HippyRecyclerView> extends Fr
                 recyclerView.getNodePositionHelper());
         pool.setViewHolderAbandonListener(recyclerView);
         recyclerView.setRecycledViewPool(pool);
+        recyclerView.setItemPreMountHelper(new ItemPreMountHelper(recyclerView, cacheExtension));
 
     }
 
@@ -0,0 +1,273 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.views.hippylist;
+
+import static com.tencent.mtt.hippy.dom.node.NodeProps.IMAGE_CLASS_NAME;
+
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.SparseArray;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.HippyStaggeredGridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.RecyclerView.LayoutManager;
+import com.tencent.renderer.component.image.ImageDataSupplier;
+import com.tencent.renderer.component.image.ImageLoaderAdapter;
+import com.tencent.renderer.component.image.ImageRequestListener;
+import com.tencent.renderer.node.ListItemRenderNode;
+import com.tencent.renderer.node.RenderNode;
+import com.tencent.vfs.UrlUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prefetch the images of the list items ahead of the viewport in the scroll direction, so the
+ * image data is fetched and decoded at the layout size before the items are bound.
+ * The number of prefetched items grows with the scroll velocity, and the requests of the items
+ * that fall out of the prefetch range are cancelled.
+ */
+public class ImagePrefetchHelper {
+
+    private static final String SRC = "src";
+    private static final int DEFAULT_PREFETCH_ITEM_NUMBER = 3;
+    private static final int MAX_PREFETCH_ITEM_NUMBER = 20;
+    /**
+     * The items scrolled into viewport in this duration are prefetched at least.
+     */
+    private static final long PREFETCH_LOOKAHEAD_MILLIS = 500;
+    private final HippyRecyclerView hippyRecyclerView;
+    /**
+     * Pending prefetch requests keyed by the node id of list item.
+     */
+    private final SparseArray<ArrayList<ImageRequestListener>> prefetchRequests = new SparseArray<>();
+    private int prefetchItemNumber = DEFAULT_PREFETCH_ITEM_NUMBER;
+    private long lastScrollTime;
+    private float scrollVelocity;
+    private int lastStartPosition = RecyclerView.NO_POSITION;
+    private int lastEndPosition = RecyclerView.NO_POSITION;
+
+    public ImagePrefetchHelper(HippyRecyclerView recyclerView) {
+        hippyRecyclerView = recyclerView;
+    }
+
+    /**
+     * @param number the minimum number of items to prefetch, it grows with scroll velocity,
+     * 0 to disable image prefetch
+     */
+    public void setPrefetchItemNumber(int number) {
+        prefetchItemNumber = Math.max(0, number);
+        if (prefetchItemNumber == 0) {
+            cancelAll();
+        }
+    }
+
+    public void onScrolled(int dx, int dy) {
+        boolean isVertical = HippyListUtils.isVerticalLayout(hippyRecyclerView);
+        int delta = isVertical ? dy : dx;
+        if (delta == 0 || prefetchItemNumber <= 0) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - lastScrollTime;
+        lastScrollTime = now;
+        if (elapsed > 0 && elapsed < PREFETCH_LOOKAHEAD_MILLIS) {
+            float velocity = (float) Math.abs(delta) / elapsed;
+            scrollVelocity = (scrollVelocity + velocity) / 2;
+        } else {
+            scrollVelocity = 0;
+        }
+        int[] visibleRange = findVisibleRange();
+        if (visibleRange == null) {
+            return;
+        }
+        int number = computePrefetchItemNumber(visibleRange,
+                isVertical ? hippyRecyclerView.getHeight() : hippyRecyclerView.getWidth());
+        int start;
+        int end;
+        if (delta > 0) {
+            start = visibleRange[1] + 1;
+            end = Math.min(visibleRange[1] + number, hippyRecyclerView.getAdapter().getItemCount() - 1);
+        } else {
+            start = Math.max(visibleRange[0] - number, 0);
+            end = visibleRange[0] - 1;
+        }
+        if (start == lastStartPosition && end == lastEndPosition) {
+            return;
+        }
+        lastStartPosition = start;
+        lastEndPosition = end;
+        updatePrefetchRange(start, end);
+    }
+
+    /**
+     * The item is bound to view, its image component will join the pending prefetch requests,
+     * so they are not cancelled any more.
+     */
+    public void onItemBound(@NonNull RenderNode node) {
+        prefetchRequests.remove(node.getId());
+    }
+
+    public void onDestroy() {
+        cancelAll();
+    }
+
+    private int computePrefetchItemNumber(@NonNull int[] visibleRange, int viewportSize) {
+        int visibleCount = visibleRange[1] - visibleRange[0] + 1;
+        if (visibleCount <= 0 || viewportSize <= 0) {
+            return prefetchItemNumber;
+        }
+        float averageItemSize = (float) viewportSize / visibleCount;
+        int number = (int) Math.ceil(scrollVelocity * PREFETCH_LOOKAHEAD_MILLIS / averageItemSize);
+        return Math.min(Math.max(number, prefetchItemNumber), MAX_PREFETCH_ITEM_NUMBER);
+    }
+
+    @Nullable
+    private int[] findVisibleRange() {
+        LayoutManager layoutManager = hippyRecyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+            int first = linearLayoutManager.findFirstVisibleItemPosition();
+            int last = linearLayoutManager.findLastVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+                return null;
+            }
+            return new int[]{first, last};
+        } else if (layoutManager instanceof HippyStaggeredGridLayoutManager) {
+            HippyStaggeredGridLayoutManager staggeredLayoutManager =
+                    (HippyStaggeredGridLayoutManager) layoutManager;
+            int first = Integer.MAX_VALUE;
+            int last = RecyclerView.NO_POSITION;
+            for (int position : staggeredLayoutManager.findFirstVisibleItemPositions(null)) {
+                if (position != RecyclerView.NO_POSITION) {
+                    first = Math.min(first, position);
+                }
+            }
+            for (int position : staggeredLayoutManager.findLastVisibleItemPositions(null)) {
+                last = Math.max(last, position);
+            }
+            if (first == Integer.MAX_VALUE || last == RecyclerView.NO_POSITION) {
+                return null;
+            }
+            return new int[]{first, last};
+        }
+        return null;
+    }
+
+    private void updatePrefetchRange(int start, int end) {
+        HippyRecyclerListAdapter adapter = hippyRecyclerView.getAdapter();
+        SparseArray<ListItemRenderNode> nodesInRange = new SparseArray<>();
+        for (int position = start; position <= end; position++) {
+            ListItemRenderNode node = adapter.getChildNodeByAdapterPosition(position);
+            if (node != null && !node.isPullHeader() && !node.isPullFooter()) {
+                nodesInRange.put(node.getId(), node);
+            }
+        }
+        for (int i = prefetchRequests.size() - 1; i >= 0; i--) {
+            if (nodesInRange.get(prefetchRequests.keyAt(i)) == null) {
+                cancelRequests(prefetchRequests.valueAt(i));
+                prefetchRequests.removeAt(i);
+            }
+        }
+        for (int i = 0; i < nodesInRange.size(); i++) {
+            ListItemRenderNode node = nodesInRange.valueAt(i);
+            if (prefetchRequests.get(node.getId()) == null) {
+                prefetchItem(node);
+            }
+        }
+    }
+
+    private void prefetchItem(@NonNull final ListItemRenderNode itemNode) {
+        ImageLoaderAdapter imageLoader = itemNode.getNativeRender().getImageLoader();
+        if (imageLoader == null) {
+            return;
+        }
+        final ArrayList<ImageRequestListener> listeners = new ArrayList<>();
+        prefetchRequests.put(itemNode.getId(), listeners);
+        prefetchImagesRecursive(imageLoader, itemNode, listeners);
+    }
+
+    private void prefetchImagesRecursive(@NonNull ImageLoaderAdapter imageLoader,
+            @NonNull RenderNode node, @NonNull final ArrayList<ImageRequestListener> listeners) {
+        if (IMAGE_CLASS_NAME.equals(node.getClassName())) {
+            Map<String, Object> props = node.getProps();
+            Object src = (props != null) ? props.get(SRC) : null;
+            if (src instanceof String && !TextUtils.isEmpty((String) src) && UrlUtils.isWebUrl((String) src)) {
+                // Keep the same url and request params as image component, so the request can be
+                // joined and the decoded data can be hit in cache.
+                String url = ((String) src).trim().replaceAll(" ", "%20");
+                Map<String, Object> params = new HashMap<>();
+                params.put("props", props);
+                ImageRequestListener listener = new ImageRequestListener() {
+                    @Override
+                    public void onRequestStart(ImageDataSupplier imageData) {
+                    }
+
+                    @Override
+                    public void onRequestProgress(long total, long loaded) {
+                    }
+
+                    @Override
+                    public void onRequestSuccess(ImageDataSupplier imageData) {
+                        listeners.remove(this);
+                    }
+
+                    @Override
+                    public void onRequestFail(Throwable throwable) {
+                        listeners.remove(this);
+                    }
+                };
+                listeners.add(listener);
+                imageLoader.fetchImageAsync(url, listener, params, node.getWidth(), node.getHeight(),
+                        ImageLoaderAdapter.PRIORITY_PREFETCH);
+            }
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            RenderNode child = node.getChildAt(i);
+            if (child != null) {
+                prefetchImagesRecursive(imageLoader, child, listeners);
+            }
+        }
+    }
+
+    private void cancelRequests(@NonNull ArrayList<ImageRequestListener> listeners) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        ImageLoaderAdapter imageLoader = null;
+        RenderNode listNode = hippyRecyclerView.getAdapter().getParentNode();
+        if (listNode != null) {
+            imageLoader = listNode.getNativeRender().getImageLoader();
+        }
+        if (imageLoader != null) {
+            for (ImageRequestListener listener : new ArrayList<>(listeners)) {
+                imageLoader.cancelImageRequest(listener);
+            }
+        }
+        listeners.clear();
+    }
+
+    private void cancelAll() {
+        for (int i = 0; i < prefetchRequests.size(); i++) {
+            cancelRequests(prefetchRequests.valueAt(i));
+        }
+        prefetchRequests.clear();
+        lastStartPosition = RecyclerView.NO_POSITION;
+        lastEndPosition = RecyclerView.NO_POSITION;
+    }
+}
@@ -0,0 +1,334 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.mtt.hippy.views.hippylist;
+
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.Display;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.HippyRecyclerExtension;
+import androidx.recyclerview.widget.HippyStaggeredGridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.RecyclerView.LayoutManager;
+import com.tencent.mtt.hippy.uimanager.ControllerManager;
+import com.tencent.mtt.hippy.utils.LogUtils;
+import com.tencent.mtt.hippy.views.image.HippyImageViewController;
+import com.tencent.mtt.hippy.views.text.HippyTextViewController;
+import com.tencent.renderer.node.ListItemRenderNode;
+import com.tencent.renderer.node.RenderNode;
+import java.util.ArrayDeque;
+
+/**
+ * Pre mount the view trees of the items next to the viewport in idle frames.
+ *
+ * <p>After each frame is drawn, the remaining time before the next vsync is used to pre create
+ * the views of upcoming item nodes one by one into the pre create view pool, and then assemble
+ * the item view holder, which is handed to recycler view by {@link HippyRecyclerExtension}, so
+ * binding the item in layout only needs to attach the prepared view tree.</p>
+ */
+public class ItemPreMountHelper extends RecyclerView.OnScrollListener implements
+        Choreographer.FrameCallback {
+
+    private static final String TAG = "ItemPreMountHelper";
+    private static final int DEFAULT_PRE_MOUNT_ITEM_NUMBER = 2;
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+    /**
+     * Leave some time of the idle frame for other tasks in main looper.
+     */
+    private static final float FRAME_BUDGET_RATIO = 0.8f;
+    private final HippyRecyclerView hippyRecyclerView;
+    private final HippyRecyclerExtension cacheExtension;
+    private final ArrayDeque<RenderNode> pendingNodes = new ArrayDeque<>();
+    private int preMountItemNumber = DEFAULT_PRE_MOUNT_ITEM_NUMBER;
+    private int scrollDirection = 1;
+    private boolean frameScheduled;
+    private boolean destroyed;
+    @Nullable
+    private ListItemRenderNode targetNode;
+    private int targetPosition = RecyclerView.NO_POSITION;
+    /**
+     * Moving average cost of assembling one item holder.
+     */
+    private long assembleCostNanos;
+
+    public ItemPreMountHelper(HippyRecyclerView recyclerView, HippyRecyclerExtension extension) {
+        hippyRecyclerView = recyclerView;
+        cacheExtension = extension;
+        hippyRecyclerView.addOnScrollListener(this);
+    }
+
+    /**
+     * @param number the max number of items pre mounted in scroll direction, 0 to disable
+     */
+    public void setPreMountItemNumber(int number) {
+        preMountItemNumber = Math.max(0, number);
+        if (preMountItemNumber == 0) {
+            resetTarget();
+            cacheExtension.discardPreMountedHolders(null);
+        } else {
+            scheduleIfNeeded();
+        }
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        int delta = HippyListUtils.isVerticalLayout(hippyRecyclerView) ? dy : dx;
+        if (delta != 0) {
+            int direction = (delta > 0) ? 1 : -1;
+            if (direction != scrollDirection) {
+                scrollDirection = direction;
+                resetTarget();
+            }
+        }
+        scheduleIfNeeded();
+    }
+
+    /**
+     * List data changed, the holders of deleted nodes are dropped.
+     */
+    public void onDataChanged() {
+        resetTarget();
+        cacheExtension.discardPreMountedHolders(collectUpcomingNodes());
+        scheduleIfNeeded();
+    }
+
+    public void onDestroy() {
+        destroyed = true;
+        resetTarget();
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameScheduled = false;
+        }
+    }
+
+    private void scheduleIfNeeded() {
+        if (frameScheduled || destroyed || preMountItemNumber <= 0) {
+            return;
+        }
+        frameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (destroyed) {
+            return;
+        }
+        final long deadlineNanos = frameTimeNanos + (long) (getFrameIntervalNanos() * FRAME_BUDGET_RATIO);
+        // Frame callbacks run before traversal, post to main looper so that the pre mount work
+        // runs after this frame is drawn.
+        hippyRecyclerView.post(new Runnable() {
+            @Override
+            public void run() {
+                runIdleTasks(deadlineNanos);
+            }
+        });
+    }
+
+    private long getFrameIntervalNanos() {
+        Display display = hippyRecyclerView.getDisplay();
+        float refreshRate = (display != null) ? display.getRefreshRate() : 0;
+        return (refreshRate >= 30) ? (long) (1_000_000_000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    private void runIdleTasks(long deadlineNanos) {
+        if (destroyed || !canPreMount()) {
+            return;
+        }
+        boolean hasMoreWork = true;
+        while (hasMoreWork) {
+            long costNanos = pendingNodes.isEmpty() ? assembleCostNanos : 0;
+            if (System.nanoTime() + costNanos >= deadlineNanos) {
+                break;
+            }
+            hasMoreWork = doNextTask();
+        }
+        if (hasMoreWork) {
+            scheduleIfNeeded();
+        }
+    }
+
+    private boolean canPreMount() {
+        return hippyRecyclerView.isAttachedToWindow() && hippyRecyclerView.getAdapter() != null
+                && !hippyRecyclerView.isComputingLayout() && !hippyRecyclerView.hasPendingAdapterUpdates();
+    }
+
+    /**
+     * Pre create one view, or assemble one item holder when all the views of the item are created.
+     *
+     * @return whether there is more work to do
+     */
+    private boolean doNextTask() {
+        if (targetNode == null || !isValidTarget(targetNode, targetPosition)) {
+            resetTarget();
+            if (!findNextTarget()) {
+                return false;
+            }
+        }
+        ControllerManager controllerManager = targetNode.getNativeRender().getRenderManager()
+                .getControllerManager();
+        RenderNode node = pendingNodes.poll();
+        if (node != null) {
+            if (!node.isDeleted() && node.getHostView() == null
+                    && controllerManager.getPreView(node.getRootId(), node.getId()) == null) {
+                controllerManager.preCreateView(node.getRootId(), node.getId(), node.getClassName(),
+                        node.getProps());
+            }
+            return true;
+        }
+        assembleHolder(targetNode, targetPosition);
+        resetTarget();
+        return true;
+    }
+
+    private void assembleHolder(@NonNull ListItemRenderNode node, int position) {
+        long startNanos = System.nanoTime();
+        HippyRecyclerListAdapter adapter = hippyRecyclerView.getAdapter();
+        try {
+            int viewType = adapter.getItemViewType(position);
+            HippyRecyclerViewHolder holder = (HippyRecyclerViewHolder) adapter.createViewHolder(
+                    hippyRecyclerView, viewType);
+            cacheExtension.addPreMountedHolder(holder);
+        } catch (RuntimeException e) {
+            LogUtils.w(TAG, "assembleHolder: position " + position + ", " + e.getMessage());
+        }
+        long costNanos = System.nanoTime() - startNanos;
+        assembleCostNanos = (assembleCostNanos == 0) ? costNanos : (assembleCostNanos + costNanos) / 2;
+    }
+
+    private void resetTarget() {
+        targetNode = null;
+        targetPosition = RecyclerView.NO_POSITION;
+        pendingNodes.clear();
+    }
+
+    private boolean isValidTarget(@NonNull ListItemRenderNode node, int position) {
+        return !node.isDeleted() && node.getHostView() == null && !cacheExtension.hasPreMountedHolder(node)
+                && hippyRecyclerView.getAdapter().getChildNodeByAdapterPosition(position) == node;
+    }
+
+    private boolean findNextTarget() {
+        int[] range = findUpcomingRange();
+        if (range == null) {
+            return false;
+        }
+        if (cacheExtension.getPreMountedHolderCount() >= preMountItemNumber) {
+            // Drop the holders out of range, such as the ones pre mounted for the other direction.
+            cacheExtension.discardPreMountedHolders(collectUpcomingNodes());
+        }
+        HippyRecyclerListAdapter adapter = hippyRecyclerView.getAdapter();
+        for (int i = 0; i <= range[1] - range[0]; i++) {
+            if (cacheExtension.getPreMountedHolderCount() >= preMountItemNumber) {
+                return false;
+            }
+            int position = (scrollDirection > 0) ? range[0] + i : range[1] - i;
+            ListItemRenderNode node = adapter.getChildNodeByAdapterPosition(position);
+            if (node == null || node.isPullHeader() || node.isPullFooter() || node.shouldSticky()) {
+                continue;
+            }
+            if (isValidTarget(node, position)) {
+                targetNode = node;
+                targetPosition = position;
+                collectPendingNodes(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the nodes of the item whose view could be pre created, image and text may be
+     * rendered flat, and the children of lazy nodes such as nested list are created by themselves.
+     */
+    private void collectPendingNodes(@NonNull RenderNode node) {
+        ControllerManager controllerManager = node.getNativeRender().getRenderManager().getControllerManager();
+        String className = node.getClassName();
+        if (className.equals(HippyImageViewController.CLASS_NAME)
+                || className.equals(HippyTextViewController.CLASS_NAME)
+                || (controllerManager.checkFlatten(className) && node.getChildCount() == 0)) {
+            return;
+        }
+        pendingNodes.add(node);
+        if (controllerManager.checkLazy(className)) {
+            return;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            RenderNode child = node.getChildAt(i);
+            if (child != null) {
+                collectPendingNodes(child);
+            }
+        }
+    }
+
+    @NonNull
+    private SparseArray<ListItemRenderNode> collectUpcomingNodes() {
+        int[] range = findUpcomingRange();
+        SparseArray<ListItemRenderNode> nodes = new SparseArray<>();
+        if (range == null) {
+            return nodes;
+        }
+        HippyRecyclerListAdapter adapter = hippyRecyclerView.getAdapter();
+        for (int position = range[0]; position <= range[1]; position++) {
+            ListItemRenderNode node = adapter.getChildNodeByAdapterPosition(position);
+            if (node != null) {
+                nodes.put(node.getId(), node);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the adapter positions next to the viewport in scroll direction
+     */
+    @Nullable
+    private int[] findUpcomingRange() {
+        LayoutManager layoutManager = hippyRecyclerView.getLayoutManager();
+        int first = RecyclerView.NO_POSITION;
+        int last = RecyclerView.NO_POSITION;
+        if (layoutManager instanceof LinearLayoutManager) {
+            first = ((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition();
+            last = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        } else if (layoutManager instanceof HippyStaggeredGridLayoutManager) {
+            HippyStaggeredGridLayoutManager staggeredLayoutManager =
+                    (HippyStaggeredGridLayoutManager) layoutManager;
+            for (int position : staggeredLayoutManager.findFirstVisibleItemPositions(null)) {
+                if (position != RecyclerView.NO_POSITION) {
+                    first = (first == RecyclerView.NO_POSITION) ? position : Math.min(first, position);
+                }
+            }
+            for (int position : staggeredLayoutManager.findLastVisibleItemPositions(null)) {
+                last = Math.max(last, position);
+            }
+        }
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return null;
+        }
+        int itemCount = hippyRecyclerView.getAdapter().getItemCount();
+        int start;
+        int end;
+        if (scrollDirection > 0) {
+            start = last + 1;
+            end = Math.min(last + preMountItemNumber, itemCount - 1);
+        } else {
+            start = Math.max(first - preMountItemNumber, 0);
+            end = first - 1;
+        }
+        return (start <= end) ? new int[]{start, end} : null;
+    }
+}
@@ -80,9 +80,11 @@ public class RecyclerViewEventHelper extends OnScrollListener implements OnLayou
     private boolean isLastTimeReachEnd;
     private int preloadItemNumber;
     private Rect reusableExposureStateRect = new Rect();
+    private final ImagePrefetchHelper imagePrefetchHelper;
 
     public RecyclerViewEventHelper(HippyRecyclerView recyclerView) {
         this.hippyRecyclerView = recyclerView;
+        this.imagePrefetchHelper = new ImagePrefetchHelper(recyclerView);
         hippyRecyclerView.addOnScrollListener(this);
         hippyRecyclerView.addOnAttachStateChangeListener(this);
         hippyRecyclerView.addOnLayoutChangeListener(this);
@@ -199,6 +201,7 @@ public class RecyclerViewEventHelper extends OnScrollListener implements OnLayou
         }
         checkSendExposureEvent();
         checkSendReachEndEvent();
+        imagePrefetchHelper.onScrolled(dx, dy);
     }
 
     protected boolean scrollHappened(int dx, int dy) {
@@ -514,6 +517,10 @@ public class RecyclerViewEventHelper extends OnScrollListener implements OnLayou
         return newState == HippyOverPullHelper.OVER_PULL_DOWN_ING || newState == HippyOverPullHelper.OVER_PULL_UP_ING;
     }
 
+    public ImagePrefetchHelper getImagePrefetchHelper() {
+        return imagePrefetchHelper;
+    }
+
     /**
      * @param preloadItemNumber 提前多少条Item，通知前端加载下一页数据
      */
@@ -34,7 +34,8 @@ import com.tencent.renderer.utils.ArrayUtils;
 
 import java.util.List;
 
-@HippyController(name = HippyViewGroupController.CLASS_NAME, dispatchWithStandardType = true)
+@HippyController(name = HippyViewGroupController.CLASS_NAME, dispatchWithStandardType = true,
+        supportBackgroundCreate = true)
 public class HippyViewGroupController extends HippyGroupController<HippyViewGroup> {
 
     private static final String TAG = "HippyViewGroupController";
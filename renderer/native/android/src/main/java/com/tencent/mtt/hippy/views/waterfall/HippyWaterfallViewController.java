@@ -41,6 +41,7 @@ import com.tencent.mtt.hippy.utils.PixelUtil;
 import com.tencent.mtt.hippy.views.hippylist.HippyListUtils;
 import com.tencent.mtt.hippy.views.hippylist.HippyRecyclerView;
 import com.tencent.mtt.hippy.views.hippylist.HippyRecyclerViewWrapper;
+import com.tencent.mtt.hippy.views.hippylist.ItemPreMountHelper;
 import com.tencent.renderer.NativeRenderContext;
 import com.tencent.renderer.node.RenderNode;
 import com.tencent.renderer.node.WaterfallRenderNode;
@@ -162,6 +163,19 @@ public class HippyWaterfallViewController<HRW extends HippyRecyclerViewWrapper>
         recyclerViewWrapper.getRecyclerViewEventHelper().setPreloadItemNumber(preloadItemNumber);
     }
 
+    @HippyControllerProps(name = "imagePrefetchItemNumber", defaultType = HippyControllerProps.NUMBER, defaultNumber = 3)
+    public void setImagePrefetchItemNumber(HRW recyclerViewWrapper, int number) {
+        recyclerViewWrapper.getRecyclerViewEventHelper().getImagePrefetchHelper().setPrefetchItemNumber(number);
+    }
+
+    @HippyControllerProps(name = "preMountItemNumber", defaultType = HippyControllerProps.NUMBER, defaultNumber = 2)
+    public void setPreMountItemNumber(HRW recyclerViewWrapper, int number) {
+        ItemPreMountHelper helper = recyclerViewWrapper.getRecyclerView().getItemPreMountHelper();
+        if (helper != null) {
+            helper.setPreMountItemNumber(number);
+        }
+    }
+
     @HippyControllerProps(name = NodeProps.ITEM_SPACING, defaultType = HippyControllerProps.NUMBER, defaultNumber = 0)
     public void setItemSpacing(HRW recyclerViewWrapper, int itemSpacing) {
         HippyRecyclerView recyclerView = recyclerViewWrapper.getRecyclerView();
@@ -29,6 +29,7 @@ import com.tencent.mtt.hippy.uimanager.RenderManager;
 import com.tencent.renderer.component.image.ImageDecoderAdapter;
 import com.tencent.renderer.component.image.ImageLoaderAdapter;
 import com.tencent.renderer.component.text.FontAdapter;
+import com.tencent.renderer.component.text.TextLayoutCache;
 import com.tencent.renderer.node.VirtualNode;
 
 import com.tencent.renderer.utils.EventUtils.EventType;
@@ -58,6 +59,9 @@ public interface NativeRender extends RenderExceptionHandler, RenderLogHandler {
     @Nullable
     FontAdapter getFontAdapter();
 
+    @NonNull
+    TextLayoutCache getTextLayoutCache();
+
     @Nullable
     ImageDecoderAdapter getImageDecoderAdapter();
 
@@ -18,12 +18,16 @@ package com.tencent.renderer;
 
 import androidx.annotation.NonNull;
 
+import com.tencent.renderer.serialization.LayoutBatch;
+import com.tencent.renderer.serialization.NodeRecordReader;
 import java.util.List;
 
 public interface NativeRenderDelegate extends RenderExceptionHandler, RenderLogHandler {
 
     void createNode(int rootId, @NonNull List<Object> nodeList) throws NativeRenderException;
 
+    void createNode(int rootId, @NonNull NodeRecordReader reader) throws NativeRenderException;
+
     void updateNode(int rootId, @NonNull List<Object> nodeList) throws NativeRenderException;
 
     void deleteNode(int rootId, @NonNull int[] ids) throws NativeRenderException;
@@ -34,6 +38,8 @@ public interface NativeRenderDelegate extends RenderExceptionHandler, RenderLogH
 
     void updateLayout(int rootId, @NonNull List<Object> list) throws NativeRenderException;
 
+    void updateLayout(int rootId, @NonNull LayoutBatch batch) throws NativeRenderException;
+
     void updateEventListener(int rootId, @NonNull List<Object> eventList) throws NativeRenderException;
 
     void callUIFunction(int rootId, int id, long callbackId, String functionName,
@@ -80,9 +80,9 @@ public class NativeRenderException extends RuntimeException {
         UI_TASK_QUEUE_ADD_ERR,
 
         /**
-         * If fail to insert an element into the ui task queue because of IllegalStateException
+         * If the dom thread is interrupted while waiting for the ui task queue to drain
          *
-         * @see com.tencent.renderer.NativeRenderer#addUITask(UITaskExecutor)
+         * @see com.tencent.renderer.UITaskScheduler#commitBatch()
          */
         UI_TASK_QUEUE_UNAVAILABLE_ERR,
 
@@ -24,10 +24,13 @@ import com.tencent.mtt.hippy.serialization.nio.reader.BinaryReader;
 import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
 import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
 import com.tencent.mtt.hippy.serialization.string.InternalizedStringTable;
+import com.tencent.mtt.hippy.serialization.string.StringTable;
 import com.tencent.mtt.hippy.utils.PixelUtil;
 import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import com.tencent.renderer.annotation.CalledByNative;
 import com.tencent.renderer.serialization.Deserializer;
+import com.tencent.renderer.serialization.LayoutBatch;
+import com.tencent.renderer.serialization.NodeRecordReader;
 import com.tencent.renderer.serialization.Serializer;
 
 import java.lang.ref.WeakReference;
@@ -44,7 +47,7 @@ import java.util.List;
 public class NativeRenderProvider {
 
     @NonNull
-    private final Deserializer mDeserializer;
+    private Deserializer mDeserializer;
     @NonNull
     private final Serializer mSerializer;
     @NonNull
@@ -53,7 +56,12 @@ public class NativeRenderProvider {
     private BinaryReader mSafeHeapReader;
     @Nullable
     private SafeHeapWriter mSafeHeapWriter;
+    @Nullable
+    private NodeRecordReader mNodeRecordReader;
+    @Nullable
+    private LayoutBatch mLayoutBatch;
     private int mInstanceId;
+    private boolean mSharedStringTable;
 
     public NativeRenderProvider(@NonNull NativeRenderDelegate renderDelegate) {
         mRenderDelegateRef = new WeakReference<>(renderDelegate);
@@ -73,8 +81,29 @@ public class NativeRenderProvider {
         return mInstanceId;
     }
 
+    /**
+     * Use the string table shared by the engine, so keys internalized by the module manager
+     * deserializers are reused here as well.
+     *
+     * @param stringTable the shared string table, the owner is responsible for releasing it
+     */
+    public void setStringTable(@Nullable StringTable stringTable) {
+        if (stringTable == null || stringTable == mDeserializer.getStringTable()) {
+            return;
+        }
+        if (!mSharedStringTable) {
+            mDeserializer.getStringTable().release();
+        }
+        mDeserializer = new Deserializer(null, stringTable);
+        mNodeRecordReader = null;
+        mLayoutBatch = null;
+        mSharedStringTable = true;
+    }
+
     public void destroy() {
-        mDeserializer.getStringTable().release();
+        if (!mSharedStringTable) {
+            mDeserializer.getStringTable().release();
+        }
     }
 
     /**
@@ -100,6 +129,50 @@ public class NativeRenderProvider {
         return (paramsObj instanceof ArrayList) ? (ArrayList) paramsObj : new ArrayList<>();
     }
 
+    /**
+     * Prepare the node record reader for dom node data wrapped by ByteBuffer, the node records are
+     * decoded one by one while iterating, instead of materializing the whole node list at once
+     *
+     * @param buffer the byte array from native (C++) DOM wrapped by {@link ByteBuffer}
+     * @return the {@link NodeRecordReader} positioned at the first node record
+     * @throws NativeRenderException if the node data is malformed
+     */
+    @NonNull
+    NodeRecordReader bytesToNodeReader(ByteBuffer buffer) throws NativeRenderException {
+        if (mSafeHeapReader == null) {
+            mSafeHeapReader = new SafeHeapReader();
+        }
+        mSafeHeapReader.reset(buffer);
+        mDeserializer.setReader(mSafeHeapReader);
+        if (mNodeRecordReader == null) {
+            mNodeRecordReader = new NodeRecordReader(mDeserializer);
+        }
+        mNodeRecordReader.begin();
+        return mNodeRecordReader;
+    }
+
+    /**
+     * Decode layout data wrapped by ByteBuffer into primitive arrays, no map or boxed number is
+     * created for the layout entries
+     *
+     * @param buffer the byte array from native (C++) DOM wrapped by {@link ByteBuffer}
+     * @return the decoded {@link LayoutBatch}, reused by the next call
+     * @throws NativeRenderException if the layout data is malformed
+     */
+    @NonNull
+    LayoutBatch bytesToLayoutBatch(ByteBuffer buffer) throws NativeRenderException {
+        if (mSafeHeapReader == null) {
+            mSafeHeapReader = new SafeHeapReader();
+        }
+        mSafeHeapReader.reset(buffer);
+        mDeserializer.setReader(mSafeHeapReader);
+        if (mLayoutBatch == null) {
+            mLayoutBatch = new LayoutBatch(mDeserializer);
+        }
+        mLayoutBatch.decode();
+        return mLayoutBatch;
+    }
+
     /**
      * Serialize UI event params object, and use {@link ByteBuffer} to wrap the result, just support
      * heap buffer writer, direct buffer writer not fit for event data
@@ -134,8 +207,7 @@ public class NativeRenderProvider {
         NativeRenderDelegate renderDelegate = mRenderDelegateRef.get();
         if (renderDelegate != null) {
             try {
-                final List<Object> list = bytesToArgument(ByteBuffer.wrap(buffer));
-                renderDelegate.createNode(rootId, list);
+                renderDelegate.createNode(rootId, bytesToNodeReader(ByteBuffer.wrap(buffer)));
             } catch (NativeRenderException e) {
                 renderDelegate.handleRenderException(e);
             }
@@ -241,8 +313,7 @@ public class NativeRenderProvider {
         NativeRenderDelegate renderDelegate = mRenderDelegateRef.get();
         if (renderDelegate != null) {
             try {
-                final List<Object> list = bytesToArgument(ByteBuffer.wrap(buffer));
-                renderDelegate.updateLayout(rootId, list);
+                renderDelegate.updateLayout(rootId, bytesToLayoutBatch(ByteBuffer.wrap(buffer)));
             } catch (NativeRenderException e) {
                 renderDelegate.handleRenderException(e);
             }
@@ -20,11 +20,11 @@ import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_BOTTOM;
 import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_LEFT;
 import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_RIGHT;
 import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_TOP;
-import static com.tencent.renderer.NativeRenderException.ExceptionCode.UI_TASK_QUEUE_ADD_ERR;
 import static com.tencent.renderer.NativeRenderException.ExceptionCode.INVALID_NODE_DATA_ERR;
-import static com.tencent.renderer.NativeRenderException.ExceptionCode.UI_TASK_QUEUE_UNAVAILABLE_ERR;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Rect;
 import android.text.Layout;
 import android.view.View;
@@ -35,6 +35,7 @@ import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.openhippy.pool.ImageDiskCache;
 import com.tencent.mtt.hippy.common.BaseEngineContext;
 import com.tencent.mtt.hippy.common.Callback;
 import com.tencent.mtt.hippy.common.LogAdapter;
@@ -42,6 +43,7 @@ import com.tencent.mtt.hippy.serialization.nio.reader.BinaryReader;
 import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
 import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
 import com.tencent.mtt.hippy.serialization.string.InternalizedStringTable;
+import com.tencent.mtt.hippy.utils.ContextHolder;
 import com.tencent.mtt.hippy.utils.PixelUtil;
 import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import com.tencent.mtt.hippy.views.image.HippyImageViewController;
@@ -50,6 +52,7 @@ import com.tencent.renderer.component.image.ImageDecoderAdapter;
 import com.tencent.renderer.component.image.ImageLoader;
 import com.tencent.renderer.component.image.ImageLoaderAdapter;
 import com.tencent.renderer.component.text.FontAdapter;
+import com.tencent.renderer.component.text.TextLayoutCache;
 import com.tencent.renderer.component.text.TextRenderSupplier;
 import com.tencent.renderer.node.ListItemRenderNode;
 import com.tencent.renderer.node.RenderNode;
@@ -59,6 +62,8 @@ import com.tencent.renderer.node.VirtualNode;
 import com.tencent.renderer.node.VirtualNodeManager;
 
 import com.tencent.renderer.serialization.Deserializer;
+import com.tencent.renderer.serialization.LayoutBatch;
+import com.tencent.renderer.serialization.NodeRecordReader;
 import com.tencent.renderer.serialization.Serializer;
 import com.tencent.renderer.utils.ArrayUtils;
 import com.tencent.renderer.utils.ChoreographerUtils;
@@ -67,6 +72,7 @@ import com.tencent.renderer.utils.EventUtils.EventType;
 
 import com.tencent.renderer.utils.MapUtils;
 import com.tencent.vfs.VfsManager;
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,11 +81,9 @@ import java.util.Map;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import com.tencent.mtt.hippy.utils.LogUtils;
 import com.tencent.mtt.hippy.HippyInstanceLifecycleEventListener;
@@ -99,6 +103,7 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     public static final String NODE_INDEX = "index";
     public static final String NODE_PROPS = "props";
     private static final String TAG = "NativeRenderer";
+    private static final String IMAGE_DISK_CACHE_DIR = "hippy_image_cache";
     private static final String NODE_PID = "pId";
     private static final String NODE_DELETE_PROPS = "deleteProps";
     private static final String CLASS_NAME = "name";
@@ -112,7 +117,8 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     private static final String PAINT_TYPE_KEY = "paintType";
     private static final String FCP_VALUE = "fcp";
     /**
-     * The max capacity of UI task queue
+     * The max count of UI tasks waiting for execution, the dom thread will be blocked when
+     * exceed.
      */
     private static final int MAX_UI_TASK_QUEUE_CAPACITY = 1000;
     private static final int ROOT_VIEW_ID_INCREMENT = 10;
@@ -126,7 +132,7 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     @NonNull
     private final NativeRenderProvider mRenderProvider;
     @NonNull
-    private final BlockingQueue<UITaskExecutor> mUITaskQueue;
+    private final UITaskScheduler mUITaskScheduler;
     @NonNull
     private final RenderManager mRenderManager;
     @NonNull
@@ -135,6 +141,10 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     private ExecutorService mBackgroundExecutor;
     @Nullable
     private ImageLoaderAdapter mImageLoader;
+    @Nullable
+    private ComponentCallbacks2 mMemoryTrimCallbacks;
+    @NonNull
+    private final TextLayoutCache mTextLayoutCache = new TextLayoutCache();
 
     public enum FCPBatchState {
         WATCHING,
@@ -146,7 +156,7 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         mRenderProvider = new NativeRenderProvider(this);
         // Should restrictions the capacity of ui task queue, to avoid js make huge amount of
         // node operation cause OOM.
-        mUITaskQueue = new LinkedBlockingQueue<>(MAX_UI_TASK_QUEUE_CAPACITY);
+        mUITaskScheduler = new UITaskScheduler(MAX_UI_TASK_QUEUE_CAPACITY);
         mRenderManager = new RenderManager(this);
         mVirtualNodeManager = new VirtualNodeManager(this);
     }
@@ -210,11 +220,54 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     @Nullable
     public ImageLoaderAdapter getImageLoader() {
         if (mImageLoader == null && getVfsManager() != null) {
-            mImageLoader = new ImageLoader(getVfsManager(), getImageDecoderAdapter());
+            mImageLoader = createImageLoader(getVfsManager());
         }
         return mImageLoader;
     }
 
+    @NonNull
+    private ImageLoaderAdapter createImageLoader(@NonNull VfsManager vfsManager) {
+        long diskCacheSize = (mFrameworkProxy instanceof ImageCacheProxy)
+                ? ((ImageCacheProxy) mFrameworkProxy).getImageDiskCacheSize() : 0;
+        ImageDiskCache diskCache = null;
+        if (diskCacheSize > 0) {
+            diskCache = new ImageDiskCache(
+                    new File(ContextHolder.getAppContext().getCacheDir(), IMAGE_DISK_CACHE_DIR),
+                    diskCacheSize);
+        }
+        final ImageLoaderAdapter imageLoader = new ImageLoader(vfsManager,
+                getImageDecoderAdapter(), diskCache, getBackgroundExecutor());
+        mMemoryTrimCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                imageLoader.onTrimMemory(level);
+                reportImageCacheStatistics(imageLoader);
+                if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                    mTextLayoutCache.clear();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        };
+        ContextHolder.getAppContext().registerComponentCallbacks(mMemoryTrimCallbacks);
+        return imageLoader;
+    }
+
+    private void reportImageCacheStatistics(@NonNull ImageLoaderAdapter imageLoader) {
+        FrameworkProxy frameworkProxy = mFrameworkProxy;
+        if (frameworkProxy instanceof ImageCacheProxy) {
+            ((ImageCacheProxy) frameworkProxy).onImageCacheStatistics(
+                    imageLoader.getCacheStatistics());
+        }
+    }
+
     @Override
     @Nullable
     public VfsManager getVfsManager() {
@@ -233,6 +286,12 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         return (mFrameworkProxy != null) ? mFrameworkProxy.getFontAdapter() : null;
     }
 
+    @Override
+    @NonNull
+    public TextLayoutCache getTextLayoutCache() {
+        return mTextLayoutCache;
+    }
+
     @Nullable
     public LogAdapter getLogAdapter() {
         return (mFrameworkProxy != null) ? mFrameworkProxy.getLogAdapter() : null;
@@ -295,6 +354,9 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
     @Override
     public void setFrameworkProxy(@NonNull FrameworkProxy proxy) {
         mFrameworkProxy = proxy;
+        if (proxy instanceof StringTableProxy) {
+            mRenderProvider.setStringTable(((StringTableProxy) proxy).getStringTable());
+        }
     }
 
     @Override
@@ -306,13 +368,21 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
             mBackgroundExecutor = null;
         }
         mRenderProvider.destroy();
+        mUITaskScheduler.destroy();
         mRenderManager.destroy();
         if (mInstanceLifecycleEventListeners != null) {
             mInstanceLifecycleEventListeners.clear();
         }
+        if (mMemoryTrimCallbacks != null) {
+            ContextHolder.getAppContext().unregisterComponentCallbacks(mMemoryTrimCallbacks);
+            mMemoryTrimCallbacks = null;
+        }
         if (mImageLoader != null) {
+            reportImageCacheStatistics(mImageLoader);
             mImageLoader.destroy();
         }
+        LogUtils.d(TAG, "destroy: " + mTextLayoutCache);
+        mTextLayoutCache.clear();
         mFrameworkProxy = null;
         NativeRendererManager.removeNativeRendererInstance(mRenderProvider.getInstanceId());
     }
@@ -504,7 +574,6 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         }
     }
 
-    @SuppressWarnings({"unchecked"})
     @Override
     public void createNode(final int rootId, @NonNull List<Object> nodeList)
             throws NativeRenderException {
@@ -520,51 +589,97 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
             final int nodePid = MapUtils.getIntValue(node, NODE_PID, INVALID_NODE_ID);
             final int nodeIndex = MapUtils.getIntValue(node, NODE_INDEX, INVALID_NODE_ID);
             final String className = MapUtils.getStringValue(node, CLASS_NAME);
-            // The node id, pid and index should not be negative number.
-            if (nodeId < 0 || nodePid < 0 || nodeIndex < 0 || className == null) {
-                throw new NativeRenderException(INVALID_NODE_DATA_ERR,
-                        TAG + ": createNode: id " + nodeId + ", pId " + nodePid + ", index "
-                                + nodeIndex + ", className " + className);
-            }
             final Map<String, Object> props = MapUtils.getMapValue(node, NODE_PROPS);
-            if (LogUtils.isDebugMode()) {
-                LogUtils.d(TAG, "createNode: id " + nodeId + ", pid " + nodePid
-                        + ", index " + nodeIndex + ", name " + className + "\n  props " + props
-                        + "\n ");
-            }
-            updateFcpStateIfNeeded(rootId, props);
-            mVirtualNodeManager.createNode(rootId, nodeId, nodePid, nodeIndex, className, props);
-            // If multiple level are nested, the parent is outermost text node.
-            VirtualNode parent = mVirtualNodeManager.checkVirtualParent(rootId, nodeId);
-            // If restoring snapshots, create node is called directly on the UI thread,
-            // and do not need to use the UI task
-            if (rootId == SCREEN_SNAPSHOT_ROOT_ID) {
-                if (parent == null) {
-                    mRenderManager.createNode(rootId, nodeId, nodePid, nodeIndex, className, props);
-                }
-                continue;
+            createNodeImpl(rootId, nodeId, nodePid, nodeIndex, className, props, node,
+                    createNodeTaskList, createViewTaskList);
+        }
+        commitCreateNodeTasks(createNodeTaskList, createViewTaskList);
+    }
+
+    @Override
+    public void createNode(final int rootId, @NonNull NodeRecordReader reader)
+            throws NativeRenderException {
+        final List<UITaskExecutor> createNodeTaskList = new ArrayList<>(reader.getCount());
+        final List<UITaskExecutor> createViewTaskList = new ArrayList<>(reader.getCount());
+        while (reader.next()) {
+            createNodeImpl(rootId, reader.getNodeId(), reader.getNodePid(), reader.getNodeIndex(),
+                    reader.getClassName(), reader.getProps(), null, createNodeTaskList,
+                    createViewTaskList);
+        }
+        commitCreateNodeTasks(createNodeTaskList, createViewTaskList);
+    }
+
+    private void createNodeImpl(final int rootId, final int nodeId, final int nodePid,
+            final int nodeIndex, @Nullable final String className,
+            @Nullable final Map<String, Object> props, @Nullable Map<String, Object> node,
+            @NonNull List<UITaskExecutor> createNodeTaskList,
+            @NonNull List<UITaskExecutor> createViewTaskList) throws NativeRenderException {
+        // The node id, pid and index should not be negative number.
+        if (nodeId < 0 || nodePid < 0 || nodeIndex < 0 || className == null) {
+            throw new NativeRenderException(INVALID_NODE_DATA_ERR,
+                    TAG + ": createNode: id " + nodeId + ", pId " + nodePid + ", index "
+                            + nodeIndex + ", className " + className);
+        }
+        if (LogUtils.isDebugMode()) {
+            LogUtils.d(TAG, "createNode: id " + nodeId + ", pid " + nodePid
+                    + ", index " + nodeIndex + ", name " + className + "\n  props " + props
+                    + "\n ");
+        }
+        updateFcpStateIfNeeded(rootId, props);
+        mVirtualNodeManager.createNode(rootId, nodeId, nodePid, nodeIndex, className, props);
+        // If multiple level are nested, the parent is outermost text node.
+        VirtualNode parent = mVirtualNodeManager.checkVirtualParent(rootId, nodeId);
+        // If restoring snapshots, create node is called directly on the UI thread,
+        // and do not need to use the UI task
+        if (rootId == SCREEN_SNAPSHOT_ROOT_ID) {
+            if (parent == null) {
+                mRenderManager.createNode(rootId, nodeId, nodePid, nodeIndex, className, props);
             }
-            if (parent != null) {
-                final int pid = parent.getId();
-                // If the node has a virtual parent, no need to create corresponding render node,
-                // but need set the node data to the parent, for render node snapshot.
-                createNodeTaskList.add(
-                        () -> mRenderManager.onCreateVirtualNode(rootId, nodeId, pid, nodeIndex,
-                                node));
-            } else {
-                createNodeTaskList.add(
-                        () -> mRenderManager.createNode(rootId, nodeId, nodePid, nodeIndex,
-                                className,
+            return;
+        }
+        if (parent != null) {
+            final int pid = parent.getId();
+            // The node records read by NodeRecordReader are not materialized as map,
+            // build the node data here only for the virtual node snapshot.
+            final Map<String, Object> nodeData = (node != null) ? node
+                    : buildNodeData(nodeId, nodePid, nodeIndex, className, props);
+            // If the node has a virtual parent, no need to create corresponding render node,
+            // but need set the node data to the parent, for render node snapshot.
+            createNodeTaskList.add(
+                    () -> mRenderManager.onCreateVirtualNode(rootId, nodeId, pid, nodeIndex,
+                            nodeData));
+        } else {
+            createNodeTaskList.add(
+                    () -> mRenderManager.createNode(rootId, nodeId, nodePid, nodeIndex,
+                            className,
+                            props));
+            // Because image and text may be rendered flat, it is not necessary to pre create a view.
+            if (!className.equals(HippyImageViewController.CLASS_NAME) && !className.equals(
+                    HippyTextViewController.CLASS_NAME) && !mRenderManager.preCreateViewInBackground(
+                    rootId, nodeId, nodePid, className, props)) {
+                createViewTaskList.add(
+                        () -> mRenderManager.preCreateView(rootId, nodeId, nodePid, className,
                                 props));
-                // Because image and text may be rendered flat, it is not necessary to pre create a view.
-                if (!className.equals(HippyImageViewController.CLASS_NAME) && !className.equals(
-                        HippyTextViewController.CLASS_NAME)) {
-                    createViewTaskList.add(
-                            () -> mRenderManager.preCreateView(rootId, nodeId, nodePid, className,
-                                    props));
-                }
             }
         }
+    }
+
+    @NonNull
+    private Map<String, Object> buildNodeData(int nodeId, int nodePid, int nodeIndex,
+            @NonNull String className, @Nullable Map<String, Object> props) {
+        final Map<String, Object> node = new HashMap<>();
+        node.put(NODE_ID, nodeId);
+        node.put(NODE_PID, nodePid);
+        node.put(NODE_INDEX, nodeIndex);
+        node.put(CLASS_NAME, className);
+        if (props != null) {
+            node.put(NODE_PROPS, props);
+        }
+        return node;
+    }
+
+    private void commitCreateNodeTasks(@NonNull List<UITaskExecutor> createNodeTaskList,
+            @NonNull List<UITaskExecutor> createViewTaskList) {
         if (!createNodeTaskList.isEmpty()) {
             addUITask(getMassTaskExecutor(createNodeTaskList));
         }
@@ -720,32 +835,65 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
             final int height = Math.round(MapUtils.getFloatValue(layoutInfo, LAYOUT_HEIGHT));
             final TextRenderSupplier supplier = mVirtualNodeManager
                     .updateLayout(rootId, nodeId, width, layoutInfo);
-            if (LogUtils.isDebugMode()) {
-//                LogUtils.d(TAG, "updateLayout: id " + nodeId + ", left " + left
-//                        + ", top " + top + ", width " + width + ", height " + height + "\n ");
+            addUpdateLayoutTask(rootId, nodeId, left, top, width, height, supplier, taskList);
+        }
+        if (!taskList.isEmpty()) {
+            addUITask(getMassTaskExecutor(taskList));
+        }
+    }
+
+    @Override
+    public void updateLayout(final int rootId, @NonNull LayoutBatch batch)
+            throws NativeRenderException {
+        final int size = batch.size();
+        final List<UITaskExecutor> taskList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int nodeId = batch.getId(i);
+            // The node id should not be negative number.
+            if (nodeId < 0) {
+                throw new NativeRenderException(INVALID_NODE_DATA_ERR,
+                        TAG + ": updateLayout: invalid negative id=" + nodeId);
             }
-            // If restoring snapshots, update layout is called directly on the UI thread,
-            // and do not need to use the UI task
-            if (rootId == SCREEN_SNAPSHOT_ROOT_ID) {
-                if (supplier != null) {
-                    mRenderManager.updateExtra(rootId, nodeId, supplier);
-                }
-                mRenderManager.updateLayout(rootId, nodeId, left, top, width, height);
+            if (mVirtualNodeManager.hasVirtualParent(rootId, nodeId)) {
                 continue;
             }
-            UITaskExecutor task = () -> {
-                if (supplier != null) {
-                    mRenderManager.updateExtra(rootId, nodeId, supplier);
-                }
-                mRenderManager.updateLayout(rootId, nodeId, left, top, width, height);
-            };
-            taskList.add(task);
+            final int left = Math.round(batch.getLeft(i));
+            final int top = Math.round(batch.getTop(i));
+            final int width = Math.round(batch.getWidth(i));
+            final int height = Math.round(batch.getHeight(i));
+            final TextRenderSupplier supplier = mVirtualNodeManager
+                    .updateLayout(rootId, nodeId, width, batch.getPaddingLeft(i),
+                            batch.getPaddingTop(i), batch.getPaddingRight(i),
+                            batch.getPaddingBottom(i));
+            addUpdateLayoutTask(rootId, nodeId, left, top, width, height, supplier, taskList);
         }
         if (!taskList.isEmpty()) {
             addUITask(getMassTaskExecutor(taskList));
         }
     }
 
+    private void addUpdateLayoutTask(final int rootId, final int nodeId, final int left,
+            final int top, final int width, final int height,
+            @Nullable final TextRenderSupplier supplier,
+            @NonNull List<UITaskExecutor> taskList) {
+        // If restoring snapshots, update layout is called directly on the UI thread,
+        // and do not need to use the UI task
+        if (rootId == SCREEN_SNAPSHOT_ROOT_ID) {
+            if (supplier != null) {
+                mRenderManager.updateExtra(rootId, nodeId, supplier);
+            }
+            mRenderManager.updateLayout(rootId, nodeId, left, top, width, height);
+            return;
+        }
+        UITaskExecutor task = () -> {
+            if (supplier != null) {
+                mRenderManager.updateExtra(rootId, nodeId, supplier);
+            }
+            mRenderManager.updateLayout(rootId, nodeId, left, top, width, height);
+        };
+        taskList.add(task);
+    }
+
     @SuppressWarnings({"unchecked"})
     @Override
     public void updateEventListener(final int rootId, @NonNull List<Object> eventList)
@@ -807,9 +955,9 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         final UIPromise promise =
                 (callbackId == 0) ? null : new UIPromise(callbackId, functionName, rootId, nodeId,
                         mRenderProvider.getInstanceId());
-        // Because call ui function will not follow with end batch,
-        // can be directly post to the UI thread do execution.
-        UIThreadUtils.runOnUiThread(
+        // Because call ui function will not follow with end batch, post it directly after
+        // the committed batches, which may be deferred to the next frames.
+        mUITaskScheduler.postTask(
                 () -> mRenderManager.dispatchUIFunction(rootId, nodeId, functionName, params,
                         promise));
     }
@@ -850,7 +998,7 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
             if (isFcp) {
                 mFcpBatchState = FCPBatchState.MARKED;
             }
-            executeUITask();
+            mUITaskScheduler.commitBatch();
         }
     }
 
@@ -861,35 +1009,8 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         return mRenderManager.createVirtualNode(rootId, id, pid, index, className, props);
     }
 
-    private void addUITask(@NonNull UITaskExecutor task) throws NativeRenderException {
-        try {
-            // It is generally preferable to use add here, just focus the exception
-            // when add failed, don't need to handle the return value.
-            mUITaskQueue.add(task);
-        } catch (ClassCastException | NullPointerException | IllegalArgumentException e) {
-            throw new NativeRenderException(UI_TASK_QUEUE_ADD_ERR, e);
-        } catch (IllegalStateException e) {
-            // If the element cannot be added at this time due to capacity restrictions,
-            // the main thread may blocked, serious error!!!
-            mUITaskQueue.clear();
-            throw new NativeRenderException(UI_TASK_QUEUE_UNAVAILABLE_ERR, e);
-        }
-    }
-
-    private void executeUITask() {
-        final int size = mUITaskQueue.size();
-        UIThreadUtils.runOnUiThread(() -> {
-            //long start = System.currentTimeMillis();
-            int count = size;
-            while (count > 0) {
-                UITaskExecutor task = mUITaskQueue.poll();
-                if (task != null) {
-                    task.exec();
-                }
-                count--;
-            }
-            //LogUtils.d(TAG,"executeUITask: size " + size + ", time " + (System.currentTimeMillis() - start));
-        });
+    private void addUITask(@NonNull UITaskExecutor task) {
+        mUITaskScheduler.addTask(task);
     }
 
     /**
@@ -1105,8 +1226,7 @@ public class NativeRenderer extends Renderer implements NativeRender, NativeRend
         return true;
     }
 
-    private interface UITaskExecutor {
+    private interface UITaskExecutor extends UITaskScheduler.UITask {
 
-        void exec();
     }
 }
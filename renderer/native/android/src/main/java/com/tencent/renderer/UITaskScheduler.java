@@ -0,0 +1,246 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer;
+
+import static com.tencent.renderer.NativeRenderException.ExceptionCode.UI_TASK_QUEUE_UNAVAILABLE_ERR;
+
+import android.view.Choreographer;
+import androidx.annotation.NonNull;
+import com.tencent.mtt.hippy.utils.LogUtils;
+import com.tencent.mtt.hippy.utils.UIThreadUtils;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execute ui tasks committed by dom thread under a time budget of each frame.
+ *
+ * <p>Tasks added between two {@link #commitBatch()} are grouped as one batch, a batch is always
+ * executed as a whole in one frame, so the intermediate state of a batch will never be drawn.
+ * Batches exceed the frame budget are deferred to the next frames by {@link Choreographer},
+ * and the thread commits batch will be blocked while the queued task count reaches capacity,
+ * instead of dropping work.</p>
+ */
+public class UITaskScheduler implements Choreographer.FrameCallback {
+
+    private static final String TAG = "UITaskScheduler";
+    /**
+     * The default budget of executing ui tasks in one frame, half of frame interval with 60Hz.
+     */
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 8_000_000L;
+    /**
+     * The max time of blocking the committing thread, to avoid dead lock when ui thread waits
+     * for the committing thread synchronously.
+     */
+    private static final long BACK_PRESSURE_TIMEOUT_MILLIS = 500;
+    private final int mCapacity;
+    private final long mFrameBudgetNanos;
+    private final Object mLock = new Object();
+    @NonNull
+    private final ArrayDeque<ArrayList<UITask>> mBatches = new ArrayDeque<>();
+    @NonNull
+    private ArrayList<UITask> mPendingBatch = new ArrayList<>();
+    private int mQueuedTaskCount;
+    private boolean mScheduled;
+    private boolean mDestroyed;
+    private long mFrameCount;
+    private long mTaskCount;
+    private long mOverBudgetFrameCount;
+    private int mMaxTasksPerFrame;
+    private final Runnable mDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    public interface UITask {
+
+        void exec();
+    }
+
+    public UITaskScheduler(int capacity) {
+        this(capacity, DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    public UITaskScheduler(int capacity, long frameBudgetNanos) {
+        mCapacity = capacity;
+        mFrameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Add task to current batch, the task will not be executed until the batch is committed.
+     */
+    public void addTask(@NonNull UITask task) {
+        synchronized (mLock) {
+            mPendingBatch.add(task);
+        }
+    }
+
+    /**
+     * Post single task after all committed batches, the pending batch is not affected.
+     */
+    public void postTask(@NonNull UITask task) {
+        ArrayList<UITask> batch = new ArrayList<>(1);
+        batch.add(task);
+        synchronized (mLock) {
+            enqueueLocked(batch);
+        }
+    }
+
+    /**
+     * Commit the tasks added since last commit as one batch, if queued task count reaches the
+     * capacity, the caller will be blocked until ui thread drains the queue or timeout.
+     *
+     * @throws NativeRenderException if the caller is interrupted while waiting
+     */
+    public void commitBatch() throws NativeRenderException {
+        synchronized (mLock) {
+            if (mPendingBatch.isEmpty()) {
+                return;
+            }
+            if (!UIThreadUtils.isOnUiThread()) {
+                waitForCapacityLocked();
+            }
+            ArrayList<UITask> batch = mPendingBatch;
+            mPendingBatch = new ArrayList<>();
+            enqueueLocked(batch);
+        }
+    }
+
+    public void destroy() {
+        synchronized (mLock) {
+            mDestroyed = true;
+            mBatches.clear();
+            mPendingBatch.clear();
+            mQueuedTaskCount = 0;
+            mLock.notifyAll();
+        }
+        LogUtils.d(TAG, "destroy: " + this);
+    }
+
+    /**
+     * @return count of frames which execute ui tasks
+     */
+    public synchronized long getFrameCount() {
+        return mFrameCount;
+    }
+
+    public synchronized float getAverageTasksPerFrame() {
+        return (mFrameCount == 0) ? 0 : (float) mTaskCount / mFrameCount;
+    }
+
+    public synchronized int getMaxTasksPerFrame() {
+        return mMaxTasksPerFrame;
+    }
+
+    /**
+     * @return count of frames which execute ui tasks longer than the frame budget, usually
+     * caused by one huge batch
+     */
+    public synchronized long getOverBudgetFrameCount() {
+        return mOverBudgetFrameCount;
+    }
+
+    @Override
+    @NonNull
+    public synchronized String toString() {
+        return "UITaskScheduler{frames=" + mFrameCount + ", tasks=" + mTaskCount
+                + ", maxTasksPerFrame=" + mMaxTasksPerFrame + ", overBudgetFrames="
+                + mOverBudgetFrameCount + "}";
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        drain();
+    }
+
+    private void waitForCapacityLocked() throws NativeRenderException {
+        // Use the same monotonic clock as the frame budget.
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                BACK_PRESSURE_TIMEOUT_MILLIS);
+        while (mQueuedTaskCount >= mCapacity && !mDestroyed) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                LogUtils.w(TAG, "waitForCapacity: timeout, queued task count "
+                        + mQueuedTaskCount);
+                return;
+            }
+            try {
+                mLock.wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NativeRenderException(UI_TASK_QUEUE_UNAVAILABLE_ERR, e);
+            }
+        }
+    }
+
+    private void enqueueLocked(@NonNull ArrayList<UITask> batch) {
+        if (mDestroyed) {
+            return;
+        }
+        mBatches.add(batch);
+        mQueuedTaskCount += batch.size();
+        if (!mScheduled) {
+            mScheduled = true;
+            UIThreadUtils.runOnUiThread(mDrainRunnable);
+        }
+    }
+
+    private void drain() {
+        final long start = System.nanoTime();
+        int count = 0;
+        boolean hasMore;
+        while (true) {
+            ArrayList<UITask> batch;
+            synchronized (mLock) {
+                // Execute at least one batch in each frame, to make sure the queue can be drained.
+                hasMore = !mBatches.isEmpty();
+                if (!hasMore || (count > 0 && System.nanoTime() - start >= mFrameBudgetNanos)) {
+                    mScheduled = hasMore;
+                    break;
+                }
+                batch = mBatches.poll();
+                mQueuedTaskCount -= batch.size();
+                mLock.notifyAll();
+            }
+            for (UITask task : batch) {
+                task.exec();
+            }
+            count += batch.size();
+        }
+        if (count > 0) {
+            recordFrame(count, System.nanoTime() - start);
+        }
+        if (hasMore) {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private synchronized void recordFrame(int taskCount, long costNanos) {
+        mFrameCount++;
+        mTaskCount += taskCount;
+        mMaxTasksPerFrame = Math.max(mMaxTasksPerFrame, taskCount);
+        if (costNanos > mFrameBudgetNanos) {
+            mOverBudgetFrameCount++;
+            if (LogUtils.isDebugMode()) {
+                LogUtils.d(TAG, "recordFrame: over budget, tasks " + taskCount + ", cost "
+                        + costNanos / 1000 + "us");
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import static com.tencent.renderer.utils.EventUtils.EVENT_IMAGE_ON_LOAD;
 
 import android.graphics.drawable.Drawable;
 import android.text.TextUtils;
+import android.view.View;
 
 import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
@@ -59,6 +60,10 @@ public class ImageComponent extends Component {
     private ImageDataSupplier mDefaultImageHolder;
     private ImageFetchState mImageFetchState = ImageFetchState.UNLOAD;
     private ImageFetchState mDefaultImageFetchState = ImageFetchState.UNLOAD;
+    @Nullable
+    private ImageRequestListener mImageRequestListener;
+    @Nullable
+    private ImageRequestListener mDefaultImageRequestListener;
 
     public enum ImageFetchState {
         UNLOAD,
@@ -106,9 +111,42 @@ public class ImageComponent extends Component {
     @Override
     public void onHostViewAttachedToWindow() {
         super.onHostViewAttachedToWindow();
+        if (mImageLoader != null) {
+            // Requests started before attached are decoded with lower priority.
+            if (mImageRequestListener != null) {
+                mImageLoader.setImageRequestPriority(mImageRequestListener,
+                        ImageLoaderAdapter.PRIORITY_VISIBLE);
+            }
+            if (mDefaultImageRequestListener != null) {
+                mImageLoader.setImageRequestPriority(mDefaultImageRequestListener,
+                        ImageLoaderAdapter.PRIORITY_VISIBLE);
+            }
+        }
         fetchImageIfNeeded();
     }
 
+    private void cancelImageRequest(ImageSourceType sourceType) {
+        ImageRequestListener listener;
+        if (sourceType == ImageSourceType.SRC) {
+            listener = mImageRequestListener;
+            mImageRequestListener = null;
+        } else {
+            listener = mDefaultImageRequestListener;
+            mDefaultImageRequestListener = null;
+        }
+        if (listener == null) {
+            return;
+        }
+        if (sourceType == ImageSourceType.SRC) {
+            mImageFetchState = ImageFetchState.UNLOAD;
+        } else {
+            mDefaultImageFetchState = ImageFetchState.UNLOAD;
+        }
+        if (mImageLoader != null) {
+            mImageLoader.cancelImageRequest(listener);
+        }
+    }
+
     @Override
     public void onHostViewRemoved() {
         LogUtils.d(TAG, "onHostViewRemoved host id " + getHostId());
@@ -121,6 +159,8 @@ public class ImageComponent extends Component {
     @Override
     public void clear() {
         super.clear();
+        cancelImageRequest(ImageSourceType.SRC);
+        cancelImageRequest(ImageSourceType.DEFAULT);
         if (mImageHolder != null) {
             mImageHolder.detached();
             mImageHolder = null;
@@ -136,6 +176,7 @@ public class ImageComponent extends Component {
         if (!TextUtils.equals(mUri, uri)) {
             mUri = uri;
             mImageFetchState = ImageFetchState.UNLOAD;
+            cancelImageRequest(ImageSourceType.SRC);
             if (mImageHolder != null) {
                 mImageHolder.detached();
                 mImageHolder = null;
@@ -154,6 +195,7 @@ public class ImageComponent extends Component {
         if (!TextUtils.equals(mDefaultUri, uri)) {
             mDefaultUri = uri;
             mDefaultImageFetchState = ImageFetchState.UNLOAD;
+            cancelImageRequest(ImageSourceType.DEFAULT);
             if (mDefaultImageHolder != null) {
                 mDefaultImageHolder.detached();
                 mDefaultImageHolder = null;
@@ -300,7 +342,7 @@ public class ImageComponent extends Component {
             params.put("props", host.getProps());
         }
         assert mImageLoader != null;
-        mImageLoader.fetchImageAsync(uri, new ImageRequestListener() {
+        ImageRequestListener listener = new ImageRequestListener() {
             @Override
             public void onRequestStart(ImageDataSupplier imageData) {
             }
@@ -314,18 +356,38 @@ public class ImageComponent extends Component {
 
             @Override
             public void onRequestSuccess(ImageDataSupplier imageData) {
+                onRequestFinished(sourceType, this);
                 onFetchImageSuccess(uri, sourceType, imageData, false);
             }
 
             @Override
             public void onRequestFail(Throwable throwable) {
+                onRequestFinished(sourceType, this);
                 if (sourceType == ImageSourceType.SRC) {
                     onFetchImageFail(uri, throwable);
                 } else {
                     mDefaultImageFetchState = ImageFetchState.UNLOAD;
                 }
             }
-        }, params, width, height);
+        };
+        if (sourceType == ImageSourceType.SRC) {
+            mImageRequestListener = listener;
+        } else {
+            mDefaultImageRequestListener = listener;
+        }
+        View hostView = (host != null) ? host.getHostView() : null;
+        int priority = (hostView != null && hostView.isAttachedToWindow())
+                ? ImageLoaderAdapter.PRIORITY_VISIBLE : ImageLoaderAdapter.PRIORITY_NEAR_VIEWPORT;
+        mImageLoader.fetchImageAsync(uri, listener, params, width, height, priority);
+    }
+
+    private void onRequestFinished(ImageSourceType sourceType, ImageRequestListener listener) {
+        if (sourceType == ImageSourceType.SRC && mImageRequestListener == listener) {
+            mImageRequestListener = null;
+        } else if (sourceType == ImageSourceType.DEFAULT
+                && mDefaultImageRequestListener == listener) {
+            mDefaultImageRequestListener = null;
+        }
     }
 
     private void fetchImageWithUrl(String uri, ImageSourceType sourceType) {
@@ -339,7 +401,9 @@ public class ImageComponent extends Component {
         } else {
             mDefaultImageFetchState = ImageFetchState.LOADING;
         }
-        ImageDataSupplier imageData = mImageLoader.getImageFromCache(uri);
+        final RenderNode host = mHostRef.get();
+        ImageDataSupplier imageData = mImageLoader.getImageFromCache(uri,
+                (host != null) ? host.getWidth() : 0, (host != null) ? host.getHeight() : 0);
         if (imageData != null && imageData.checkImageData()) {
             onFetchImageSuccess(uri, sourceType, imageData, true);
             return;
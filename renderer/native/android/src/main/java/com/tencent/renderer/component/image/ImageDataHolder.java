@@ -27,6 +27,7 @@ import androidx.annotation.RequiresApi;
 import com.openhippy.pool.ImageDataKey;
 import com.openhippy.pool.ImageRecycleObject;
 import com.openhippy.pool.RecycleObject;
+import com.tencent.mtt.hippy.dom.node.NodeProps;
 import com.tencent.renderer.NativeRenderException;
 import com.tencent.renderer.utils.ImageDataUtils;
 
@@ -61,7 +62,23 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
      * Mark that image data is decoded internally and needs to recycle.
      */
     private static final int FLAG_RECYCLABLE = 0x00000004;
+    /**
+     * Decode bitmap with {@link Bitmap.Config#ARGB_8888}, the default policy.
+     */
+    public static final int BITMAP_CONFIG_DEFAULT = 0;
+    /**
+     * Decode opaque JPEG images with {@link Bitmap.Config#RGB_565} to halve the memory cost.
+     */
+    public static final int BITMAP_CONFIG_LOW_MEMORY = 1;
+    /**
+     * Decode static images to hardware bitmap on API 28+, the pixel data only lives in graphics
+     * memory, so the host must not read pixels or draw these bitmaps on software canvas, include
+     * the bitmap processing in {@link ImageDecoderAdapter#afterDecode}.
+     */
+    public static final int BITMAP_CONFIG_HARDWARE = 2;
+    private static volatile int sBitmapConfigPolicy = BITMAP_CONFIG_DEFAULT;
     private int mStateFlags = 0;
+    private int mAttachedCount = 0;
     private int mWidth;
     private int mHeight;
     private String mSource;
@@ -93,7 +110,17 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
         mSource = source;
         mWidth = width;
         mHeight = height;
-        mKey = (key == null) ? new ImageDataKey(source) : key;
+        mKey = (key == null) ? new ImageDataKey(source, width, height) : key;
+        mAttachedCount = 0;
+        resetStateFlag(FLAG_ATTACHED);
+    }
+
+    /**
+     * Set the bitmap config policy of internal decoding, such as {@link #BITMAP_CONFIG_DEFAULT},
+     * {@link #BITMAP_CONFIG_LOW_MEMORY} and {@link #BITMAP_CONFIG_HARDWARE}.
+     */
+    public static void setBitmapConfigPolicy(int policy) {
+        sBitmapConfigPolicy = policy;
     }
 
     @Nullable
@@ -128,12 +155,41 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
 
     @Override
     public void attached() {
-
+        mAttachedCount++;
+        setStateFlag(FLAG_ATTACHED);
     }
 
     @Override
     public void detached() {
+        if (mAttachedCount > 0) {
+            mAttachedCount--;
+        }
+        if (mAttachedCount == 0 && checkStateFlag(FLAG_ATTACHED)) {
+            resetStateFlag(FLAG_ATTACHED);
+            // Move to memory tier of cache pool, it can be evicted from now on.
+            onReleased();
+        }
+    }
+
+    @Override
+    public boolean isAttached() {
+        return checkStateFlag(FLAG_ATTACHED);
+    }
 
+    @Override
+    public int getByteCount() {
+        if (mBitmap != null && !mBitmap.isRecycled()) {
+            return mBitmap.getAllocationByteCount();
+        }
+        // Estimate the decoded size of GIF frame and drawable by ARGB_8888 format.
+        if (mGifMovie != null) {
+            return mGifMovie.width() * mGifMovie.height() * 4;
+        }
+        if (mDrawable != null && mDrawable.getIntrinsicWidth() > 0
+                && mDrawable.getIntrinsicHeight() > 0) {
+            return mDrawable.getIntrinsicWidth() * mDrawable.getIntrinsicHeight() * 4;
+        }
+        return 0;
     }
 
     @Override
@@ -245,10 +301,11 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
                 mGifMovie = Movie.decodeByteArray(data, 0, data.length);
             } else if (ImageDataUtils.isJpeg(mOptions) || ImageDataUtils.isPng(mOptions)
                     || ImageDataUtils.isWebp(mOptions)) {
+                final boolean resizable = isResizable(initProps);
                 if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.P) {
-                    decodeImageForTarget28(data);
+                    decodeImageForTarget28(data, resizable);
                 } else {
-                    decodeImage(data);
+                    decodeImage(data, resizable);
                 }
             } else {
                 throw new RuntimeException("Unsupported picture type!");
@@ -294,10 +351,27 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
     }
 
     @RequiresApi(api = VERSION_CODES.P)
-    private void decodeBitmapForTarget28(@Nullable ImageDecoder.Source source)
-            throws IOException {
+    private void decodeBitmapForTarget28(@Nullable ImageDecoder.Source source,
+            final boolean resizable) throws IOException {
         if (source != null) {
-            mBitmap = ImageDecoder.decodeBitmap(source);
+            mBitmap = ImageDecoder.decodeBitmap(source, (decoder, info, src) -> {
+                if (resizable) {
+                    float scale = getTargetScale(info.getSize().getWidth(),
+                            info.getSize().getHeight());
+                    if (scale < 1.0f) {
+                        decoder.setTargetSize(
+                                Math.max(1, Math.round(info.getSize().getWidth() * scale)),
+                                Math.max(1, Math.round(info.getSize().getHeight() * scale)));
+                    }
+                }
+                final int policy = sBitmapConfigPolicy;
+                if (policy == BITMAP_CONFIG_HARDWARE) {
+                    decoder.setAllocator(ImageDecoder.ALLOCATOR_HARDWARE);
+                } else if (policy == BITMAP_CONFIG_LOW_MEMORY && isOpaqueImage()) {
+                    // Low ram policy allows decoder to use RGB_565 for opaque image.
+                    decoder.setMemorySizePolicy(ImageDecoder.MEMORY_POLICY_LOW_RAM);
+                }
+            });
             mGifMovie = null;
             setStateFlag(FLAG_RECYCLABLE);
         }
@@ -306,50 +380,119 @@ public class ImageDataHolder extends ImageRecycleObject implements ImageDataSupp
     @RequiresApi(api = VERSION_CODES.P)
     private void decodeLocalFileForTarget28(@NonNull File file) throws IOException {
         ImageDecoder.Source source = ImageDecoder.createSource(file);
-        decodeBitmapForTarget28(source);
+        decodeBitmapForTarget28(source, false);
     }
 
     @RequiresApi(api = VERSION_CODES.P)
     private void decodeLocalFileForTarget28(@NonNull String fileName) throws IOException {
         ImageDecoder.Source source = ImageDecoder.createSource(
                 ContextHolder.getAppContext().getAssets(), fileName);
-        decodeBitmapForTarget28(source);
+        decodeBitmapForTarget28(source, false);
     }
 
     @RequiresApi(api = VERSION_CODES.P)
-    private void decodeImageForTarget28(@NonNull byte[] data) throws IOException {
+    private void decodeImageForTarget28(@NonNull byte[] data, boolean resizable)
+            throws IOException {
         ImageDecoder.Source source = ImageDecoder.createSource(ByteBuffer.wrap(data));
-        decodeBitmapForTarget28(source);
+        decodeBitmapForTarget28(source, resizable);
     }
 
+    /**
+     * Image drawn with origin size, repeat mode or nine patch cap insets depends on the pixel size
+     * of bitmap, it can not be decoded with the layout size.
+     */
+    private static boolean isResizable(@Nullable Map<String, Object> initProps) {
+        Object props = (initProps != null) ? initProps.get("props") : null;
+        if (!(props instanceof Map)) {
+            return true;
+        }
+        Map<?, ?> propsMap = (Map<?, ?>) props;
+        if (propsMap.get(NodeProps.BACKGROUND_IMAGE) != null
+                || propsMap.get("capInsets") != null) {
+            return false;
+        }
+        Object resizeMode = propsMap.get(NodeProps.RESIZE_MODE);
+        return !("origin".equals(resizeMode) || "repeat".equals(resizeMode));
+    }
+
+    private boolean isOpaqueImage() {
+        return mOptions != null && ImageDataUtils.isJpeg(mOptions);
+    }
+
+    /**
+     * Get the scale to decode image, the decoded bitmap should cover the layout size, so it can
+     * be drawn without up scaling in any resize mode.
+     *
+     * @return the scale of decoded size, 1.0 if no need to down scale
+     */
+    private float getTargetScale(int outWidth, int outHeight) {
+        if (mWidth <= 0 || mHeight <= 0 || outWidth <= 0 || outHeight <= 0) {
+            return 1.0f;
+        }
+        float scale = Math.max((float) mWidth / outWidth, (float) mHeight / outHeight);
+        return Math.min(scale, 1.0f);
+    }
+
+    /**
+     * Get the largest power of two sample size that keeps the decoded bitmap covering the
+     * layout size.
+     */
     private int getSampleSize(int outWidth, int outHeight) {
         int sampleSize = 1;
-        if (mWidth <= 0 || mHeight <= 0) {
+        float scale = getTargetScale(outWidth, outHeight);
+        if (scale >= 1.0f) {
             return sampleSize;
         }
-        if (outWidth >= outHeight) {
-            sampleSize = outWidth / mWidth;
-        } else {
-            sampleSize = outHeight / mHeight;
-        }
-        if (sampleSize < 1) {
-            sampleSize = 1;
-        } else if (sampleSize > 4) {
-            sampleSize = 4;
+        int targetWidth = Math.max(1, Math.round(outWidth * scale));
+        int targetHeight = Math.max(1, Math.round(outHeight * scale));
+        while ((outWidth / (sampleSize * 2)) >= targetWidth
+                && (outHeight / (sampleSize * 2)) >= targetHeight) {
+            sampleSize *= 2;
         }
         return sampleSize;
     }
 
-    private void decodeImage(@Nullable byte[] data) {
+    private void decodeImage(@Nullable byte[] data, boolean resizable) {
         if (data == null || data.length <= 0 || mOptions == null) {
             return;
         }
+        final int outWidth = mOptions.outWidth;
+        final int outHeight = mOptions.outHeight;
         // When using the BitmapFactory decoding provided by the old version of Android system,
         // we need to sample the image to scale in order to prevent the decoding memory
         // growth caused by large images.
-        mOptions.inSampleSize = getSampleSize(mOptions.outWidth, mOptions.outHeight);
+        mOptions.inSampleSize = resizable ? getSampleSize(outWidth, outHeight) : 1;
         mOptions.inJustDecodeBounds = false;
-        mBitmap = BitmapFactory.decodeByteArray(data, 0, data.length, mOptions);
+        if (sBitmapConfigPolicy == BITMAP_CONFIG_LOW_MEMORY && isOpaqueImage()) {
+            mOptions.inPreferredConfig = Bitmap.Config.RGB_565;
+        }
+        float scale = resizable ? getTargetScale(outWidth, outHeight) : 1.0f;
+        int sampledWidth = outWidth / mOptions.inSampleSize;
+        int targetWidth = Math.max(1, Math.round(outWidth * scale));
+        final boolean exactScale = scale < 1.0f && sampledWidth > targetWidth;
+        if (exactScale) {
+            // Power of two sampling may still leave the bitmap much larger than the layout,
+            // the rest is scaled by density while decoding.
+            mOptions.inScaled = true;
+            mOptions.inDensity = sampledWidth;
+            mOptions.inTargetDensity = targetWidth;
+        }
+        try {
+            mBitmap = BitmapFactory.decodeByteArray(data, 0, data.length, mOptions);
+        } finally {
+            // Options are exposed to the host adapter, restore the values to the original size.
+            mOptions.outWidth = outWidth;
+            mOptions.outHeight = outHeight;
+            if (exactScale) {
+                mOptions.inScaled = false;
+                mOptions.inDensity = 0;
+                mOptions.inTargetDensity = 0;
+            }
+        }
+        if (exactScale && mBitmap != null) {
+            mBitmap.setDensity(
+                    ContextHolder.getAppContext().getResources().getDisplayMetrics().densityDpi);
+        }
         mGifMovie = null;
         setStateFlag(FLAG_RECYCLABLE);
     }
@@ -0,0 +1,140 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.component.image;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run image decode tasks on a bounded worker pool, the pending tasks are ordered by priority
+ * first and then by submit order, so the visible images are decoded before near viewport and
+ * prefetch images.
+ *
+ * <p>After {@link #shutdown()}, the pending tasks and the tasks scheduled later are never run,
+ * {@link Task#onCancelled()} is called for each of them instead.</p>
+ */
+public class ImageDecodeScheduler {
+
+    private static final String THREAD_NAME_PREFIX = "hippy-image-decode-";
+    private static final int MAX_WORKER_COUNT = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private final PriorityBlockingQueue<Runnable> mQueue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mSequence = new AtomicLong();
+
+    public ImageDecodeScheduler() {
+        // Keep at least one core for UI and render thread.
+        this(Math.max(1,
+                Math.min(MAX_WORKER_COUNT, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    ImageDecodeScheduler(int workerCount) {
+        mExecutor = new ThreadPoolExecutor(workerCount, workerCount, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, mQueue, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        THREAD_NAME_PREFIX + mCount.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public void schedule(@NonNull Task task, int priority) {
+        task.mPriority = priority;
+        task.mSequence = mSequence.getAndIncrement();
+        if (mExecutor.isShutdown()) {
+            task.onCancelled();
+            return;
+        }
+        try {
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutdown by another thread after the check above.
+            task.onCancelled();
+        }
+    }
+
+    /**
+     * Raise the priority of a pending task, it has no effect if the task is already running.
+     */
+    public void updatePriority(@NonNull Task task, int priority) {
+        if (priority < task.mPriority && mQueue.remove(task)) {
+            // The queue is ordered at insertion, so the task must be reinserted.
+            task.mPriority = priority;
+            mQueue.offer(task);
+        }
+    }
+
+    /**
+     * Remove a pending task from the queue.
+     *
+     * @return {@code true} if the task has not been started
+     */
+    public boolean cancel(@NonNull Task task) {
+        return mQueue.remove(task);
+    }
+
+    /**
+     * Stop accepting tasks, the pending tasks are removed from the queue and cancelled, the
+     * running tasks are left to finish.
+     */
+    public void shutdown() {
+        mExecutor.shutdown();
+        ArrayList<Runnable> pending = new ArrayList<>();
+        mQueue.drainTo(pending);
+        for (Runnable runnable : pending) {
+            ((Task) runnable).onCancelled();
+        }
+    }
+
+    public abstract static class Task implements Runnable, Comparable<Task> {
+
+        private volatile int mPriority;
+        private long mSequence;
+
+        public int getPriority() {
+            return mPriority;
+        }
+
+        /**
+         * Called instead of {@link #run()} if the task is dropped by {@link #shutdown()}, the
+         * task should release the resources it holds, but should not notify the result.
+         */
+        protected void onCancelled() {
+        }
+
+        @Override
+        public int compareTo(@NonNull Task other) {
+            if (mPriority != other.mPriority) {
+                return (mPriority < other.mPriority) ? -1 : 1;
+            }
+            return (mSequence < other.mSequence) ? -1 : ((mSequence == other.mSequence) ? 0 : 1);
+        }
+    }
+}
@@ -19,45 +19,92 @@ package com.tencent.renderer.component.image;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.openhippy.pool.ImageCacheStatistics;
 import com.openhippy.pool.ImageDataKey;
 import com.openhippy.pool.ImageDataPool;
+import com.openhippy.pool.ImageDiskCache;
 import com.openhippy.pool.ImageRecycleObject;
-import com.openhippy.pool.Pool;
 import com.tencent.mtt.hippy.utils.UIThreadUtils;
 import com.tencent.renderer.NativeRenderException;
 
 import com.tencent.vfs.ResourceDataHolder;
+import com.tencent.vfs.UrlUtils;
 import com.tencent.vfs.VfsManager;
 import com.tencent.vfs.VfsManager.FetchResourceCallback;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class ImageLoader implements ImageLoaderAdapter {
 
     private static final String TAG = "ImageLoader";
     public static final String REQUEST_CONTENT_TYPE = "Content-Type";
     public static final String REQUEST_CONTENT_TYPE_IMAGE = "image";
+    /**
+     * Request param of fetch priority, the same as request priority of image, which can be used by
+     * http adapter to send the requests of visible images first.
+     */
+    public static final String REQUEST_PRIORITY = "priority";
     @Nullable
     private final ImageDecoderAdapter mImageDecoderAdapter;
     @NonNull
     private final VfsManager mVfsManager;
     @NonNull
-    private final HashMap<ImageDataKey, ArrayList<ImageRequestListener>> mListenersMap = new HashMap<>();
+    private final ImageDataPool mImagePool = new ImageDataPool();
     @NonNull
-    private final Pool<ImageDataKey, ImageRecycleObject> mImagePool = new ImageDataPool();
+    private final ImageDecodeScheduler mDecodeScheduler = new ImageDecodeScheduler();
+    private final Object mLock = new Object();
+    /**
+     * Requests in flight, include fetching and decoding, guarded by {@link #mLock}.
+     */
+    @NonNull
+    private final HashMap<ImageDataKey, ImageRequest> mRequests = new HashMap<>();
+    /**
+     * Fetches in flight that can be shared by other requests of the same uri, guarded by
+     * {@link #mLock}.
+     */
+    @NonNull
+    private final HashMap<String, FetchRequest> mFetches = new HashMap<>();
+    @NonNull
+    private final IdentityHashMap<ImageRequestListener, ImageRequest> mListenerRequests =
+            new IdentityHashMap<>();
+    @Nullable
+    private final Executor mDiskCacheExecutor;
 
     public ImageLoader(@NonNull VfsManager vfsManager,
             @Nullable ImageDecoderAdapter imageDecoderAdapter) {
+        this(vfsManager, imageDecoderAdapter, null, null);
+    }
+
+    /**
+     * @param diskCache the disk tier of encoded web image data, {@code null} to disable
+     * @param diskCacheExecutor the executor to read and write disk tier, disk tier is disabled if
+     * it's {@code null}
+     */
+    public ImageLoader(@NonNull VfsManager vfsManager,
+            @Nullable ImageDecoderAdapter imageDecoderAdapter, @Nullable ImageDiskCache diskCache,
+            @Nullable Executor diskCacheExecutor) {
         mVfsManager = vfsManager;
         mImageDecoderAdapter = imageDecoderAdapter;
+        mDiskCacheExecutor = (diskCache != null) ? diskCacheExecutor : null;
+        if (mDiskCacheExecutor != null) {
+            mImagePool.setDiskCache(diskCache);
+        }
     }
 
     @Nullable
     @Override
     public ImageDataSupplier getImageFromCache(@NonNull String url) {
-        ImageRecycleObject imageObject = mImagePool.acquire(new ImageDataKey(url));
+        return getImageFromCache(url, 0, 0);
+    }
+
+    @Nullable
+    @Override
+    public ImageDataSupplier getImageFromCache(@NonNull String url, int width, int height) {
+        ImageRecycleObject imageObject = mImagePool.acquire(new ImageDataKey(url, width, height));
         return (imageObject instanceof ImageDataSupplier) ? ((ImageDataSupplier) imageObject)
                 : null;
     }
@@ -77,71 +124,133 @@ public class ImageLoader implements ImageLoaderAdapter {
         }
     }
 
-    private Runnable generateCallbackRunnable(final ImageDataKey urlKey,
+    private void dispatchRequestResult(@NonNull final ImageRequest request,
             @Nullable final ImageDataHolder imageHolder,
             @Nullable String errorMessage) {
         final String error = (errorMessage != null) ? errorMessage : "";
-        return new Runnable() {
+        Runnable callbackRunnable = new Runnable() {
             @Override
             public void run() {
-                ArrayList<ImageRequestListener> listeners = mListenersMap.get(urlKey);
-                mListenersMap.remove(urlKey);
-                if (listeners != null && listeners.size() > 0) {
+                ArrayList<ImageRequestListener> listeners;
+                boolean prefetchUsed;
+                synchronized (mLock) {
+                    if (mRequests.get(request.mKey) == request) {
+                        mRequests.remove(request.mKey);
+                    }
+                    prefetchUsed = request.mPrefetchUsed;
+                    listeners = new ArrayList<>(request.mListeners);
                     for (ImageRequestListener listener : listeners) {
-                        if (listener != null) {
-                            doListenerCallback(listener, imageHolder, error);
-                        }
+                        mListenerRequests.remove(listener);
+                    }
+                    request.mListeners.clear();
+                }
+                if (request.mCancelled) {
+                    return;
+                }
+                if (request.mPrefetch && imageHolder != null) {
+                    // Display listeners joined the prefetch save the image data by themselves.
+                    if (prefetchUsed) {
+                        mImagePool.recordPrefetchHit();
+                    } else {
+                        mImagePool.releasePrefetched(imageHolder);
+                    }
+                }
+                for (ImageRequestListener listener : listeners) {
+                    if (listener != null) {
+                        doListenerCallback(listener, imageHolder, error);
                     }
                 }
             }
         };
+        if (UIThreadUtils.isOnUiThread()) {
+            callbackRunnable.run();
+        } else {
+            UIThreadUtils.runOnUiThread(callbackRunnable);
+        }
     }
 
-    private void handleResourceData(@NonNull String url, @NonNull final ImageDataKey urlKey,
-            @Nullable Map<String, Object> initProps,
-            @NonNull final ResourceDataHolder dataHolder, int width, int height) {
-        ImageDataHolder imageHolder = null;
-        String errorMessage = null;
+    private void handleResourceData(@NonNull FetchRequest fetch,
+            @NonNull final ResourceDataHolder dataHolder) {
         byte[] bytes = dataHolder.getBytes();
         if (dataHolder.resultCode
                 == ResourceDataHolder.RESOURCE_LOAD_SUCCESS_CODE && bytes != null) {
-            imageHolder = new ImageDataHolder(url, urlKey, width, height);
-            try {
-                imageHolder.decodeImageData(bytes, initProps, mImageDecoderAdapter);
-                // Should check the request data returned from the host, if the data is
-                // invalid, the request is considered to have failed
-                if (!imageHolder.checkImageData()) {
-                    imageHolder = null;
-                    errorMessage = "Image data decoding failed!";
-                }
-            } catch (NativeRenderException e) {
-                e.printStackTrace();
-                imageHolder = null;
-                errorMessage = e.getMessage();
-            }
+            saveEncodedDataIfNeeded(fetch.mUrl, bytes);
+            onFetchCompleted(fetch, bytes, null);
         } else {
-            errorMessage = dataHolder.errorMessage;
-        }
-        Runnable callbackRunnable = generateCallbackRunnable(urlKey, imageHolder, errorMessage);
-        if (UIThreadUtils.isOnUiThread()) {
-            callbackRunnable.run();
-        } else {
-            UIThreadUtils.runOnUiThread(callbackRunnable);
+            onFetchCompleted(fetch, null, dataHolder.errorMessage);
         }
         dataHolder.recycle();
     }
 
+    /**
+     * Hand over the fetched data to all requests waiting for the fetch, the data is decoded by
+     * the decode scheduler instead of the thread delivering the resource.
+     */
+    private void onFetchCompleted(@NonNull FetchRequest fetch, @Nullable byte[] bytes,
+            @Nullable String errorMessage) {
+        ArrayList<ImageRequest> requests;
+        synchronized (mLock) {
+            if (mFetches.get(fetch.mUrl) == fetch) {
+                mFetches.remove(fetch.mUrl);
+            }
+            requests = new ArrayList<>(fetch.mRequests);
+            fetch.mRequests.clear();
+            for (ImageRequest request : requests) {
+                request.mFetch = null;
+            }
+        }
+        for (ImageRequest request : requests) {
+            if (bytes != null) {
+                request.mData = bytes;
+                mDecodeScheduler.schedule(request, request.mRequestPriority);
+            } else {
+                dispatchRequestResult(request, null, errorMessage);
+            }
+        }
+    }
+
+    @Nullable
+    private ImageDataHolder decodeImageData(@NonNull ImageRequest request,
+            @NonNull byte[] bytes) throws NativeRenderException {
+        ImageDataHolder imageHolder = new ImageDataHolder(request.mUrl, request.mKey,
+                request.mWidth, request.mHeight);
+        imageHolder.decodeImageData(bytes, request.mInitProps, mImageDecoderAdapter);
+        // Should check the request data returned from the host, if the data is
+        // invalid, the request is considered to have failed
+        return imageHolder.checkImageData() ? imageHolder : null;
+    }
+
+    private boolean isDiskCacheEnabled(@NonNull String url) {
+        return mDiskCacheExecutor != null && UrlUtils.isWebUrl(url);
+    }
+
+    private void saveEncodedDataIfNeeded(@NonNull final String url, @NonNull final byte[] bytes) {
+        if (!isDiskCacheEnabled(url)) {
+            return;
+        }
+        assert mDiskCacheExecutor != null;
+        mDiskCacheExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mImagePool.releaseEncodedData(url, bytes);
+            }
+        });
+    }
+
     private void handleRequestProgress(final long total, final long loaded,
-            @NonNull final ImageDataKey urlKey) {
+            @NonNull final FetchRequest fetch) {
         Runnable progressRunnable = new Runnable() {
             @Override
             public void run() {
-                ArrayList<ImageRequestListener> listeners = mListenersMap.get(urlKey);
-                if (listeners != null) {
-                    for (ImageRequestListener listener : listeners) {
-                        if (listener != null) {
-                            listener.onRequestProgress(total, loaded);
-                        }
+                ArrayList<ImageRequestListener> listeners = new ArrayList<>();
+                synchronized (mLock) {
+                    for (ImageRequest request : fetch.mRequests) {
+                        listeners.addAll(request.mListeners);
+                    }
+                }
+                for (ImageRequestListener listener : listeners) {
+                    if (listener != null) {
+                        listener.onRequestProgress(total, loaded);
                     }
                 }
             }
@@ -191,44 +300,147 @@ public class ImageLoader implements ImageLoaderAdapter {
         return null;
     }
 
-    private boolean checkRepeatRequest(@NonNull ImageDataKey urlKey,
-            @NonNull final ImageRequestListener listener) {
-        ArrayList<ImageRequestListener> listenerList = mListenersMap.get(urlKey);
-        if (listenerList != null) {
-            listenerList.add(listener);
-            return true;
-        }
-        ArrayList<ImageRequestListener> listeners = new ArrayList<>();
-        listeners.add(listener);
-        mListenersMap.put(urlKey, listeners);
-        return false;
-    }
-
     @Override
     public void fetchImageAsync(@NonNull final String url,
             @NonNull final ImageRequestListener listener,
             @Nullable final Map<String, Object> initProps, final int width, final int height) {
-        final ImageDataKey urlKey = new ImageDataKey(url);
-        // If the same image uri repeatedly requests, we need to filter these repeated requests
-        // to avoid wasting system resources
-        if (checkRepeatRequest(urlKey, listener)) {
+        fetchImageAsync(url, listener, initProps, width, height, PRIORITY_VISIBLE);
+    }
+
+    @Override
+    public void fetchImageAsync(@NonNull String url, @NonNull ImageRequestListener listener,
+            @Nullable Map<String, Object> initProps, int width, int height, int priority) {
+        final ImageDataKey urlKey = new ImageDataKey(url, width, height);
+        if (priority == PRIORITY_PREFETCH && mImagePool.contains(urlKey)) {
             return;
         }
-        HashMap<String, String> requestParams = generateRequestParams(width, height);
-        mVfsManager.fetchResourceAsync(url, null, requestParams,
+        final FetchRequest fetch;
+        synchronized (mLock) {
+            ImageRequest request = mRequests.get(urlKey);
+            if (request != null) {
+                // If the same image uri repeatedly requests, we need to filter these repeated
+                // requests to avoid wasting system resources
+                request.mListeners.add(listener);
+                mListenerRequests.put(listener, request);
+                if (priority < PRIORITY_PREFETCH) {
+                    request.mPrefetchUsed = true;
+                }
+                updateRequestPriority(request, priority);
+                return;
+            }
+            request = new ImageRequest(urlKey, url, initProps, width, height, priority);
+            request.mListeners.add(listener);
+            mRequests.put(urlKey, request);
+            mListenerRequests.put(listener, request);
+            FetchRequest pending = mFetches.get(url);
+            if (pending != null && pending.canShare(width, height)) {
+                // The resource fetched for a larger size can also be decoded to this size.
+                request.mFetch = pending;
+                pending.mRequests.add(request);
+                return;
+            }
+            fetch = new FetchRequest(url, width, height, priority);
+            request.mFetch = fetch;
+            fetch.mRequests.add(request);
+            if (pending == null || fetch.canShare(pending.mWidth, pending.mHeight)) {
+                mFetches.put(url, fetch);
+            }
+        }
+        startFetch(fetch);
+    }
+
+    private void startFetch(@NonNull final FetchRequest fetch) {
+        if (isDiskCacheEnabled(fetch.mUrl)) {
+            assert mDiskCacheExecutor != null;
+            mDiskCacheExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    byte[] bytes = mImagePool.acquireEncodedData(fetch.mUrl);
+                    if (bytes != null) {
+                        onFetchCompleted(fetch, bytes, null);
+                    } else {
+                        fetchImageFromVfs(fetch);
+                    }
+                }
+            });
+        } else {
+            fetchImageFromVfs(fetch);
+        }
+    }
+
+    private void fetchImageFromVfs(@NonNull final FetchRequest fetch) {
+        HashMap<String, String> requestParams = generateRequestParams(fetch.mWidth,
+                fetch.mHeight);
+        requestParams.put(REQUEST_PRIORITY, String.valueOf(fetch.mPriority));
+        mVfsManager.fetchResourceAsync(fetch.mUrl, null, requestParams,
                 new FetchResourceCallback() {
                     @Override
                     public void onFetchCompleted(@NonNull final ResourceDataHolder dataHolder) {
-                        handleResourceData(url, urlKey, initProps, dataHolder, width, height);
+                        handleResourceData(fetch, dataHolder);
                     }
 
                     @Override
                     public void onFetchProgress(long total, long loaded) {
-                        handleRequestProgress(total, loaded, urlKey);
+                        handleRequestProgress(total, loaded, fetch);
                     }
                 });
     }
 
+    @Override
+    public void cancelImageRequest(@NonNull ImageRequestListener listener) {
+        ImageRequest request;
+        synchronized (mLock) {
+            request = mListenerRequests.remove(listener);
+            if (request == null) {
+                return;
+            }
+            request.mListeners.remove(listener);
+            if (!request.mListeners.isEmpty()) {
+                return;
+            }
+            // No one waits for the result, stop the request before decoding.
+            request.mCancelled = true;
+            if (mRequests.get(request.mKey) == request) {
+                mRequests.remove(request.mKey);
+            }
+            if (request.mFetch != null) {
+                request.mFetch.mRequests.remove(request);
+                request.mFetch = null;
+            }
+        }
+        if (mDecodeScheduler.cancel(request)) {
+            request.mData = null;
+        }
+    }
+
+    @Override
+    public void setImageRequestPriority(@NonNull ImageRequestListener listener, int priority) {
+        synchronized (mLock) {
+            ImageRequest request = mListenerRequests.get(listener);
+            if (request != null) {
+                updateRequestPriority(request, priority);
+            }
+        }
+    }
+
+    private void updateRequestPriority(@NonNull ImageRequest request, int priority) {
+        if (priority < request.mRequestPriority) {
+            request.mRequestPriority = priority;
+            mDecodeScheduler.updatePriority(request, priority);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        mImagePool.trimMemory(level);
+    }
+
+    @NonNull
+    @Override
+    public ImageCacheStatistics getCacheStatistics() {
+        return mImagePool.getStatistics();
+    }
+
     @Override
     public void clear() {
         mImagePool.clear();
@@ -237,6 +449,111 @@ public class ImageLoader implements ImageLoaderAdapter {
     @Override
     public void destroy() {
         clear();
-        mListenersMap.clear();
+        synchronized (mLock) {
+            for (ImageRequest request : mRequests.values()) {
+                request.mCancelled = true;
+            }
+            mRequests.clear();
+            mFetches.clear();
+            mListenerRequests.clear();
+        }
+        mDecodeScheduler.shutdown();
+    }
+
+    /**
+     * Fetch of one image uri, shared by the requests of the same or smaller decode size.
+     */
+    private static class FetchRequest {
+
+        @NonNull
+        final String mUrl;
+        final int mWidth;
+        final int mHeight;
+        final int mPriority;
+        final ArrayList<ImageRequest> mRequests = new ArrayList<>();
+
+        FetchRequest(@NonNull String url, int width, int height, int priority) {
+            mUrl = url;
+            mWidth = width;
+            mHeight = height;
+            mPriority = priority;
+        }
+
+        /**
+         * The size is passed to vfs processors as request params, host processor may return
+         * resized resource, so only the original size or a larger size can be shared.
+         */
+        boolean canShare(int width, int height) {
+            if (mWidth <= 0 || mHeight <= 0) {
+                return true;
+            }
+            return width > 0 && height > 0 && width <= mWidth && height <= mHeight;
+        }
+    }
+
+    /**
+     * Request of one image uri and decode size, shared by all the listeners of the same key.
+     */
+    private class ImageRequest extends ImageDecodeScheduler.Task {
+
+        @NonNull
+        final ImageDataKey mKey;
+        @NonNull
+        final String mUrl;
+        @Nullable
+        final Map<String, Object> mInitProps;
+        final int mWidth;
+        final int mHeight;
+        final ArrayList<ImageRequestListener> mListeners = new ArrayList<>();
+        int mRequestPriority;
+        /**
+         * Whether the request is started by prefetch, and whether it's joined by display
+         * requests, guarded by {@link #mLock}.
+         */
+        final boolean mPrefetch;
+        boolean mPrefetchUsed;
+        @Nullable
+        FetchRequest mFetch;
+        @Nullable
+        volatile byte[] mData;
+        volatile boolean mCancelled;
+
+        ImageRequest(@NonNull ImageDataKey key, @NonNull String url,
+                @Nullable Map<String, Object> initProps, int width, int height, int priority) {
+            mKey = key;
+            mUrl = url;
+            mInitProps = initProps;
+            mWidth = width;
+            mHeight = height;
+            mRequestPriority = priority;
+            mPrefetch = (priority == PRIORITY_PREFETCH);
+        }
+
+        @Override
+        public void run() {
+            byte[] bytes = mData;
+            mData = null;
+            if (mCancelled || bytes == null) {
+                return;
+            }
+            ImageDataHolder imageHolder = null;
+            String errorMessage = null;
+            try {
+                imageHolder = decodeImageData(this, bytes);
+                if (imageHolder == null) {
+                    errorMessage = "Image data decoding failed!";
+                }
+            } catch (NativeRenderException e) {
+                e.printStackTrace();
+                errorMessage = e.getMessage();
+            }
+            dispatchRequestResult(this, imageHolder, errorMessage);
+        }
+
+        @Override
+        protected void onCancelled() {
+            // The loader is destroyed, the listeners have been removed with the request.
+            mData = null;
+        }
     }
 }
@@ -18,10 +18,27 @@ package com.tencent.renderer.component.image;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.openhippy.pool.ImageCacheStatistics;
 import java.util.Map;
 
 public interface ImageLoaderAdapter {
 
+    /**
+     * Priority of image displayed in viewport, requests with smaller value are decoded first.
+     */
+    int PRIORITY_VISIBLE = 0;
+    /**
+     * Priority of image whose host is created but not displayed yet, such as list item near
+     * the viewport.
+     */
+    int PRIORITY_NEAR_VIEWPORT = 1;
+    /**
+     * Priority of image prefetched before its host is created, the request is ignored if the
+     * image data of the same size is already cached, and the decoded data is saved to cache by
+     * the image loader.
+     */
+    int PRIORITY_PREFETCH = 2;
+
     /**
      * Asynchronous fetch image data.
      *
@@ -35,6 +52,35 @@ public interface ImageLoaderAdapter {
     void fetchImageAsync(@NonNull String url, @NonNull ImageRequestListener listener,
             @Nullable Map<String, Object> initProps, int width, int height);
 
+    /**
+     * Asynchronous fetch image data with priority.
+     *
+     * @param url the url of image resource
+     * @param listener the image request callback
+     * @param initProps initial attributes of the image node
+     * @param width the layout width of image node
+     * @param height the layout height of image node
+     * @param priority the decode priority, such as {@link #PRIORITY_VISIBLE}
+     */
+    void fetchImageAsync(@NonNull String url, @NonNull ImageRequestListener listener,
+            @Nullable Map<String, Object> initProps, int width, int height, int priority);
+
+    /**
+     * Cancel the request of listener, the listener will not be called back any more, and the
+     * image will not be decoded if no other listener waits for it.
+     *
+     * @param listener the image request callback
+     */
+    void cancelImageRequest(@NonNull ImageRequestListener listener);
+
+    /**
+     * Raise the decode priority of the request of listener.
+     *
+     * @param listener the image request callback
+     * @param priority the new priority
+     */
+    void setImageRequestPriority(@NonNull ImageRequestListener listener, int priority);
+
     /**
      * Synchronous fetch image data.
      *
@@ -57,6 +103,17 @@ public interface ImageLoaderAdapter {
     @Nullable
     ImageDataSupplier getImageFromCache(@NonNull String url);
 
+    /**
+     * Get image data decoded for the target size from cache.
+     *
+     * @param url the url of image resource
+     * @param width the layout width of image node
+     * @param height the layout height of image node
+     * @return The fetch result holder {@link ImageDataHolder}.
+     */
+    @Nullable
+    ImageDataSupplier getImageFromCache(@NonNull String url, int width, int height);
+
     /**
      * Save image data to cache.
      *
@@ -69,6 +126,20 @@ public interface ImageLoaderAdapter {
      */
     void clear();
 
+    /**
+     * Release image cache according to the level of
+     * {@link android.content.ComponentCallbacks2#onTrimMemory}.
+     *
+     * @param level the memory trim level
+     */
+    void onTrimMemory(int level);
+
+    /**
+     * Get the hit, miss and eviction statistics of image cache.
+     */
+    @NonNull
+    ImageCacheStatistics getCacheStatistics();
+
     /**
      * Clear image cache pool and request listeners map.
      */
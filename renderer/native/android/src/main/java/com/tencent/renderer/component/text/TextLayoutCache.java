@@ -0,0 +1,124 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.component.text;
+
+import android.text.Layout;
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.renderer.utils.FlexUtils.FlexMeasureMode;
+
+/**
+ * Bounded text layout cache shared by all text nodes of one renderer.
+ *
+ * <p>Layouts are keyed by the fingerprint of text content and styles, the measure width and
+ * width mode, so identical text in different nodes, such as labels in recycled list items, is
+ * only measured once. The cache is thread safe, layouts are created on dom thread when measure
+ * and only read after put into cache.</p>
+ */
+public class TextLayoutCache {
+
+    private static final int DEFAULT_MAX_SIZE = 256;
+    @NonNull
+    private final LruCache<Key, Layout> mCache;
+
+    public TextLayoutCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public TextLayoutCache(int maxSize) {
+        mCache = new LruCache<>(maxSize);
+    }
+
+    @Nullable
+    public Layout get(@NonNull Key key) {
+        return mCache.get(key);
+    }
+
+    public void put(@NonNull Key key, @NonNull Layout layout) {
+        mCache.put(key, layout);
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    public float getHitRatio() {
+        int hit = mCache.hitCount();
+        int total = hit + mCache.missCount();
+        return (total == 0) ? 0.0f : (float) hit / total;
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "TextLayoutCache{size=" + mCache.size() + ", hit=" + mCache.hitCount() + ", miss="
+                + mCache.missCount() + "}";
+    }
+
+    public static final class Key {
+
+        @NonNull
+        private final String mFingerprint;
+        private final int mWidth;
+        @NonNull
+        private final FlexMeasureMode mWidthMode;
+        private final int mHashCode;
+
+        /**
+         * @param fingerprint text content and styles that decide the layout
+         * @param width the measure width, ignored if width mode is undefined
+         * @param widthMode the measure mode of width
+         */
+        public Key(@NonNull String fingerprint, float width, @NonNull FlexMeasureMode widthMode) {
+            mFingerprint = fingerprint;
+            mWidthMode = widthMode;
+            mWidth = (widthMode == FlexMeasureMode.UNDEFINED || width < 0) ? -1
+                    : (int) Math.ceil(width);
+            int result = fingerprint.hashCode();
+            result = 31 * result + mWidth;
+            result = 31 * result + widthMode.ordinal();
+            mHashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mHashCode == key.mHashCode && mWidth == key.mWidth
+                    && mWidthMode == key.mWidthMode && mFingerprint.equals(key.mFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -43,6 +43,10 @@ public class ListItemRenderNode extends RenderNode {
     private int mTop;
     private boolean mShouldSticky;
     private IRecycleItemTypeChange mRecycleItemTypeChangeListener;
+    /**
+     * Position in parent when the item size index of {@link ListViewRenderNode} was built.
+     */
+    int mPositionHint = -1;
 
     public ListItemRenderNode(int rootId, int id, @Nullable Map<String, Object> props,
             @NonNull String className, @NonNull ControllerManager componentManager,
@@ -167,7 +171,11 @@ public class ListItemRenderNode extends RenderNode {
 
     @Override
     public void updateLayout(int x, int y, int w, int h) {
+        boolean sizeChanged = (w != mWidth || h != mHeight);
         super.updateLayout(x, y, w, h);
+        if (sizeChanged && getParent() instanceof ListViewRenderNode) {
+            ((ListViewRenderNode) getParent()).onItemLayoutChanged(this);
+        }
         mLeft = x;
         mTop = y;
         View view = mControllerManager.findView(mRootId, mId);
@@ -16,13 +16,23 @@
 
 package com.tencent.renderer.node;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.tencent.mtt.hippy.uimanager.ControllerManager;
+import com.tencent.renderer.utils.PrefixSumIndex;
 import java.util.Map;
 
 public class ListViewRenderNode extends RenderNode {
 
+    /**
+     * Prefix sums of item heights and widths, rebuilt lazily after children changed and updated
+     * in place after item layout changed.
+     */
+    private final PrefixSumIndex mItemHeightIndex = new PrefixSumIndex();
+    private final PrefixSumIndex mItemWidthIndex = new PrefixSumIndex();
+    private boolean mItemSizeIndexDirty = true;
+
     public ListViewRenderNode(int rootId, int id, @Nullable Map<String, Object> props,
             String className, ControllerManager componentManager, boolean isLazyLoad) {
         super(rootId, id, props, className, componentManager, isLazyLoad);
@@ -40,6 +50,83 @@ public class ListViewRenderNode extends RenderNode {
             ListItemRenderNode listItemRenderNode = (ListItemRenderNode) node;
             listItemRenderNode.setRecycleItemTypeChangeListener(null);
         }
+        mItemSizeIndexDirty = true;
         return super.removeChild(node);
     }
+
+    @Override
+    public void addChild(@NonNull RenderNode node, int index) {
+        super.addChild(node, index);
+        mItemSizeIndexDirty = true;
+    }
+
+    void onItemLayoutChanged(@NonNull ListItemRenderNode node) {
+        if (mItemSizeIndexDirty) {
+            return;
+        }
+        int position = node.mPositionHint;
+        if (position < 0 || position >= mChildren.size() || mChildren.get(position) != node) {
+            mItemSizeIndexDirty = true;
+            return;
+        }
+        mItemHeightIndex.set(position, getItemSize(node, true));
+        mItemWidthIndex.set(position, getItemSize(node, false));
+    }
+
+    /**
+     * The visible size of pull header and footer changes with pulling, so they are not indexed
+     * and should be added by the caller.
+     */
+    private static int getItemSize(@NonNull RenderNode node, boolean vertical) {
+        if (!(node instanceof ListItemRenderNode)) {
+            return 0;
+        }
+        ListItemRenderNode itemNode = (ListItemRenderNode) node;
+        if (itemNode.isPullHeader() || itemNode.isPullFooter()) {
+            return 0;
+        }
+        return vertical ? itemNode.getHeight() : itemNode.getWidth();
+    }
+
+    private void ensureItemSizeIndex() {
+        if (!mItemSizeIndexDirty) {
+            return;
+        }
+        int count = mChildren.size();
+        int[] heights = new int[count];
+        int[] widths = new int[count];
+        for (int i = 0; i < count; i++) {
+            RenderNode child = mChildren.get(i);
+            if (child instanceof ListItemRenderNode) {
+                ((ListItemRenderNode) child).mPositionHint = i;
+            }
+            heights[i] = getItemSize(child, true);
+            widths[i] = getItemSize(child, false);
+        }
+        mItemHeightIndex.reset(heights, count);
+        mItemWidthIndex.reset(widths, count);
+        mItemSizeIndexDirty = false;
+    }
+
+    /**
+     * @param position the child position
+     * @param vertical sum item heights if {@code true}, otherwise sum item widths
+     * @return total size of the items before position, pull header and footer excluded
+     */
+    public int getItemSizeBefore(int position, boolean vertical) {
+        ensureItemSizeIndex();
+        return vertical ? mItemHeightIndex.sumBefore(position) : mItemWidthIndex.sumBefore(position);
+    }
+
+    /**
+     * @param offset the offset from the first item, pull header and footer excluded
+     * @param vertical use item heights if {@code true}, otherwise use item widths
+     * @return position of the first item whose end is beyond the offset, or -1 if the offset is
+     * not less than the total size
+     */
+    public int findItemPositionByOffset(int offset, boolean vertical) {
+        ensureItemSizeIndex();
+        return vertical ? mItemHeightIndex.findIndexByOffset(offset)
+                : mItemWidthIndex.findIndexByOffset(offset);
+    }
 }
@@ -429,6 +429,11 @@ public class RenderNode {
             return;
         }
         mControllerManager.replaceId(mRootId, view, mId, false);
+        if (oldId == View.NO_ID) {
+            // View warmed up in advance has never been bound to any node, all props of this
+            // node have been applied in update props, no need to reset.
+            return;
+        }
         RenderNode fromNode = RenderManager.getRenderNode(mRootId, oldId);
         if (fromNode == null || fromNode.isDeleted()) {
             throw new NativeRenderException(REUSE_VIEW_HAS_ABANDONED_NODE_ERR,
@@ -48,6 +48,7 @@ import com.tencent.renderer.component.text.TextForegroundColorSpan;
 import com.tencent.renderer.component.text.TextGestureSpan;
 import com.tencent.renderer.component.text.TextLetterSpacingSpan;
 import com.tencent.renderer.component.text.TextLineHeightSpan;
+import com.tencent.renderer.component.text.TextLayoutCache;
 import com.tencent.renderer.component.text.TextLineMetricsHelper;
 import com.tencent.renderer.component.text.TextShadowSpan;
 import com.tencent.renderer.component.text.TextStyleSpan;
@@ -121,6 +122,11 @@ public class TextVirtualNode extends VirtualNode {
     @Nullable
     protected final FontAdapter mFontAdapter;
     @Nullable
+    protected final TextLayoutCache mTextLayoutCache;
+    // null if the layout of this node can not be shared, rebuild when node is dirty
+    @Nullable
+    protected String mLayoutFingerprint;
+    @Nullable
     protected Layout mLayout;
     protected int mBackgroundColor = Color.TRANSPARENT;
 
@@ -128,6 +134,7 @@ public class TextVirtualNode extends VirtualNode {
             @NonNull NativeRender nativeRender) {
         super(rootId, id, pid, index);
         mFontAdapter = nativeRender.getFontAdapter();
+        mTextLayoutCache = nativeRender.getTextLayoutCache();
         if (I18nUtil.isRTL()) {
             mAlignment = Layout.Alignment.ALIGN_OPPOSITE;
         }
@@ -551,6 +558,7 @@ public class TextVirtualNode extends VirtualNode {
     protected Layout createLayout(final float width, final FlexMeasureMode widthMode) {
         if (mSpanned == null || mDirty) {
             mSpanned = createSpan(true);
+            mLayoutFingerprint = buildLayoutFingerprint();
             mDirty = false;
         } else if (mLayout != null && width >= (mLastLayoutWidth - 1)
                 && width <= (mLastLayoutWidth + 1)) {
@@ -558,6 +566,16 @@ public class TextVirtualNode extends VirtualNode {
             // to the last measurement result, no need to create layout again.
             return mLayout;
         }
+        TextLayoutCache.Key cacheKey = null;
+        if (mTextLayoutCache != null && mLayoutFingerprint != null) {
+            cacheKey = new TextLayoutCache.Key(mLayoutFingerprint, width, widthMode);
+            Layout cachedLayout = mTextLayoutCache.get(cacheKey);
+            if (cachedLayout != null) {
+                mLayout = cachedLayout;
+                mLastLayoutWidth = cachedLayout.getWidth();
+                return cachedLayout;
+            }
+        }
         final TextPaint textPaint = getTextPaint();
         Layout layout;
         BoringLayout.Metrics boring = BoringLayout.isBoring(mSpanned, textPaint);
@@ -600,9 +618,62 @@ public class TextVirtualNode extends VirtualNode {
         }
         mLayout = layout;
         mLastLayoutWidth = layout.getWidth();
+        if (cacheKey != null) {
+            mTextLayoutCache.put(cacheKey, layout);
+        }
         return layout;
     }
 
+    /**
+     * Build the fingerprint of paragraph styles and the content of whole text tree, layout of
+     * nodes with same fingerprint can be shared.
+     *
+     * @return null if the layout can not be shared, such as text with images or gesture events
+     */
+    @Nullable
+    private String buildLayoutFingerprint() {
+        StringBuilder builder = new StringBuilder();
+        if (!appendLayoutFingerprint(builder)) {
+            return null;
+        }
+        float fontScale = (mFontAdapter != null && mEnableScale) ? mFontAdapter.getFontScale()
+                : 1.0f;
+        builder.append('|').append(mLineHeight).append(',').append(mLineSpacingMultiplier)
+                .append(',').append(mLineSpacingExtra).append(',').append(mAlignment)
+                .append(',').append(mBreakStrategy).append(',').append(mNumberOfLines)
+                .append(',').append(mEllipsizeMode).append(',').append(fontScale);
+        return builder.toString();
+    }
+
+    protected boolean appendLayoutFingerprint(@NonNull StringBuilder builder) {
+        // Gesture span holds the node id, can not be shared with other nodes.
+        if (containGestureEvent()) {
+            return false;
+        }
+        CharSequence text = (mText != null) ? mText : "";
+        builder.append('[').append(text.length()).append(':').append(text)
+                .append(',').append(mColor).append(',').append(mFontSize)
+                .append(',').append(mEnableScale).append(',').append(mItalic)
+                .append(',').append(mFontWeight).append(',').append(mFontFamily)
+                .append(',').append(mLetterSpacing).append(',').append(getFinalOpacity())
+                .append(',').append(getVerticalAlign()).append(',').append(mBackgroundColor)
+                .append(',').append(mHasUnderlineTextDecoration)
+                .append(',').append(mHasLineThroughTextDecoration)
+                .append(',').append(mTextDecorationColor).append(',').append(mTextDecorationStyle)
+                .append(',').append(mShadowOffsetDx).append(',').append(mShadowOffsetDy)
+                .append(',').append(mShadowRadius).append(',').append(mShadowColor);
+        for (int i = 0; i < getChildCount(); i++) {
+            VirtualNode child = getChildAt(i);
+            // Image span holds the image data of node, can not be shared with other nodes.
+            if (!(child instanceof TextVirtualNode)
+                    || !((TextVirtualNode) child).appendLayoutFingerprint(builder)) {
+                return false;
+            }
+        }
+        builder.append(']');
+        return true;
+    }
+
     private TextLineMetricsHelper getTextLineMetricsHelper(Spanned spanned) {
         TextLineMetricsHelper[] spans = spanned.getSpans(0, 0, TextLineMetricsHelper.class);
         return spans != null && spans.length > 0 ? spans[0] : null;
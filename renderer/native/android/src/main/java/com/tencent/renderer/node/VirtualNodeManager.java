@@ -41,6 +41,7 @@ import com.tencent.renderer.component.text.TextRenderSupplier;
 import com.tencent.renderer.utils.FlexUtils;
 import com.tencent.renderer.utils.FlexUtils.FlexMeasureMode;
 import com.tencent.renderer.utils.PropertyUtils;
+import com.tencent.renderer.utils.PropSetter;
 import com.tencent.renderer.utils.PropertyUtils.PropertyMethodHolder;
 
 import java.lang.ref.WeakReference;
@@ -159,6 +160,22 @@ public class VirtualNodeManager {
             // just ignore this exception
             LogUtils.w(TAG, "VirtualNode updateLayout get padding exception: " + e.getMessage());
         }
+        return createTextRenderSupplier(rootId, node, width, leftPadding, topPadding,
+                rightPadding, bottomPadding);
+    }
+
+    public TextRenderSupplier updateLayout(int rootId, int nodeId, float width,
+            float leftPadding, float topPadding, float rightPadding, float bottomPadding) {
+        VirtualNode node = getVirtualNode(rootId, nodeId);
+        if (!(node instanceof TextVirtualNode || node instanceof TextInputVirtualNode) || node.mParent != null) {
+            return null;
+        }
+        return createTextRenderSupplier(rootId, node, width, leftPadding, topPadding,
+                rightPadding, bottomPadding);
+    }
+
+    private TextRenderSupplier createTextRenderSupplier(int rootId, VirtualNode node, float width,
+            float leftPadding, float topPadding, float rightPadding, float bottomPadding) {
         final Layout layout;
         if (node instanceof TextVirtualNode) {
             layout = ((TextVirtualNode) node)
@@ -228,6 +245,10 @@ public class VirtualNodeManager {
             @NonNull String key, @NonNull PropertyMethodHolder methodHolder) {
         try {
             Object value = props.get(key);
+            PropSetter setter = PropertyUtils.getPropSetter(node.getClass());
+            if (setter != null && setter.setProperty(node, null, key, value)) {
+                return;
+            }
             if (value == null) {
                 switch (methodHolder.defaultType) {
                     case HippyControllerProps.BOOLEAN:
@@ -0,0 +1,212 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.serialization;
+
+import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_BOTTOM;
+import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_LEFT;
+import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_RIGHT;
+import static com.tencent.mtt.hippy.dom.node.NodeProps.PADDING_TOP;
+import static com.tencent.renderer.NativeRenderException.ExceptionCode.INVALID_NODE_DATA_ERR;
+
+import androidx.annotation.NonNull;
+import com.tencent.mtt.hippy.serialization.PrimitiveValueCursor;
+import com.tencent.renderer.NativeRenderException;
+import java.util.Arrays;
+
+/**
+ * Decode the layout batch serialized by native (C++) DOM into primitive arrays, each layout entry
+ * is an object with id, left, top, width, height and optional paddings, the arrays are reused
+ * between batches, so decoding a batch allocates nothing once the capacity is large enough.
+ *
+ * <p>Only the first {@link #size()} entries are valid.</p>
+ */
+public class LayoutBatch {
+
+    private static final String NODE_ID = "id";
+    private static final String LAYOUT_LEFT = "left";
+    private static final String LAYOUT_TOP = "top";
+    private static final String LAYOUT_WIDTH = "width";
+    private static final String LAYOUT_HEIGHT = "height";
+    private static final int INVALID_NODE_ID = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte BEGIN_DENSE_ARRAY = (byte) 'A';
+
+    @NonNull
+    private final PrimitiveValueCursor mCursor;
+    private int mSize;
+    @NonNull
+    private int[] mIds = new int[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mLeft = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mTop = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mWidth = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mHeight = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mPaddingLeft = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mPaddingTop = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mPaddingRight = new float[INITIAL_CAPACITY];
+    @NonNull
+    private float[] mPaddingBottom = new float[INITIAL_CAPACITY];
+
+    public LayoutBatch(@NonNull Deserializer deserializer) {
+        mCursor = new PrimitiveValueCursor(deserializer);
+    }
+
+    /**
+     * @return the number of layout entries decoded by last {@link #decode()}
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getId(int index) {
+        return mIds[index];
+    }
+
+    public float getLeft(int index) {
+        return mLeft[index];
+    }
+
+    public float getTop(int index) {
+        return mTop[index];
+    }
+
+    public float getWidth(int index) {
+        return mWidth[index];
+    }
+
+    public float getHeight(int index) {
+        return mHeight[index];
+    }
+
+    public float getPaddingLeft(int index) {
+        return mPaddingLeft[index];
+    }
+
+    public float getPaddingTop(int index) {
+        return mPaddingTop[index];
+    }
+
+    public float getPaddingRight(int index) {
+        return mPaddingRight[index];
+    }
+
+    public float getPaddingBottom(int index) {
+        return mPaddingBottom[index];
+    }
+
+    /**
+     * Decode the layout batch, the reader of deserializer should be reset to the batch data before
+     * calling this method. The absent fields are set to 0, and absent id is set to -1. A batch
+     * which is not an array is decoded as empty.
+     *
+     * @throws NativeRenderException if the batch data is malformed
+     */
+    public void decode() throws NativeRenderException {
+        mSize = 0;
+        try {
+            decodeBatch();
+        } catch (NativeRenderException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new NativeRenderException(INVALID_NODE_DATA_ERR, e);
+        }
+    }
+
+    private void decodeBatch() {
+        mCursor.readHeader();
+        if (mCursor.peekTag() != BEGIN_DENSE_ARRAY) {
+            return;
+        }
+        final int count = mCursor.beginArray();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            decodeEntry(i);
+        }
+        mCursor.endArray();
+        mSize = count;
+    }
+
+    private void decodeEntry(int i) {
+        mIds[i] = INVALID_NODE_ID;
+        mLeft[i] = 0;
+        mTop[i] = 0;
+        mWidth[i] = 0;
+        mHeight[i] = 0;
+        mPaddingLeft[i] = 0;
+        mPaddingTop[i] = 0;
+        mPaddingRight[i] = 0;
+        mPaddingBottom[i] = 0;
+        mCursor.beginObject();
+        while (mCursor.hasNextProperty()) {
+            switch (mCursor.nextKey()) {
+                case NODE_ID:
+                    mIds[i] = mCursor.nextInt(INVALID_NODE_ID);
+                    break;
+                case LAYOUT_LEFT:
+                    mLeft[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case LAYOUT_TOP:
+                    mTop[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case LAYOUT_WIDTH:
+                    mWidth[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case LAYOUT_HEIGHT:
+                    mHeight[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case PADDING_LEFT:
+                    mPaddingLeft[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case PADDING_TOP:
+                    mPaddingTop[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case PADDING_RIGHT:
+                    mPaddingRight[i] = (float) mCursor.nextDouble(0);
+                    break;
+                case PADDING_BOTTOM:
+                    mPaddingBottom[i] = (float) mCursor.nextDouble(0);
+                    break;
+                default:
+                    mCursor.skipValue();
+                    break;
+            }
+        }
+        mCursor.endObject();
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= mIds.length) {
+            return;
+        }
+        final int capacity = Math.max(count, mIds.length << 1);
+        mIds = Arrays.copyOf(mIds, capacity);
+        mLeft = Arrays.copyOf(mLeft, capacity);
+        mTop = Arrays.copyOf(mTop, capacity);
+        mWidth = Arrays.copyOf(mWidth, capacity);
+        mHeight = Arrays.copyOf(mHeight, capacity);
+        mPaddingLeft = Arrays.copyOf(mPaddingLeft, capacity);
+        mPaddingTop = Arrays.copyOf(mPaddingTop, capacity);
+        mPaddingRight = Arrays.copyOf(mPaddingRight, capacity);
+        mPaddingBottom = Arrays.copyOf(mPaddingBottom, capacity);
+    }
+}
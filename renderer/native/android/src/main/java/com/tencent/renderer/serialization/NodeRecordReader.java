@@ -0,0 +1,179 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.serialization;
+
+import static com.tencent.renderer.NativeRenderException.ExceptionCode.INVALID_NODE_DATA_ERR;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.tencent.mtt.hippy.serialization.PrimitiveValueCursor;
+import com.tencent.renderer.NativeRenderException;
+import java.util.Map;
+
+/**
+ * Iterate the node records of a render batch serialized by native (C++) DOM one by one, the node
+ * id, pid, index and name are read as primitives and the props map is decoded in place, which
+ * avoids building the whole node list and the per node maps before walking it.
+ */
+public class NodeRecordReader {
+
+    private static final String NODE_ID = "id";
+    private static final String NODE_PID = "pId";
+    private static final String NODE_INDEX = "index";
+    private static final String NODE_PROPS = "props";
+    private static final String CLASS_NAME = "name";
+    private static final int INVALID_NODE_ID = -1;
+    private static final byte BEGIN_DENSE_ARRAY = (byte) 'A';
+
+    @NonNull
+    private final PrimitiveValueCursor mCursor;
+    private int mCount;
+    private int mIndex;
+    private int mNodeId;
+    private int mNodePid;
+    private int mNodeIndex;
+    @Nullable
+    private String mClassName;
+    @Nullable
+    private Map<String, Object> mProps;
+
+    public NodeRecordReader(@NonNull Deserializer deserializer) {
+        mCursor = new PrimitiveValueCursor(deserializer);
+    }
+
+    /**
+     * Start iterating node records, the reader of deserializer should be reset to the batch data
+     * before calling this method.
+     *
+     * @return the number of node records, 0 if the batch data is not an array
+     * @throws NativeRenderException if the batch data is malformed
+     */
+    public int begin() throws NativeRenderException {
+        mCount = 0;
+        mIndex = 0;
+        try {
+            mCursor.readHeader();
+            final byte tag = mCursor.peekTag();
+            if (tag != BEGIN_DENSE_ARRAY) {
+                // Keep the same behavior as eager deserialization, which treats non array data as
+                // empty node list.
+                return 0;
+            }
+            mCount = mCursor.beginArray();
+            if (mCount == 0) {
+                mCursor.endArray();
+            }
+        } catch (NativeRenderException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new NativeRenderException(INVALID_NODE_DATA_ERR, e);
+        }
+        return mCount;
+    }
+
+    /**
+     * @return the number of node records in current batch
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Move to next node record.
+     *
+     * @return {@code false} if all node records have been consumed
+     * @throws NativeRenderException if the node record is malformed
+     */
+    public boolean next() throws NativeRenderException {
+        if (mIndex >= mCount) {
+            return false;
+        }
+        mIndex++;
+        mNodeId = INVALID_NODE_ID;
+        mNodePid = INVALID_NODE_ID;
+        mNodeIndex = INVALID_NODE_ID;
+        mClassName = null;
+        mProps = null;
+        try {
+            readRecord();
+        } catch (NativeRenderException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new NativeRenderException(INVALID_NODE_DATA_ERR, e);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readRecord() {
+        mCursor.beginObject();
+        while (mCursor.hasNextProperty()) {
+            final String key = mCursor.nextKey();
+            switch (key) {
+                case NODE_ID:
+                    mNodeId = mCursor.nextInt(INVALID_NODE_ID);
+                    break;
+                case NODE_PID:
+                    mNodePid = mCursor.nextInt(INVALID_NODE_ID);
+                    break;
+                case NODE_INDEX:
+                    mNodeIndex = mCursor.nextInt(INVALID_NODE_ID);
+                    break;
+                case CLASS_NAME:
+                    mClassName = mCursor.nextString(key);
+                    break;
+                case NODE_PROPS: {
+                    final Object props = mCursor.readValue(key);
+                    mProps = (props instanceof Map) ? (Map<String, Object>) props : null;
+                    break;
+                }
+                default:
+                    mCursor.skipValue();
+                    break;
+            }
+        }
+        mCursor.endObject();
+        if (mIndex == mCount) {
+            mCursor.endArray();
+        }
+    }
+
+    public int getNodeId() {
+        return mNodeId;
+    }
+
+    public int getNodePid() {
+        return mNodePid;
+    }
+
+    public int getNodeIndex() {
+        return mNodeIndex;
+    }
+
+    @Nullable
+    public String getClassName() {
+        return mClassName;
+    }
+
+    /**
+     * @return the props map of current node record, or {@code null} if current node has no props
+     */
+    @Nullable
+    public Map<String, Object> getProps() {
+        return mProps;
+    }
+}
@@ -0,0 +1,116 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.renderer.utils;
+
+/**
+ * Fenwick tree of item extents, which supports updating the extent of one item and querying the
+ * total extent before an item in O(log n), and finding the item at an offset by binary lifting.
+ */
+public class PrefixSumIndex {
+
+    private int mSize;
+    private int[] mValues = new int[0];
+    /**
+     * One-based fenwick tree, mTree[i] holds the sum of values in (i - lowbit(i), i].
+     */
+    private int[] mTree = new int[1];
+
+    /**
+     * Rebuild the index with the values in O(n), the previous values are discarded.
+     */
+    public void reset(int[] values, int size) {
+        mSize = size;
+        if (mValues.length < size) {
+            mValues = new int[size];
+            mTree = new int[size + 1];
+        }
+        System.arraycopy(values, 0, mValues, 0, size);
+        mTree[0] = 0;
+        for (int i = 1; i <= size; i++) {
+            mTree[i] = values[i - 1];
+        }
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int get(int index) {
+        return (index >= 0 && index < mSize) ? mValues[index] : 0;
+    }
+
+    /**
+     * Update the value of index in O(log n).
+     */
+    public void set(int index, int value) {
+        if (index < 0 || index >= mSize) {
+            return;
+        }
+        int delta = value - mValues[index];
+        if (delta == 0) {
+            return;
+        }
+        mValues[index] = value;
+        for (int i = index + 1; i <= mSize; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * @return the sum of values before index, not include the value of index itself
+     */
+    public int sumBefore(int index) {
+        int sum = 0;
+        for (int i = Math.min(index, mSize); i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    public int total() {
+        return sumBefore(mSize);
+    }
+
+    /**
+     * Find the first index whose end offset is larger than the offset, all the values must be
+     * non-negative.
+     *
+     * @return the index, or -1 if the offset is not less than the total
+     */
+    public int findIndexByOffset(int offset) {
+        if (offset < 0) {
+            return (mSize > 0) ? 0 : -1;
+        }
+        int position = 0;
+        int remaining = offset;
+        for (int step = Integer.highestOneBit(Math.max(mSize, 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= mSize && mTree[next] <= remaining) {
+                position = next;
+                remaining -= mTree[next];
+            }
+        }
+        // The sum of the first position values is not larger than offset, so the index is the
+        // next one.
+        return (position < mSize) ? position : -1;
+    }
+}
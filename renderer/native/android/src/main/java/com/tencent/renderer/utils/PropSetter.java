@@ -0,0 +1,43 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2021 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Typed property setter of a class with {@link com.tencent.mtt.hippy.annotation.HippyControllerProps}
+ * methods, implementations are generated at compile time by the hippy processor and named
+ * {@code <host class name>$$PropSetter}, use {@link PropertyUtils#getPropSetter(Class)} to find
+ * the setter of a class.
+ */
+public interface PropSetter {
+
+    /**
+     * Set property to host by calling the setter method directly.
+     *
+     * @param host the controller or virtual node which declares the property method
+     * @param target the view or component passed as the first parameter of controller property
+     * method, ignored by virtual node property method
+     * @param name the property name
+     * @param value the property value, default value of the property is used if {@code null}
+     * @return {@code false} if the property is not handled by this setter, caller should fall
+     * back to reflection
+     */
+    boolean setProperty(@NonNull Object host, @Nullable Object target, @NonNull String name,
+            @Nullable Object value);
+}
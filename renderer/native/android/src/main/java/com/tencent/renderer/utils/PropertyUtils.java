@@ -30,9 +30,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PropertyUtils {
 
+    private static final String PROP_SETTER_SUFFIX = "$$PropSetter";
+    private static final PropSetter NO_PROP_SETTER = new PropSetter() {
+        @Override
+        public boolean setProperty(@NonNull Object host, @Nullable Object target,
+                @NonNull String name, @Nullable Object value) {
+            return false;
+        }
+    };
+    private static final Map<Class<?>, PropSetter> sPropSetterMap = new ConcurrentHashMap<>();
+
     public static class PropertyMethodHolder {
 
         public Method method;
@@ -138,4 +149,88 @@ public class PropertyUtils {
         }
         return null;
     }
+
+    /**
+     * Find the {@link PropSetter} generated for the given class, the setter is only valid for the
+     * exact class it generated for, so the super class setter is never used for a sub class.
+     *
+     * @param cls the class of controller or virtual node
+     * @return the generated setter, or {@code null} if the class has no generated setter
+     */
+    @Nullable
+    public static PropSetter getPropSetter(@NonNull Class<?> cls) {
+        PropSetter setter = sPropSetterMap.get(cls);
+        if (setter == null) {
+            setter = NO_PROP_SETTER;
+            try {
+                Class<?> setterClass = Class.forName(cls.getName() + PROP_SETTER_SUFFIX, true,
+                        cls.getClassLoader());
+                if (PropSetter.class.isAssignableFrom(setterClass)) {
+                    setter = (PropSetter) setterClass.newInstance();
+                }
+            } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
+                // The class is not compiled with hippy processor, use reflection instead.
+            }
+            sPropSetterMap.put(cls, setter);
+        }
+        return (setter == NO_PROP_SETTER) ? null : setter;
+    }
+
+    public static int toInt(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            return Integer.parseInt((String) value);
+        }
+        throw new IllegalArgumentException("Covert Integer number failed!");
+    }
+
+    public static long toLong(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            return Long.parseLong((String) value);
+        }
+        throw new IllegalArgumentException("Covert Long number failed!");
+    }
+
+    public static float toFloat(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof Number) {
+            return ((Number) value).floatValue();
+        }
+        if (value instanceof String) {
+            return Float.parseFloat((String) value);
+        }
+        throw new IllegalArgumentException("Covert Float number failed!");
+    }
+
+    public static double toDouble(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return Double.parseDouble((String) value);
+        }
+        throw new IllegalArgumentException("Covert Double number failed!");
+    }
+
+    @SuppressWarnings({"deprecation", "unchecked"})
+    @NonNull
+    public static HippyMap toHippyMap(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof HashMap) {
+            return new HippyMap((Map<String, Object>) value);
+        }
+        throw new IllegalArgumentException("Unknown property class type!");
+    }
+
+    @SuppressWarnings({"deprecation", "unchecked"})
+    @NonNull
+    public static HippyArray toHippyArray(@NonNull Object value) throws IllegalArgumentException {
+        if (value instanceof ArrayList) {
+            return new HippyArray((List<Object>) value);
+        }
+        throw new IllegalArgumentException("Unknown property class type!");
+    }
 }
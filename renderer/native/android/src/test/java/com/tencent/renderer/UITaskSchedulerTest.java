@@ -0,0 +1,169 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class UITaskSchedulerTest {
+
+    private static final long BACK_PRESSURE_TIMEOUT_MILLIS = 500;
+    private final List<String> mExecuted = Collections.synchronizedList(new ArrayList<String>());
+
+    private UITaskScheduler.UITask newTask(final String name) {
+        return new UITaskScheduler.UITask() {
+            @Override
+            public void exec() {
+                mExecuted.add(name);
+            }
+        };
+    }
+
+    private static void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /**
+     * Commit a batch from a background thread, which is subject to back pressure.
+     */
+    private Thread commitInBackground(final UITaskScheduler scheduler, final String name,
+            final CountDownLatch committed) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.addTask(newTask(name));
+                scheduler.commitBatch();
+                committed.countDown();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void executeCommittedBatchOnly() {
+        UITaskScheduler scheduler = new UITaskScheduler(100);
+        scheduler.addTask(newTask("a1"));
+        scheduler.addTask(newTask("a2"));
+        scheduler.commitBatch();
+        scheduler.addTask(newTask("pending"));
+        assertTrue(mExecuted.isEmpty());
+        idleMainLooper();
+        assertEquals(Arrays.asList("a1", "a2"), mExecuted);
+        scheduler.commitBatch();
+        idleMainLooper();
+        assertEquals(Arrays.asList("a1", "a2", "pending"), mExecuted);
+    }
+
+    @Test
+    public void deferWholeBatchesToNextFrame() {
+        // Zero budget, only one batch can be executed in each frame.
+        UITaskScheduler scheduler = new UITaskScheduler(100, 0);
+        scheduler.addTask(newTask("a1"));
+        scheduler.addTask(newTask("a2"));
+        scheduler.addTask(newTask("a3"));
+        scheduler.commitBatch();
+        scheduler.addTask(newTask("b1"));
+        scheduler.addTask(newTask("b2"));
+        scheduler.commitBatch();
+        idleMainLooper();
+        // The first batch is never split even it exceeds the budget.
+        assertEquals(Arrays.asList("a1", "a2", "a3"), mExecuted);
+        shadowOf(Looper.getMainLooper()).idleFor(100, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList("a1", "a2", "a3", "b1", "b2"), mExecuted);
+        assertEquals(2, scheduler.getFrameCount());
+        assertEquals(3, scheduler.getMaxTasksPerFrame());
+        assertEquals(2, scheduler.getOverBudgetFrameCount());
+    }
+
+    @Test
+    public void postTaskAfterCommittedBatches() {
+        UITaskScheduler scheduler = new UITaskScheduler(100);
+        scheduler.addTask(newTask("committed"));
+        scheduler.commitBatch();
+        scheduler.addTask(newTask("pending"));
+        scheduler.postTask(newTask("posted"));
+        idleMainLooper();
+        assertEquals(Arrays.asList("committed", "posted"), mExecuted);
+    }
+
+    @Test
+    public void blockCommitUntilDrained() throws InterruptedException {
+        UITaskScheduler scheduler = new UITaskScheduler(2);
+        scheduler.addTask(newTask("a1"));
+        scheduler.addTask(newTask("a2"));
+        // Commit on ui thread is never blocked.
+        scheduler.commitBatch();
+        CountDownLatch committed = new CountDownLatch(1);
+        Thread thread = commitInBackground(scheduler, "b1", committed);
+        assertFalse(committed.await(100, TimeUnit.MILLISECONDS));
+        idleMainLooper();
+        assertTrue(committed.await(BACK_PRESSURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        thread.join();
+        idleMainLooper();
+        assertEquals(Arrays.asList("a1", "a2", "b1"), mExecuted);
+    }
+
+    @Test
+    public void stopBlockingAfterTimeout() throws InterruptedException {
+        UITaskScheduler scheduler = new UITaskScheduler(2);
+        scheduler.addTask(newTask("a1"));
+        scheduler.addTask(newTask("a2"));
+        scheduler.commitBatch();
+        CountDownLatch committed = new CountDownLatch(1);
+        long start = System.nanoTime();
+        Thread thread = commitInBackground(scheduler, "b1", committed);
+        assertTrue(committed.await(BACK_PRESSURE_TIMEOUT_MILLIS * 4, TimeUnit.MILLISECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsedMillis, elapsedMillis >= BACK_PRESSURE_TIMEOUT_MILLIS - 50);
+        thread.join();
+        // No work is dropped by the timeout.
+        idleMainLooper();
+        assertEquals(Arrays.asList("a1", "a2", "b1"), mExecuted);
+    }
+
+    @Test
+    public void destroyReleasesBlockedCommit() throws InterruptedException {
+        UITaskScheduler scheduler = new UITaskScheduler(1);
+        scheduler.addTask(newTask("a1"));
+        scheduler.commitBatch();
+        CountDownLatch committed = new CountDownLatch(1);
+        Thread thread = commitInBackground(scheduler, "b1", committed);
+        assertFalse(committed.await(100, TimeUnit.MILLISECONDS));
+        scheduler.destroy();
+        assertTrue(committed.await(BACK_PRESSURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        thread.join();
+        idleMainLooper();
+        assertTrue(mExecuted.isEmpty());
+    }
+}
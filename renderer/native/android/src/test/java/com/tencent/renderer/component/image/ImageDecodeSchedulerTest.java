@@ -0,0 +1,164 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.component.image;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImageDecodeSchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ImageDecodeScheduler mScheduler;
+    private final List<String> mRunOrder = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch mBlockerStarted = new CountDownLatch(1);
+    private final CountDownLatch mBlockerReleased = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        // Single worker, so the order of pending tasks is observable.
+        mScheduler = new ImageDecodeScheduler(1);
+    }
+
+    @After
+    public void tearDown() {
+        mBlockerReleased.countDown();
+        mScheduler.shutdown();
+    }
+
+    private class TestTask extends ImageDecodeScheduler.Task {
+
+        final String mName;
+        final CountDownLatch mDone;
+        volatile boolean mCancelled;
+
+        TestTask(String name, CountDownLatch done) {
+            mName = name;
+            mDone = done;
+        }
+
+        @Override
+        public void run() {
+            mRunOrder.add(mName);
+            mDone.countDown();
+        }
+
+        @Override
+        protected void onCancelled() {
+            mCancelled = true;
+            mDone.countDown();
+        }
+    }
+
+    private void occupyWorker() throws InterruptedException {
+        mScheduler.schedule(new ImageDecodeScheduler.Task() {
+            @Override
+            public void run() {
+                mBlockerStarted.countDown();
+                try {
+                    mBlockerReleased.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // Nothing to do.
+                }
+            }
+        }, 0);
+        assertTrue(mBlockerStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runByPriorityThenSubmitOrder() throws InterruptedException {
+        occupyWorker();
+        CountDownLatch done = new CountDownLatch(4);
+        mScheduler.schedule(new TestTask("prefetch", done), 2);
+        mScheduler.schedule(new TestTask("visible1", done), 0);
+        mScheduler.schedule(new TestTask("near", done), 1);
+        mScheduler.schedule(new TestTask("visible2", done), 0);
+        mBlockerReleased.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("visible1", "visible2", "near", "prefetch"),
+                mRunOrder);
+    }
+
+    @Test
+    public void updatePriority() throws InterruptedException {
+        occupyWorker();
+        CountDownLatch done = new CountDownLatch(3);
+        TestTask prefetch = new TestTask("prefetch", done);
+        mScheduler.schedule(new TestTask("near", done), 1);
+        mScheduler.schedule(prefetch, 2);
+        mScheduler.schedule(new TestTask("visible", done), 0);
+        // Raised to the same priority as visible, but submitted earlier.
+        mScheduler.updatePriority(prefetch, 0);
+        assertEquals(0, prefetch.getPriority());
+        // Lowering the priority has no effect.
+        mScheduler.updatePriority(prefetch, 2);
+        assertEquals(0, prefetch.getPriority());
+        mBlockerReleased.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("prefetch", "visible", "near"), mRunOrder);
+    }
+
+    @Test
+    public void cancelPendingTask() throws InterruptedException {
+        occupyWorker();
+        CountDownLatch done = new CountDownLatch(1);
+        TestTask cancelled = new TestTask("cancelled", new CountDownLatch(1));
+        mScheduler.schedule(cancelled, 0);
+        mScheduler.schedule(new TestTask("kept", done), 1);
+        assertTrue(mScheduler.cancel(cancelled));
+        assertFalse(mScheduler.cancel(cancelled));
+        mBlockerReleased.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("kept"), mRunOrder);
+        // Cancel by owner is not a shutdown, the task is not notified.
+        assertFalse(cancelled.mCancelled);
+    }
+
+    @Test
+    public void shutdownCancelsPendingTasks() throws InterruptedException {
+        occupyWorker();
+        CountDownLatch pendingDone = new CountDownLatch(2);
+        TestTask first = new TestTask("first", pendingDone);
+        TestTask second = new TestTask("second", pendingDone);
+        mScheduler.schedule(first, 0);
+        mScheduler.schedule(second, 1);
+        mScheduler.shutdown();
+        assertTrue(pendingDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(first.mCancelled);
+        assertTrue(second.mCancelled);
+
+        CountDownLatch lateDone = new CountDownLatch(1);
+        TestTask late = new TestTask("late", lateDone);
+        mScheduler.schedule(late, 0);
+        assertTrue(lateDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(late.mCancelled);
+
+        mBlockerReleased.countDown();
+        // Give the worker a chance to pick up anything left, nothing should run.
+        Thread.sleep(100);
+        assertTrue(mRunOrder.isEmpty());
+    }
+}
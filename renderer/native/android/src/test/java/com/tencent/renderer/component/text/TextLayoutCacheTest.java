@@ -0,0 +1,96 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.component.text;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import android.text.Layout;
+import com.tencent.renderer.component.text.TextLayoutCache.Key;
+import com.tencent.renderer.utils.FlexUtils.FlexMeasureMode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class TextLayoutCacheTest {
+
+    private static final String FINGERPRINT = "hello|16|#000000";
+
+    @Test
+    public void keyEqualsByFingerprint() {
+        Key key = new Key(FINGERPRINT, 100, FlexMeasureMode.EXACTLY);
+        Key same = new Key(new String(FINGERPRINT.toCharArray()), 100, FlexMeasureMode.EXACTLY);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertNotEquals(key, new Key(FINGERPRINT + "|bold", 100, FlexMeasureMode.EXACTLY));
+    }
+
+    @Test
+    public void keyCeilsWidth() {
+        Key key = new Key(FINGERPRINT, 99.2f, FlexMeasureMode.AT_MOST);
+        assertEquals(key, new Key(FINGERPRINT, 99.9f, FlexMeasureMode.AT_MOST));
+        assertEquals(key, new Key(FINGERPRINT, 100f, FlexMeasureMode.AT_MOST));
+        assertNotEquals(key, new Key(FINGERPRINT, 100.1f, FlexMeasureMode.AT_MOST));
+        assertNotEquals(key, new Key(FINGERPRINT, 99f, FlexMeasureMode.AT_MOST));
+    }
+
+    @Test
+    public void keyComparesMode() {
+        Key exactly = new Key(FINGERPRINT, 100, FlexMeasureMode.EXACTLY);
+        assertNotEquals(exactly, new Key(FINGERPRINT, 100, FlexMeasureMode.AT_MOST));
+        // Width is ignored in undefined mode.
+        Key undefined = new Key(FINGERPRINT, 100, FlexMeasureMode.UNDEFINED);
+        assertEquals(undefined, new Key(FINGERPRINT, 300, FlexMeasureMode.UNDEFINED));
+        assertNotEquals(undefined, exactly);
+        // Negative width is treated the same as undefined width.
+        assertEquals(new Key(FINGERPRINT, -1, FlexMeasureMode.AT_MOST),
+                new Key(FINGERPRINT, -5, FlexMeasureMode.AT_MOST));
+    }
+
+    @Test
+    public void getAndPut() {
+        TextLayoutCache cache = new TextLayoutCache(2);
+        Layout layout = mock(Layout.class);
+        Key key = new Key(FINGERPRINT, 100, FlexMeasureMode.EXACTLY);
+        assertNull(cache.get(key));
+        cache.put(key, layout);
+        assertSame(layout, cache.get(new Key(FINGERPRINT, 99.5f, FlexMeasureMode.EXACTLY)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5f, cache.getHitRatio(), 0.0001f);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        TextLayoutCache cache = new TextLayoutCache(2);
+        Key first = new Key("first", 100, FlexMeasureMode.EXACTLY);
+        Key second = new Key("second", 100, FlexMeasureMode.EXACTLY);
+        Key third = new Key("third", 100, FlexMeasureMode.EXACTLY);
+        cache.put(first, mock(Layout.class));
+        cache.put(second, mock(Layout.class));
+        assertNotNull(cache.get(first));
+        cache.put(third, mock(Layout.class));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(first));
+        assertNotNull(cache.get(third));
+        cache.clear();
+        assertNull(cache.get(first));
+    }
+}
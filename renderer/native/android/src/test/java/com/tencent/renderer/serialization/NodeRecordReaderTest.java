@@ -0,0 +1,119 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.renderer.serialization;
+
+import static org.junit.Assert.*;
+
+import com.tencent.mtt.hippy.serialization.nio.reader.SafeHeapReader;
+import com.tencent.mtt.hippy.serialization.nio.writer.SafeHeapWriter;
+import com.tencent.mtt.hippy.serialization.string.InternalizedStringTable;
+import com.tencent.renderer.NativeRenderException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class NodeRecordReaderTest {
+
+    private final SafeHeapWriter mSafeHeapWriter = new SafeHeapWriter();
+    private final Serializer mSerializer = new Serializer();
+    private final Deserializer mDeserializer = new Deserializer(null, new InternalizedStringTable());
+    private final SafeHeapReader mSafeHeapReader = new SafeHeapReader();
+    private final NodeRecordReader mReader = new NodeRecordReader(mDeserializer);
+
+    private ByteBuffer serialize(Object value) {
+        mSafeHeapWriter.reset();
+        mSerializer.setWriter(mSafeHeapWriter);
+        mSerializer.reset();
+        mSerializer.writeHeader();
+        mSerializer.writeValue(value);
+        return mSafeHeapWriter.chunked();
+    }
+
+    private int begin(ByteBuffer buffer) {
+        mSafeHeapReader.reset(buffer);
+        mDeserializer.setReader(mSafeHeapReader);
+        return mReader.begin();
+    }
+
+    private Map<String, Object> createNode(int id, int pid, int index, String name,
+            Map<String, Object> props) {
+        Map<String, Object> node = new HashMap<>();
+        node.put("id", id);
+        node.put("pId", pid);
+        node.put("index", index);
+        node.put("name", name);
+        node.put("extra", "ignored");
+        if (props != null) {
+            node.put("props", props);
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void readRecords() {
+        Map<String, Object> style = new HashMap<>();
+        style.put("width", 100);
+        Map<String, Object> props = new HashMap<>();
+        props.put("style", style);
+        props.put("text", "hello");
+        List<Object> nodes = new ArrayList<>();
+        nodes.add(createNode(1, 0, 0, "View", props));
+        nodes.add(createNode(2, 1, 0, "Text", null));
+        assertEquals(2, begin(serialize(nodes)));
+
+        assertTrue(mReader.next());
+        assertEquals(1, mReader.getNodeId());
+        assertEquals(0, mReader.getNodePid());
+        assertEquals(0, mReader.getNodeIndex());
+        assertEquals("View", mReader.getClassName());
+        Map<String, Object> readProps = mReader.getProps();
+        assertNotNull(readProps);
+        assertEquals("hello", readProps.get("text"));
+        assertEquals(100, ((Map<String, Object>) readProps.get("style")).get("width"));
+
+        assertTrue(mReader.next());
+        assertEquals(2, mReader.getNodeId());
+        assertEquals("Text", mReader.getClassName());
+        assertNull(mReader.getProps());
+        assertFalse(mReader.next());
+    }
+
+    @Test
+    public void emptyAndNonArrayBatch() {
+        assertEquals(0, begin(serialize(new ArrayList<>())));
+        assertFalse(mReader.next());
+        assertEquals(0, begin(serialize(new HashMap<String, Object>())));
+        assertFalse(mReader.next());
+    }
+
+    @Test
+    public void malformedRecord() {
+        List<Object> nodes = new ArrayList<>();
+        nodes.add("not a node object");
+        assertEquals(1, begin(serialize(nodes)));
+        try {
+            mReader.next();
+            fail("expected NativeRenderException");
+        } catch (NativeRenderException e) {
+            assertEquals(NativeRenderException.ExceptionCode.INVALID_NODE_DATA_ERR, e.mCode);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/* Tencent is pleased to support the open source community by making Hippy available.
+ * Copyright (C) 2018 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.renderer.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefixSumIndexTest {
+
+    private PrefixSumIndex mIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        mIndex = new PrefixSumIndex();
+        mIndex.reset(new int[]{10, 0, 20, 30, 5}, 5);
+    }
+
+    @Test
+    public void sumBefore() {
+        assertEquals(0, mIndex.sumBefore(0));
+        assertEquals(10, mIndex.sumBefore(1));
+        assertEquals(10, mIndex.sumBefore(2));
+        assertEquals(30, mIndex.sumBefore(3));
+        assertEquals(65, mIndex.sumBefore(5));
+        assertEquals(65, mIndex.sumBefore(100));
+        assertEquals(65, mIndex.total());
+    }
+
+    @Test
+    public void set() {
+        mIndex.set(1, 15);
+        assertEquals(25, mIndex.sumBefore(2));
+        assertEquals(80, mIndex.total());
+        assertEquals(15, mIndex.get(1));
+        mIndex.set(5, 100);
+        assertEquals(80, mIndex.total());
+    }
+
+    @Test
+    public void findIndexByOffset() {
+        assertEquals(0, mIndex.findIndexByOffset(-1));
+        assertEquals(0, mIndex.findIndexByOffset(0));
+        assertEquals(0, mIndex.findIndexByOffset(9));
+        assertEquals(2, mIndex.findIndexByOffset(10));
+        assertEquals(3, mIndex.findIndexByOffset(30));
+        assertEquals(4, mIndex.findIndexByOffset(64));
+        assertEquals(-1, mIndex.findIndexByOffset(65));
+    }
+
+    @Test
+    public void matchesLinearSum() {
+        Random random = new Random(0);
+        int size = 1000;
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(200);
+        }
+        mIndex.reset(values, size);
+        for (int k = 0; k < 500; k++) {
+            int index = random.nextInt(size);
+            values[index] = random.nextInt(200);
+            mIndex.set(index, values[index]);
+        }
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(sum, mIndex.sumBefore(i));
+            int offset = sum + random.nextInt(Math.max(1, values[i]));
+            if (values[i] > 0) {
+                assertEquals(i, mIndex.findIndexByOffset(offset));
+            }
+            sum += values[i];
+        }
+        assertEquals(sum, mIndex.total());
+    }
+}